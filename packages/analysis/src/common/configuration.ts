@@ -63,6 +63,7 @@ export type Configuration = {
   allowTsParserJsFiles: boolean;
   analysisMode: AnalysisMode;
   skipAst: boolean;
+  topLevelAst: boolean;
   ignoreHeaderComments: boolean /* sonar.javascript.ignoreHeaderComments - True to not count file header comments in comment metrics */;
   maxFileSize: number /* sonar.javascript.maxFileSize - Threshold for the maximum size of analyzed files (in kilobytes) */;
   environments: string[] /* sonar.javascript.environments */;
@@ -100,6 +101,7 @@ export type ConfigurationInput = {
   allowTsParserJsFiles?: boolean;
   analysisMode?: AnalysisMode;
   skipAst?: boolean;
+  topLevelAst?: boolean;
   ignoreHeaderComments?: boolean;
   maxFileSize?: number;
   environments?: string[];
@@ -141,6 +143,7 @@ const VUE_TS_REGEX = /<script[^>]+lang=['"]ts['"][^>]*>/;
 const DEFAULT_ALLOW_TS_PARSER_JS_FILES = true;
 const DEFAULT_ANALYSIS_MODE: AnalysisMode = 'DEFAULT';
 const DEFAULT_SKIP_AST = true;
+const DEFAULT_TOP_LEVEL_AST = false;
 const DEFAULT_IGNORE_HEADER_COMMENTS = true;
 
 const DEFAULT_EXCLUSIONS = [
@@ -248,6 +251,7 @@ export function createConfiguration(raw: unknown): Configuration {
     allowTsParserJsFiles: getOptionalValue(raw, 'allowTsParserJsFiles', isBoolean),
     analysisMode: getOptionalValue(raw, 'analysisMode', isAnalysisMode),
     skipAst: getOptionalValue(raw, 'skipAst', isBoolean),
+    topLevelAst: getOptionalValue(raw, 'topLevelAst', isBoolean),
     ignoreHeaderComments: getOptionalValue(raw, 'ignoreHeaderComments', isBoolean),
     maxFileSize: getOptionalValue(raw, 'maxFileSize', isNumber),
     environments: getOptionalValue(raw, 'environments', isStringArray),
@@ -300,6 +304,7 @@ export function createConfigurationFromInput(input: ConfigurationInput): Configu
     allowTsParserJsFiles: input.allowTsParserJsFiles ?? DEFAULT_ALLOW_TS_PARSER_JS_FILES,
     analysisMode: input.analysisMode ?? DEFAULT_ANALYSIS_MODE,
     skipAst: input.skipAst ?? DEFAULT_SKIP_AST,
+    topLevelAst: input.topLevelAst ?? DEFAULT_TOP_LEVEL_AST,
     ignoreHeaderComments: input.ignoreHeaderComments ?? DEFAULT_IGNORE_HEADER_COMMENTS,
     maxFileSize: input.maxFileSize ?? DEFAULT_MAX_FILE_SIZE_KB,
     environments: input.environments ?? DEFAULT_ENVIRONMENTS,
@@ -641,6 +646,7 @@ export type JsTsConfigFields = {
   ignoreHeaderComments: boolean;
   clearDependenciesCache: boolean;
   skipAst: boolean;
+  topLevelAst: boolean;
   sonarlint: boolean;
   shouldIgnoreParams: FilterFileParams;
   createTSProgramForOrphanFiles: boolean;
@@ -663,6 +669,7 @@ export function getJsTsConfigFields(configuration: Configuration): JsTsConfigFie
     ignoreHeaderComments: configuration.ignoreHeaderComments,
     clearDependenciesCache: configuration.clearDependenciesCache,
     skipAst: configuration.skipAst,
+    topLevelAst: configuration.topLevelAst,
     sonarlint: configuration.sonarlint,
     shouldIgnoreParams: getShouldIgnoreParams(configuration),
     createTSProgramForOrphanFiles: configuration.createTSProgramForOrphanFiles,
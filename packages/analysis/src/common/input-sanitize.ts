@@ -119,6 +119,7 @@ export async function sanitizeProjectAnalysisInput(
 export type ProjectAnalysisFileInput = {
   filePath: string;
   fileContent?: string;
+  fileCharset?: string;
   fileType?: FileType;
   fileStatus?: FileStatus;
 };
@@ -145,7 +146,8 @@ export async function sanitizeInputFiles(
 
   for (const [key, fileInput] of Object.entries(inputFiles)) {
     const filePath = normalizeToAbsolutePath(fileInput.filePath, baseDir);
-    const fileContent = fileInput.fileContent ?? (await readFile(filePath));
+    const fileContent =
+      fileInput.fileContent ?? (await readFile(filePath, fileInput.fileCharset));
     let rawFileType: FileType | undefined = fileInput.fileType;
     if (rawFileType !== 'TEST') {
       // We cannot trust the caller to provide the correct fileType, so we attempt to infer it from the file path if not explicitly set to 'TEST'.
@@ -195,6 +197,7 @@ export async function sanitizeRawInputFiles(
     typedFiles[key] = {
       filePath: rawFile.filePath,
       fileContent: isString(rawFile.fileContent) ? rawFile.fileContent : undefined,
+      fileCharset: isString(rawFile.fileCharset) ? rawFile.fileCharset : undefined,
       fileType: isFileType(rawFile.fileType) ? rawFile.fileType : undefined,
       fileStatus: isFileStatus(rawFile.fileStatus) ? rawFile.fileStatus : undefined,
     };
@@ -46,6 +46,7 @@ import type { CssIssue } from '../../css/linter/issues/issue.js';
  * @param tsConfigs a list of normalized absolute paths to TSConfig files
  * @param program an optional pre-created TypeScript Program instance
  * @param skipAst whether to skip AST serialization in the output
+ * @param topLevelAst whether to serialize only top-level statements, leaving function bodies empty
  * @param clearDependenciesCache whether to clear the dependencies cache before analysis
  */
 export interface JsTsAnalysisInput extends AnalysisInput {
@@ -58,6 +59,7 @@ export interface JsTsAnalysisInput extends AnalysisInput {
   tsConfigs: NormalizedAbsolutePath[];
   program?: Program;
   skipAst: boolean;
+  topLevelAst?: boolean;
   clearDependenciesCache: boolean;
   reportNclocForTestFiles: boolean;
   detectedEsYear?: number;
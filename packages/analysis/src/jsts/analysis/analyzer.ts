@@ -120,7 +120,7 @@ export async function analyzeJSTS(input: JsTsAnalysisInput): Promise<JsTsAnalysi
   };
 
   if (!input.skipAst) {
-    const ast = serializeAst(parseResult.sourceCode, filePath);
+    const ast = serializeAst(parseResult.sourceCode, filePath, input.topLevelAst);
     if (ast) {
       return {
         ast,
@@ -157,9 +157,16 @@ export async function analyzeJSTSProject(
   }
 }
 
-function serializeAst(sourceCode: SourceCode, filePath: NormalizedAbsolutePath) {
+function serializeAst(
+  sourceCode: SourceCode,
+  filePath: NormalizedAbsolutePath,
+  topLevelOnly = false,
+) {
   try {
-    return serializeInProtobuf(sourceCode.ast as TSESTree.Program, filePath);
+    return serializeInProtobuf(sourceCode.ast as TSESTree.Program, filePath, {
+      topLevelOnly,
+      stringTable: true,
+    });
   } catch {
     info(`Failed to serialize AST for file "${filePath}"`);
     return null;
@@ -27,13 +27,36 @@ const NodeType = estree.NodeType;
 export { NodeType };
 const unsupportedNodeTypes = new Map<string, number>();
 const AST_PROTOBUF_RECURSION_LIMIT = 300;
+export type SerializationOptions = {
+  /**
+   * Serializes function bodies empty: consumers only see top-level declarations.
+   */
+  topLevelOnly?: boolean;
+  /**
+   * Replaces identifier names and literal raw values by their index in a string table stored on the
+   * program, so that repeated strings are only sent and decoded once per file.
+   */
+  stringTable?: boolean;
+};
+
+let pruneFunctionBodies = false;
+let stringTable: Map<string, number> | undefined;
 
 export function serializeInProtobuf(
   ast: TSESTree.Program,
   filePath: NormalizedAbsolutePath,
+  options: SerializationOptions = {},
 ): string {
   unsupportedNodeTypes.clear();
-  const protobufAST = parseInProtobuf(ast);
+  pruneFunctionBodies = options.topLevelOnly ?? false;
+  stringTable = options.stringTable ? new Map() : undefined;
+  let protobufAST: estree.INode;
+  try {
+    protobufAST = parseInProtobuf(ast);
+  } finally {
+    pruneFunctionBodies = false;
+    stringTable = undefined;
+  }
   if (unsupportedNodeTypes.size > 0) {
     debug(
       `Not supported syntax nodes in file "${filePath}": ` +
@@ -444,12 +467,29 @@ function normalizeSourceLocation(loc: TSESTree.SourceLocation) {
 }
 
 function visitProgram(node: TSESTree.Program) {
+  const body = node.body.map(visitNode);
   return {
     sourceType: node.sourceType,
-    body: node.body.map(visitNode),
+    body,
+    ...(stringTable && { strings: Array.from(stringTable.keys()) }),
   };
 }
 
+/**
+ * Index of the string in the string table of the program, when there is one.
+ */
+function stringIndex(value: string) {
+  if (!stringTable) {
+    return undefined;
+  }
+  let index = stringTable.get(value);
+  if (index === undefined) {
+    index = stringTable.size;
+    stringTable.set(value, index);
+  }
+  return index;
+}
+
 function visitExportAllDeclaration(node: TSESTree.ExportAllDeclaration) {
   return {
     exported: visitNode(node.exported),
@@ -462,20 +502,25 @@ function visitLiteral(node: TSESTree.Literal) {
     return {
       value: node.value,
       bigInt: node.bigint,
-      raw: node.raw,
+      ...visitRaw(node.raw),
     };
   } else if ('regex' in node) {
     return {
       flags: node.regex.flags,
       pattern: node.regex.pattern,
-      raw: node.raw,
+      ...visitRaw(node.raw),
     };
   } else {
     // simple literal
-    return { raw: node.raw, ...translateValue(node.value) };
+    return { ...visitRaw(node.raw), ...translateValue(node.value) };
   }
 }
 
+function visitRaw(raw: string) {
+  const rawIndex = stringIndex(raw);
+  return rawIndex === undefined ? { raw } : { rawIndex };
+}
+
 function translateValue(value: string | number | boolean | null) {
   if (typeof value === 'string') {
     return { valueString: value };
@@ -493,9 +538,8 @@ function translateValue(value: string | number | boolean | null) {
 }
 
 function visitIdentifier(node: TSESTree.Identifier) {
-  return {
-    name: node.name,
-  };
+  const nameIndex = stringIndex(node.name);
+  return nameIndex === undefined ? { name: node.name } : { nameIndex };
 }
 
 function visitExportDefaultDeclaration(node: TSESTree.ExportDefaultDeclaration) {
@@ -683,7 +727,7 @@ function visitClassBody(node: TSESTree.ClassBody) {
 
 function visitStaticBlock(node: TSESTree.StaticBlock) {
   return {
-    body: node.body.map(visitNode),
+    body: pruneFunctionBodies ? [] : node.body.map(visitNode),
   };
 }
 
@@ -745,13 +789,34 @@ function visitAssignmentExpression(node: TSESTree.AssignmentExpression) {
 function visitArrowFunctionExpression(node: TSESTree.ArrowFunctionExpression) {
   return {
     expression: node.expression,
-    body: visitNode(node.body),
+    body: visitFunctionBody(node.body),
     params: node.params.map(visitNode),
     generator: node.generator,
     async: node.async,
   };
 }
 
+/**
+ * Serializes the body of a function. In top-level mode, block bodies are kept as empty blocks and
+ * expression bodies become unknown nodes, so that the enclosing function keeps a valid shape.
+ */
+function visitFunctionBody(body: TSESTree.BlockStatement | TSESTree.Expression) {
+  if (!pruneFunctionBodies) {
+    return visitNode(body);
+  }
+  if (body.type === 'BlockStatement') {
+    return {
+      type: NodeType.BlockStatementType,
+      loc: normalizeSourceLocation(body.loc),
+      blockStatement: { body: [] },
+    };
+  }
+  return {
+    type: NodeType.UnknownNodeType,
+    loc: normalizeSourceLocation(body.loc),
+  };
+}
+
 function visitArrayExpression(node: TSESTree.ArrayExpression) {
   // When an entry is empty, it is represented as null in the array.
   return {
@@ -778,7 +843,7 @@ function visitClassDeclaration(node: TSESTree.ClassDeclaration) {
 function visitFunctionDeclaration(node: TSESTree.FunctionDeclaration) {
   return {
     id: visitNode(node.id),
-    body: visitNode(node.body),
+    body: visitFunctionBody(node.body),
     params: node.params.map(visitNode),
     generator: node.generator,
     async: node.async,
@@ -987,7 +1052,7 @@ function visitTemplateElement(node: TSESTree.TemplateElement) {
 function visitFunctionExpression(node: TSESTree.FunctionExpression) {
   return {
     id: visitNode(node.id),
-    body: visitNode(node.body),
+    body: visitFunctionBody(node.body),
     params: node.params.map(visitNode),
     generator: node.generator,
     async: node.async,
@@ -113,6 +113,48 @@ describe('ast', () => {
       const deserializedProtoMessage = deserializeProtobuf(serialized);
       compareASTs(protoMessage, deserializedProtoMessage);
     });
+
+    test('should leave function bodies empty when serializing top-level only', async () => {
+      const code = `function foo() { bar(); }\nconst baz = () => qux;\nfoo();`;
+      const ast = (await parseSourceCode(code, parsersMap.typescript)) as TSESTree.Program;
+      const filePath = normalizeToAbsolutePath('/tmp/file.js');
+      const deserialized = deserializeProtobuf(
+        serializeInProtobuf(ast, filePath, { topLevelOnly: true }),
+      ) as any;
+
+      const [functionDeclaration, variableDeclaration, expressionStatement] =
+        deserialized.program.body;
+      expect(functionDeclaration.functionDeclaration.id.identifier.name).toEqual('foo');
+      expect(functionDeclaration.functionDeclaration.body.type).toEqual(
+        NodeType.BlockStatementType,
+      );
+      expect(functionDeclaration.functionDeclaration.body.blockStatement.body).toEqual([]);
+      const arrow = variableDeclaration.variableDeclaration.declarations[0].variableDeclarator.init;
+      expect(arrow.arrowFunctionExpression.body.type).toEqual(NodeType.UnknownNodeType);
+      expect(expressionStatement.type).toEqual(NodeType.ExpressionStatementType);
+
+      const full = deserializeProtobuf(serializeInProtobuf(ast, filePath)) as any;
+      expect(full.program.body[0].functionDeclaration.body.blockStatement.body).toHaveLength(1);
+    });
+
+    test('should reference repeated strings from the program string table', async () => {
+      const code = `foo(foo, 'bar', 'bar');`;
+      const ast = (await parseSourceCode(code, parsersMap.typescript)) as TSESTree.Program;
+      const filePath = normalizeToAbsolutePath('/tmp/file.js');
+      const deserialized = deserializeProtobuf(
+        serializeInProtobuf(ast, filePath, { stringTable: true }),
+      ) as any;
+
+      expect(deserialized.program.strings).toEqual(['foo', "'bar'"]);
+      const call = deserialized.program.body[0].expressionStatement.expression.callExpression;
+      expect(call.callee.identifier.nameIndex).toEqual(0);
+      expect(call.callee.identifier.name).toEqual('');
+      const [identifier, first, second] = call.arguments;
+      expect(identifier.identifier.nameIndex).toEqual(0);
+      expect(first.literal.rawIndex).toEqual(1);
+      expect(second.literal.rawIndex).toEqual(1);
+      expect(second.literal.valueString).toEqual('bar');
+    });
   });
   test('should support TSAsExpression nodes', async () => {
     const code = `const foo = '5' as string;`;
@@ -0,0 +1,128 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+
+import { closeSync, ftruncateSync, openSync, writeSync } from 'node:fs';
+import path from 'node:path';
+import { threadId } from 'node:worker_threads';
+import type { sonarjs } from './proto/analyze-project.js';
+import { debug } from '../../shared/src/helpers/logging.js';
+
+type ProjectAnalysisFileResult = sonarjs.analyzeproject.v1.IProjectAnalysisFileResult;
+
+/**
+ * ASTs below this size are sent inline: copying them through gRPC is cheaper than having the
+ * client map a file region.
+ */
+export const MIN_TRANSFERRED_AST_SIZE = 64 * 1024;
+
+/**
+ * Space reserved in every transfer file, so that the client maps each file once. The files are
+ * sparse where the file system supports it, and the next file is opened once one is full.
+ */
+export const AST_TRANSFER_FILE_CAPACITY = 64 * 1024 * 1024;
+
+let transferFileCount = 0;
+
+/**
+ * Files of the client-provided transfer directory where the ASTs of one analysis are written.
+ * The client maps the regions it receives instead of reading the ASTs from gRPC messages, and
+ * deletes the directory once the analysis is done.
+ */
+export class AstTransferFile {
+  private fd: number;
+  private offset = 0;
+  private failed = false;
+  filePath: string;
+
+  constructor(
+    private readonly directory: string,
+    private readonly capacity = AST_TRANSFER_FILE_CAPACITY,
+  ) {
+    this.filePath = this.nextFilePath();
+    this.fd = this.open(this.filePath);
+  }
+
+  /**
+   * Writes the AST to the transfer file, or leaves it inline once the file cannot be written.
+   */
+  write(ast: Uint8Array): Pick<ProjectAnalysisFileResult, 'ast' | 'astRegion'> {
+    if (this.failed || ast.length > this.capacity) {
+      return { ast };
+    }
+    try {
+      if (this.offset + ast.length > this.capacity) {
+        this.rotate();
+      }
+      let written = 0;
+      while (written < ast.length) {
+        written += writeSync(this.fd, ast, written, ast.length - written, this.offset + written);
+      }
+    } catch (e) {
+      this.failed = true;
+      debug(`Sending ASTs inline, failed to write the transfer file "${this.filePath}": ${e}`);
+      return { ast };
+    }
+    const astRegion = { path: this.filePath, offset: this.offset, length: ast.length };
+    this.offset += ast.length;
+    return { astRegion };
+  }
+
+  close() {
+    closeSync(this.fd);
+  }
+
+  private rotate() {
+    const filePath = this.nextFilePath();
+    const fd = this.open(filePath);
+    closeSync(this.fd);
+    this.fd = fd;
+    this.filePath = filePath;
+    this.offset = 0;
+  }
+
+  private open(filePath: string) {
+    const fd = openSync(filePath, 'w');
+    try {
+      ftruncateSync(fd, this.capacity);
+    } catch (e) {
+      closeSync(fd);
+      throw e;
+    }
+    return fd;
+  }
+
+  private nextFilePath() {
+    const fileName = `asts-${process.pid}-${threadId}-${transferFileCount++}.bin`;
+    return path.join(this.directory, fileName);
+  }
+}
+
+/**
+ * Opens a transfer file in the directory requested by the client, if any. ASTs are sent inline
+ * when the file cannot be created.
+ */
+export function openAstTransferFile(directory: string | null | undefined) {
+  if (!directory) {
+    return undefined;
+  }
+  try {
+    return new AstTransferFile(directory);
+  } catch (e) {
+    debug(`Sending ASTs inline, failed to create a transfer file in "${directory}": ${e}`);
+    return undefined;
+  }
+}
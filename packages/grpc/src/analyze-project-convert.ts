@@ -41,6 +41,7 @@ import type {
 } from '../../analysis/src/jsts/analysis/file-artifacts.js';
 import { ErrorCode } from '../../analysis/src/contracts/error.js';
 import { sonarjs } from './proto/analyze-project.js';
+import { type AstTransferFile, MIN_TRANSFERRED_AST_SIZE } from './analyze-project-ast-transfer.js';
 
 type AnalyzeProjectStreamResponse = sonarjs.analyzeproject.v1.IAnalyzeProjectStreamResponse;
 type AnalyzeProjectUnaryResponse = sonarjs.analyzeproject.v1.IAnalyzeProjectUnaryResponse;
@@ -78,13 +79,14 @@ export function toAnalyzeProjectUnaryResponse(
 export function toAnalyzeProjectStreamResponse(
   result: WsIncrementalResult,
   pathMap: AnalyzeProjectPathMap = new Map(),
+  astTransfer?: AstTransferFile,
 ): AnalyzeProjectStreamResponse {
   switch (result.messageType) {
     case 'fileResult':
       return {
         fileResult: {
           filePath: restorePath(result.filename, pathMap),
-          result: toProjectAnalysisFileResult(result, pathMap),
+          result: toProjectAnalysisFileResult(result, pathMap, astTransfer),
         },
       };
     case 'meta':
@@ -113,6 +115,7 @@ function restorePath(filePath: string | undefined, pathMap: AnalyzeProjectPathMa
 function toProjectAnalysisFileResult(
   result: FileResult,
   pathMap: AnalyzeProjectPathMap,
+  astTransfer?: AstTransferFile,
 ): ProjectAnalysisFileResult {
   if ('error' in result) {
     return {
@@ -135,11 +138,25 @@ function toProjectAnalysisFileResult(
       ) ?? [],
     metrics: result.metrics ? toMetrics(result.metrics) : undefined,
     cpdTokens: ('cpdTokens' in result ? result.cpdTokens : undefined)?.map(toCpdToken) ?? [],
-    ast: 'ast' in result && result.ast != null ? Buffer.from(result.ast, 'base64') : undefined,
+    ...toAst('ast' in result ? result.ast : undefined, astTransfer),
     sonarResolveComments: (result.sonarResolveComments ?? []).map(toSonarResolveComment),
   };
 }
 
+function toAst(
+  ast: string | null | undefined,
+  astTransfer: AstTransferFile | undefined,
+): Pick<ProjectAnalysisFileResult, 'ast' | 'astRegion'> {
+  if (ast == null) {
+    return { ast: undefined };
+  }
+  const bytes = Buffer.from(ast, 'base64');
+  if (astTransfer && bytes.length >= MIN_TRANSFERRED_AST_SIZE) {
+    return astTransfer.write(bytes);
+  }
+  return { ast: bytes };
+}
+
 function toProjectAnalysisMeta(meta: {
   warnings: string[];
   telemetry?: ProjectAnalysisTelemetry;
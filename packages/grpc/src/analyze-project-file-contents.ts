@@ -0,0 +1,48 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+import { createHash } from 'node:crypto';
+import { debug } from '../../shared/src/helpers/logging.js';
+import { normalizeToAbsolutePath, readFile } from '../../shared/src/helpers/files.js';
+import type { CheckFileContentsRequest } from './analyze-project-server-grpc.js';
+
+/**
+ * Compares the files on disk with the contents the client expects, so that the client only has to
+ * send the contents that differ, like unsaved editor buffers.
+ *
+ * @param files the expected charset and content digest by file path
+ * @returns the paths of the files that differ or cannot be read
+ */
+export async function findMismatchedFileContents(
+  files: CheckFileContentsRequest['files'],
+): Promise<string[]> {
+  const entries = Object.entries(files ?? {});
+  const matches = await Promise.all(
+    entries.map(async ([filePath, expected]) => {
+      try {
+        const content = await readFile(
+          normalizeToAbsolutePath(filePath),
+          expected.charset || undefined,
+        );
+        return createHash('md5').update(content, 'utf8').digest('hex') === expected.md5;
+      } catch (e) {
+        debug(`Failed to read ${filePath} to check its content: ${e}`);
+        return false;
+      }
+    }),
+  );
+  return entries.filter((_, index) => !matches[index]).map(([filePath]) => filePath);
+}
@@ -90,6 +90,7 @@ function createConfigurationFromProto(configuration: ProjectConfiguration | null
     allowTsParserJsFiles: optionalBoolean(configuration.allowTsParserJsFiles),
     analysisMode: normalizeAnalysisMode(configuration.analysisMode),
     skipAst: optionalBoolean(configuration.skipAst),
+    topLevelAst: optionalBoolean(configuration.topLevelAst),
     ignoreHeaderComments: optionalBoolean(configuration.ignoreHeaderComments),
     maxFileSize: toOptionalNumber(configuration.maxFileSize, 'configuration.max_file_size'),
     environments: stringListValues(configuration.environments),
@@ -145,6 +146,7 @@ function normalizeProtoInputFiles(
     normalizedFiles[filePathKey] = {
       filePath: filePathKey,
       fileContent: optionalString(fileInput?.fileContent),
+      fileCharset: optionalString(fileInput?.fileCharset),
       fileType: normalizeFileType(fileInput?.fileType),
       fileStatus: normalizeFileStatus(fileInput?.fileStatus),
     };
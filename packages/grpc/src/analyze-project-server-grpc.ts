@@ -27,6 +27,8 @@ export const GRPC_SERVER_OPTIONS: grpc.ServerOptions = {
 };
 
 export type AnalyzeProjectRequest = analyzeProjectProto.analyzeproject.v1.IAnalyzeProjectRequest;
+export type AnalyzeProjectStreamRequest =
+  analyzeProjectProto.analyzeproject.v1.IAnalyzeProjectStreamRequest;
 export type AnalyzeProjectStreamResponse =
   analyzeProjectProto.analyzeproject.v1.IAnalyzeProjectStreamResponse;
 export type AnalyzeProjectUnaryResponse =
@@ -35,6 +37,12 @@ export type CancelAnalysisRequest = analyzeProjectProto.analyzeproject.v1.ICance
 export type CancelAnalysisResponse = analyzeProjectProto.analyzeproject.v1.ICancelAnalysisResponse;
 export type LeaseRequest = analyzeProjectProto.analyzeproject.v1.ILeaseRequest;
 export type LeaseResponse = analyzeProjectProto.analyzeproject.v1.ILeaseResponse;
+export type RuntimeStatusRequest = analyzeProjectProto.analyzeproject.v1.IRuntimeStatusRequest;
+export type RuntimeStatusResponse = analyzeProjectProto.analyzeproject.v1.IRuntimeStatusResponse;
+export type CheckFileContentsRequest =
+  analyzeProjectProto.analyzeproject.v1.ICheckFileContentsRequest;
+export type CheckFileContentsResponse =
+  analyzeProjectProto.analyzeproject.v1.ICheckFileContentsResponse;
 
 export function createAnalyzeProjectServiceDefinition(): grpc.ServiceDefinition {
   return {
@@ -55,6 +63,23 @@ export function createAnalyzeProjectServiceDefinition(): grpc.ServiceDefinition
       responseDeserialize: (buffer: Buffer) =>
         analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamResponse.decode(buffer),
     },
+    AnalyzeProjectStream: {
+      path: `/${ANALYZE_PROJECT_SERVICE_NAME}/AnalyzeProjectStream`,
+      requestStream: true,
+      responseStream: true,
+      requestSerialize: (value: AnalyzeProjectStreamRequest) =>
+        Buffer.from(
+          analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamRequest.encode(value).finish(),
+        ),
+      requestDeserialize: (buffer: Buffer) =>
+        analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamRequest.decode(buffer),
+      responseSerialize: (value: AnalyzeProjectStreamResponse) =>
+        Buffer.from(
+          analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamResponse.encode(value).finish(),
+        ),
+      responseDeserialize: (buffer: Buffer) =>
+        analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamResponse.decode(buffer),
+    },
     AnalyzeProjectUnary: {
       path: `/${ANALYZE_PROJECT_SERVICE_NAME}/AnalyzeProjectUnary`,
       requestStream: false,
@@ -102,6 +127,40 @@ export function createAnalyzeProjectServiceDefinition(): grpc.ServiceDefinition
       responseDeserialize: (buffer: Buffer) =>
         analyzeProjectProto.analyzeproject.v1.LeaseResponse.decode(buffer),
     },
+    RuntimeStatus: {
+      path: `/${ANALYZE_PROJECT_SERVICE_NAME}/RuntimeStatus`,
+      requestStream: false,
+      responseStream: false,
+      requestSerialize: (value: RuntimeStatusRequest) =>
+        Buffer.from(
+          analyzeProjectProto.analyzeproject.v1.RuntimeStatusRequest.encode(value).finish(),
+        ),
+      requestDeserialize: (buffer: Buffer) =>
+        analyzeProjectProto.analyzeproject.v1.RuntimeStatusRequest.decode(buffer),
+      responseSerialize: (value: RuntimeStatusResponse) =>
+        Buffer.from(
+          analyzeProjectProto.analyzeproject.v1.RuntimeStatusResponse.encode(value).finish(),
+        ),
+      responseDeserialize: (buffer: Buffer) =>
+        analyzeProjectProto.analyzeproject.v1.RuntimeStatusResponse.decode(buffer),
+    },
+    CheckFileContents: {
+      path: `/${ANALYZE_PROJECT_SERVICE_NAME}/CheckFileContents`,
+      requestStream: false,
+      responseStream: false,
+      requestSerialize: (value: CheckFileContentsRequest) =>
+        Buffer.from(
+          analyzeProjectProto.analyzeproject.v1.CheckFileContentsRequest.encode(value).finish(),
+        ),
+      requestDeserialize: (buffer: Buffer) =>
+        analyzeProjectProto.analyzeproject.v1.CheckFileContentsRequest.decode(buffer),
+      responseSerialize: (value: CheckFileContentsResponse) =>
+        Buffer.from(
+          analyzeProjectProto.analyzeproject.v1.CheckFileContentsResponse.encode(value).finish(),
+        ),
+      responseDeserialize: (buffer: Buffer) =>
+        analyzeProjectProto.analyzeproject.v1.CheckFileContentsResponse.decode(buffer),
+    },
   };
 }
 
@@ -114,10 +173,12 @@ export function toGrpcError(message: string, code = grpc.status.INTERNAL): grpc.
   return error;
 }
 
+export type AnalyzeProjectResponseCall =
+  | grpc.ServerWritableStream<AnalyzeProjectRequest, AnalyzeProjectStreamResponse>
+  | grpc.ServerDuplexStream<AnalyzeProjectStreamRequest, AnalyzeProjectStreamResponse>;
+
 export function failStreamingCall(
-  call:
-    | grpc.ServerWritableStream<AnalyzeProjectRequest, AnalyzeProjectStreamResponse>
-    | grpc.ServerDuplexStream<LeaseRequest, LeaseResponse>,
+  call: AnalyzeProjectResponseCall | grpc.ServerDuplexStream<LeaseRequest, LeaseResponse>,
   error: grpc.ServiceError,
 ) {
   call.emit('error', error);
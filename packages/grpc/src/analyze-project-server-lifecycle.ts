@@ -33,6 +33,7 @@ import type {
 } from './analyze-project-worker/messages.js';
 
 const WORKER_RESPONSE_TIMEOUT_MS = 15_000;
+const IDLE_SHUTDOWN_CHECK_INTERVAL_MS = 10_000;
 
 type HandleRequestInCurrentThread = (
   request: AnalyzeProjectRuntimeRequest,
@@ -41,6 +42,8 @@ type HandleRequestInCurrentThread = (
 
 type AnalyzeProjectServerState = {
   analysisInProgress: boolean;
+  idleShutdownInterval: NodeJS.Timeout | null;
+  lastActivity: number;
   leaseCall: grpc.ServerDuplexStream<LeaseRequest, LeaseResponse> | null;
   nextWorkerRequestId: number;
   shuttingDown: boolean;
@@ -50,11 +53,22 @@ type AnalyzeProjectServerState = {
 type AnalyzeProjectServerLifecycle = {
   scheduleStartupShutdownTimeout: () => void;
   clearStartupShutdownTimeout: () => void;
+  scheduleIdleShutdown: () => void;
   requestCancel: () => Promise<boolean>;
   shutdown: (reason: string) => Promise<void>;
 };
 
+/**
+ * Daemon mode: the runtime outlives the analysis that started it and is shared by later ones,
+ * until it has been idle for `idleTimeout` milliseconds.
+ */
+export type AnalyzeProjectDaemonOptions = {
+  id: string;
+  idleTimeout: number;
+};
+
 type AnalyzeProjectServerDependencies = {
+  daemon?: AnalyzeProjectDaemonOptions;
   handleRequestInCurrentThread: HandleRequestInCurrentThread;
   newWorkerRequestId: () => string;
   resolveClosed: () => void;
@@ -66,6 +80,7 @@ type AnalyzeProjectServerDependencies = {
 };
 
 export type AnalyzeProjectImplementationDependencies = {
+  daemon?: AnalyzeProjectDaemonOptions;
   handleRequestInCurrentThread: HandleRequestInCurrentThread;
   lifecycle: AnalyzeProjectServerLifecycle;
   newWorkerRequestId: () => string;
@@ -126,6 +141,8 @@ export async function waitForWorkerCompletion(
 export function createServerState(): AnalyzeProjectServerState {
   return {
     analysisInProgress: false,
+    idleShutdownInterval: null,
+    lastActivity: Date.now(),
     leaseCall: null,
     nextWorkerRequestId: 0,
     shuttingDown: false,
@@ -140,6 +157,14 @@ export function createHandleRequestInCurrentThread(
     handleAnalyzeProjectRequest(request, workerData, incrementalResultsChannel);
 }
 
+/**
+ * Marks the start or the end of an analysis, which resets the daemon idle timeout.
+ */
+export function setAnalysisInProgress(state: AnalyzeProjectServerState, inProgress: boolean) {
+  state.analysisInProgress = inProgress;
+  state.lastActivity = Date.now();
+}
+
 export function getNextWorkerRequestId(state: AnalyzeProjectServerState): string {
   state.nextWorkerRequestId += 1;
   return String(state.nextWorkerRequestId);
@@ -199,7 +224,15 @@ async function closeWorker(worker?: Worker) {
   }
 }
 
+function clearIdleShutdown(state: AnalyzeProjectServerState) {
+  if (state.idleShutdownInterval) {
+    clearInterval(state.idleShutdownInterval);
+    state.idleShutdownInterval = null;
+  }
+}
+
 export function createLifecycle({
+  daemon,
   handleRequestInCurrentThread,
   newWorkerRequestId,
   resolveClosed,
@@ -247,6 +280,7 @@ export function createLifecycle({
     state.shuttingDown = true;
     debug(`Shutting down gRPC analyze-project server: ${reason}`);
     clearStartupShutdownTimeout(state);
+    clearIdleShutdown(state);
     closeLeaseCall();
     unregisterGarbageCollectionObserver();
     await cancelAnalysisOnShutdown(handleRequestInCurrentThread, newWorkerRequestId, state, worker);
@@ -266,9 +300,26 @@ export function createLifecycle({
     }, timeout);
   };
 
+  const scheduleIdleShutdown = () => {
+    if (!daemon || daemon.idleTimeout <= 0) {
+      return;
+    }
+    clearIdleShutdown(state);
+    state.lastActivity = Date.now();
+    state.idleShutdownInterval = setInterval(
+      () => {
+        if (!state.analysisInProgress && Date.now() - state.lastActivity >= daemon.idleTimeout) {
+          void shutdown('daemon idle timeout');
+        }
+      },
+      Math.min(daemon.idleTimeout, IDLE_SHUTDOWN_CHECK_INTERVAL_MS),
+    );
+  };
+
   return {
     scheduleStartupShutdownTimeout,
     clearStartupShutdownTimeout: () => clearStartupShutdownTimeout(state),
+    scheduleIdleShutdown,
     requestCancel,
     shutdown,
   };
@@ -30,6 +30,8 @@ import {
   toAnalyzeProjectStreamResponse,
   toAnalyzeProjectUnaryResponse,
 } from './analyze-project-convert.js';
+import { openAstTransferFile } from './analyze-project-ast-transfer.js';
+import { findMismatchedFileContents } from './analyze-project-file-contents.js';
 import {
   createAnalyzeProjectServiceDefinition,
   failStreamingCall,
@@ -37,12 +39,18 @@ import {
   toGrpcError,
   toGrpcErrorFromFailure,
   type AnalyzeProjectRequest,
+  type AnalyzeProjectResponseCall,
+  type AnalyzeProjectStreamRequest,
   type AnalyzeProjectStreamResponse,
   type AnalyzeProjectUnaryResponse,
   type CancelAnalysisRequest,
   type CancelAnalysisResponse,
+  type CheckFileContentsRequest,
+  type CheckFileContentsResponse,
   type LeaseRequest,
   type LeaseResponse,
+  type RuntimeStatusRequest,
+  type RuntimeStatusResponse,
 } from './analyze-project-server-grpc.js';
 import {
   attachWorkerLifecycleHandlers,
@@ -50,7 +58,9 @@ import {
   createLifecycle,
   createServerState,
   getNextWorkerRequestId,
+  setAnalysisInProgress,
   waitForWorkerCompletion,
+  type AnalyzeProjectDaemonOptions,
   type AnalyzeProjectImplementationDependencies,
 } from './analyze-project-server-lifecycle.js';
 type UnaryCompleteMessage = Extract<AnalyzeProjectWorkerOutMessage, { type: 'unary-complete' }>;
@@ -60,14 +70,14 @@ type AnalyzeProjectServerResult = {
   serverClosed: Promise<void>;
 };
 
-function createAnalyzeProjectStreamHandler({
+function createAnalyzeProjectStreamRunner({
   handleRequestInCurrentThread,
   lifecycle,
   newWorkerRequestId,
   state,
   worker,
 }: AnalyzeProjectImplementationDependencies) {
-  return (call: grpc.ServerWritableStream<AnalyzeProjectRequest, AnalyzeProjectStreamResponse>) => {
+  return (call: AnalyzeProjectResponseCall, request: AnalyzeProjectRequest) => {
     if (state.analysisInProgress) {
       failStreamingCall(
         call,
@@ -76,7 +86,7 @@ function createAnalyzeProjectStreamHandler({
       return;
     }
 
-    state.analysisInProgress = true;
+    setAnalysisInProgress(state, true);
     const requestId = newWorkerRequestId();
     let completed = false;
     let cancelled = false;
@@ -87,7 +97,7 @@ function createAnalyzeProjectStreamHandler({
         return;
       }
       completed = true;
-      state.analysisInProgress = false;
+      setAnalysisInProgress(state, false);
       if (worker && onWorkerMessage) {
         worker.off('message', onWorkerMessage);
       }
@@ -175,14 +185,16 @@ function createAnalyzeProjectStreamHandler({
       worker.postMessage({
         type: 'analyze-stream',
         requestId,
-        request: call.request,
+        request,
       } satisfies AnalyzeProjectWorkerInMessage);
       return;
     }
 
-    void handleRequestInCurrentThread({ type: 'on-analyze-project', data: call.request }, event =>
-      writeResponse(toAnalyzeProjectStreamResponse(event.event, event.pathMap)),
+    const astTransfer = openAstTransferFile(request.astTransferDir);
+    void handleRequestInCurrentThread({ type: 'on-analyze-project', data: request }, event =>
+      writeResponse(toAnalyzeProjectStreamResponse(event.event, event.pathMap, astTransfer)),
     )
+      .finally(() => astTransfer?.close())
       .then(result => {
         if (result.type === 'failure') {
           finish(toGrpcErrorFromFailure(result));
@@ -197,6 +209,80 @@ function createAnalyzeProjectStreamHandler({
   };
 }
 
+function createAnalyzeProjectStreamHandler(dependencies: AnalyzeProjectImplementationDependencies) {
+  const runAnalyzeProject = createAnalyzeProjectStreamRunner(dependencies);
+  return (call: grpc.ServerWritableStream<AnalyzeProjectRequest, AnalyzeProjectStreamResponse>) =>
+    runAnalyzeProject(call, call.request);
+}
+
+/**
+ * Handles the client-streaming variant of AnalyzeProject. The header message carries the
+ * configuration and rules, the following messages carry batches of files. Project planning
+ * (tsconfig lookup, program creation) needs the complete file set, so the analysis only starts
+ * once the client half-closes; what the client gains is not having to build one giant request.
+ */
+function createAnalyzeProjectClientStreamHandler(
+  dependencies: AnalyzeProjectImplementationDependencies,
+) {
+  const runAnalyzeProject = createAnalyzeProjectStreamRunner(dependencies);
+  return (
+    call: grpc.ServerDuplexStream<AnalyzeProjectStreamRequest, AnalyzeProjectStreamResponse>,
+  ) => {
+    let request: AnalyzeProjectRequest | undefined;
+    const files: NonNullable<AnalyzeProjectRequest['files']> = {};
+    let failed = false;
+
+    const fail = (message: string) => {
+      if (failed) {
+        return;
+      }
+      failed = true;
+      try {
+        failStreamingCall(call, toGrpcError(message, grpc.status.INVALID_ARGUMENT));
+      } catch (e) {
+        debug(`Failed to fail analyze-project stream response: ${e}`);
+      }
+    };
+
+    call.on('data', (message: AnalyzeProjectStreamRequest) => {
+      if (failed) {
+        return;
+      }
+      if (message.header) {
+        if (request) {
+          fail('analyze-project stream header was sent more than once');
+          return;
+        }
+        request = message.header;
+        Object.assign(files, request.files);
+      } else if (message.files) {
+        if (!request) {
+          fail('analyze-project stream must start with a header');
+          return;
+        }
+        Object.assign(files, message.files.files);
+      }
+    });
+    call.on('end', () => {
+      if (failed) {
+        return;
+      }
+      if (!request) {
+        fail('analyze-project stream ended without a header');
+        return;
+      }
+      runAnalyzeProject(call, { ...request, files });
+    });
+    call.on('cancelled', () => {
+      // Nothing has been started yet, so there is nothing to cancel besides the upload itself.
+      failed = true;
+    });
+    call.on('error', error => {
+      debug(`Analyze-project request stream error: ${error}`);
+    });
+  };
+}
+
 function createAnalyzeProjectUnaryHandler({
   handleRequestInCurrentThread,
   newWorkerRequestId,
@@ -212,7 +298,7 @@ function createAnalyzeProjectUnaryHandler({
       return;
     }
 
-    state.analysisInProgress = true;
+    setAnalysisInProgress(state, true);
     try {
       if (worker) {
         const result = (
@@ -259,7 +345,7 @@ function createAnalyzeProjectUnaryHandler({
     } catch (e) {
       callback(toGrpcError(e instanceof Error ? e.message : String(e)));
     } finally {
-      state.analysisInProgress = false;
+      setAnalysisInProgress(state, false);
     }
   };
 }
@@ -328,18 +414,49 @@ function createLeaseHandler({ lifecycle, state }: AnalyzeProjectImplementationDe
   };
 }
 
+function createRuntimeStatusHandler({ daemon, state }: AnalyzeProjectImplementationDependencies) {
+  return (
+    _: grpc.ServerUnaryCall<RuntimeStatusRequest, RuntimeStatusResponse>,
+    callback: grpc.sendUnaryData<RuntimeStatusResponse>,
+  ) => {
+    callback(null, {
+      daemonId: daemon?.id ?? '',
+      analysisInProgress: state.analysisInProgress,
+    });
+  };
+}
+
+function createCheckFileContentsHandler() {
+  return async (
+    call: grpc.ServerUnaryCall<CheckFileContentsRequest, CheckFileContentsResponse>,
+    callback: grpc.sendUnaryData<CheckFileContentsResponse>,
+  ) => {
+    try {
+      callback(null, {
+        mismatchedFiles: await findMismatchedFileContents(call.request.files),
+      });
+    } catch (e) {
+      callback(toGrpcError(e instanceof Error ? e.message : String(e)));
+    }
+  };
+}
+
 function createAnalyzeProjectImplementation(
   dependencies: AnalyzeProjectImplementationDependencies,
 ): grpc.UntypedServiceImplementation {
   return {
     AnalyzeProject: createAnalyzeProjectStreamHandler(dependencies),
+    AnalyzeProjectStream: createAnalyzeProjectClientStreamHandler(dependencies),
     AnalyzeProjectUnary: createAnalyzeProjectUnaryHandler(dependencies),
     CancelAnalysis: createCancelAnalysisHandler(dependencies),
     Lease: createLeaseHandler(dependencies),
+    RuntimeStatus: createRuntimeStatusHandler(dependencies),
+    CheckFileContents: createCheckFileContentsHandler(),
   };
 }
 
 export const analyzeProjectServerInternals = {
+  createAnalyzeProjectClientStreamHandler,
   createAnalyzeProjectStreamHandler,
   createLifecycle,
   waitForWorkerCompletion,
@@ -351,6 +468,7 @@ export async function startAnalyzeProjectServer(
   worker?: Worker,
   debugMemory = false,
   timeout = 0,
+  daemon?: AnalyzeProjectDaemonOptions,
 ): Promise<AnalyzeProjectServerResult> {
   await logMemoryConfiguration();
   const workerData = { debugMemory };
@@ -367,6 +485,7 @@ export async function startAnalyzeProjectServer(
   const handleRequestInCurrentThread = createHandleRequestInCurrentThread(workerData);
   const newWorkerRequestId = () => getNextWorkerRequestId(state);
   const lifecycle = createLifecycle({
+    daemon,
     handleRequestInCurrentThread,
     newWorkerRequestId,
     resolveClosed,
@@ -381,6 +500,7 @@ export async function startAnalyzeProjectServer(
   server.addService(
     createAnalyzeProjectServiceDefinition(),
     createAnalyzeProjectImplementation({
+      daemon,
       handleRequestInCurrentThread,
       lifecycle,
       newWorkerRequestId,
@@ -401,6 +521,7 @@ export async function startAnalyzeProjectServer(
 
         info(`gRPC analyze-project server listening on ${host}:${boundPort}`);
         lifecycle.scheduleStartupShutdownTimeout();
+        lifecycle.scheduleIdleShutdown();
         resolve({
           server,
           serverClosed,
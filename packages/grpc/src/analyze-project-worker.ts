@@ -21,6 +21,7 @@ import {
   toAnalyzeProjectStreamResponse,
   toAnalyzeProjectUnaryResponse,
 } from './analyze-project-convert.js';
+import { openAstTransferFile } from './analyze-project-ast-transfer.js';
 import type {
   AnalyzeProjectWorkerInMessage,
   AnalyzeProjectWorkerOutMessage,
@@ -74,15 +75,24 @@ export function registerAnalyzeProjectWorkerMessageHandler(
       case 'analyze-stream': {
         // Stream responses are converted in the worker so request-scoped path maps
         // and the final accumulated project output stay local to this thread.
-        const result = toVoidResult(
-          await handleRequest({ type: 'on-analyze-project', data: message.request }, data, event =>
-            parentThread.postMessage({
-              type: 'event',
-              requestId: message.requestId,
-              response: toAnalyzeProjectStreamResponse(event.event, event.pathMap),
-            } satisfies AnalyzeProjectWorkerOutMessage),
-          ),
-        );
+        const astTransfer = openAstTransferFile(message.request.astTransferDir);
+        let result: RequestResult;
+        try {
+          result = toVoidResult(
+            await handleRequest(
+              { type: 'on-analyze-project', data: message.request },
+              data,
+              event =>
+                parentThread.postMessage({
+                  type: 'event',
+                  requestId: message.requestId,
+                  response: toAnalyzeProjectStreamResponse(event.event, event.pathMap, astTransfer),
+                } satisfies AnalyzeProjectWorkerOutMessage),
+            ),
+          );
+        } finally {
+          astTransfer?.close();
+        }
         parentThread.postMessage({
           type: 'stream-complete',
           requestId: message.requestId,
@@ -17,11 +17,20 @@
 
 import { describe, it } from 'node:test';
 import { expect } from 'expect';
+import { mkdtemp, readFile } from 'node:fs/promises';
+import os from 'node:os';
+import path from 'node:path';
 import { createFileResults } from '../../analysis/src/projectAnalysis.js';
 import {
   toAnalyzeProjectStreamResponse,
   toAnalyzeProjectUnaryResponse,
 } from '../src/analyze-project-convert.js';
+import {
+  AST_TRANSFER_FILE_CAPACITY,
+  AstTransferFile,
+  MIN_TRANSFERRED_AST_SIZE,
+  openAstTransferFile,
+} from '../src/analyze-project-ast-transfer.js';
 import { sonarjs as analyzeProjectProto } from '../src/proto/analyze-project.js';
 
 function createProjectAnalysisTelemetry() {
@@ -112,4 +121,69 @@ describe('analyze-project convert', () => {
       telemetry.packageImportFileCounts,
     );
   });
+
+  it('should write large ASTs to the transfer file', async () => {
+    const directory = await mkdtemp(path.join(os.tmpdir(), 'ast-transfer-'));
+    const astTransfer = openAstTransferFile(directory);
+    const small = Buffer.from('small');
+    const large = Buffer.alloc(MIN_TRANSFERRED_AST_SIZE, 1);
+    const fileResult = (filename: string, ast: Buffer) =>
+      toAnalyzeProjectStreamResponse(
+        { messageType: 'fileResult', filename, issues: [], ast: ast.toString('base64') },
+        new Map(),
+        astTransfer,
+      ).fileResult?.result;
+
+    const inline = fileResult('/small.js', small);
+    const first = fileResult('/large.js', large);
+    const second = fileResult('/other.js', large);
+    astTransfer?.close();
+
+    expect(inline?.ast).toEqual(small);
+    expect(inline?.astRegion).toBeUndefined();
+    expect(first?.ast).toBeUndefined();
+    expect(first?.astRegion).toEqual({
+      path: astTransfer?.filePath,
+      offset: 0,
+      length: large.length,
+    });
+    expect(second?.astRegion?.offset).toEqual(large.length);
+    const written = await readFile(astTransfer!.filePath);
+    expect(written.length).toEqual(AST_TRANSFER_FILE_CAPACITY);
+    expect(written.subarray(0, 2 * large.length)).toEqual(Buffer.concat([large, large]));
+  });
+
+  it('should open the next transfer file once one is full', async () => {
+    const directory = await mkdtemp(path.join(os.tmpdir(), 'ast-transfer-'));
+    const large = Buffer.alloc(MIN_TRANSFERRED_AST_SIZE, 1);
+    const astTransfer = new AstTransferFile(directory, 2 * large.length);
+
+    const first = astTransfer.write(large).astRegion;
+    const second = astTransfer.write(large).astRegion;
+    const third = astTransfer.write(large).astRegion;
+    const tooLarge = Buffer.alloc(3 * large.length);
+    expect(astTransfer.write(tooLarge)).toEqual({ ast: tooLarge });
+    astTransfer.close();
+
+    expect(second?.path).toEqual(first?.path);
+    expect(second?.offset).toEqual(large.length);
+    expect(third?.path).not.toEqual(first?.path);
+    expect(third?.offset).toEqual(0);
+    const written = await readFile(third!.path!);
+    expect(written).toEqual(Buffer.concat([large, Buffer.alloc(large.length)]));
+  });
+
+  it('should send ASTs inline once the transfer file cannot be written', async () => {
+    const directory = await mkdtemp(path.join(os.tmpdir(), 'ast-transfer-'));
+    const astTransfer = new AstTransferFile(directory);
+    astTransfer.close();
+
+    const large = Buffer.alloc(MIN_TRANSFERRED_AST_SIZE, 1);
+    expect(astTransfer.write(large)).toEqual({ ast: large });
+  });
+
+  it('should send ASTs inline without transfer directory', () => {
+    expect(openAstTransferFile(undefined)).toBeUndefined();
+    expect(openAstTransferFile(path.join(os.tmpdir(), 'missing', 'directory'))).toBeUndefined();
+  });
 });
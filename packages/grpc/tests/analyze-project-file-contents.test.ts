@@ -0,0 +1,72 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+import { afterEach, describe, it } from 'node:test';
+import { createHash } from 'node:crypto';
+import { mkdtemp, rm, writeFile } from 'node:fs/promises';
+import { tmpdir } from 'node:os';
+import { join } from 'node:path';
+import { expect } from 'expect';
+import { findMismatchedFileContents } from '../src/analyze-project-file-contents.js';
+
+const temporaryDirectories: string[] = [];
+
+afterEach(async () => {
+  await Promise.all(
+    temporaryDirectories.splice(0).map(path => rm(path, { force: true, recursive: true })),
+  );
+});
+
+async function createBaseDir() {
+  const baseDir = await mkdtemp(join(tmpdir(), 'sonarjs-grpc-file-contents-'));
+  temporaryDirectories.push(baseDir);
+  return baseDir;
+}
+
+function md5(content: string) {
+  return createHash('md5').update(content, 'utf8').digest('hex');
+}
+
+describe('findMismatchedFileContents', () => {
+  it('should only report files whose content differs from the expected one', async () => {
+    const baseDir = await createBaseDir();
+    const saved = join(baseDir, 'saved.js');
+    const edited = join(baseDir, 'edited.js');
+    const missing = join(baseDir, 'missing.js');
+    await writeFile(saved, '﻿const saved = 1;');
+    await writeFile(edited, 'const edited = 1;');
+
+    const mismatched = await findMismatchedFileContents({
+      [saved]: { charset: '', md5: md5('const saved = 1;') },
+      [edited]: { charset: '', md5: md5('const edited = 2;') },
+      [missing]: { charset: '', md5: md5('') },
+    });
+
+    expect(mismatched).toEqual([edited, missing]);
+  });
+
+  it('should decode files with the expected charset', async () => {
+    const baseDir = await createBaseDir();
+    const latin = join(baseDir, 'latin.js');
+    await writeFile(latin, Buffer.from([0x63, 0x61, 0x66, 0xe9]));
+
+    const mismatched = await findMismatchedFileContents({
+      [latin]: { charset: 'windows-1252', md5: md5('café') },
+    });
+
+    expect(mismatched).toEqual([]);
+  });
+});
@@ -52,6 +52,8 @@ const basicFixtureFile = normalizePath(
 const analyzeProjectWorkerPath = fileURLToPath(new URL('../../../server.mjs', import.meta.url));
 
 type AnalyzeProjectRequest = analyzeProjectProto.analyzeproject.v1.IAnalyzeProjectRequest;
+type AnalyzeProjectStreamRequest =
+  analyzeProjectProto.analyzeproject.v1.IAnalyzeProjectStreamRequest;
 type AnalyzeProjectStreamResponse =
   analyzeProjectProto.analyzeproject.v1.IAnalyzeProjectStreamResponse;
 type AnalyzeProjectUnaryResponse =
@@ -84,6 +86,27 @@ function createAnalyzeProjectClient(port: number) {
       analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamResponse.decode(buffer),
   };
 
+  const analyzeProjectStreamMethodDefinition: grpc.MethodDefinition<
+    AnalyzeProjectStreamRequest,
+    AnalyzeProjectStreamResponse
+  > = {
+    path: `/${SERVICE_NAME}/AnalyzeProjectStream`,
+    requestStream: true,
+    responseStream: true,
+    requestSerialize: value =>
+      Buffer.from(
+        analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamRequest.encode(value).finish(),
+      ),
+    requestDeserialize: buffer =>
+      analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamRequest.decode(buffer),
+    responseSerialize: value =>
+      Buffer.from(
+        analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamResponse.encode(value).finish(),
+      ),
+    responseDeserialize: buffer =>
+      analyzeProjectProto.analyzeproject.v1.AnalyzeProjectStreamResponse.decode(buffer),
+  };
+
   const analyzeProjectUnaryMethodDefinition: grpc.MethodDefinition<
     AnalyzeProjectRequest,
     AnalyzeProjectUnaryResponse
@@ -141,6 +164,7 @@ function createAnalyzeProjectClient(port: number) {
 
   const serviceDefinition = {
     AnalyzeProject: analyzeProjectMethodDefinition,
+    AnalyzeProjectStream: analyzeProjectStreamMethodDefinition,
     AnalyzeProjectUnary: analyzeProjectUnaryMethodDefinition,
     CancelAnalysis: cancelAnalysisMethodDefinition,
     Lease: leaseMethodDefinition,
@@ -187,6 +211,27 @@ function createAnalyzeProjectClient(port: number) {
           call.on('error', reject);
         });
       })(),
+    analyzeProjectStream: (messages: AnalyzeProjectStreamRequest[]) =>
+      (() => {
+        const call = client.makeBidiStreamRequest(
+          analyzeProjectStreamMethodDefinition.path,
+          analyzeProjectStreamMethodDefinition.requestSerialize,
+          analyzeProjectStreamMethodDefinition.responseDeserialize,
+        );
+        const responses = new Promise<AnalyzeProjectStreamResponse[]>((resolve, reject) => {
+          const received: AnalyzeProjectStreamResponse[] = [];
+          call.on('data', response => {
+            received.push(response);
+          });
+          call.on('end', () => resolve(received));
+          call.on('error', reject);
+        });
+        for (const message of messages) {
+          call.write(message);
+        }
+        call.end();
+        return responses;
+      })(),
     analyzeProjectUnary: (request: AnalyzeProjectRequest) =>
       new Promise<AnalyzeProjectUnaryResponse>((resolve, reject) => {
         client.makeUnaryRequest(
@@ -445,6 +490,8 @@ function createUnitServerState({
 } = {}) {
   return {
     analysisInProgress,
+    idleShutdownInterval: null as NodeJS.Timeout | null,
+    lastActivity: Date.now(),
     leaseCall: leaseCall as unknown as grpc.ServerDuplexStream<LeaseRequest, LeaseResponse> | null,
     nextWorkerRequestId: 0,
     shuttingDown: false,
@@ -677,6 +724,46 @@ describe('analyze-project gRPC server', () => {
     }
   });
 
+  it('should assemble client-streamed analyze-project requests', async t => {
+    const { files, ...header } = createAnalyzeProjectRequest();
+
+    for (const mode of serverModes) {
+      await t.test(mode.label, async () => {
+        const worker = await mode.createWorker();
+        await withAnalyzeProjectServer(worker, async client => {
+          const responses = await client.analyzeProjectStream([
+            { header },
+            { files: { files: {} } },
+            { files: { files } },
+          ]);
+
+          expect(
+            responses.some(response => response.fileResult?.filePath === basicFixtureFile),
+          ).toBe(true);
+          expect(responses.some(response => response.meta != null)).toBe(true);
+        });
+      });
+    }
+  });
+
+  it('should reject client-streamed requests without a leading header', async () => {
+    await withAnalyzeProjectServer(undefined, async client => {
+      await expect(
+        client.analyzeProjectStream([
+          { files: { files: createAnalyzeProjectRequest().files } },
+          { header: createAnalyzeProjectRequestWithoutFiles() },
+        ]),
+      ).rejects.toMatchObject({
+        code: grpc.status.INVALID_ARGUMENT,
+        details: 'analyze-project stream must start with a header',
+      });
+      await expect(client.analyzeProjectStream([])).rejects.toMatchObject({
+        code: grpc.status.INVALID_ARGUMENT,
+        details: 'analyze-project stream ended without a header',
+      });
+    });
+  });
+
   it('should accept analyze-project requests larger than the default gRPC limit', async t => {
     const largeFileContent = `/*${'x'.repeat(DEFAULT_GRPC_MESSAGE_LIMIT_BYTES + 1_024)}*/\n`;
 
@@ -831,6 +918,7 @@ describe('analyze-project gRPC server', () => {
             clearStartupShutdownTimeout: () => {},
             requestCancel: async () => true,
             scheduleStartupShutdownTimeout: () => {},
+            scheduleIdleShutdown: () => {},
             shutdown: async () => {},
           },
           newWorkerRequestId: (() => {
@@ -1108,6 +1196,34 @@ describe('analyze-project gRPC server', () => {
     expect(state.startupShutdownTimeout).toBeNull();
   });
 
+  it('should shut down an idle daemon once no analysis is running', async () => {
+    const state = createUnitServerState({ analysisInProgress: true });
+    let resolveShutdown = () => {};
+    const shutdown = new Promise<void>(resolve => {
+      resolveShutdown = resolve;
+    });
+    const lifecycle = analyzeProjectServerInternals.createLifecycle({
+      daemon: { id: 'daemon', idleTimeout: 20 },
+      handleRequestInCurrentThread: async () => ({ result: undefined, type: 'success' }),
+      newWorkerRequestId: () => 'request-1',
+      resolveClosed: resolveShutdown,
+      server: { forceShutdown: () => {} } as unknown as grpc.Server,
+      state,
+      timeout: 0,
+      unregisterGarbageCollectionObserver: () => {},
+    });
+
+    lifecycle.scheduleIdleShutdown();
+    await delay(60);
+    expect(state.shuttingDown).toBe(false);
+
+    state.analysisInProgress = false;
+    await shutdown;
+
+    expect(state.shuttingDown).toBe(true);
+    expect(state.idleShutdownInterval).toBeNull();
+  });
+
   it('should tolerate worker shutdown failures', async () => {
     let forceShutdownCalls = 0;
     const lifecycle = analyzeProjectServerInternals.createLifecycle({
@@ -45,13 +45,23 @@ export type {
  * present in the file's header.
  *
  * @param filePath the path of a file
+ * @param charset the charset to decode the file with, UTF-8 if not provided
  * @returns Promise which resolves with the content of the file
  */
-export async function readFile(filePath: NormalizedAbsolutePath) {
+export async function readFile(filePath: NormalizedAbsolutePath, charset?: string) {
+  if (charset && !isUtf8(charset)) {
+    // TextDecoder drops the BOM of the charsets that have one
+    return new TextDecoder(charset).decode(await fs.promises.readFile(filePath));
+  }
   const fileContent = await fs.promises.readFile(filePath, { encoding: 'utf8' });
   return stripBOM(fileContent);
 }
 
+function isUtf8(charset: string) {
+  const label = charset.toLowerCase();
+  return label === 'utf-8' || label === 'utf8';
+}
+
 /**
  * A data structure for efficient directory-to-files lookup.
  * Supports both incremental building (via addFile) and batch building (via buildFromFiles).
@@ -14,12 +14,22 @@ if (isMainThread) {
    * host - host address on which server.mjs should listen
    * debugMemory - print memory usage
    * timeoutSeconds - timeout for the node server to wait before shutting down. If not provided or 0,
+   * daemonId - identifier of the runtime when it runs as a daemon shared by several analyses
+   * daemonIdleTimeoutSeconds - idle time after which the daemon shuts down, 0 to never shut down
    */
 
   const port = process.argv[2];
   const host = process.argv[3];
   const debugMemory = process.argv[4] === 'true';
   const timeoutSeconds = Number(process.argv[5]) || 0;
+  const daemonId = process.argv[6];
+  const daemonIdleTimeoutSeconds = Number(process.argv[7]) || 0;
+
+  if (daemonId) {
+    // The daemon outlives the process that started it and reads its output.
+    process.stdout.on('error', () => {});
+    process.stderr.on('error', () => {});
+  }
 
   Promise.resolve().then(async () => {
     return startAnalyzeProjectServer(
@@ -28,6 +38,7 @@ if (isMainThread) {
       await createAnalyzeProjectWorker(new URL(import.meta.url), { debugMemory }),
       debugMemory,
       timeoutSeconds,
+      daemonId ? { id: daemonId, idleTimeout: daemonIdleTimeoutSeconds * 1000 } : undefined,
     );
   });
 }
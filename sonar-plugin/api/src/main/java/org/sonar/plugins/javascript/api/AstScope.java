@@ -0,0 +1,34 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.api;
+
+/**
+ * Part of the AST that a {@link JsAnalysisConsumer} needs.
+ */
+public enum AstScope {
+  /**
+   * The complete AST.
+   */
+  FULL,
+  /**
+   * The AST without the statements in the bodies of functions, methods and static blocks. Function
+   * bodies are empty block statements, and expression bodies of arrow functions are
+   * {@link org.sonar.plugins.javascript.api.estree.ESTree.UnknownNode}s. This is enough for
+   * consumers of module-level declarations, like imports and exports.
+   */
+  TOP_LEVEL,
+}
@@ -0,0 +1,44 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.api;
+
+/**
+ * Callbacks fired while the serialized AST of a file is read. Nodes are visited in depth-first
+ * order, and no node object is created: a {@link JsAnalysisConsumer} that only counts or collects
+ * can implement this interface instead of working on an
+ * {@link org.sonar.plugins.javascript.api.estree.ESTree.Program}.
+ *
+ * <p>Node types are the names of the ESTree types, like {@code Identifier}. A node of a type
+ * unknown to the analyzer is reported as {@code UNRECOGNIZED}.
+ */
+public interface AstStreamVisitor {
+  /**
+   * Called before the children of a node are visited.
+   */
+  default void enterNode(
+    String type,
+    int startLine,
+    int startColumn,
+    int endLine,
+    int endColumn
+  ) {}
+
+  /**
+   * Called after all the children of a node were visited.
+   */
+  default void leaveNode(String type) {}
+}
@@ -16,6 +16,7 @@
  */
 package org.sonar.plugins.javascript.api;
 
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.scanner.ScannerSide;
 import org.sonarsource.api.sonarlint.SonarLintSide;
@@ -48,4 +49,43 @@ public interface JsAnalysisConsumer {
     // For retro-compatibility Consumer is enabled by default
     return true;
   }
+
+  /**
+   * Called only once per analysis, on enabled consumers.
+   * The analyzer only sends the widest part of the AST that enabled consumers need.
+   * @return the part of the AST this consumer needs
+   */
+  default AstScope astScope() {
+    return AstScope.FULL;
+  }
+
+  /**
+   * Called only once per analysis, on enabled consumers.
+   * A thread-safe consumer is given the files on a dedicated thread, one at a time and in analysis
+   * order, while the analysis goes on. {@link #doneAnalysis} is called once all files were accepted.
+   * @return true if {@link #accept} can be called from another thread than the analysis one
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
+
+  /**
+   * Called only once per analysis, on enabled consumers.
+   * A streaming consumer is never given a {@link JsFile}: the serialized AST of each file is walked
+   * with the visitor returned by {@link #astVisitor} instead, without building its program. The
+   * analyzer only builds programs when some enabled consumer is not streaming.
+   * @return true if the consumer only needs {@link #astVisitor}
+   */
+  default boolean isStreaming() {
+    return false;
+  }
+
+  /**
+   * Called for each file on streaming consumers, in place of {@link #accept}.
+   * @param inputFile the file which was analyzed
+   * @return the visitor walking the AST of the file
+   */
+  default AstStreamVisitor astVisitor(InputFile inputFile) {
+    throw new UnsupportedOperationException("Only streaming consumers visit serialized ASTs");
+  }
 }
@@ -34,7 +34,68 @@ public class ESTree {
 
   public record Position(int line, int column) {}
 
-  public record Location(Position start, Position end) {}
+  /**
+   * Location of a node. Every node has one, so the positions are packed in two longs and only
+   * materialized as {@link Position} records when {@link #start()} or {@link #end()} is called.
+   * The line and column accessors read them without allocating.
+   */
+  public static final class Location {
+
+    private final long start;
+    private final long end;
+
+    public Location(Position start, Position end) {
+      this(start.line(), start.column(), end.line(), end.column());
+    }
+
+    public Location(int startLine, int startColumn, int endLine, int endColumn) {
+      this.start = pack(startLine, startColumn);
+      this.end = pack(endLine, endColumn);
+    }
+
+    private static long pack(int line, int column) {
+      return ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    public Position start() {
+      return new Position(startLine(), startColumn());
+    }
+
+    public Position end() {
+      return new Position(endLine(), endColumn());
+    }
+
+    public int startLine() {
+      return (int) (start >> 32);
+    }
+
+    public int startColumn() {
+      return (int) start;
+    }
+
+    public int endLine() {
+      return (int) (end >> 32);
+    }
+
+    public int endColumn() {
+      return (int) end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Location other && start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(start(), end());
+    }
+
+    @Override
+    public String toString() {
+      return "Location[start=" + start() + ", end=" + end() + "]";
+    }
+  }
 
   public sealed interface CallExpression extends Expression {
     ExpressionOrSuper callee();
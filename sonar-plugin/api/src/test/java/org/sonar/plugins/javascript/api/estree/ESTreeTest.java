@@ -33,7 +33,29 @@ class ESTreeTest {
     assertThat(ifaceCount).isEqualTo(37);
 
     var recordCount = Arrays.stream(classes).filter(Class::isRecord).count();
-    assertThat(recordCount).isEqualTo(106);
+    assertThat(recordCount).isEqualTo(105);
+  }
+
+  @Test
+  void location_should_pack_positions() {
+    var location = new ESTree.Location(3, 7, 120_000, 2_000_000);
+    assertThat(location.startLine()).isEqualTo(3);
+    assertThat(location.startColumn()).isEqualTo(7);
+    assertThat(location.endLine()).isEqualTo(120_000);
+    assertThat(location.endColumn()).isEqualTo(2_000_000);
+    assertThat(location.start()).isEqualTo(new ESTree.Position(3, 7));
+    assertThat(location.end()).isEqualTo(new ESTree.Position(120_000, 2_000_000));
+  }
+
+  @Test
+  void location_should_have_value_semantics() {
+    var location = new ESTree.Location(new ESTree.Position(1, 2), new ESTree.Position(3, 4));
+    var same = new ESTree.Location(1, 2, 3, 4);
+    assertThat(location)
+      .isEqualTo(same)
+      .hasSameHashCodeAs(same)
+      .isNotEqualTo(new ESTree.Location(1, 2, 3, 5))
+      .hasToString("Location[start=Position[line=1, column=2], end=Position[line=3, column=4]]");
   }
 
   @Test
@@ -0,0 +1,203 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.SensorContextTester;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.css.CssRules;
+import org.sonar.javascript.checks.CheckList;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalysisLanguage;
+import org.sonar.plugins.javascript.analyzeproject.grpc.Highlight;
+import org.sonar.plugins.javascript.analyzeproject.grpc.HighlightedSymbol;
+import org.sonar.plugins.javascript.analyzeproject.grpc.Issue;
+import org.sonar.plugins.javascript.analyzeproject.grpc.Location;
+import org.sonar.plugins.javascript.analyzeproject.grpc.Metrics;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisFileResult;
+import org.sonar.plugins.javascript.analyzeproject.grpc.TextType;
+import org.sonar.plugins.javascript.benchmarks.FixtureSize;
+import org.sonar.plugins.javascript.benchmarks.Fixtures;
+import org.sonar.plugins.javascript.benchmarks.Projects;
+import org.sonar.scanner.plugin.api.impl.rule.ActiveRulesBuilder;
+import org.sonar.scanner.plugin.api.impl.rule.NewActiveRule;
+import org.sonar.scanner.plugin.api.impl.sensor.issue.DefaultNoSonarFilter;
+
+/**
+ * Saving of the analysis responses of a project: metrics, issues, highlighting, symbols and
+ * duplication tokens. Every invocation works on a fresh sensor context, as the context refuses to
+ * store the data of a file twice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AnalysisProcessorBenchmark {
+
+  static final int FILES = 50;
+
+  private static final String RULE = "S3923";
+
+  @Param({ "SMALL", "MEDIUM" })
+  public FixtureSize size;
+
+  private AnalysisProcessor processor;
+  private JsTsChecks checks;
+  private ProjectAnalysisFileResult response;
+  private Path baseDir;
+  private List<InputFile> files;
+  private JsTsContext<SensorContextTester> context;
+
+  @Setup
+  public void setUp() throws IOException {
+    var activeRules = new ActiveRulesBuilder()
+      .addRule(
+        new NewActiveRule.Builder().setRuleKey(RuleKey.of(CheckList.JS_REPOSITORY_KEY, RULE)).build()
+      )
+      .build();
+    var checkFactory = new CheckFactory(activeRules);
+    processor = new AnalysisProcessor(
+      new DefaultNoSonarFilter(),
+      new NoOpFileLinesContextFactory(),
+      new CssRules(checkFactory)
+    );
+    checks = new JsTsChecks(checkFactory);
+    response = response(size);
+
+    var project = Projects.context(FILES, size);
+    baseDir = project.fileSystem().baseDir().toPath();
+    files = new ArrayList<>();
+    project.fileSystem().inputFiles().forEach(files::add);
+  }
+
+  @Setup(Level.Invocation)
+  public void newContext() {
+    var sensorContext = SensorContextTester.create(baseDir);
+    files.forEach(sensorContext.fileSystem()::add);
+    context = new JsTsContext<>(sensorContext);
+  }
+
+  @Benchmark
+  public void processResponses(Blackhole blackhole) {
+    for (InputFile file : files) {
+      blackhole.consume(processor.processResponse(context, checks, file, response));
+    }
+  }
+
+  private static ProjectAnalysisFileResult response(FixtureSize size) {
+    var response = ProjectAnalysisFileResult.newBuilder()
+      .addAllCpdTokens(Fixtures.cpdTokens(size));
+    var metrics = Metrics.newBuilder()
+      .setFunctions(size.units())
+      .setStatements(4 * size.units())
+      .setComplexity(2 * size.units());
+    for (int unit = 0; unit < size.units(); unit++) {
+      int line = unit * Fixtures.LINES_PER_UNIT + 1;
+      for (int ncloc = line; ncloc < line + Fixtures.LINES_PER_UNIT; ncloc++) {
+        metrics.addNcloc(ncloc);
+      }
+      response
+        .addHighlights(keyword(line, 0, 8))
+        .addHighlights(keyword(line + 1, 2, 4))
+        .addHighlights(keyword(line + 2, 4, 10))
+        .addHighlights(keyword(line + 6, 0, 5))
+        .addHighlightedSymbols(
+          HighlightedSymbol.newBuilder()
+            .setDeclaration(location(line, 9, line, 16 + digits(unit)))
+            .addReferences(location(line + 6, 22 + digits(unit), line + 6, 29 + 2 * digits(unit)))
+        )
+        .addIssues(
+          Issue.newBuilder()
+            .setRuleId(RULE)
+            .setLanguage(AnalysisLanguage.ANALYSIS_LANGUAGE_JS)
+            .setMessage("Remove this conditional structure or edit its code blocks.")
+            .setLine(line + 1)
+            .setColumn(2)
+            .setEndLine(line + 1)
+            .setEndColumn(4)
+        );
+    }
+    return response.setMetrics(metrics).build();
+  }
+
+  private static Highlight keyword(int line, int column, int endColumn) {
+    return Highlight.newBuilder()
+      .setLocation(location(line, column, line, endColumn))
+      .setTextType(TextType.TEXT_TYPE_KEYWORD)
+      .build();
+  }
+
+  private static Location location(int startLine, int startCol, int endLine, int endCol) {
+    return Location.newBuilder()
+      .setStartLine(startLine)
+      .setStartCol(startCol)
+      .setEndLine(endLine)
+      .setEndCol(endCol)
+      .build();
+  }
+
+  private static int digits(int unit) {
+    return Integer.toString(unit).length();
+  }
+
+  private static final class NoOpFileLinesContextFactory implements FileLinesContextFactory {
+
+    private static final FileLinesContext FILE_LINES_CONTEXT = new FileLinesContext() {
+      @Override
+      public void setIntValue(String metricKey, int line, int value) {
+        // measures are not persisted by the benchmark
+      }
+
+      @Override
+      public void setStringValue(String metricKey, int line, String value) {
+        // measures are not persisted by the benchmark
+      }
+
+      @Override
+      public void save() {
+        // measures are not persisted by the benchmark
+      }
+    };
+
+    @Override
+    public FileLinesContext createFor(InputFile inputFile) {
+      return FILE_LINES_CONTEXT;
+    }
+  }
+}
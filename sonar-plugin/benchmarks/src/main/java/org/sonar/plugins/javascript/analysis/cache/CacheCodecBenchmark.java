@@ -0,0 +1,96 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section;
+import org.sonar.plugins.javascript.benchmarks.FixtureSize;
+import org.sonar.plugins.javascript.benchmarks.Fixtures;
+
+/**
+ * Encoding and decoding of the cache records with each codec. The size of the encoded record is
+ * printed during the setup, to weigh the compression ratio against the time spent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CacheCodecBenchmark {
+
+  @Param({ "SMALL", "MEDIUM", "HUGE" })
+  public FixtureSize size;
+
+  /**
+   * A {@link CacheCodec}, which generated code cannot refer to as it is package-private.
+   */
+  @Param({ "NONE", "DEFLATE" })
+  public String codec;
+
+  private CacheCodec cacheCodec;
+  private ByteString record;
+  private ByteString entry;
+
+  @Setup
+  public void setUp() throws IOException {
+    var cpdData = CpdSerializer.toBinary(new CpdData(Fixtures.cpdTokens(size)));
+    record = AnalysisRecord.write(
+      Map.of(
+        Section.CPD_TOKENS,
+        UnsafeByteOperations.unsafeWrap(cpdData.getData()),
+        Section.AST,
+        Fixtures.program(size).toByteString()
+      )
+    );
+    cacheCodec = CacheCodec.valueOf(codec);
+    entry = cacheCodec.encodeWith(record);
+    System.out.printf(
+      "%n%s record of %d bytes, %d bytes encoded%n",
+      size,
+      record.size(),
+      entry.size()
+    );
+  }
+
+  @Benchmark
+  public ByteString encode() throws IOException {
+    return cacheCodec.encodeWith(record);
+  }
+
+  @Benchmark
+  public byte[] decode() throws IOException {
+    try (var input = CacheCodec.decode(entry.newInput())) {
+      return input.readAllBytes();
+    }
+  }
+}
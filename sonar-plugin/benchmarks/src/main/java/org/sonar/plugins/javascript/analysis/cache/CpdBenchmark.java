@@ -0,0 +1,67 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.plugins.javascript.benchmarks.FixtureSize;
+import org.sonar.plugins.javascript.benchmarks.Fixtures;
+
+/**
+ * Writing and reading the copy-paste detection tokens of the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CpdBenchmark {
+
+  @Param({ "SMALL", "MEDIUM", "HUGE" })
+  public FixtureSize size;
+
+  private CpdData cpdData;
+  private CpdSerializer.SerializationResult serialized;
+
+  @Setup
+  public void setUp() throws IOException {
+    cpdData = new CpdData(Fixtures.cpdTokens(size));
+    serialized = CpdSerializer.toBinary(cpdData);
+  }
+
+  @Benchmark
+  public CpdSerializer.SerializationResult serialize() throws IOException {
+    return CpdSerializer.toBinary(cpdData);
+  }
+
+  @Benchmark
+  public CpdData deserialize() throws IOException {
+    return CpdDeserializer.fromBinary(serialized.getData(), serialized.getStringTable());
+  }
+}
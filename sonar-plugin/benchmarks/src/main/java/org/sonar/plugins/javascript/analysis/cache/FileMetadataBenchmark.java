@@ -0,0 +1,94 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.plugins.javascript.benchmarks.FixtureSize;
+import org.sonar.plugins.javascript.benchmarks.Fixtures;
+import org.sonar.plugins.javascript.benchmarks.Projects;
+
+/**
+ * Check of a cached file against the file on disk, with the file metadata stored as JSON, as the
+ * former cache entries were, or in its binary form.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FileMetadataBenchmark {
+
+  private final Gson gson = new Gson();
+
+  private InputFile inputFile;
+  private FileMetadata fileMetadata;
+  private byte[] json;
+  private byte[] binary;
+
+  @Setup
+  public void setUp() throws IOException {
+    var baseDir = Files.createTempDirectory("sonarjs-benchmarks");
+    baseDir.toFile().deleteOnExit();
+    var relativePath = Projects.relativePath(0);
+    var source = Fixtures.source(FixtureSize.MEDIUM);
+    var path = baseDir.resolve(relativePath);
+    Files.createDirectories(path.getParent()).toFile().deleteOnExit();
+    Files.writeString(path, source).toFile().deleteOnExit();
+    inputFile = Projects.inputFile(baseDir, relativePath, source);
+
+    fileMetadata = FileMetadata.from(inputFile);
+    json = gson.toJson(fileMetadata).getBytes(StandardCharsets.UTF_8);
+    binary = fileMetadata.toBinary();
+  }
+
+  @Benchmark
+  public byte[] writeJson() {
+    return gson.toJson(fileMetadata).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] writeBinary() throws IOException {
+    return fileMetadata.toBinary();
+  }
+
+  @Benchmark
+  public boolean checkJson() throws IOException {
+    var metadata = gson.fromJson(new String(json, StandardCharsets.UTF_8), FileMetadata.class);
+    return metadata.compareTo(inputFile);
+  }
+
+  @Benchmark
+  public boolean checkBinary() throws IOException {
+    return FileMetadata.fromBinary(binary).compareTo(inputFile);
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.benchmarks;
+
+/**
+ * Sizes of the generated fixtures, in units of one function of a typical source file. A unit spans
+ * {@link Fixtures#LINES_PER_UNIT} lines of code.
+ */
+public enum FixtureSize {
+  /** A small module, like most files of a project. */
+  SMALL(20),
+  /** A large hand-written file. */
+  MEDIUM(500),
+  /** A bundled or generated file. */
+  HUGE(10_000);
+
+  private final int units;
+
+  FixtureSize(int units) {
+    this.units = units;
+  }
+
+  public int units() {
+    return units;
+  }
+
+  public int lines() {
+    return units * Fixtures.LINES_PER_UNIT;
+  }
+}
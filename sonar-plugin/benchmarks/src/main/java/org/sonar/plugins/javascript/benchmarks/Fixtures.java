@@ -0,0 +1,283 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CpdToken;
+import org.sonar.plugins.javascript.analyzeproject.grpc.Location;
+import org.sonar.plugins.javascript.bridge.protobuf.BinaryExpression;
+import org.sonar.plugins.javascript.bridge.protobuf.BlockStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.CallExpression;
+import org.sonar.plugins.javascript.bridge.protobuf.ExpressionStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.FunctionDeclaration;
+import org.sonar.plugins.javascript.bridge.protobuf.Identifier;
+import org.sonar.plugins.javascript.bridge.protobuf.IfStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.Literal;
+import org.sonar.plugins.javascript.bridge.protobuf.MemberExpression;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Position;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+import org.sonar.plugins.javascript.bridge.protobuf.ReturnStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.SourceLocation;
+import org.sonar.plugins.javascript.bridge.protobuf.VariableDeclaration;
+import org.sonar.plugins.javascript.bridge.protobuf.VariableDeclarator;
+
+/**
+ * Deterministic fixtures shaped like the sources of the ruling projects. Each unit is the AST of:
+ *
+ * <pre>
+ * function handler0(request, response) {
+ *   if (request.id === 0) {
+ *     return response.send('item0');
+ *   }
+ *   logger.info(request.path);
+ * }
+ * const value0 = compute(handler0, 'value0');
+ * </pre>
+ */
+public final class Fixtures {
+
+  public static final int LINES_PER_UNIT = 7;
+
+  private static final Pattern TOKEN = Pattern.compile("\\w+|'[^']*'|\\S");
+
+  private Fixtures() {}
+
+  /**
+   * Source code of the units, matching the locations of {@link #program(FixtureSize)}.
+   */
+  public static String source(FixtureSize size) {
+    var source = new StringBuilder();
+    for (int i = 0; i < size.units(); i++) {
+      source
+        .append("function handler")
+        .append(i)
+        .append("(request, response) {\n")
+        .append("  if (request.id === ")
+        .append(i)
+        .append(") {\n")
+        .append("    return response.send('item")
+        .append(i)
+        .append("');\n")
+        .append("  }\n")
+        .append("  logger.info(request.path);\n")
+        .append("}\n")
+        .append("const value")
+        .append(i)
+        .append(" = compute(handler")
+        .append(i)
+        .append(", 'value")
+        .append(i)
+        .append("');\n");
+    }
+    return source.toString();
+  }
+
+  /**
+   * Tokens of {@link #source(FixtureSize)}, as sent by the bridge for copy-paste detection.
+   */
+  public static List<CpdToken> cpdTokens(FixtureSize size) {
+    var tokens = new ArrayList<CpdToken>();
+    var lines = source(size).split("\n");
+    for (int line = 0; line < lines.length; line++) {
+      var matcher = TOKEN.matcher(lines[line]);
+      while (matcher.find()) {
+        var location = Location.newBuilder()
+          .setStartLine(line + 1)
+          .setStartCol(matcher.start())
+          .setEndLine(line + 1)
+          .setEndCol(matcher.end());
+        tokens.add(CpdToken.newBuilder().setLocation(location).setImage(matcher.group()).build());
+      }
+    }
+    return tokens;
+  }
+
+  public static Node program(FixtureSize size) {
+    var program = Program.newBuilder().setSourceType("module");
+    for (int i = 0; i < size.units(); i++) {
+      int line = i * LINES_PER_UNIT + 1;
+      program.addBody(function(i, line));
+      program.addBody(constant(i, line + 6));
+    }
+    return Node.newBuilder()
+      .setType(NodeType.ProgramType)
+      .setLoc(loc(1, 0, size.lines(), 0))
+      .setProgram(program)
+      .build();
+  }
+
+  private static Node function(int i, int line) {
+    var request = "request";
+    var test = binary(
+      "===",
+      member(identifier(request, line + 1, 6), "id", line + 1),
+      number(i, line + 1, 19)
+    );
+    var send = call(
+      member(identifier("response", line + 2, 11), "send", line + 2),
+      string("item" + i, line + 2)
+    );
+    var returnStatement = Node.newBuilder()
+      .setType(NodeType.ReturnStatementType)
+      .setLoc(loc(line + 2, 4, line + 2, 31))
+      .setReturnStatement(ReturnStatement.newBuilder().setArgument(send))
+      .build();
+    var ifStatement = Node.newBuilder()
+      .setType(NodeType.IfStatementType)
+      .setLoc(loc(line + 1, 2, line + 3, 3))
+      .setIfStatement(IfStatement.newBuilder().setTest(test).setConsequent(block(line + 1, returnStatement)));
+    var log = expressionStatement(
+      call(
+        member(identifier("logger", line + 4, 2), "info", line + 4),
+        member(identifier(request, line + 4, 14), "path", line + 4)
+      ),
+      line + 4
+    );
+    return Node.newBuilder()
+      .setType(NodeType.FunctionDeclarationType)
+      .setLoc(loc(line, 0, line + 5, 1))
+      .setFunctionDeclaration(
+        FunctionDeclaration.newBuilder()
+          .setId(identifier("handler" + i, line, 9))
+          .addParams(identifier(request, line, 18))
+          .addParams(identifier("response", line, 27))
+          .setBody(block(line, ifStatement.build(), log))
+      )
+      .build();
+  }
+
+  private static Node constant(int i, int line) {
+    var init = call(
+      identifier("compute", line, 15),
+      identifier("handler" + i, line, 23),
+      string("value" + i, line)
+    );
+    return Node.newBuilder()
+      .setType(NodeType.VariableDeclarationType)
+      .setLoc(loc(line, 0, line, 40))
+      .setVariableDeclaration(
+        VariableDeclaration.newBuilder()
+          .setKind("const")
+          .addDeclarations(
+            Node.newBuilder()
+              .setType(NodeType.VariableDeclaratorType)
+              .setLoc(loc(line, 6, line, 39))
+              .setVariableDeclarator(
+                VariableDeclarator.newBuilder()
+                  .setId(identifier("value" + i, line, 6))
+                  .setInit(init)
+              )
+          )
+      )
+      .build();
+  }
+
+  private static Node block(int line, Node... statements) {
+    var block = BlockStatement.newBuilder();
+    for (var statement : statements) {
+      block.addBody(statement);
+    }
+    return Node.newBuilder()
+      .setType(NodeType.BlockStatementType)
+      .setLoc(loc(line, 20, line + statements.length + 1, 1))
+      .setBlockStatement(block)
+      .build();
+  }
+
+  private static Node expressionStatement(Node expression, int line) {
+    return Node.newBuilder()
+      .setType(NodeType.ExpressionStatementType)
+      .setLoc(loc(line, 2, line, 28))
+      .setExpressionStatement(ExpressionStatement.newBuilder().setExpression(expression))
+      .build();
+  }
+
+  private static Node call(Node callee, Node... arguments) {
+    var start = callee.getLoc().getStart();
+    var call = CallExpression.newBuilder().setCallee(callee);
+    for (var argument : arguments) {
+      call.addArguments(argument);
+    }
+    return Node.newBuilder()
+      .setType(NodeType.CallExpressionType)
+      .setLoc(loc(start.getLine(), start.getColumn(), start.getLine(), start.getColumn() + 24))
+      .setCallExpression(call)
+      .build();
+  }
+
+  private static Node member(Node object, String property, int line) {
+    var start = object.getLoc().getStart();
+    var end = object.getLoc().getEnd().getColumn() + 1 + property.length();
+    return Node.newBuilder()
+      .setType(NodeType.MemberExpressionType)
+      .setLoc(loc(line, start.getColumn(), line, end))
+      .setMemberExpression(
+        MemberExpression.newBuilder()
+          .setObject(object)
+          .setProperty(identifier(property, line, end - property.length()))
+      )
+      .build();
+  }
+
+  private static Node binary(String operator, Node left, Node right) {
+    var start = left.getLoc().getStart();
+    var end = right.getLoc().getEnd();
+    return Node.newBuilder()
+      .setType(NodeType.BinaryExpressionType)
+      .setLoc(loc(start.getLine(), start.getColumn(), end.getLine(), end.getColumn()))
+      .setBinaryExpression(
+        BinaryExpression.newBuilder().setOperator(operator).setLeft(left).setRight(right)
+      )
+      .build();
+  }
+
+  private static Node identifier(String name, int line, int column) {
+    return Node.newBuilder()
+      .setType(NodeType.IdentifierType)
+      .setLoc(loc(line, column, line, column + name.length()))
+      .setIdentifier(Identifier.newBuilder().setName(name))
+      .build();
+  }
+
+  private static Node number(int value, int line, int column) {
+    var raw = Integer.toString(value);
+    return Node.newBuilder()
+      .setType(NodeType.LiteralType)
+      .setLoc(loc(line, column, line, column + raw.length()))
+      .setLiteral(Literal.newBuilder().setRaw(raw).setValueNumber(value))
+      .build();
+  }
+
+  private static Node string(String value, int line) {
+    return Node.newBuilder()
+      .setType(NodeType.LiteralType)
+      .setLoc(loc(line, 20, line, 22 + value.length()))
+      .setLiteral(Literal.newBuilder().setRaw("'" + value + "'").setValueString(value))
+      .build();
+  }
+
+  private static SourceLocation loc(int startLine, int startColumn, int endLine, int endColumn) {
+    return SourceLocation.newBuilder()
+      .setStart(Position.newBuilder().setLine(startLine).setColumn(startColumn))
+      .setEnd(Position.newBuilder().setLine(endLine).setColumn(endColumn))
+      .build();
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.benchmarks;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.SensorContextTester;
+import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Sensor contexts over projects of generated files, which are held in memory.
+ */
+public final class Projects {
+
+  private Projects() {}
+
+  /**
+   * Creates a context whose file system holds {@code files} files of the given size, named
+   * {@code src/file<i>.js}.
+   */
+  public static SensorContextTester context(int files, FixtureSize size) throws IOException {
+    var baseDir = Files.createTempDirectory("sonarjs-benchmarks");
+    baseDir.toFile().deleteOnExit();
+    var context = SensorContextTester.create(baseDir);
+    var source = Fixtures.source(size);
+    for (int i = 0; i < files; i++) {
+      context.fileSystem().add(inputFile(baseDir, relativePath(i), source));
+    }
+    return context;
+  }
+
+  public static String relativePath(int file) {
+    return "src/file" + file + ".js";
+  }
+
+  public static InputFile inputFile(Path baseDir, String relativePath, String contents) {
+    return new TestInputFileBuilder("moduleKey", relativePath)
+      .setModuleBaseDir(baseDir)
+      .setLanguage("js")
+      .setContents(contents)
+      .build();
+  }
+}
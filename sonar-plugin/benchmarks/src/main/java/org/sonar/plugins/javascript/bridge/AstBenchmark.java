@@ -0,0 +1,150 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.plugins.javascript.api.AstStreamVisitor;
+import org.sonar.plugins.javascript.api.estree.ESTree;
+import org.sonar.plugins.javascript.benchmarks.FixtureSize;
+import org.sonar.plugins.javascript.benchmarks.Fixtures;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+
+/**
+ * Decoding of the ASTs received from the bridge and their conversion to ESTree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AstBenchmark {
+
+  @Param({ "SMALL", "MEDIUM", "HUGE" })
+  public FixtureSize size;
+
+  private Node node;
+  private ByteString bytes;
+
+  @Setup
+  public void setUp() {
+    node = Fixtures.program(size);
+    bytes = node.toByteString();
+  }
+
+  @Benchmark
+  public Node readByteString() throws IOException {
+    return AstProtoUtils.readProtobuf(bytes);
+  }
+
+  @Benchmark
+  public Node readStream() throws IOException {
+    return AstProtoUtils.readProtobuf(bytes.newInput());
+  }
+
+  @Benchmark
+  public Node decodeWithStack() throws IOException {
+    return StackNodeDecoder.decode(bytes.newCodedInput());
+  }
+
+  @Benchmark
+  public void walk(Blackhole blackhole) throws IOException {
+    AstStreamWalker.walk(
+      bytes,
+      new AstStreamVisitor() {
+        @Override
+        public void enterNode(
+          String type,
+          int startLine,
+          int startColumn,
+          int endLine,
+          int endColumn
+        ) {
+          blackhole.consume(type);
+        }
+      }
+    );
+  }
+
+  /**
+   * Conversion of the top-level statements only, as done for consumers of top-level ASTs.
+   */
+  @Benchmark
+  public void convertTopLevel(Blackhole blackhole) {
+    ESTreeFactory.from(node, ESTree.Program.class).body().forEach(blackhole::consume);
+  }
+
+  /**
+   * Conversion of the whole tree, forcing the conversion of all lazy lists.
+   */
+  @Benchmark
+  public void convertAll(Blackhole blackhole) {
+    var program = ESTreeFactory.from(node, ESTree.Program.class);
+    program.body().forEach(statement -> visit(statement, blackhole));
+  }
+
+  @Benchmark
+  public void convertAllInterned(Blackhole blackhole) {
+    var program = ESTreeFactory.from(node, ESTree.Program.class, new StringInterner());
+    program.body().forEach(statement -> visit(statement, blackhole));
+  }
+
+  /**
+   * Visits the node types of the fixtures, which are the only ones holding lists.
+   */
+  private static void visit(ESTree.Node node, Blackhole blackhole) {
+    blackhole.consume(node);
+    switch (node) {
+      case ESTree.FunctionDeclaration function -> {
+        function.params().forEach(param -> visit(param, blackhole));
+        visit(function.body(), blackhole);
+      }
+      case ESTree.BlockStatement block -> block.body().forEach(child -> visit(child, blackhole));
+      case ESTree.IfStatement ifStatement -> visit(ifStatement.consequent(), blackhole);
+      case ESTree.ReturnStatement returnStatement -> returnStatement
+        .argument()
+        .ifPresent(argument -> visit(argument, blackhole));
+      case ESTree.ExpressionStatement statement -> visit(statement.expression(), blackhole);
+      case ESTree.SimpleCallExpression call -> call
+        .arguments()
+        .forEach(argument -> visit(argument, blackhole));
+      case ESTree.VariableDeclaration declaration -> declaration
+        .declarations()
+        .forEach(declarator -> visit(declarator, blackhole));
+      case ESTree.VariableDeclarator declarator -> declarator
+        .init()
+        .ifPresent(init -> visit(init, blackhole));
+      default -> {
+        // leaves and nodes without list children are converted with their parent
+      }
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.plugins.javascript.api.estree.ESTree;
+
+/**
+ * Heap taken by the locations of 100k nodes. Run with {@code -prof gc}: the
+ * {@code gc.alloc.rate.norm} metric gives the bytes allocated per 100k locations, for the packed
+ * {@link ESTree.Location} and for the former record of two {@link ESTree.Position}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LocationBenchmark {
+
+  static final int NODES = 100_000;
+
+  /**
+   * Layout of the locations before they were packed.
+   */
+  record PositionsLocation(ESTree.Position start, ESTree.Position end) {}
+
+  @Benchmark
+  public Object[] packedLocations() {
+    var locations = new Object[NODES];
+    for (int i = 0; i < NODES; i++) {
+      locations[i] = new ESTree.Location(i, i % 80, i + 1, i % 80 + 10);
+    }
+    return locations;
+  }
+
+  @Benchmark
+  public Object[] positionsLocations() {
+    var locations = new Object[NODES];
+    for (int i = 0; i < NODES; i++) {
+      locations[i] = new PositionsLocation(
+        new ESTree.Position(i, i % 80),
+        new ESTree.Position(i + 1, i % 80 + 10)
+      );
+    }
+    return locations;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.external;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.plugins.javascript.analyzeproject.grpc.Issue;
+import org.sonar.plugins.javascript.benchmarks.FixtureSize;
+import org.sonar.plugins.javascript.benchmarks.Fixtures;
+import org.sonar.plugins.javascript.benchmarks.Projects;
+
+/**
+ * Deduplication of imported ESLint issues against the issues raised by the analysis, where half
+ * of the imported issues are duplicates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ExternalIssuesBenchmark {
+
+  static final int FILES = 200;
+
+  @Param({ "SMALL", "MEDIUM" })
+  public FixtureSize size;
+
+  private List<ExternalIssue> externalIssues;
+  private List<Issue> issues;
+
+  @Setup
+  public void setUp() throws IOException {
+    var context = Projects.context(FILES, size);
+    externalIssues = new ArrayList<>();
+    issues = new ArrayList<>();
+    for (InputFile file : context.fileSystem().inputFiles()) {
+      for (int unit = 0; unit < size.units(); unit++) {
+        // the if statement and the logger call of each unit
+        int ifLine = unit * Fixtures.LINES_PER_UNIT + 2;
+        int callLine = ifLine + 3;
+        issues.add(issue(file, ifLine, 2, 22));
+        externalIssues.add(externalIssue(file, ifLine, 2, 22));
+        externalIssues.add(externalIssue(file, callLine, 2, 27));
+      }
+    }
+  }
+
+  @Benchmark
+  public List<ExternalIssue> deduplicate() {
+    return ExternalIssueRepository.deduplicateIssues(externalIssues, issues);
+  }
+
+  private static Issue issue(InputFile file, int line, int column, int endColumn) {
+    return Issue.newBuilder()
+      .addRuleEslintKeys("no-console")
+      .setFilePath(file.absolutePath())
+      .setLine(line)
+      .setColumn(column)
+      .setEndLine(line)
+      .setEndColumn(endColumn)
+      .build();
+  }
+
+  private static ExternalIssue externalIssue(InputFile file, int line, int column, int endColumn) {
+    return new ExternalIssue(
+      "no-console",
+      file,
+      file.newRange(line, column, line, endColumn),
+      RuleType.CODE_SMELL,
+      "Unexpected console statement.",
+      Severity.MAJOR,
+      5L,
+      "eslint"
+    );
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.lcov;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.SensorContextTester;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.coverage.NewCoverage;
+import org.sonar.plugins.javascript.benchmarks.FixtureSize;
+import org.sonar.plugins.javascript.benchmarks.Fixtures;
+import org.sonar.plugins.javascript.benchmarks.Projects;
+
+/**
+ * Parsing of an LCOV report covering every line and branch of a project.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LcovBenchmark {
+
+  static final int FILES = 200;
+
+  @Param({ "SMALL", "MEDIUM" })
+  public FixtureSize size;
+
+  private SensorContextTester context;
+  private FileLocator fileLocator;
+  private File report;
+
+  @Setup
+  public void setUp() throws IOException {
+    context = Projects.context(FILES, size);
+    fileLocator = new FileLocator(context.fileSystem().inputFiles());
+    report = context.fileSystem().baseDir().toPath().resolve("lcov.info").toFile();
+    Files.writeString(report.toPath(), report(size));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(report.toPath());
+  }
+
+  @Benchmark
+  public Map<InputFile, NewCoverage> parse() {
+    return new LCOVParser(context, List.of(report), fileLocator).coverageByFile();
+  }
+
+  private static String report(FixtureSize size) {
+    var report = new StringBuilder();
+    for (int file = 0; file < FILES; file++) {
+      report.append("SF:").append(Projects.relativePath(file)).append('\n');
+      for (int line = 1; line <= size.lines(); line++) {
+        report.append("DA:").append(line).append(',').append(line % 3).append('\n');
+        // the if statement of each unit
+        if (line % Fixtures.LINES_PER_UNIT == 2) {
+          report.append("BRDA:").append(line).append(",0,0,1\n");
+          report.append("BRDA:").append(line).append(",0,1,-\n");
+        }
+      }
+      report.append("end_of_record\n");
+    }
+    return report.toString();
+  }
+}
@@ -25,7 +25,12 @@ import com.google.protobuf.NullValue;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
 import java.lang.reflect.Array;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +39,7 @@ import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalysisMode;
 import org.sonar.plugins.javascript.analyzeproject.grpc.CssRule;
+import org.sonar.plugins.javascript.analyzeproject.grpc.FileContentHash;
 import org.sonar.plugins.javascript.analyzeproject.grpc.FileStatus;
 import org.sonar.plugins.javascript.analyzeproject.grpc.FileType;
 import org.sonar.plugins.javascript.analyzeproject.grpc.JsTsLanguage;
@@ -45,6 +51,23 @@ import org.sonar.plugins.javascript.analyzeproject.grpc.StringList;
 public final class AnalyzeProjectMessages {
 
   private static final Gson GSON = new Gson();
+  // Charsets that TextDecoder decodes like Java, so that the runtime can read such files itself.
+  private static final Set<String> RUNTIME_DECODABLE_CHARSETS = Set.of(
+    "UTF-8",
+    "UTF-16BE",
+    "UTF-16LE",
+    "windows-1250",
+    "windows-1251",
+    "windows-1252",
+    "windows-1253",
+    "windows-1254",
+    "windows-1255",
+    "windows-1256",
+    "windows-1257",
+    "windows-1258",
+    "KOI8-R",
+    "KOI8-U"
+  );
 
   private AnalyzeProjectMessages() {}
 
@@ -110,6 +133,43 @@ public final class AnalyzeProjectMessages {
     return builder.build();
   }
 
+  /**
+   * Creates the input of a file that the runtime reads from disk and decodes with the given
+   * charset.
+   */
+  public static ProjectFileInput newProjectFileReference(
+    @Nullable InputFile.Type fileType,
+    @Nullable InputFile.Status fileStatus,
+    Charset charset
+  ) {
+    var builder = ProjectFileInput.newBuilder()
+      .setFileType(toProtoFileType(fileType))
+      .setFileStatus(toProtoFileStatus(fileStatus));
+    if (!StandardCharsets.UTF_8.equals(charset)) {
+      builder.setFileCharset(charset.name());
+    }
+    return builder.build();
+  }
+
+  public static boolean isDecodableByRuntime(Charset charset) {
+    return RUNTIME_DECODABLE_CHARSETS.contains(charset.name());
+  }
+
+  /**
+   * Hashes the content expected for a file read by the runtime, see {@code CheckFileContents}.
+   */
+  public static FileContentHash fileContentHash(String content, Charset charset) {
+    try {
+      var md5 = MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+      return FileContentHash.newBuilder()
+        .setCharset(StandardCharsets.UTF_8.equals(charset) ? "" : charset.name())
+        .setMd5(HexFormat.of().formatHex(md5))
+        .build();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   public static JsTsRule toProtoRule(EslintRule rule) {
     return JsTsRule.newBuilder()
       .setKey(rule.getKey())
@@ -16,9 +16,14 @@
  */
 package org.sonar.plugins.javascript.bridge;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,29 +41,123 @@ public class AstProtoUtils {
    * It is also worth to mention that the default limit is there to prevent "Malicious inputs".
    * It makes sense as a general default limit for protobuf users, but in our case, we are producing the input ourselves,
    * and even if users are controlling the code, it is not a new security risk, as any analyzer would have to deal with the same limit.
+   * Messages received from the bridge that go deeper are decoded again by {@link StackNodeDecoder}.
    */
-  private static final int PROTOBUF_RECURSION_LIMIT = 300;
+  static final int PROTOBUF_RECURSION_LIMIT = 300;
+
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+  /**
+   * Buffers grown past this size for a huge AST are not kept for the next message.
+   */
+  static final int MAX_RETAINED_BUFFER_SIZE = 8 * 1024 * 1024;
+  private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() ->
+    new byte[INITIAL_BUFFER_SIZE]
+  );
 
   // Prevent instantiation
   private AstProtoUtils() {}
 
+  /**
+   * Parses an AST received as text. Results of the gRPC bridge are not encoded and should be read
+   * with {@link #readProtobuf(ByteString)} instead.
+   */
   public static Node parseProtobuf(String astBase64) throws IOException {
     return readProtobufFromBytes(Base64.getDecoder().decode(astBase64));
   }
 
   public static Node readProtobufFromBytes(byte[] bytes) throws IOException {
-    return readProtobuf(CodedInputStream.newInstance(bytes));
+    return readProtobuf(UnsafeByteOperations.unsafeWrap(bytes));
   }
 
-  private static Node readProtobuf(CodedInputStream input) throws IOException {
+  /**
+   * Parses the AST directly from the bytes of the message it was received in, without copying them.
+   * ASTs nested deeper than the recursion limit are decoded again without recursion.
+   */
+  public static Node readProtobuf(ByteString bytes) throws IOException {
     try {
-      input.setRecursionLimit(PROTOBUF_RECURSION_LIMIT);
-      return Node.parseFrom(input);
+      return parse(aliasing(bytes.newCodedInput()));
     } catch (InvalidProtocolBufferException e) {
-      // Failing to parse the protobuf message should not prevent the analysis from continuing.
-      // Note: we do not print the stack trace as it is usually huge and does not contain useful information.
-      LOG.error("Failed to deserialize Protobuf message: {}", e.getMessage());
+      return decodeWithStack(aliasing(bytes.newCodedInput()), e);
+    }
+  }
+
+  /**
+   * Parses the AST from a buffer, for instance memory shared with the bridge, without copying it.
+   * The buffer must not be modified while the returned AST is in use.
+   */
+  public static Node readProtobuf(ByteBuffer buffer) throws IOException {
+    return readProtobuf(UnsafeByteOperations.unsafeWrap(buffer));
+  }
+
+  /**
+   * Reads the whole stream into a buffer reused by the calling thread, then parses the AST from
+   * it. Unlike {@link #readProtobuf(CodedInputStream)}, ASTs deeper than the recursion limit are
+   * decoded again without recursion. Aliasing stays disabled, as the buffer is overwritten by the
+   * next message.
+   */
+  public static Node readProtobuf(InputStream input) throws IOException {
+    var buffer = BUFFER.get();
+    int length = 0;
+    int read;
+    while ((read = input.read(buffer, length, buffer.length - length)) != -1) {
+      length += read;
+      if (length == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+    }
+    if (buffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+      BUFFER.set(buffer);
+    }
+    try {
+      return parse(CodedInputStream.newInstance(buffer, 0, length));
+    } catch (InvalidProtocolBufferException e) {
+      return decodeWithStack(CodedInputStream.newInstance(buffer, 0, length), e);
+    }
+  }
+
+  /**
+   * Parses the AST from a stream, for instance a cache entry, without reading it into an array.
+   * The stream cannot be read again, so ASTs deeper than the recursion limit are not decoded.
+   */
+  public static Node readProtobuf(CodedInputStream input) throws IOException {
+    try {
+      return parse(input);
+    } catch (InvalidProtocolBufferException e) {
+      logFailure(e);
+      return null;
+    }
+  }
+
+  /**
+   * Byte strings are immutable, so the parsed messages can share their bytes rather than copy them.
+   */
+  private static CodedInputStream aliasing(CodedInputStream input) {
+    input.enableAliasing(true);
+    return input;
+  }
+
+  private static Node parse(CodedInputStream input) throws IOException {
+    input.setRecursionLimit(PROTOBUF_RECURSION_LIMIT);
+    return Node.parseFrom(input);
+  }
+
+  private static Node decodeWithStack(
+    CodedInputStream input,
+    InvalidProtocolBufferException cause
+  ) throws IOException {
+    try {
+      var node = StackNodeDecoder.decode(input);
+      LOG.debug("Decoded Protobuf message without recursion: {}", cause.getMessage());
+      return node;
+    } catch (InvalidProtocolBufferException e) {
+      logFailure(e);
       return null;
     }
   }
+
+  private static void logFailure(InvalidProtocolBufferException e) {
+    // Failing to parse the protobuf message should not prevent the analysis from continuing.
+    // Note: we do not print the stack trace as it is usually huge and does not contain useful information.
+    LOG.error("Failed to deserialize Protobuf message: {}", e.getMessage());
+  }
 }
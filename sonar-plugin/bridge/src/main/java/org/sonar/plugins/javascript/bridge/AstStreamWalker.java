@@ -0,0 +1,185 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import org.sonar.plugins.javascript.api.AstStreamVisitor;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Position;
+import org.sonar.plugins.javascript.bridge.protobuf.SourceLocation;
+
+/**
+ * Walks a serialized {@link Node} directly on its wire format and reports the nodes to an
+ * {@link AstStreamVisitor}. Neither protobuf messages nor ESTree nodes are created.
+ * <p>
+ * The fields of every message are found through the descriptors of estree.proto, so the walker
+ * does not need to know about specific node types. It expects the type and the location of a node
+ * to come before its content, which is the field order used by the protobuf encoders.
+ */
+public final class AstStreamWalker {
+
+  private static final Descriptor NODE = Node.getDescriptor();
+  private static final Map<NodeType, String> TYPE_NAMES = typeNames();
+
+  private final CodedInputStream input;
+  private final AstStreamVisitor visitor;
+  private int startLine;
+  private int startColumn;
+  private int endLine;
+  private int endColumn;
+
+  private AstStreamWalker(CodedInputStream input, AstStreamVisitor visitor) {
+    this.input = input;
+    this.visitor = visitor;
+  }
+
+  public static void walk(ByteString bytes, AstStreamVisitor visitor) throws IOException {
+    walk(bytes.newCodedInput(), visitor);
+  }
+
+  /**
+   * Reads the stream until its end, which must be the end of the root node.
+   */
+  public static void walk(CodedInputStream input, AstStreamVisitor visitor) throws IOException {
+    new AstStreamWalker(input, visitor).readNode(0);
+  }
+
+  /**
+   * ESTree names of the node types, which are the protobuf names without their suffix.
+   */
+  private static Map<NodeType, String> typeNames() {
+    var names = new EnumMap<NodeType, String>(NodeType.class);
+    for (var type : NodeType.values()) {
+      var name = type.name();
+      names.put(type, name.endsWith("Type") ? name.substring(0, name.length() - 4) : name);
+    }
+    return names;
+  }
+
+  private void readNode(int depth) throws IOException {
+    var type = NodeType.ProgramType;
+    var entered = false;
+    startLine = startColumn = endLine = endColumn = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      int field = WireFormat.getTagFieldNumber(tag);
+      if (field == Node.TYPE_FIELD_NUMBER) {
+        type = NodeType.forNumber(input.readEnum());
+        if (type == null) {
+          type = NodeType.UNRECOGNIZED;
+        }
+      } else if (field == Node.LOC_FIELD_NUMBER && isMessage(tag)) {
+        int limit = input.pushLimit(input.readRawVarint32());
+        readLocation();
+        input.popLimit(limit);
+      } else {
+        if (!entered) {
+          visitor.enterNode(TYPE_NAMES.get(type), startLine, startColumn, endLine, endColumn);
+          entered = true;
+        }
+        readField(NODE, tag, depth);
+      }
+    }
+    if (!entered) {
+      visitor.enterNode(TYPE_NAMES.get(type), startLine, startColumn, endLine, endColumn);
+    }
+    visitor.leaveNode(TYPE_NAMES.get(type));
+  }
+
+  private void readMessage(Descriptor descriptor, int depth) throws IOException {
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      readField(descriptor, tag, depth);
+    }
+  }
+
+  private void readField(Descriptor descriptor, int tag, int depth) throws IOException {
+    FieldDescriptor field = descriptor.findFieldByNumber(WireFormat.getTagFieldNumber(tag));
+    if (
+      field == null ||
+      field.getJavaType() != FieldDescriptor.JavaType.MESSAGE ||
+      !isMessage(tag)
+    ) {
+      input.skipField(tag);
+      return;
+    }
+    if (depth >= AstProtoUtils.PROTOBUF_RECURSION_LIMIT) {
+      throw new InvalidProtocolBufferException("Protocol message had too many levels of nesting.");
+    }
+    int limit = input.pushLimit(input.readRawVarint32());
+    var messageType = field.getMessageType();
+    if (messageType == NODE) {
+      readNode(depth + 1);
+    } else {
+      readMessage(messageType, depth + 1);
+    }
+    input.popLimit(limit);
+  }
+
+  private void readLocation() throws IOException {
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      int field = WireFormat.getTagFieldNumber(tag);
+      if (field == SourceLocation.START_FIELD_NUMBER && isMessage(tag)) {
+        int limit = input.pushLimit(input.readRawVarint32());
+        readPosition(true);
+        input.popLimit(limit);
+      } else if (field == SourceLocation.END_FIELD_NUMBER && isMessage(tag)) {
+        int limit = input.pushLimit(input.readRawVarint32());
+        readPosition(false);
+        input.popLimit(limit);
+      } else {
+        input.skipField(tag);
+      }
+    }
+  }
+
+  private void readPosition(boolean start) throws IOException {
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      int field = WireFormat.getTagFieldNumber(tag);
+      if (field == Position.LINE_FIELD_NUMBER) {
+        if (start) {
+          startLine = input.readInt32();
+        } else {
+          endLine = input.readInt32();
+        }
+      } else if (field == Position.COLUMN_FIELD_NUMBER) {
+        if (start) {
+          startColumn = input.readInt32();
+        } else {
+          endColumn = input.readInt32();
+        }
+      } else {
+        input.skipField(tag);
+      }
+    }
+  }
+
+  private static boolean isMessage(int tag) {
+    return WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import com.google.protobuf.UnsafeByteOperations;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AstRegion;
+
+/**
+ * Directory where the analyzer runtime writes the large ASTs of one analysis, sending only their
+ * region over gRPC. Regions are mapped into memory and handed to the handler as the AST bytes of
+ * the file result, so the rest of the plugin does not know how the AST was transferred.
+ *
+ * <p>Each transfer file is mapped once, the runtime reserving its capacity up front, and regions
+ * are handed out as slices of that mapping. A file is mapped again only if a region lies beyond
+ * its mapping. Mapped regions stay valid after the directory is deleted, until they are garbage
+ * collected.
+ */
+final class AstTransferDirectory implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AstTransferDirectory.class);
+
+  private final Path directory;
+  private final Map<Path, MappedByteBuffer> mappings = new HashMap<>();
+
+  private AstTransferDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  static AstTransferDirectory create(Path workdir) throws IOException {
+    Files.createDirectories(workdir);
+    var directory = Files.createTempDirectory(workdir, "asts");
+    return new AstTransferDirectory(directory.toAbsolutePath().normalize());
+  }
+
+  Path path() {
+    return directory;
+  }
+
+  /**
+   * Replaces the AST region of a file result with the mapped bytes of the region. The file result
+   * is left without AST if the region cannot be mapped, as when the AST cannot be decoded.
+   */
+  AnalyzeProjectStreamResponse resolve(AnalyzeProjectStreamResponse response) {
+    if (!response.hasFileResult() || !response.getFileResult().getResult().hasAstRegion()) {
+      return response;
+    }
+    var builder = response.toBuilder();
+    var result = builder.getFileResultBuilder().getResultBuilder();
+    var region = result.getAstRegion();
+    result.clearAstRegion();
+    try {
+      result.setAst(UnsafeByteOperations.unsafeWrap(map(region)));
+    } catch (IOException e) {
+      LOG.error("Failed to map the AST of file {}: {}", response.getFileResult().getFilePath(), e);
+    }
+    return builder.build();
+  }
+
+  private ByteBuffer map(AstRegion region) throws IOException {
+    var file = Path.of(region.getPath()).toAbsolutePath().normalize();
+    if (!file.startsWith(directory)) {
+      throw new IOException("AST region outside of the transfer directory: " + region.getPath());
+    }
+    var end = region.getOffset() + region.getLength();
+    var mapping = mappings.get(file);
+    if (mapping == null || mapping.capacity() < end) {
+      try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        var size = channel.size();
+        if (size < end) {
+          throw new IOException("AST region beyond the end of " + region.getPath());
+        }
+        if (size > Integer.MAX_VALUE) {
+          return channel.map(FileChannel.MapMode.READ_ONLY, region.getOffset(), region.getLength());
+        }
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      mappings.put(file, mapping);
+    }
+    return mapping.slice((int) region.getOffset(), region.getLength());
+  }
+
+  @Override
+  public void close() {
+    mappings.clear();
+    try (var files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(AstTransferDirectory::delete);
+    } catch (IOException e) {
+      LOG.debug("Failed to delete AST transfer directory {}", directory, e);
+    }
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // Files still mapped cannot be deleted on some platforms, the work directory is cleaned later
+      LOG.debug("Failed to delete AST transfer file {}", path, e);
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lock and port file of the analyzer runtime shared by the analyses of a machine in daemon mode.
+ *
+ * <p>The files live in a directory of the user cache per daemon version. The lock is held for as
+ * long as an analysis uses the daemon, so that two analyses never share it at the same time: an
+ * analysis that cannot take the lock starts a dedicated runtime instead. The port file records the
+ * port and the identifier of the running daemon, so that the next analysis can attach to it, as
+ * well as its process and the instance directory its bundle is deployed in, so that a daemon that
+ * cannot be attached to is stopped and deleted rather than left behind.
+ */
+class BridgeDaemon {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BridgeDaemon.class);
+
+  private static final String LOCK_FILENAME = "daemon.lock";
+  private static final String PORT_FILENAME = "daemon.port";
+  private static final String ID_KEY = "id";
+  private static final String PORT_KEY = "port";
+  private static final String PID_KEY = "pid";
+  private static final String STARTED_KEY = "started";
+  private static final String INSTANCE_KEY = "instance";
+  private static final String INSTANCES_DIRECTORY = "instances";
+  private static final int EVICTION_TIMEOUT_SECONDS = 5;
+
+  private final Path directory;
+  private final String id;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+  private String instance;
+
+  private BridgeDaemon(Path directory, String id, FileChannel lockChannel, FileLock lock) {
+    this.directory = directory;
+    this.id = id;
+    this.lockChannel = lockChannel;
+    this.lock = lock;
+  }
+
+  /**
+   * Takes the daemon lock, or returns null if another analysis is using the daemon.
+   */
+  @CheckForNull
+  static BridgeDaemon acquire(Path directory, String id) throws IOException {
+    Files.createDirectories(directory);
+    var channel = FileChannel.open(
+      directory.resolve(LOCK_FILENAME),
+      StandardOpenOption.CREATE,
+      StandardOpenOption.WRITE
+    );
+    FileLock lock;
+    try {
+      lock = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // already held by another runtime of this JVM
+      lock = null;
+    }
+    if (lock == null) {
+      channel.close();
+      return null;
+    }
+    return new BridgeDaemon(directory, id, channel, lock);
+  }
+
+  Path directory() {
+    return directory;
+  }
+
+  String id() {
+    return id;
+  }
+
+  /**
+   * Creates the directory the bundle of a new daemon is deployed in. Every daemon has its own, so
+   * that starting one never overwrites the files another one may still be running from.
+   */
+  Path newInstanceDirectory() throws IOException {
+    instance = UUID.randomUUID().toString();
+    var instanceDirectory = directory.resolve(INSTANCES_DIRECTORY).resolve(instance);
+    Files.createDirectories(instanceDirectory);
+    return instanceDirectory;
+  }
+
+  /**
+   * Returns the port of the running daemon, if it was started with the same identifier.
+   */
+  OptionalInt port() {
+    var properties = readPortFile();
+    if (properties == null || !id.equals(properties.getProperty(ID_KEY))) {
+      return OptionalInt.empty();
+    }
+    try {
+      return OptionalInt.of(Integer.parseInt(properties.getProperty(PORT_KEY)));
+    } catch (NumberFormatException e) {
+      LOG.debug("Invalid port in analyzer daemon port file", e);
+      return OptionalInt.empty();
+    }
+  }
+
+  /**
+   * Records the daemon started by this analysis. The start time of its process is recorded with
+   * its pid, so that another process reusing the pid is never taken for the daemon.
+   */
+  void writePort(int port, @Nullable ProcessHandle process) throws IOException {
+    var properties = new Properties();
+    properties.setProperty(ID_KEY, id);
+    properties.setProperty(PORT_KEY, String.valueOf(port));
+    if (instance != null) {
+      properties.setProperty(INSTANCE_KEY, instance);
+    }
+    if (process != null) {
+      process
+        .info()
+        .startInstant()
+        .ifPresent(started -> {
+          properties.setProperty(PID_KEY, String.valueOf(process.pid()));
+          properties.setProperty(STARTED_KEY, String.valueOf(started.toEpochMilli()));
+        });
+    }
+    try (var writer = Files.newBufferedWriter(directory.resolve(PORT_FILENAME))) {
+      properties.store(writer, null);
+    }
+  }
+
+  /**
+   * Stops the daemon recorded in the port file, whatever its identifier, and deletes the port file
+   * and the instance directories of the previous daemons. The lock is held, so no analysis is using
+   * them: a daemon that is not healthy or was started with other settings would otherwise keep
+   * running unreachable until its idle timeout.
+   */
+  void evict() throws IOException {
+    var properties = readPortFile();
+    if (properties != null) {
+      recordedProcess(properties).ifPresent(BridgeDaemon::stop);
+    }
+    Files.deleteIfExists(directory.resolve(PORT_FILENAME));
+    deletePreviousInstances();
+  }
+
+  @CheckForNull
+  private Properties readPortFile() {
+    var portFile = directory.resolve(PORT_FILENAME);
+    if (!Files.isRegularFile(portFile)) {
+      return null;
+    }
+    var properties = new Properties();
+    try (var reader = Files.newBufferedReader(portFile)) {
+      properties.load(reader);
+      return properties;
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.debug("Failed to read analyzer daemon port file {}", portFile, e);
+      return null;
+    }
+  }
+
+  private static Optional<ProcessHandle> recordedProcess(Properties properties) {
+    try {
+      var pid = Long.parseLong(properties.getProperty(PID_KEY));
+      var started = Long.parseLong(properties.getProperty(STARTED_KEY));
+      return ProcessHandle.of(pid).filter(process ->
+        process.info().startInstant().map(Instant::toEpochMilli).orElse(-1L) == started
+      );
+    } catch (NumberFormatException e) {
+      // no process was recorded
+      return Optional.empty();
+    }
+  }
+
+  private static void stop(ProcessHandle process) {
+    LOG.debug("Stopping analyzer daemon process {}", process.pid());
+    process.destroy();
+    try {
+      process.onExit().get(EVICTION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      process.destroyForcibly();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      process.destroyForcibly();
+    }
+  }
+
+  private void deletePreviousInstances() throws IOException {
+    var instances = directory.resolve(INSTANCES_DIRECTORY);
+    if (!Files.isDirectory(instances)) {
+      return;
+    }
+    try (var files = Files.walk(instances)) {
+      files
+        .sorted(Comparator.reverseOrder())
+        .filter(file -> !file.equals(instances) && !isCurrentInstance(instances, file))
+        .forEach(BridgeDaemon::delete);
+    }
+  }
+
+  private boolean isCurrentInstance(Path instances, Path file) {
+    return instance != null && file.startsWith(instances.resolve(instance));
+  }
+
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Failed to delete {}", file, e);
+    }
+  }
+
+  void release() {
+    try {
+      lock.release();
+      lockChannel.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to release analyzer daemon lock", e);
+    }
+  }
+}
@@ -26,6 +26,8 @@ import org.sonar.api.scanner.ScannerSide;
 import org.sonar.api.utils.Version;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectUnaryResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CheckFileContentsRequest;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CheckFileContentsResponse;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 
 @ScannerSide
@@ -45,6 +47,12 @@ public interface BridgeServer extends Startable {
 
   AnalyzeProjectUnaryResponse analyzeProject(AnalyzeProjectRequest request) throws IOException;
 
+  /**
+   * Returns the files that the analyzer runtime would read from disk with another content than the
+   * expected one, and whose content must therefore be sent with the analysis request.
+   */
+  CheckFileContentsResponse checkFileContents(CheckFileContentsRequest request);
+
   record TelemetryData(@Nullable RuntimeTelemetry runtimeTelemetry) {}
 
   record RuntimeTelemetry(Version version, String nodeExecutableOrigin) {}
@@ -26,21 +26,29 @@ import io.grpc.ManagedChannel;
 import io.grpc.Status.Code;
 import io.grpc.StatusRuntimeException;
 import io.grpc.okhttp.OkHttpChannelBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -53,10 +61,16 @@ import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectServiceGrpc;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectUnaryResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CheckFileContentsRequest;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CheckFileContentsResponse;
 import org.sonar.plugins.javascript.analyzeproject.grpc.LeaseRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.LeaseResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileBatch;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileInput;
+import org.sonar.plugins.javascript.analyzeproject.grpc.RuntimeStatusRequest;
 import org.sonar.plugins.javascript.nodejs.NodeCommand;
 import org.sonar.plugins.javascript.nodejs.NodeCommandBuilder;
 import org.sonar.plugins.javascript.nodejs.NodeCommandException;
@@ -71,13 +85,19 @@ public class BridgeServerImpl implements BridgeServer {
 
   private static final Logger LOG = LoggerFactory.getLogger(BridgeServerImpl.class);
 
-  private static final int DEFAULT_TIMEOUT_SECONDS = 5 * 60;
+  static final int DEFAULT_TIMEOUT_SECONDS = 5 * 60;
   private static final int TIME_AFTER_FAILURE_TO_RESTART_MS = 60 * 1000;
   private static final int MAX_INBOUND_GRPC_MESSAGE_SIZE = Integer.MAX_VALUE;
   private static final int STREAM_CANCELLATION_POLL_INTERVAL_MS = 100;
+  static final int ANALYZE_PROJECT_FILE_BATCH_SIZE = 100;
   // internal property to set "--max-old-space-size" for Node process running this server
   private static final String MAX_OLD_SPACE_SIZE_PROPERTY = "sonar.javascript.node.maxspace";
   private static final String DEBUG_MEMORY = "sonar.javascript.node.debugMemory";
+  /**
+   * Lets the analyzer runtime hand large ASTs over through files of the work directory that are
+   * mapped into memory, instead of sending them in gRPC messages. See {@link AstTransferDirectory}.
+   */
+  public static final String AST_TRANSFER_PROPERTY = "sonar.javascript.node.astTransfer";
   public static final String SONARLINT_BUNDLE_PATH = "sonar.js.internal.bundlePath";
   /**
    * The default timeout to shut down the Node.js runtime if Java does not acquire the lease after
@@ -91,7 +111,25 @@ public class BridgeServerImpl implements BridgeServer {
   private static final int STARTUP_PORT_WAIT_POLL_INTERVAL_MS = 100;
   private static final String ANALYSIS_CANCELLED_MESSAGE =
     "Analysis interrupted because the SensorContext is in cancelled state";
-  private static final String BRIDGE_DEPLOY_LOCATION = "bridge-bundle";
+  static final String BRIDGE_DEPLOY_LOCATION = "bridge-bundle";
+  /**
+   * Keeps the analyzer runtime alive after the analysis, so that the next analyses on the machine
+   * attach to it instead of starting a new one. See {@link BridgeDaemon}.
+   */
+  public static final String DAEMON_PROPERTY = "sonar.javascript.node.daemon";
+  public static final String DAEMON_IDLE_TIMEOUT_PROPERTY =
+    "sonar.javascript.node.daemon.idleTimeout";
+  private static final int DEFAULT_DAEMON_IDLE_TIMEOUT_SECONDS = 30 * 60;
+  private static final int DAEMON_HEALTH_CHECK_TIMEOUT_MS = 5_000;
+  private static final Path DAEMON_LOCATION = Path.of("js", "daemon");
+  private static final List<String> DAEMON_SETTINGS = List.of(
+    NODE_EXECUTABLE_PROPERTY,
+    NODE_FORCE_HOST_PROPERTY,
+    SKIP_NODE_PROVISIONING_PROPERTY,
+    MAX_OLD_SPACE_SIZE_PROPERTY,
+    DEBUG_MEMORY,
+    DAEMON_IDLE_TIMEOUT_PROPERTY
+  );
 
   private final NodeCommandBuilder nodeCommandBuilder;
   private final int timeoutSeconds;
@@ -103,6 +141,7 @@ public class BridgeServerImpl implements BridgeServer {
   private final RulesBundles rulesBundles;
   private List<Path> deployedBundles = Collections.emptyList();
   private String workdir;
+  private boolean astTransfer;
   private final NodeDeprecationWarning deprecationWarning;
   private final Path temporaryDeployLocation;
   private final EmbeddedNode embeddedNode;
@@ -116,6 +155,11 @@ public class BridgeServerImpl implements BridgeServer {
    * SONARJS_EXISTING_NODE_PROCESS_PORT) must not be governed by the lease.
    */
   private boolean ownsNodeProcess;
+  /**
+   * Set in daemon mode while this JVM uses the shared runtime. The runtime is then neither leased
+   * nor stopped on {@link #clean()}.
+   */
+  private BridgeDaemon daemon;
 
   // Used by pico container for dependency injection
   public BridgeServerImpl(
@@ -145,6 +189,32 @@ public class BridgeServerImpl implements BridgeServer {
     NodeDeprecationWarning deprecationWarning,
     TempFolder tempFolder,
     EmbeddedNode embeddedNode
+  ) {
+    this(
+      nodeCommandBuilder,
+      timeoutSeconds,
+      bundle,
+      rulesBundles,
+      deprecationWarning,
+      tempFolder,
+      embeddedNode,
+      BRIDGE_DEPLOY_LOCATION
+    );
+  }
+
+  /**
+   * @param deployDirectory name of the temporary directory the bundles are deployed into, which
+   *                        must differ between runtimes of the same analysis
+   */
+  BridgeServerImpl(
+    NodeCommandBuilder nodeCommandBuilder,
+    int timeoutSeconds,
+    Bundle bundle,
+    RulesBundles rulesBundles,
+    NodeDeprecationWarning deprecationWarning,
+    TempFolder tempFolder,
+    EmbeddedNode embeddedNode,
+    String deployDirectory
   ) {
     this.nodeCommandBuilder = nodeCommandBuilder;
     this.timeoutSeconds = timeoutSeconds;
@@ -152,7 +222,7 @@ public class BridgeServerImpl implements BridgeServer {
     this.rulesBundles = rulesBundles;
     this.deprecationWarning = deprecationWarning;
     this.hostAddress = InetAddress.getLoopbackAddress().getHostAddress();
-    this.temporaryDeployLocation = tempFolder.newDir(BRIDGE_DEPLOY_LOCATION).toPath();
+    this.temporaryDeployLocation = tempFolder.newDir(deployDirectory).toPath();
     this.embeddedNode = embeddedNode;
   }
 
@@ -174,6 +244,9 @@ public class BridgeServerImpl implements BridgeServer {
     var bundlePath = configuration.get(SONARLINT_BUNDLE_PATH);
     if (bundlePath.isPresent()) {
       bundle.setDeployLocation(Path.of(bundlePath.get()));
+    } else if (daemon != null) {
+      // the daemon outlives the temporary folder of the analysis starting it
+      bundle.deploy(daemon.newInstanceDirectory().resolve(BRIDGE_DEPLOY_LOCATION));
     } else {
       bundle.deploy(temporaryDeployLocation);
     }
@@ -218,7 +291,7 @@ public class BridgeServerImpl implements BridgeServer {
       new StartupLogOutputConsumer(new LogOutputConsumer(), startupPort, startupPortReady)
     );
     nodeCommand.start();
-    ownsNodeProcess = true;
+    ownsNodeProcess = daemon == null;
     try {
       if (!waitForBoundPort(startupPort, startupPortReady, remainingTimeoutMs(deadlineNanos))) {
         throw new NodeCommandException(
@@ -238,6 +311,10 @@ public class BridgeServerImpl implements BridgeServer {
     }
     long duration = System.currentTimeMillis() - start;
     LOG.debug("Bridge server started on port {} in {} ms", port, duration);
+    if (daemon != null) {
+      daemon.writePort(port, nodeCommand.toHandle().orElse(null));
+      LOG.info("Started analyzer daemon on port {}", port);
+    }
 
     deprecationWarning.logNodeDeprecation(nodeCommand.getActualNodeVersion());
   }
@@ -301,7 +378,26 @@ public class BridgeServerImpl implements BridgeServer {
       LOG.info("Running in SonarLint context, metrics will not be computed.");
     }
     var debugMemory = config.getBoolean(DEBUG_MEMORY).orElse(false);
-    var nodeTimeout = config.getInt(NODE_TIMEOUT_PROPERTY).orElse(DEFAULT_NODE_SHUTDOWN_TIMEOUT_MS);
+    // a daemon is not leased, so it must not shut down for lack of lease
+    var nodeTimeout = daemon != null
+      ? 0
+      : config.getInt(NODE_TIMEOUT_PROPERTY).orElse(DEFAULT_NODE_SHUTDOWN_TIMEOUT_MS);
+    var scriptArgs = new ArrayList<>(
+      List.of(
+        String.valueOf(port),
+        hostAddress,
+        String.valueOf(debugMemory),
+        String.valueOf(nodeTimeout)
+      )
+    );
+    if (daemon != null) {
+      scriptArgs.add(daemon.id());
+      scriptArgs.add(
+        String.valueOf(
+          config.getInt(DAEMON_IDLE_TIMEOUT_PROPERTY).orElse(DEFAULT_DAEMON_IDLE_TIMEOUT_SECONDS)
+        )
+      );
+    }
 
     nodeCommandBuilder
       .outputConsumer(outputConsumer)
@@ -311,12 +407,7 @@ public class BridgeServerImpl implements BridgeServer {
       .minNodeVersion(NodeDeprecationWarning.MIN_SUPPORTED_NODE_VERSION)
       .configuration(serverConfig.config())
       .script(scriptFile.getAbsolutePath())
-      .scriptArgs(
-        String.valueOf(port),
-        hostAddress,
-        String.valueOf(debugMemory),
-        String.valueOf(nodeTimeout)
-      )
+      .scriptArgs(scriptArgs.toArray(String[]::new))
       .env(getEnv());
 
     serverConfig
@@ -420,6 +511,7 @@ public class BridgeServerImpl implements BridgeServer {
       LOG.info("Using existing Node.js process on port {}", port);
     }
     workdir = serverConfig.workDirAbsolutePath();
+    astTransfer = serverConfig.config().getBoolean(AST_TRANSFER_PROPERTY).orElse(false);
     Files.createDirectories(temporaryDeployLocation.resolve("package"));
     deployedBundles = rulesBundles.deploy(temporaryDeployLocation.resolve("package"));
 
@@ -431,6 +523,9 @@ public class BridgeServerImpl implements BridgeServer {
         status = Status.FAILED;
         throw new ServerAlreadyFailedException();
       }
+      if (isDaemonMode(serverConfig) && attachDaemon(serverConfig)) {
+        return;
+      }
       deploy(serverConfig.config());
       startServer(serverConfig);
     } catch (NodeCommandException e) {
@@ -439,10 +534,89 @@ public class BridgeServerImpl implements BridgeServer {
     }
   }
 
+  private static boolean isDaemonMode(BridgeServerConfig serverConfig) {
+    // SonarLint already keeps its runtime for the lifetime of the IDE
+    return (
+      serverConfig.product() != SonarProduct.SONARLINT &&
+      serverConfig.config().getBoolean(DAEMON_PROPERTY).orElse(false)
+    );
+  }
+
+  /**
+   * Takes the daemon lock and attaches to the running daemon if it is healthy.
+   *
+   * @return false if a runtime must be started, as a daemon if the lock was taken
+   */
+  private boolean attachDaemon(BridgeServerConfig serverConfig) throws IOException {
+    if (daemon == null) {
+      var config = serverConfig.config();
+      var directory = new Environment(config)
+        .getSonarUserHome()
+        .resolve(DAEMON_LOCATION)
+        .resolve(String.valueOf(PluginInfo.getVersion()));
+      daemon = BridgeDaemon.acquire(directory, daemonId(config));
+      if (daemon == null) {
+        LOG.info("The analyzer daemon is used by another analysis, starting a dedicated runtime");
+        return false;
+      }
+    }
+    var daemonPort = daemon.port();
+    if (daemonPort.isPresent()) {
+      port = daemonPort.getAsInt();
+      ownsNodeProcess = false;
+      openChannel();
+      if (waitChannelReady(DAEMON_HEALTH_CHECK_TIMEOUT_MS) && isDaemonHealthy()) {
+        serverHasStarted();
+        LOG.info("Using analyzer daemon on port {}", port);
+        return true;
+      }
+      LOG.debug("The analyzer daemon on port {} is not healthy, starting a new one", port);
+      closeChannel();
+    }
+    // the lock is held, so a daemon that cannot be attached to is not used by any analysis
+    daemon.evict();
+    return false;
+  }
+
+  private boolean isDaemonHealthy() {
+    try {
+      var runtimeStatus = AnalyzeProjectServiceGrpc.newBlockingStub(channel)
+        .withDeadlineAfter(DAEMON_HEALTH_CHECK_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        .runtimeStatus(RuntimeStatusRequest.getDefaultInstance());
+      return (
+        daemon.id().equals(runtimeStatus.getDaemonId()) && !runtimeStatus.getAnalysisInProgress()
+      );
+    } catch (StatusRuntimeException e) {
+      LOG.debug("Analyzer daemon health check failed", e);
+      return false;
+    }
+  }
+
+  /**
+   * Identifies the settings the daemon runtime is started with, so that analyses with other
+   * settings do not attach to it.
+   */
+  static String daemonId(Configuration config) {
+    var settings = new StringBuilder();
+    for (var key : DAEMON_SETTINGS) {
+      settings.append(key).append('=').append(config.get(key).orElse("")).append('\n');
+    }
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(
+        settings.toString().getBytes(StandardCharsets.UTF_8)
+      );
+      return PluginInfo.getVersion() + "-" + HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   @Override
   public void analyzeProject(ProjectAnalysisHandler handler) {
-    var grpcRequest = enrichAnalyzeProjectRequest(handler.getRequest());
-    if (grpcRequest.getFilesCount() == 0) {
+    var requestStream = handler.openRequestStream();
+    var header = enrichAnalyzeProjectRequest(requestStream.header());
+    var files = requestStream.nextFiles(ANALYZE_PROJECT_FILE_BATCH_SIZE);
+    if (header.getFilesCount() == 0 && files.isEmpty()) {
       LOG.debug("Skipping project analysis because there are no files to analyze");
       handler.getFuture().complete(null);
       ensureProjectAnalysisCompleted(handler);
@@ -451,10 +625,10 @@ public class BridgeServerImpl implements BridgeServer {
     var analyzeContext = Context.current().withCancellation();
     var finished = new AtomicBoolean(false);
     var cancellationWatcher = startStreamCancellationWatcher(handler, analyzeContext, finished);
-    Iterator<AnalyzeProjectStreamResponse> responses;
+    var call = new AnalyzeProjectCall();
     var previousContext = analyzeContext.attach();
     try {
-      responses = blockingAnalyzeProjectStub().analyzeProject(grpcRequest);
+      asyncAnalyzeProjectStub().analyzeProjectStream(call);
     } catch (StatusRuntimeException e) {
       finished.set(true);
       cancellationWatcher.interrupt();
@@ -464,12 +638,41 @@ public class BridgeServerImpl implements BridgeServer {
       analyzeContext.detach(previousContext);
     }
 
+    var transferDirectory = openAstTransferDirectory();
     try {
-      while (responses.hasNext()) {
-        handleStreamMessage(handler, responses.next(), analyzeContext);
-        if (handler.getContext().isCancelled()) {
-          analyzeContext.cancel(new CancellationException(ANALYSIS_CANCELLED_MESSAGE));
-          throw cancelledStreamException();
+      if (transferDirectory != null) {
+        header = header.toBuilder().setAstTransferDir(transferDirectory.path().toString()).build();
+      }
+      call.requests.onNext(AnalyzeProjectStreamRequest.newBuilder().setHeader(header).build());
+      var sending = true;
+      while (true) {
+        // Only read and send more file inputs while the transport can take them, so that file
+        // contents are not buffered for the whole project at once.
+        while (sending && call.requests.isReady()) {
+          if (files.isEmpty()) {
+            call.requests.onCompleted();
+            sending = false;
+          } else {
+            call.requests.onNext(fileBatchRequest(files));
+            files = requestStream.nextFiles(ANALYZE_PROJECT_FILE_BATCH_SIZE);
+          }
+        }
+        var event = call.events.take();
+        if (event == AnalyzeProjectCall.COMPLETED) {
+          break;
+        } else if (event instanceof Throwable throwable) {
+          throw io.grpc.Status.fromThrowable(throwable).asRuntimeException();
+        } else if (event instanceof AnalyzeProjectStreamResponse response) {
+          handleStreamMessage(
+            handler,
+            transferDirectory == null ? response : transferDirectory.resolve(response),
+            analyzeContext
+          );
+          if (handler.getContext().isCancelled()) {
+            analyzeContext.cancel(new CancellationException(ANALYSIS_CANCELLED_MESSAGE));
+            throw cancelledStreamException();
+          }
+          call.requests.request(1);
         }
       }
     } catch (StatusRuntimeException e) {
@@ -477,14 +680,34 @@ public class BridgeServerImpl implements BridgeServer {
         throw cancelledStreamException();
       }
       throw analyzeProjectException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      analyzeContext.cancel(e);
+      throw cancelledStreamException();
     } finally {
       finished.set(true);
       cancellationWatcher.interrupt();
       analyzeContext.cancel(null);
+      if (transferDirectory != null) {
+        transferDirectory.close();
+      }
     }
     ensureProjectAnalysisCompleted(handler);
   }
 
+  @Nullable
+  private AstTransferDirectory openAstTransferDirectory() {
+    if (!astTransfer || workdir == null) {
+      return null;
+    }
+    try {
+      return AstTransferDirectory.create(Path.of(workdir, "js"));
+    } catch (IOException e) {
+      LOG.debug("Sending ASTs through gRPC, failed to create an AST transfer directory", e);
+      return null;
+    }
+  }
+
   /**
    * Used by the standalone parser path, which needs a fully materialized response for a single
    * request instead of consuming the project-analysis stream incrementally.
@@ -500,6 +723,15 @@ public class BridgeServerImpl implements BridgeServer {
     }
   }
 
+  @Override
+  public CheckFileContentsResponse checkFileContents(CheckFileContentsRequest request) {
+    try {
+      return blockingAnalyzeProjectUnaryStub().checkFileContents(request);
+    } catch (StatusRuntimeException e) {
+      throw analyzeProjectException(e);
+    }
+  }
+
   private AnalyzeProjectRequest enrichAnalyzeProjectRequest(AnalyzeProjectRequest request) {
     var builder = request
       .toBuilder()
@@ -550,6 +782,12 @@ public class BridgeServerImpl implements BridgeServer {
     return new CompletionException(new CancellationException(ANALYSIS_CANCELLED_MESSAGE));
   }
 
+  private static AnalyzeProjectStreamRequest fileBatchRequest(Map<String, ProjectFileInput> files) {
+    return AnalyzeProjectStreamRequest.newBuilder()
+      .setFiles(ProjectFileBatch.newBuilder().putAllFiles(files))
+      .build();
+  }
+
   private static void handleStreamMessage(
     ProjectAnalysisHandler handler,
     AnalyzeProjectStreamResponse response,
@@ -631,7 +869,12 @@ public class BridgeServerImpl implements BridgeServer {
   public void clean() {
     closeLease();
     closeChannel();
-    if (nodeCommand != null) {
+    if (daemon != null) {
+      // the daemon keeps running for the next analyses
+      nodeCommand = null;
+      daemon.release();
+      daemon = null;
+    } else if (nodeCommand != null) {
       stopNodeCommand(false);
     }
     port = 0;
@@ -782,11 +1025,7 @@ public class BridgeServerImpl implements BridgeServer {
   }
 
   /**
-   * Returns the blocking stub used for the main project-analysis RPC.
-   *
-   * <p>{@code AnalyzeProject} is a server-streaming call: Java sends one request, then consumes a
-   * stream of incremental file results plus the final metadata message. This is the transport used
-   * by {@link #analyzeProject(ProjectAnalysisHandler)}.
+   * Returns the blocking stub used for the unary project-analysis RPC.
    */
   private AnalyzeProjectServiceGrpc.AnalyzeProjectServiceBlockingStub blockingAnalyzeProjectStub() {
     return AnalyzeProjectServiceGrpc.newBlockingStub(channel);
@@ -806,7 +1045,11 @@ public class BridgeServerImpl implements BridgeServer {
   }
 
   /**
-   * Returns the async stub used for the long-lived bidirectional lease stream.
+   * Returns the async stub used for the bidirectional streams.
+   *
+   * <p>{@code AnalyzeProjectStream} is used by {@link #analyzeProject(ProjectAnalysisHandler)}: Java
+   * sends the request header and file batches as the transport becomes ready, then consumes the
+   * incremental file results plus the final metadata message.
    *
    * <p>The lease is not part of file analysis itself; it is used to tie the lifecycle of the
    * child Node.js runtime to the Java owner without blocking the calling thread.
@@ -819,6 +1062,44 @@ public class BridgeServerImpl implements BridgeServer {
     return System.getenv(SONARJS_EXISTING_NODE_PROCESS_PORT);
   }
 
+  /**
+   * Forwards the events of an {@code AnalyzeProjectStream} call to the thread driving it.
+   *
+   * <p>Responses are requested one at a time, so the analyzer runtime cannot get ahead of the
+   * handler by more than one file result.
+   */
+  private static final class AnalyzeProjectCall
+    implements ClientResponseObserver<AnalyzeProjectStreamRequest, AnalyzeProjectStreamResponse> {
+
+    private static final Object READY = new Object();
+    private static final Object COMPLETED = new Object();
+
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+    private ClientCallStreamObserver<AnalyzeProjectStreamRequest> requests;
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<AnalyzeProjectStreamRequest> requests) {
+      this.requests = requests;
+      requests.disableAutoRequestWithInitial(1);
+      requests.setOnReadyHandler(() -> events.add(READY));
+    }
+
+    @Override
+    public void onNext(AnalyzeProjectStreamResponse response) {
+      events.add(response);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      events.add(throwable);
+    }
+
+    @Override
+    public void onCompleted() {
+      events.add(COMPLETED);
+    }
+  }
+
   static class LogOutputConsumer implements Consumer<String> {
 
     @Override
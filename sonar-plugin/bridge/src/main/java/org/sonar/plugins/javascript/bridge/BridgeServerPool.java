@@ -0,0 +1,395 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectUnaryResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CheckFileContentsRequest;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CheckFileContentsResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisMeta;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisTelemetry;
+import org.sonar.plugins.javascript.nodejs.NodeCommandBuilder;
+
+/**
+ * {@link BridgeServer} running the project analysis on several analyzer runtimes.
+ *
+ * <p>The number of runtimes is read from {@value #NODE_RUNTIMES_PROPERTY} and defaults to one, in
+ * which case every call goes straight to the single {@link BridgeServerImpl}. With more runtimes,
+ * the files are split by {@link ShardedRequestStream}, each runtime streams the results of its
+ * shard into the same handler, and the project metadata of all shards is merged once they are
+ * all done. The handler is only called under its own lock, whether it hands out files (see
+ * {@link ShardedRequestStream}) or handles results, so it is never used by two shards at once.
+ * Each runtime keeps its own lease and restart policy: a runtime that fails to start is left out
+ * of the analysis, and started again on the next one.
+ */
+public class BridgeServerPool implements BridgeServer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BridgeServerPool.class);
+
+  public static final String NODE_RUNTIMES_PROPERTY = "sonar.javascript.node.runtimes";
+
+  private final IntFunction<BridgeServerImpl> runtimeFactory;
+  private final List<BridgeServerImpl> runtimes = new ArrayList<>();
+  private final List<BridgeServerImpl> startedRuntimes = new ArrayList<>();
+
+  // Used by pico container for dependency injection
+  public BridgeServerPool(
+    NodeCommandBuilder nodeCommandBuilder,
+    Bundle bundle,
+    RulesBundles rulesBundles,
+    NodeDeprecationWarning deprecationWarning,
+    TempFolder tempFolder,
+    EmbeddedNode embeddedNode
+  ) {
+    this(
+      runtimeFactory(
+        nodeCommandBuilder,
+        bundle,
+        rulesBundles,
+        deprecationWarning,
+        tempFolder,
+        embeddedNode
+      )
+    );
+  }
+
+  BridgeServerPool(IntFunction<BridgeServerImpl> runtimeFactory) {
+    this.runtimeFactory = runtimeFactory;
+    runtimes.add(runtimeFactory.apply(0));
+  }
+
+  /**
+   * Each runtime deploys its own bundle into its own directory: the first runtime may attach to a
+   * daemon instead of deploying anything, and the rule bundles are deployed on every start.
+   */
+  static IntFunction<BridgeServerImpl> runtimeFactory(
+    NodeCommandBuilder nodeCommandBuilder,
+    Bundle bundle,
+    RulesBundles rulesBundles,
+    NodeDeprecationWarning deprecationWarning,
+    TempFolder tempFolder,
+    EmbeddedNode embeddedNode
+  ) {
+    return index ->
+      new BridgeServerImpl(
+        nodeCommandBuilder,
+        BridgeServerImpl.DEFAULT_TIMEOUT_SECONDS,
+        index == 0 ? bundle : newBundle(bundle),
+        rulesBundles,
+        deprecationWarning,
+        tempFolder,
+        embeddedNode,
+        index == 0
+          ? BridgeServerImpl.BRIDGE_DEPLOY_LOCATION
+          : (BridgeServerImpl.BRIDGE_DEPLOY_LOCATION + "-" + (index + 1))
+      );
+  }
+
+  private static Bundle newBundle(Bundle bundle) {
+    return bundle instanceof BundleImpl bundleImpl ? bundleImpl.newInstance() : bundle;
+  }
+
+  @Override
+  public void startServerLazily(BridgeServerConfig serverConfig) throws IOException {
+    var primary = runtimes.get(0);
+    primary.startServerLazily(serverConfig);
+    startedRuntimes.clear();
+    startedRuntimes.add(primary);
+    int runtimeCount = Math.max(1, serverConfig.config().getInt(NODE_RUNTIMES_PROPERTY).orElse(1));
+    for (int i = 1; i < runtimeCount; i++) {
+      if (runtimes.size() == i) {
+        runtimes.add(runtimeFactory.apply(i));
+      }
+      var runtime = runtimes.get(i);
+      try {
+        runtime.startServerLazily(serverConfig);
+        startedRuntimes.add(runtime);
+      } catch (RuntimeException e) {
+        LOG.warn("Failed to start analyzer runtime #{}, it is left out of this analysis", i + 1);
+        LOG.debug("Analyzer runtime start failure", e);
+      }
+    }
+    if (startedRuntimes.size() > 1) {
+      LOG.debug("Running project analysis on {} analyzer runtimes", startedRuntimes.size());
+    }
+  }
+
+  @Override
+  public void analyzeProject(ProjectAnalysisHandler handler) {
+    if (startedRuntimes.size() <= 1) {
+      runtimes.get(0).analyzeProject(handler);
+      return;
+    }
+    var shards = new ShardedRequestStream(
+      handler.openRequestStream(),
+      startedRuntimes.size(),
+      handler
+    );
+    var merger = new ShardResults(handler);
+    var executor = Executors.newFixedThreadPool(startedRuntimes.size(), r -> {
+      var thread = new Thread(r, "bridge-analyze-project-shard");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      var analyses = new ArrayList<Future<?>>();
+      for (int i = 0; i < startedRuntimes.size(); i++) {
+        var runtime = startedRuntimes.get(i);
+        var shardHandler = merger.shardHandler(shards.shard(i));
+        analyses.add(
+          executor.submit(() -> {
+            try {
+              runtime.analyzeProject(shardHandler);
+            } catch (RuntimeException | Error e) {
+              merger.fail(e);
+              shards.abort();
+              throw e;
+            }
+          })
+        );
+      }
+      for (var analysis : analyses) {
+        awaitShard(analysis, merger);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    merger.complete();
+  }
+
+  private static void awaitShard(Future<?> analysis, ShardResults merger) {
+    try {
+      analysis.get();
+    } catch (ExecutionException e) {
+      merger.fail(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      merger.fail(e);
+    }
+  }
+
+  @Override
+  public AnalyzeProjectUnaryResponse analyzeProject(AnalyzeProjectRequest request)
+    throws IOException {
+    return runtimes.get(0).analyzeProject(request);
+  }
+
+  @Override
+  public CheckFileContentsResponse checkFileContents(CheckFileContentsRequest request) {
+    return runtimes.get(0).checkFileContents(request);
+  }
+
+  @Override
+  public void clean() throws InterruptedException {
+    for (var runtime : runtimes) {
+      runtime.clean();
+    }
+  }
+
+  @Override
+  public String getCommandInfo() {
+    return runtimes.get(0).getCommandInfo();
+  }
+
+  @Override
+  public boolean isAlive() {
+    return runtimes.get(0).isAlive();
+  }
+
+  @Override
+  public TelemetryData getTelemetry() {
+    return runtimes.get(0).getTelemetry();
+  }
+
+  @Override
+  public void start() {
+    // Runtimes are started lazily, see startServerLazily
+  }
+
+  @Override
+  public void stop() {
+    runtimes.forEach(BridgeServerImpl::stop);
+  }
+
+  /**
+   * Forwards the file results of every shard to the analysis handler and merges their metadata.
+   */
+  private static final class ShardResults {
+
+    private final ProjectAnalysisHandler handler;
+    private final List<ProjectAnalysisMeta> metas = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private ShardResults(ProjectAnalysisHandler handler) {
+      this.handler = handler;
+    }
+
+    private ProjectAnalysisHandler shardHandler(ProjectAnalysisHandler.RequestStream requests) {
+      var future = new CompletableFuture<Void>();
+      return new ProjectAnalysisHandler.Streaming() {
+        @Override
+        public RequestStream openRequestStream() {
+          return requests;
+        }
+
+        @Override
+        public SensorContext getContext() {
+          return handler.getContext();
+        }
+
+        @Override
+        public CompletableFuture<Void> getFuture() {
+          return future;
+        }
+
+        @Override
+        public void handleMessage(AnalyzeProjectStreamResponse message) {
+          var shardFailure = failure.get();
+          if (shardFailure != null) {
+            // stop consuming this shard as soon as another one failed
+            throw new CompletionException(shardFailure);
+          }
+          if (message.getMessageCase() == AnalyzeProjectStreamResponse.MessageCase.META) {
+            addMeta(message.getMeta());
+            future.complete(null);
+            return;
+          }
+          synchronized (handler) {
+            handler.handleMessage(message);
+          }
+          if (handler.getFuture().isCompletedExceptionally()) {
+            future.complete(null);
+            handler.getFuture().join();
+          }
+        }
+      };
+    }
+
+    private synchronized void addMeta(ProjectAnalysisMeta meta) {
+      metas.add(meta);
+    }
+
+    private void fail(Throwable throwable) {
+      failure.compareAndSet(null, throwable);
+    }
+
+    private void complete() {
+      var shardFailure = failure.get();
+      if (shardFailure instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (shardFailure instanceof Error error) {
+        throw error;
+      }
+      if (shardFailure != null) {
+        throw new CompletionException(shardFailure);
+      }
+      if (metas.isEmpty()) {
+        // every shard was empty, so none of them sent project metadata
+        handler.getFuture().complete(null);
+      } else {
+        handler.handleMessage(
+          AnalyzeProjectStreamResponse.newBuilder().setMeta(mergeMetas(metas)).build()
+        );
+      }
+    }
+  }
+
+  static ProjectAnalysisMeta mergeMetas(List<ProjectAnalysisMeta> metas) {
+    var warnings = new LinkedHashSet<String>();
+    var telemetries = new ArrayList<ProjectAnalysisTelemetry>();
+    for (var meta : metas) {
+      warnings.addAll(meta.getWarningsList());
+      if (meta.hasTelemetry()) {
+        telemetries.add(meta.getTelemetry());
+      }
+    }
+    var merged = ProjectAnalysisMeta.newBuilder().addAllWarnings(warnings);
+    if (!telemetries.isEmpty()) {
+      merged.setTelemetry(mergeTelemetries(telemetries));
+    }
+    return merged.build();
+  }
+
+  private static ProjectAnalysisTelemetry mergeTelemetries(
+    List<ProjectAnalysisTelemetry> telemetries
+  ) {
+    var typescriptVersions = new LinkedHashSet<String>();
+    var ecmaScriptVersions = new LinkedHashSet<String>();
+    var denoImportCounts = new HashMap<String, Integer>();
+    var packageImportFileCounts = new HashMap<String, Integer>();
+    var merged = ProjectAnalysisTelemetry.newBuilder();
+    var programCreation = merged.getProgramCreationBuilder();
+    var generatedSources = merged.getGeneratedSourcesBuilder();
+    for (var telemetry : telemetries) {
+      typescriptVersions.addAll(telemetry.getTypescriptVersionsList());
+      ecmaScriptVersions.addAll(telemetry.getEcmaScriptVersionsList());
+      merged
+        .setTypescriptNativePreview(
+          merged.getTypescriptNativePreview() || telemetry.getTypescriptNativePreview()
+        )
+        .putAllCompilerOptions(telemetry.getCompilerOptionsMap())
+        .setEsmFileCount(merged.getEsmFileCount() + telemetry.getEsmFileCount())
+        .setCjsFileCount(merged.getCjsFileCount() + telemetry.getCjsFileCount());
+      telemetry.getDenoImportCountsMap().forEach((key, count) ->
+        denoImportCounts.merge(key, count, Integer::sum)
+      );
+      telemetry.getPackageImportFileCountsMap().forEach((key, count) ->
+        packageImportFileCounts.merge(key, count, Integer::sum)
+      );
+      var shardProgramCreation = telemetry.getProgramCreation();
+      programCreation
+        .setAttempted(programCreation.getAttempted() + shardProgramCreation.getAttempted())
+        .setSucceeded(programCreation.getSucceeded() + shardProgramCreation.getSucceeded())
+        .setFailed(programCreation.getFailed() + shardProgramCreation.getFailed());
+      var shardGeneratedSources = telemetry.getGeneratedSources();
+      generatedSources
+        .setFamilyCount(generatedSources.getFamilyCount() + shardGeneratedSources.getFamilyCount())
+        .setResolvedFileCount(
+          generatedSources.getResolvedFileCount() + shardGeneratedSources.getResolvedFileCount()
+        )
+        .setTaggedFileCount(
+          generatedSources.getTaggedFileCount() + shardGeneratedSources.getTaggedFileCount()
+        )
+        .addAllFamilies(shardGeneratedSources.getFamiliesList());
+    }
+    return merged
+      .addAllTypescriptVersions(typescriptVersions)
+      .addAllEcmaScriptVersions(ecmaScriptVersions)
+      .putAllDenoImportCounts(denoImportCounts)
+      .putAllPackageImportFileCounts(packageImportFileCounts)
+      .build();
+  }
+}
@@ -46,6 +46,13 @@ public class BundleImpl implements Bundle {
     this.bundleLocation = bundleLocation;
   }
 
+  /**
+   * Same bundle, to be deployed into another location.
+   */
+  BundleImpl newInstance() {
+    return new BundleImpl(bundleLocation);
+  }
+
   @Override
   public void setDeployLocation(Path deployLocation) {
     LOG.debug("Setting deploy location to {}", deployLocation);
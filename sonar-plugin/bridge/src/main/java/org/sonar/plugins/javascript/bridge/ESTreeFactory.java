@@ -16,9 +16,21 @@
  */
 package org.sonar.plugins.javascript.bridge;
 
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.OneofDescriptor;
+import com.google.protobuf.Message;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
 import org.sonar.plugins.javascript.api.estree.ESTree;
 import org.sonar.plugins.javascript.bridge.protobuf.ArrayElement;
 import org.sonar.plugins.javascript.bridge.protobuf.ArrayExpression;
@@ -111,12 +123,98 @@ import org.sonar.plugins.javascript.bridge.protobuf.YieldExpression;
 
 public class ESTreeFactory {
 
-  private ESTreeFactory() {
-    // Utility class
+  /**
+   * Nesting depth from which nodes are converted with an explicit stack rather than recursively.
+   */
+  private static final int MAX_RECURSION_DEPTH = 128;
+  private static final OneofDescriptor NODE_CONTENT = Node.getDescriptor().getOneofs().get(0);
+  private static final Map<Descriptor, List<FieldDescriptor>> EAGER_CHILDREN = eagerChildren();
+
+  @Nullable
+  private Map<Node, ESTree.Node> converted;
+
+  private final StringInterner interner;
+
+  /**
+   * String table of the program being converted, referenced by index from its nodes.
+   */
+  private List<String> strings;
+
+  private int depth;
+
+  private ESTreeFactory(StringInterner interner, List<String> strings) {
+    // One instance per conversion, holding its state
+    this.interner = interner;
+    this.strings = strings;
   }
 
+  /**
+   * Converts a protobuf node into its ESTree counterpart. The elements of list children are only
+   * converted when they are accessed, and conversion failures are reported at that point.
+   */
   public static <T> T from(Node node, Class<T> clazz) {
-    ESTree.Node estreeNode = switch (node.getType()) {
+    return from(node, clazz, StringInterner.NONE);
+  }
+
+  /**
+   * Converts a protobuf node like {@link #from(Node, Class)}, sharing identifier names and literals
+   * through the given interner.
+   */
+  public static <T> T from(Node node, Class<T> clazz, StringInterner interner) {
+    return new ESTreeFactory(interner, List.of()).convert(node, clazz);
+  }
+
+  private <T> T convert(Node node, Class<T> clazz) {
+    ESTree.Node estreeNode = converted == null ? null : converted.get(node);
+    if (estreeNode == null) {
+      if (depth < MAX_RECURSION_DEPTH) {
+        depth++;
+        estreeNode = convertNode(node);
+        depth--;
+      } else {
+        estreeNode = convertWithStack(node);
+      }
+    }
+    if (!clazz.isInstance(estreeNode)) {
+      throw new IllegalStateException("Expected " + clazz + " but got " + estreeNode.getClass());
+    }
+    return clazz.cast(estreeNode);
+  }
+
+  /**
+   * Converts the children of a deeply nested node before the node itself, keeping track of the
+   * pending nodes in a stack. Converting a node then finds all its children already converted, so
+   * the Java stack does not grow with the depth of the tree.
+   */
+  private ESTree.Node convertWithStack(Node root) {
+    if (converted == null) {
+      converted = new IdentityHashMap<>();
+    }
+    var results = converted;
+    Deque<Node> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      var node = pending.peek();
+      int pendingCount = pending.size();
+      if (!results.containsKey(node)) {
+        forEachEagerChild(node, child -> {
+          if (!results.containsKey(child)) {
+            pending.push(child);
+          }
+        });
+      }
+      if (pending.size() == pendingCount) {
+        pending.pop();
+        if (!results.containsKey(node)) {
+          results.put(node, convertNode(node));
+        }
+      }
+    }
+    return results.get(root);
+  }
+
+  private ESTree.Node convertNode(Node node) {
+    return switch (node.getType()) {
       case ProgramType -> fromProgramType(node);
       case ExportAllDeclarationType -> fromExportAllDeclarationType(node);
       case IdentifierType -> fromIdentifierType(node);
@@ -224,157 +322,241 @@ public class ESTreeFactory {
       case JSXTextType -> fromJSXText(node);
       case JSXEmptyExpressionType -> fromJSXEmptyExpression(node);
       case UnknownNodeType -> fromUnknownNodeType(node);
-      case UNRECOGNIZED -> throw new IllegalArgumentException(
-        "Unknown node type: " + node.getType() + " at " + node.getLoc()
-      );
+      case UNRECOGNIZED -> throw new UnknownNodeTypeException(node);
     };
-    if (!clazz.isInstance(estreeNode)) {
-      throw new IllegalStateException("Expected " + clazz + " but got " + estreeNode.getClass());
+  }
+
+  /**
+   * Children converted together with their parent, as opposed to the elements of node lists that
+   * {@link LazyNodeList} converts later on.
+   */
+  private static void forEachEagerChild(Node node, Consumer<Node> action) {
+    var content = node.getOneofFieldDescriptor(NODE_CONTENT);
+    if (content != null) {
+      forEachEagerChildIn((Message) node.getField(content), action);
     }
-    return clazz.cast(estreeNode);
   }
 
-  private static <T> List<T> from(List<Node> bodyList, Class<T> clazz) {
-    return bodyList
-      .stream()
-      .map(n -> from(n, clazz))
-      .toList();
+  private static void forEachEagerChildIn(Message message, Consumer<Node> action) {
+    for (var field : EAGER_CHILDREN.getOrDefault(message.getDescriptorForType(), List.of())) {
+      if (field.isRepeated()) {
+        for (int i = 0; i < message.getRepeatedFieldCount(field); i++) {
+          forEachEagerChildIn((Message) message.getRepeatedField(field, i), action);
+        }
+      } else if (message.hasField(field)) {
+        var child = message.getField(field);
+        if (child instanceof Node node) {
+          action.accept(node);
+        } else {
+          forEachEagerChildIn((Message) child, action);
+        }
+      }
+    }
+  }
+
+  /**
+   * Indexes, for every message type, the fields holding eagerly converted children: single nodes,
+   * and messages wrapping nodes such as array elements.
+   */
+  private static Map<Descriptor, List<FieldDescriptor>> eagerChildren() {
+    Map<Descriptor, List<FieldDescriptor>> table = new HashMap<>();
+    NODE_CONTENT.getFields().forEach(content -> addEagerChildren(content.getMessageType(), table));
+    return Map.copyOf(table);
+  }
+
+  private static void addEagerChildren(
+    Descriptor type,
+    Map<Descriptor, List<FieldDescriptor>> table
+  ) {
+    if (table.containsKey(type)) {
+      return;
+    }
+    var fields = new ArrayList<FieldDescriptor>();
+    table.put(type, fields);
+    for (var field : type.getFields()) {
+      if (field.getJavaType() != FieldDescriptor.JavaType.MESSAGE) {
+        continue;
+      }
+      var fieldType = field.getMessageType();
+      if (fieldType == Node.getDescriptor()) {
+        if (!field.isRepeated()) {
+          fields.add(field);
+        }
+      } else if (fieldType != SourceLocation.getDescriptor()) {
+        addEagerChildren(fieldType, table);
+        fields.add(field);
+      }
+    }
+  }
+
+  /**
+   * Children in lists are converted when the consumer first accesses them.
+   */
+  private <T> List<T> convert(List<Node> bodyList, Class<T> clazz) {
+    if (bodyList.isEmpty()) {
+      return List.of();
+    }
+    // Elements are converted by a fresh factory so that the list does not retain this one
+    var elementInterner = interner;
+    var elementStrings = strings;
+    return new LazyNodeList<>(bodyList, clazz, node ->
+      new ESTreeFactory(elementInterner, elementStrings).convert(node, clazz)
+    );
+  }
+
+  /**
+   * Resolves a string that the serializer may have moved to the program string table.
+   */
+  private String string(boolean indexed, int index, String value) {
+    if (indexed) {
+      if (index < 0 || index >= strings.size()) {
+        throw new IllegalStateException("Unknown string table index " + index);
+      }
+      return strings.get(index);
+    }
+    return interner.intern(value);
   }
 
-  private static ESTree.Location fromLocation(SourceLocation location) {
+  static ESTree.Location fromLocation(SourceLocation location) {
     return new ESTree.Location(
-      new ESTree.Position(location.getStart().getLine(), location.getStart().getColumn()),
-      new ESTree.Position(location.getEnd().getLine(), location.getEnd().getColumn())
+      location.getStart().getLine(),
+      location.getStart().getColumn(),
+      location.getEnd().getLine(),
+      location.getEnd().getColumn()
     );
   }
 
-  private static ESTree.Program fromProgramType(Node node) {
+  private ESTree.Program fromProgramType(Node node) {
     Program program = node.getProgram();
+    strings = program.getStringsList().stream().map(interner::intern).toList();
     return new ESTree.Program(
       fromLocation(node.getLoc()),
       program.getSourceType(),
-      from(program.getBodyList(), ESTree.DirectiveOrModuleDeclarationOrStatement.class)
+      convert(program.getBodyList(), ESTree.DirectiveOrModuleDeclarationOrStatement.class)
     );
   }
 
-  private static ESTree.ExportAllDeclaration fromExportAllDeclarationType(Node node) {
+  private ESTree.ExportAllDeclaration fromExportAllDeclarationType(Node node) {
     ExportAllDeclaration exportAllDeclaration = node.getExportAllDeclaration();
     return new ESTree.ExportAllDeclaration(
       fromLocation(node.getLoc()),
       exportAllDeclaration.hasExported()
-        ? Optional.of(from(exportAllDeclaration.getExported(), ESTree.IdentifierOrLiteral.class))
+        ? Optional.of(convert(exportAllDeclaration.getExported(), ESTree.IdentifierOrLiteral.class))
         : Optional.empty(),
-      from(exportAllDeclaration.getSource(), ESTree.Literal.class)
+      convert(exportAllDeclaration.getSource(), ESTree.Literal.class)
     );
   }
 
-  private static ESTree.ExportAssignment fromExportAssignment(Node node) {
+  private ESTree.ExportAssignment fromExportAssignment(Node node) {
     ExportAssignment exportAssignment = node.getExportAssignment();
     return new ESTree.ExportAssignment(
       fromLocation(node.getLoc()),
-      from(exportAssignment.getExpression(), ESTree.Expression.class)
+      convert(exportAssignment.getExpression(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.Identifier fromIdentifierType(Node node) {
+  private ESTree.Identifier fromIdentifierType(Node node) {
     Identifier identifier = node.getIdentifier();
-    return new ESTree.Identifier(fromLocation(node.getLoc()), identifier.getName());
+    return new ESTree.Identifier(
+      fromLocation(node.getLoc()),
+      string(identifier.hasNameIndex(), identifier.getNameIndex(), identifier.getName())
+    );
   }
 
-  private static ESTree.ExportDefaultDeclaration fromExportDefaultDeclarationType(Node node) {
+  private ESTree.ExportDefaultDeclaration fromExportDefaultDeclarationType(Node node) {
     ExportDefaultDeclaration exportDefaultDeclaration = node.getExportDefaultDeclaration();
     return new ESTree.ExportDefaultDeclaration(
       fromLocation(node.getLoc()),
-      from(
+      convert(
         exportDefaultDeclaration.getDeclaration(),
         ESTree.ExpressionOrClassDeclarationOrFunctionDeclaration.class
       )
     );
   }
 
-  private static ESTree.YieldExpression fromYieldExpressionType(Node node) {
+  private ESTree.YieldExpression fromYieldExpressionType(Node node) {
     YieldExpression yieldExpression = node.getYieldExpression();
     return new ESTree.YieldExpression(
       fromLocation(node.getLoc()),
       yieldExpression.hasArgument()
-        ? Optional.of(from(yieldExpression.getArgument(), ESTree.Expression.class))
+        ? Optional.of(convert(yieldExpression.getArgument(), ESTree.Expression.class))
         : Optional.empty(),
       yieldExpression.getDelegate()
     );
   }
 
-  private static ESTree.UpdateExpression fromUpdateExpressionType(Node node) {
+  private ESTree.UpdateExpression fromUpdateExpressionType(Node node) {
     UpdateExpression updateExpression = node.getUpdateExpression();
     return new ESTree.UpdateExpression(
       fromLocation(node.getLoc()),
       ESTree.UpdateOperator.from(updateExpression.getOperator()),
-      from(updateExpression.getArgument(), ESTree.Expression.class),
+      convert(updateExpression.getArgument(), ESTree.Expression.class),
       updateExpression.getPrefix()
     );
   }
 
-  private static ESTree.UnaryExpression fromUnaryExpressionType(Node node) {
+  private ESTree.UnaryExpression fromUnaryExpressionType(Node node) {
     UnaryExpression unaryExpression = node.getUnaryExpression();
     return new ESTree.UnaryExpression(
       fromLocation(node.getLoc()),
       ESTree.UnaryOperator.from(unaryExpression.getOperator()),
       unaryExpression.getPrefix(),
-      from(unaryExpression.getArgument(), ESTree.Expression.class)
+      convert(unaryExpression.getArgument(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.ThisExpression fromThisExpressionType(Node node) {
+  private ESTree.ThisExpression fromThisExpressionType(Node node) {
     return new ESTree.ThisExpression(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.TemplateLiteral fromTemplateLiteralType(Node node) {
+  private ESTree.TemplateLiteral fromTemplateLiteralType(Node node) {
     TemplateLiteral templateLiteral = node.getTemplateLiteral();
     return new ESTree.TemplateLiteral(
       fromLocation(node.getLoc()),
-      from(templateLiteral.getQuasisList(), ESTree.TemplateElement.class),
-      from(templateLiteral.getExpressionsList(), ESTree.Expression.class)
+      convert(templateLiteral.getQuasisList(), ESTree.TemplateElement.class),
+      convert(templateLiteral.getExpressionsList(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.TaggedTemplateExpression fromTaggedTemplateExpressionType(Node node) {
+  private ESTree.TaggedTemplateExpression fromTaggedTemplateExpressionType(Node node) {
     TaggedTemplateExpression taggedTemplateExpression = node.getTaggedTemplateExpression();
     return new ESTree.TaggedTemplateExpression(
       fromLocation(node.getLoc()),
-      from(taggedTemplateExpression.getTag(), ESTree.Expression.class),
-      from(taggedTemplateExpression.getQuasi(), ESTree.TemplateLiteral.class)
+      convert(taggedTemplateExpression.getTag(), ESTree.Expression.class),
+      convert(taggedTemplateExpression.getQuasi(), ESTree.TemplateLiteral.class)
     );
   }
 
-  private static ESTree.SequenceExpression fromSequenceExpressionType(Node node) {
+  private ESTree.SequenceExpression fromSequenceExpressionType(Node node) {
     SequenceExpression sequenceExpression = node.getSequenceExpression();
     return new ESTree.SequenceExpression(
       fromLocation(node.getLoc()),
-      from(sequenceExpression.getExpressionsList(), ESTree.Expression.class)
+      convert(sequenceExpression.getExpressionsList(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.ObjectExpression fromObjectExpressionType(Node node) {
+  private ESTree.ObjectExpression fromObjectExpressionType(Node node) {
     ObjectExpression objectExpression = node.getObjectExpression();
     return new ESTree.ObjectExpression(
       fromLocation(node.getLoc()),
-      from(objectExpression.getPropertiesList(), ESTree.PropertyOrSpreadElement.class)
+      convert(objectExpression.getPropertiesList(), ESTree.PropertyOrSpreadElement.class)
     );
   }
 
-  private static ESTree.SpreadElement fromSpreadElementType(Node node) {
+  private ESTree.SpreadElement fromSpreadElementType(Node node) {
     SpreadElement spreadElement = node.getSpreadElement();
     return new ESTree.SpreadElement(
       fromLocation(node.getLoc()),
-      from(spreadElement.getArgument(), ESTree.Expression.class)
+      convert(spreadElement.getArgument(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.Property fromPropertyType(Node node) {
+  private ESTree.Property fromPropertyType(Node node) {
     Property property = node.getProperty();
     return new ESTree.Property(
       fromLocation(node.getLoc()),
-      from(property.getKey(), ESTree.ExpressionOrPrivateIdentifier.class),
-      from(property.getValue(), ESTree.ExpressionOrPattern.class),
+      convert(property.getKey(), ESTree.ExpressionOrPrivateIdentifier.class),
+      convert(property.getValue(), ESTree.ExpressionOrPattern.class),
       property.getKind(),
       property.getMethod(),
       property.getShorthand(),
@@ -382,168 +564,174 @@ public class ESTreeFactory {
     );
   }
 
-  private static ESTree.AssignmentPattern fromAssignmentPatternType(Node node) {
+  private ESTree.AssignmentPattern fromAssignmentPatternType(Node node) {
     AssignmentPattern assignmentPattern = node.getAssignmentPattern();
     return new ESTree.AssignmentPattern(
       fromLocation(node.getLoc()),
-      from(assignmentPattern.getLeft(), ESTree.Pattern.class),
-      from(assignmentPattern.getRight(), ESTree.Expression.class)
+      convert(assignmentPattern.getLeft(), ESTree.Pattern.class),
+      convert(assignmentPattern.getRight(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.RestElement fromRestElementType(Node node) {
+  private ESTree.RestElement fromRestElementType(Node node) {
     RestElement restElement = node.getRestElement();
     return new ESTree.RestElement(
       fromLocation(node.getLoc()),
-      from(restElement.getArgument(), ESTree.Pattern.class)
+      convert(restElement.getArgument(), ESTree.Pattern.class)
     );
   }
 
-  private static ESTree.ArrayPattern fromArrayPatternType(Node node) {
+  private ESTree.ArrayPattern fromArrayPatternType(Node node) {
     ArrayPattern arrayPattern = node.getArrayPattern();
     return new ESTree.ArrayPattern(
       fromLocation(node.getLoc()),
-      arrayPattern.getElementsList().stream().map(ESTreeFactory::fromArrayPatternElement).toList()
+      arrayPattern.getElementsList().stream().map(this::fromArrayPatternElement).toList()
     );
   }
 
-  private static Optional<ESTree.Pattern> fromArrayPatternElement(ArrayElement element) {
+  private Optional<ESTree.Pattern> fromArrayPatternElement(ArrayElement element) {
     return element.hasElement()
-      ? Optional.of(from(element.getElement(), ESTree.Pattern.class))
+      ? Optional.of(convert(element.getElement(), ESTree.Pattern.class))
       : Optional.empty();
   }
 
-  private static ESTree.ObjectPattern fromObjectPatternType(Node node) {
+  private ESTree.ObjectPattern fromObjectPatternType(Node node) {
     ObjectPattern objectPattern = node.getObjectPattern();
     return new ESTree.ObjectPattern(
       fromLocation(node.getLoc()),
-      from(objectPattern.getPropertiesList(), ESTree.PropertyOrRestElement.class)
+      convert(objectPattern.getPropertiesList(), ESTree.PropertyOrRestElement.class)
     );
   }
 
-  private static ESTree.PrivateIdentifier fromPrivateIdentifierType(Node node) {
+  private ESTree.PrivateIdentifier fromPrivateIdentifierType(Node node) {
     PrivateIdentifier privateIdentifier = node.getPrivateIdentifier();
-    return new ESTree.PrivateIdentifier(fromLocation(node.getLoc()), privateIdentifier.getName());
+    return new ESTree.PrivateIdentifier(
+      fromLocation(node.getLoc()),
+      interner.intern(privateIdentifier.getName())
+    );
   }
 
-  private static ESTree.NewExpression fromNewExpressionType(Node node) {
+  private ESTree.NewExpression fromNewExpressionType(Node node) {
     NewExpression newExpression = node.getNewExpression();
     return new ESTree.NewExpression(
       fromLocation(node.getLoc()),
-      from(newExpression.getCallee(), ESTree.ExpressionOrSuper.class),
-      from(newExpression.getArgumentsList(), ESTree.ExpressionOrSpreadElement.class)
+      convert(newExpression.getCallee(), ESTree.ExpressionOrSuper.class),
+      convert(newExpression.getArgumentsList(), ESTree.ExpressionOrSpreadElement.class)
     );
   }
 
-  private static ESTree.Super fromSuperType(Node node) {
+  private ESTree.Super fromSuperType(Node node) {
     return new ESTree.Super(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.MetaProperty fromMetaPropertyType(Node node) {
+  private ESTree.MetaProperty fromMetaPropertyType(Node node) {
     MetaProperty metaProperty = node.getMetaProperty();
     return new ESTree.MetaProperty(
       fromLocation(node.getLoc()),
-      from(metaProperty.getMeta(), ESTree.Identifier.class),
-      from(metaProperty.getProperty(), ESTree.Identifier.class)
+      convert(metaProperty.getMeta(), ESTree.Identifier.class),
+      convert(metaProperty.getProperty(), ESTree.Identifier.class)
     );
   }
 
-  private static ESTree.MemberExpression fromMemberExpressionType(Node node) {
+  private ESTree.MemberExpression fromMemberExpressionType(Node node) {
     MemberExpression memberExpression = node.getMemberExpression();
     return new ESTree.MemberExpression(
       fromLocation(node.getLoc()),
-      from(memberExpression.getObject(), ESTree.ExpressionOrSuper.class),
-      from(memberExpression.getProperty(), ESTree.ExpressionOrPrivateIdentifier.class),
+      convert(memberExpression.getObject(), ESTree.ExpressionOrSuper.class),
+      convert(memberExpression.getProperty(), ESTree.ExpressionOrPrivateIdentifier.class),
       memberExpression.getComputed(),
       memberExpression.getOptional()
     );
   }
 
-  private static ESTree.LogicalExpression fromLogicalExpressionType(Node node) {
+  private ESTree.LogicalExpression fromLogicalExpressionType(Node node) {
     LogicalExpression logicalExpression = node.getLogicalExpression();
     return new ESTree.LogicalExpression(
       fromLocation(node.getLoc()),
       ESTree.LogicalOperator.from(logicalExpression.getOperator()),
-      from(logicalExpression.getLeft(), ESTree.Expression.class),
-      from(logicalExpression.getRight(), ESTree.Expression.class)
+      convert(logicalExpression.getLeft(), ESTree.Expression.class),
+      convert(logicalExpression.getRight(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.ImportExpression fromImportExpressionType(Node node) {
+  private ESTree.ImportExpression fromImportExpressionType(Node node) {
     ImportExpression importExpression = node.getImportExpression();
     return new ESTree.ImportExpression(
       fromLocation(node.getLoc()),
-      from(importExpression.getSource(), ESTree.Expression.class)
+      convert(importExpression.getSource(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.BlockStatement fromBlockStatementType(Node node) {
+  private ESTree.BlockStatement fromBlockStatementType(Node node) {
     BlockStatement blockStatement = node.getBlockStatement();
     return new ESTree.BlockStatement(
       fromLocation(node.getLoc()),
-      from(blockStatement.getBodyList(), ESTree.Statement.class)
+      convert(blockStatement.getBodyList(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.ConditionalExpression fromConditionalExpressionType(Node node) {
+  private ESTree.ConditionalExpression fromConditionalExpressionType(Node node) {
     ConditionalExpression conditionalExpression = node.getConditionalExpression();
     return new ESTree.ConditionalExpression(
       fromLocation(node.getLoc()),
-      from(conditionalExpression.getTest(), ESTree.Expression.class),
-      from(conditionalExpression.getAlternate(), ESTree.Expression.class),
-      from(conditionalExpression.getConsequent(), ESTree.Expression.class)
+      convert(conditionalExpression.getTest(), ESTree.Expression.class),
+      convert(conditionalExpression.getAlternate(), ESTree.Expression.class),
+      convert(conditionalExpression.getConsequent(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.ClassExpression fromClassExpressionType(Node node) {
+  private ESTree.ClassExpression fromClassExpressionType(Node node) {
     ClassExpression classExpression = node.getClassExpression();
     return new ESTree.ClassExpression(
       fromLocation(node.getLoc()),
       classExpression.hasId()
-        ? Optional.of(from(classExpression.getId(), ESTree.Identifier.class))
+        ? Optional.of(convert(classExpression.getId(), ESTree.Identifier.class))
         : Optional.empty(),
       classExpression.hasSuperClass()
-        ? Optional.of(from(classExpression.getSuperClass(), ESTree.Expression.class))
+        ? Optional.of(convert(classExpression.getSuperClass(), ESTree.Expression.class))
         : Optional.empty(),
-      from(classExpression.getBody(), ESTree.ClassBody.class)
+      convert(classExpression.getBody(), ESTree.ClassBody.class)
     );
   }
 
-  private static ESTree.ClassBody fromClassBodyType(Node node) {
+  private ESTree.ClassBody fromClassBodyType(Node node) {
     ClassBody classBody = node.getClassBody();
     return new ESTree.ClassBody(
       fromLocation(node.getLoc()),
-      from(classBody.getBodyList(), ESTree.MethodDefinitionOrPropertyDefinitionOrStaticBlock.class)
+      convert(
+        classBody.getBodyList(),
+        ESTree.MethodDefinitionOrPropertyDefinitionOrStaticBlock.class
+      )
     );
   }
 
-  private static ESTree.StaticBlock fromStaticBlockType(Node node) {
+  private ESTree.StaticBlock fromStaticBlockType(Node node) {
     StaticBlock staticBlock = node.getStaticBlock();
     return new ESTree.StaticBlock(
       fromLocation(node.getLoc()),
-      from(staticBlock.getBodyList(), ESTree.Statement.class)
+      convert(staticBlock.getBodyList(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.PropertyDefinition fromPropertyDefinitionType(Node node) {
+  private ESTree.PropertyDefinition fromPropertyDefinitionType(Node node) {
     PropertyDefinition propertyDefinition = node.getPropertyDefinition();
     return new ESTree.PropertyDefinition(
       fromLocation(node.getLoc()),
-      from(propertyDefinition.getKey(), ESTree.ExpressionOrPrivateIdentifier.class),
+      convert(propertyDefinition.getKey(), ESTree.ExpressionOrPrivateIdentifier.class),
       propertyDefinition.hasValue()
-        ? Optional.of(from(propertyDefinition.getValue(), ESTree.Expression.class))
+        ? Optional.of(convert(propertyDefinition.getValue(), ESTree.Expression.class))
         : Optional.empty(),
       propertyDefinition.getComputed(),
       propertyDefinition.getStatic()
     );
   }
 
-  private static ESTree.MethodDefinition fromMethodDefinitionType(Node node) {
+  private ESTree.MethodDefinition fromMethodDefinitionType(Node node) {
     MethodDefinition methodDefinition = node.getMethodDefinition();
     return new ESTree.MethodDefinition(
       fromLocation(node.getLoc()),
-      from(methodDefinition.getKey(), ESTree.ExpressionOrPrivateIdentifier.class),
-      from(
+      convert(methodDefinition.getKey(), ESTree.ExpressionOrPrivateIdentifier.class),
+      convert(
         methodDefinition.getValue(),
         ESTree.FunctionExpressionOrTSEmptyBodyFunctionExpression.class
       ),
@@ -553,426 +741,423 @@ public class ESTreeFactory {
     );
   }
 
-  private static ESTree.ChainExpression fromChainExpressionType(Node node) {
+  private ESTree.ChainExpression fromChainExpressionType(Node node) {
     ChainExpression chainExpression = node.getChainExpression();
     return new ESTree.ChainExpression(
       fromLocation(node.getLoc()),
-      from(chainExpression.getExpression(), ESTree.ChainElement.class)
+      convert(chainExpression.getExpression(), ESTree.ChainElement.class)
     );
   }
 
-  private static ESTree.CallExpression fromCallExpressionType(Node node) {
+  private ESTree.CallExpression fromCallExpressionType(Node node) {
     CallExpression callExpression = node.getCallExpression();
     return new ESTree.SimpleCallExpression(
       fromLocation(node.getLoc()),
       callExpression.getOptional(),
-      from(callExpression.getCallee(), ESTree.ExpressionOrSuper.class),
-      from(callExpression.getArgumentsList(), ESTree.ExpressionOrSpreadElement.class)
+      convert(callExpression.getCallee(), ESTree.ExpressionOrSuper.class),
+      convert(callExpression.getArgumentsList(), ESTree.ExpressionOrSpreadElement.class)
     );
   }
 
-  private static ESTree.BinaryExpression fromBinaryExpressionType(Node node) {
+  private ESTree.BinaryExpression fromBinaryExpressionType(Node node) {
     BinaryExpression binaryExpression = node.getBinaryExpression();
     return new ESTree.BinaryExpression(
       fromLocation(node.getLoc()),
       ESTree.BinaryOperator.from(binaryExpression.getOperator()),
-      from(binaryExpression.getLeft(), ESTree.Expression.class),
-      from(binaryExpression.getRight(), ESTree.Expression.class)
+      convert(binaryExpression.getLeft(), ESTree.Expression.class),
+      convert(binaryExpression.getRight(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.AwaitExpression fromAwaitExpressionType(Node node) {
+  private ESTree.AwaitExpression fromAwaitExpressionType(Node node) {
     AwaitExpression awaitExpression = node.getAwaitExpression();
     return new ESTree.AwaitExpression(
       fromLocation(node.getLoc()),
-      from(awaitExpression.getArgument(), ESTree.Expression.class)
+      convert(awaitExpression.getArgument(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.AssignmentExpression fromAssignmentExpressionType(Node node) {
+  private ESTree.AssignmentExpression fromAssignmentExpressionType(Node node) {
     AssignmentExpression assignmentExpression = node.getAssignmentExpression();
     return new ESTree.AssignmentExpression(
       fromLocation(node.getLoc()),
       ESTree.AssignmentOperator.from(assignmentExpression.getOperator()),
-      from(assignmentExpression.getLeft(), ESTree.MemberExpressionOrPattern.class),
-      from(assignmentExpression.getRight(), ESTree.Expression.class)
+      convert(assignmentExpression.getLeft(), ESTree.MemberExpressionOrPattern.class),
+      convert(assignmentExpression.getRight(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.ArrowFunctionExpression fromArrowFunctionExpressionType(Node node) {
+  private ESTree.ArrowFunctionExpression fromArrowFunctionExpressionType(Node node) {
     ArrowFunctionExpression arrowFunctionExpression = node.getArrowFunctionExpression();
     return new ESTree.ArrowFunctionExpression(
       fromLocation(node.getLoc()),
       arrowFunctionExpression.getExpression(),
-      from(arrowFunctionExpression.getBody(), ESTree.BlockStatementOrExpression.class),
-      from(arrowFunctionExpression.getParamsList(), ESTree.PatternOrTSParameterProperty.class),
+      convert(arrowFunctionExpression.getBody(), ESTree.BlockStatementOrExpression.class),
+      convert(arrowFunctionExpression.getParamsList(), ESTree.PatternOrTSParameterProperty.class),
       arrowFunctionExpression.getGenerator(),
       arrowFunctionExpression.getAsync()
     );
   }
 
-  private static ESTree.ArrayExpression fromArrayExpressionType(Node node) {
+  private ESTree.ArrayExpression fromArrayExpressionType(Node node) {
     ArrayExpression arrayExpression = node.getArrayExpression();
     return new ESTree.ArrayExpression(
       fromLocation(node.getLoc()),
-      arrayExpression
-        .getElementsList()
-        .stream()
-        .map(ESTreeFactory::fromArrayExpressionElement)
-        .toList()
+      arrayExpression.getElementsList().stream().map(this::fromArrayExpressionElement).toList()
     );
   }
 
-  private static Optional<ESTree.ExpressionOrSpreadElement> fromArrayExpressionElement(
+  private Optional<ESTree.ExpressionOrSpreadElement> fromArrayExpressionElement(
     ArrayElement element
   ) {
     return element.hasElement()
-      ? Optional.of(from(element.getElement(), ESTree.ExpressionOrSpreadElement.class))
+      ? Optional.of(convert(element.getElement(), ESTree.ExpressionOrSpreadElement.class))
       : Optional.empty();
   }
 
-  private static ESTree.ClassDeclaration fromClassDeclarationType(Node node) {
+  private ESTree.ClassDeclaration fromClassDeclarationType(Node node) {
     ClassDeclaration classDeclaration = node.getClassDeclaration();
     return new ESTree.ClassDeclaration(
       fromLocation(node.getLoc()),
       classDeclaration.hasId()
-        ? Optional.of(from(classDeclaration.getId(), ESTree.Identifier.class))
+        ? Optional.of(convert(classDeclaration.getId(), ESTree.Identifier.class))
         : Optional.empty(),
       classDeclaration.hasSuperClass()
-        ? Optional.of(from(classDeclaration.getSuperClass(), ESTree.Expression.class))
+        ? Optional.of(convert(classDeclaration.getSuperClass(), ESTree.Expression.class))
         : Optional.empty(),
-      from(classDeclaration.getBody(), ESTree.ClassBody.class)
+      convert(classDeclaration.getBody(), ESTree.ClassBody.class)
     );
   }
 
-  private static ESTree.FunctionDeclaration fromFunctionDeclarationType(Node node) {
+  private ESTree.FunctionDeclaration fromFunctionDeclarationType(Node node) {
     FunctionDeclaration functionDeclaration = node.getFunctionDeclaration();
     return new ESTree.FunctionDeclaration(
       fromLocation(node.getLoc()),
       functionDeclaration.hasId()
-        ? Optional.of(from(functionDeclaration.getId(), ESTree.Identifier.class))
+        ? Optional.of(convert(functionDeclaration.getId(), ESTree.Identifier.class))
         : Optional.empty(),
-      from(functionDeclaration.getBody(), ESTree.BlockStatement.class),
-      from(functionDeclaration.getParamsList(), ESTree.PatternOrTSParameterProperty.class),
+      convert(functionDeclaration.getBody(), ESTree.BlockStatement.class),
+      convert(functionDeclaration.getParamsList(), ESTree.PatternOrTSParameterProperty.class),
       functionDeclaration.getGenerator(),
       functionDeclaration.getAsync()
     );
   }
 
-  private static ESTree.ExportNamedDeclaration fromExportNamedDeclarationType(Node node) {
+  private ESTree.ExportNamedDeclaration fromExportNamedDeclarationType(Node node) {
     ExportNamedDeclaration exportNamedDeclaration = node.getExportNamedDeclaration();
     return new ESTree.ExportNamedDeclaration(
       fromLocation(node.getLoc()),
       exportNamedDeclaration.hasDeclaration()
-        ? Optional.of(from(exportNamedDeclaration.getDeclaration(), ESTree.Declaration.class))
+        ? Optional.of(convert(exportNamedDeclaration.getDeclaration(), ESTree.Declaration.class))
         : Optional.empty(),
-      from(exportNamedDeclaration.getSpecifiersList(), ESTree.ExportSpecifier.class),
+      convert(exportNamedDeclaration.getSpecifiersList(), ESTree.ExportSpecifier.class),
       exportNamedDeclaration.hasSource()
-        ? Optional.of(from(exportNamedDeclaration.getSource(), ESTree.Literal.class))
+        ? Optional.of(convert(exportNamedDeclaration.getSource(), ESTree.Literal.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.ExportSpecifier fromExportSpecifierType(Node node) {
+  private ESTree.ExportSpecifier fromExportSpecifierType(Node node) {
     ExportSpecifier exportSpecifier = node.getExportSpecifier();
     return new ESTree.ExportSpecifier(
       fromLocation(node.getLoc()),
-      from(exportSpecifier.getExported(), ESTree.Identifier.class),
-      from(exportSpecifier.getLocal(), ESTree.Identifier.class)
+      convert(exportSpecifier.getExported(), ESTree.Identifier.class),
+      convert(exportSpecifier.getLocal(), ESTree.Identifier.class)
     );
   }
 
-  private static ESTree.VariableDeclaration fromVariableDeclarationType(Node node) {
+  private ESTree.VariableDeclaration fromVariableDeclarationType(Node node) {
     VariableDeclaration variableDeclaration = node.getVariableDeclaration();
     return new ESTree.VariableDeclaration(
       fromLocation(node.getLoc()),
-      from(variableDeclaration.getDeclarationsList(), ESTree.VariableDeclarator.class),
+      convert(variableDeclaration.getDeclarationsList(), ESTree.VariableDeclarator.class),
       variableDeclaration.getKind()
     );
   }
 
-  private static ESTree.VariableDeclarator fromVariableDeclaratorType(Node node) {
+  private ESTree.VariableDeclarator fromVariableDeclaratorType(Node node) {
     VariableDeclarator variableDeclarator = node.getVariableDeclarator();
     return new ESTree.VariableDeclarator(
       fromLocation(node.getLoc()),
-      from(variableDeclarator.getId(), ESTree.Pattern.class),
+      convert(variableDeclarator.getId(), ESTree.Pattern.class),
       variableDeclarator.hasInit()
-        ? Optional.of(from(variableDeclarator.getInit(), ESTree.Expression.class))
+        ? Optional.of(convert(variableDeclarator.getInit(), ESTree.Expression.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.ImportDeclaration fromImportDeclarationType(Node node) {
+  private ESTree.ImportDeclaration fromImportDeclarationType(Node node) {
     ImportDeclaration importDeclaration = node.getImportDeclaration();
     return new ESTree.ImportDeclaration(
       fromLocation(node.getLoc()),
-      from(
+      convert(
         importDeclaration.getSpecifiersList(),
         ESTree.ImportDefaultSpecifierOrImportNamespaceSpecifierOrImportSpecifier.class
       ),
-      from(importDeclaration.getSource(), ESTree.Literal.class)
+      convert(importDeclaration.getSource(), ESTree.Literal.class)
     );
   }
 
-  private static ESTree.ImportNamespaceSpecifier fromImportNamespaceSpecifierType(Node node) {
+  private ESTree.ImportNamespaceSpecifier fromImportNamespaceSpecifierType(Node node) {
     ImportNamespaceSpecifier importNamespaceSpecifier = node.getImportNamespaceSpecifier();
     return new ESTree.ImportNamespaceSpecifier(
       fromLocation(node.getLoc()),
-      from(importNamespaceSpecifier.getLocal(), ESTree.Identifier.class)
+      convert(importNamespaceSpecifier.getLocal(), ESTree.Identifier.class)
     );
   }
 
-  private static ESTree.ImportDefaultSpecifier fromImportDefaultSpecifierType(Node node) {
+  private ESTree.ImportDefaultSpecifier fromImportDefaultSpecifierType(Node node) {
     ImportDefaultSpecifier importDefaultSpecifier = node.getImportDefaultSpecifier();
     return new ESTree.ImportDefaultSpecifier(
       fromLocation(node.getLoc()),
-      from(importDefaultSpecifier.getLocal(), ESTree.Identifier.class)
+      convert(importDefaultSpecifier.getLocal(), ESTree.Identifier.class)
     );
   }
 
-  private static ESTree.ImportSpecifier fromImportSpecifierType(Node node) {
+  private ESTree.ImportSpecifier fromImportSpecifierType(Node node) {
     ImportSpecifier importSpecifier = node.getImportSpecifier();
     return new ESTree.ImportSpecifier(
       fromLocation(node.getLoc()),
-      from(importSpecifier.getImported(), ESTree.Identifier.class),
-      from(importSpecifier.getLocal(), ESTree.Identifier.class)
+      convert(importSpecifier.getImported(), ESTree.Identifier.class),
+      convert(importSpecifier.getLocal(), ESTree.Identifier.class)
     );
   }
 
-  private static ESTree.ForOfStatement fromForOfStatementType(Node node) {
+  private ESTree.ForOfStatement fromForOfStatementType(Node node) {
     ForOfStatement forOfStatement = node.getForOfStatement();
     return new ESTree.ForOfStatement(
       fromLocation(node.getLoc()),
       forOfStatement.getAwait(),
-      from(forOfStatement.getLeft(), ESTree.PatternOrVariableDeclaration.class),
-      from(forOfStatement.getRight(), ESTree.Expression.class),
-      from(forOfStatement.getBody(), ESTree.Statement.class)
+      convert(forOfStatement.getLeft(), ESTree.PatternOrVariableDeclaration.class),
+      convert(forOfStatement.getRight(), ESTree.Expression.class),
+      convert(forOfStatement.getBody(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.ForInStatement fromForInStatementType(Node node) {
+  private ESTree.ForInStatement fromForInStatementType(Node node) {
     ForInStatement forInStatement = node.getForInStatement();
     return new ESTree.ForInStatement(
       fromLocation(node.getLoc()),
-      from(forInStatement.getLeft(), ESTree.PatternOrVariableDeclaration.class),
-      from(forInStatement.getRight(), ESTree.Expression.class),
-      from(forInStatement.getBody(), ESTree.Statement.class)
+      convert(forInStatement.getLeft(), ESTree.PatternOrVariableDeclaration.class),
+      convert(forInStatement.getRight(), ESTree.Expression.class),
+      convert(forInStatement.getBody(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.ForStatement fromForStatementType(Node node) {
+  private ESTree.ForStatement fromForStatementType(Node node) {
     ForStatement forStatement = node.getForStatement();
     return new ESTree.ForStatement(
       fromLocation(node.getLoc()),
       forStatement.hasInit()
-        ? Optional.of(from(forStatement.getInit(), ESTree.ExpressionOrVariableDeclaration.class))
+        ? Optional.of(convert(forStatement.getInit(), ESTree.ExpressionOrVariableDeclaration.class))
         : Optional.empty(),
       forStatement.hasTest()
-        ? Optional.of(from(forStatement.getTest(), ESTree.Expression.class))
+        ? Optional.of(convert(forStatement.getTest(), ESTree.Expression.class))
         : Optional.empty(),
       forStatement.hasUpdate()
-        ? Optional.of(from(forStatement.getUpdate(), ESTree.Expression.class))
+        ? Optional.of(convert(forStatement.getUpdate(), ESTree.Expression.class))
         : Optional.empty(),
-      from(forStatement.getBody(), ESTree.Statement.class)
+      convert(forStatement.getBody(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.DoWhileStatement fromDoWhileStatementType(Node node) {
+  private ESTree.DoWhileStatement fromDoWhileStatementType(Node node) {
     DoWhileStatement doWhileStatement = node.getDoWhileStatement();
     return new ESTree.DoWhileStatement(
       fromLocation(node.getLoc()),
-      from(doWhileStatement.getBody(), ESTree.Statement.class),
-      from(doWhileStatement.getTest(), ESTree.Expression.class)
+      convert(doWhileStatement.getBody(), ESTree.Statement.class),
+      convert(doWhileStatement.getTest(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.WhileStatement fromWhileStatementType(Node node) {
+  private ESTree.WhileStatement fromWhileStatementType(Node node) {
     WhileStatement whileStatement = node.getWhileStatement();
     return new ESTree.WhileStatement(
       fromLocation(node.getLoc()),
-      from(whileStatement.getTest(), ESTree.Expression.class),
-      from(whileStatement.getBody(), ESTree.Statement.class)
+      convert(whileStatement.getTest(), ESTree.Expression.class),
+      convert(whileStatement.getBody(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.TryStatement fromTryStatementType(Node node) {
+  private ESTree.TryStatement fromTryStatementType(Node node) {
     TryStatement tryStatement = node.getTryStatement();
     return new ESTree.TryStatement(
       fromLocation(node.getLoc()),
-      from(tryStatement.getBlock(), ESTree.BlockStatement.class),
+      convert(tryStatement.getBlock(), ESTree.BlockStatement.class),
       tryStatement.hasHandler()
-        ? Optional.of(from(tryStatement.getHandler(), ESTree.CatchClause.class))
+        ? Optional.of(convert(tryStatement.getHandler(), ESTree.CatchClause.class))
         : Optional.empty(),
       tryStatement.hasFinalizer()
-        ? Optional.of(from(tryStatement.getFinalizer(), ESTree.BlockStatement.class))
+        ? Optional.of(convert(tryStatement.getFinalizer(), ESTree.BlockStatement.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.CatchClause fromCatchClauseType(Node node) {
+  private ESTree.CatchClause fromCatchClauseType(Node node) {
     CatchClause catchClause = node.getCatchClause();
     return new ESTree.CatchClause(
       fromLocation(node.getLoc()),
       catchClause.hasParam()
-        ? Optional.of(from(catchClause.getParam(), ESTree.Pattern.class))
+        ? Optional.of(convert(catchClause.getParam(), ESTree.Pattern.class))
         : Optional.empty(),
-      from(catchClause.getBody(), ESTree.BlockStatement.class)
+      convert(catchClause.getBody(), ESTree.BlockStatement.class)
     );
   }
 
-  private static ESTree.ThrowStatement fromThrowStatementType(Node node) {
+  private ESTree.ThrowStatement fromThrowStatementType(Node node) {
     ThrowStatement throwStatement = node.getThrowStatement();
     return new ESTree.ThrowStatement(
       fromLocation(node.getLoc()),
-      from(throwStatement.getArgument(), ESTree.Expression.class)
+      convert(throwStatement.getArgument(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.SwitchStatement fromSwitchStatementType(Node node) {
+  private ESTree.SwitchStatement fromSwitchStatementType(Node node) {
     SwitchStatement switchStatement = node.getSwitchStatement();
     return new ESTree.SwitchStatement(
       fromLocation(node.getLoc()),
-      from(switchStatement.getDiscriminant(), ESTree.Expression.class),
-      from(switchStatement.getCasesList(), ESTree.SwitchCase.class)
+      convert(switchStatement.getDiscriminant(), ESTree.Expression.class),
+      convert(switchStatement.getCasesList(), ESTree.SwitchCase.class)
     );
   }
 
-  private static ESTree.SwitchCase fromSwitchCaseType(Node node) {
+  private ESTree.SwitchCase fromSwitchCaseType(Node node) {
     SwitchCase switchCase = node.getSwitchCase();
     return new ESTree.SwitchCase(
       fromLocation(node.getLoc()),
       switchCase.hasTest()
-        ? Optional.of(from(switchCase.getTest(), ESTree.Expression.class))
+        ? Optional.of(convert(switchCase.getTest(), ESTree.Expression.class))
         : Optional.empty(),
-      from(switchCase.getConsequentList(), ESTree.Statement.class)
+      convert(switchCase.getConsequentList(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.IfStatement fromIfStatementType(Node node) {
+  private ESTree.IfStatement fromIfStatementType(Node node) {
     IfStatement ifStatement = node.getIfStatement();
     return new ESTree.IfStatement(
       fromLocation(node.getLoc()),
-      from(ifStatement.getTest(), ESTree.Expression.class),
-      from(ifStatement.getConsequent(), ESTree.Statement.class),
+      convert(ifStatement.getTest(), ESTree.Expression.class),
+      convert(ifStatement.getConsequent(), ESTree.Statement.class),
       ifStatement.hasAlternate()
-        ? Optional.of(from(ifStatement.getAlternate(), ESTree.Statement.class))
+        ? Optional.of(convert(ifStatement.getAlternate(), ESTree.Statement.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.ContinueStatement fromContinueStatementType(Node node) {
+  private ESTree.ContinueStatement fromContinueStatementType(Node node) {
     ContinueStatement continueStatement = node.getContinueStatement();
     return new ESTree.ContinueStatement(
       fromLocation(node.getLoc()),
       continueStatement.hasLabel()
-        ? Optional.of(from(continueStatement.getLabel(), ESTree.Identifier.class))
+        ? Optional.of(convert(continueStatement.getLabel(), ESTree.Identifier.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.BreakStatement fromBreakStatementType(Node node) {
+  private ESTree.BreakStatement fromBreakStatementType(Node node) {
     BreakStatement breakStatement = node.getBreakStatement();
     return new ESTree.BreakStatement(
       fromLocation(node.getLoc()),
       breakStatement.hasLabel()
-        ? Optional.of(from(breakStatement.getLabel(), ESTree.Identifier.class))
+        ? Optional.of(convert(breakStatement.getLabel(), ESTree.Identifier.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.LabeledStatement fromLabeledStatementType(Node node) {
+  private ESTree.LabeledStatement fromLabeledStatementType(Node node) {
     LabeledStatement labeledStatement = node.getLabeledStatement();
     return new ESTree.LabeledStatement(
       fromLocation(node.getLoc()),
-      from(labeledStatement.getLabel(), ESTree.Identifier.class),
-      from(labeledStatement.getBody(), ESTree.Statement.class)
+      convert(labeledStatement.getLabel(), ESTree.Identifier.class),
+      convert(labeledStatement.getBody(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.ReturnStatement fromReturnStatementType(Node node) {
+  private ESTree.ReturnStatement fromReturnStatementType(Node node) {
     ReturnStatement returnStatement = node.getReturnStatement();
     return new ESTree.ReturnStatement(
       fromLocation(node.getLoc()),
       returnStatement.hasArgument()
-        ? Optional.of(from(returnStatement.getArgument(), ESTree.Expression.class))
+        ? Optional.of(convert(returnStatement.getArgument(), ESTree.Expression.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.WithStatement fromWithStatementType(Node node) {
+  private ESTree.WithStatement fromWithStatementType(Node node) {
     WithStatement withStatement = node.getWithStatement();
     return new ESTree.WithStatement(
       fromLocation(node.getLoc()),
-      from(withStatement.getObject(), ESTree.Expression.class),
-      from(withStatement.getBody(), ESTree.Statement.class)
+      convert(withStatement.getObject(), ESTree.Expression.class),
+      convert(withStatement.getBody(), ESTree.Statement.class)
     );
   }
 
-  private static ESTree.DebuggerStatement fromDebuggerStatementType(Node node) {
+  private ESTree.DebuggerStatement fromDebuggerStatementType(Node node) {
     return new ESTree.DebuggerStatement(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.EmptyStatement fromEmptyStatementType(Node node) {
+  private ESTree.EmptyStatement fromEmptyStatementType(Node node) {
     return new ESTree.EmptyStatement(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.ExpressionStatement fromExpressionStatementType(Node node) {
+  private ESTree.ExpressionStatement fromExpressionStatementType(Node node) {
     ExpressionStatement expressionStatement = node.getExpressionStatement();
     return new ESTree.ExpressionStatement(
       fromLocation(node.getLoc()),
-      from(expressionStatement.getExpression(), ESTree.Expression.class)
+      convert(expressionStatement.getExpression(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.Directive fromDirective(Node node) {
+  private ESTree.Directive fromDirective(Node node) {
     ExpressionStatement directive = node.getExpressionStatement();
     return new ESTree.Directive(
       fromLocation(node.getLoc()),
-      from(directive.getExpression(), ESTree.Literal.class),
+      convert(directive.getExpression(), ESTree.Literal.class),
       directive.getDirective()
     );
   }
 
-  private static ESTree.Literal fromLiteralType(Node node) {
+  private ESTree.Literal fromLiteralType(Node node) {
     Literal literal = node.getLiteral();
+    String raw = string(literal.hasRawIndex(), literal.getRawIndex(), literal.getRaw());
     if (literal.hasBigint()) {
       return new ESTree.BigIntLiteral(
         fromLocation(node.getLoc()),
         new BigInteger(literal.getBigint()),
         literal.getBigint(),
-        literal.getRaw()
+        raw
       );
     } else if (literal.hasPattern()) {
       return new ESTree.RegExpLiteral(
         fromLocation(node.getLoc()),
         literal.getPattern(),
         literal.getFlags(),
-        literal.getRaw()
+        raw
       );
     } else {
       if (literal.hasValueNumber()) {
         return new ESTree.SimpleLiteral(
           fromLocation(node.getLoc()),
           literal.getValueNumber(),
-          node.getLiteral().getRaw()
+          raw
         );
       } else if (literal.hasValueBoolean()) {
         return new ESTree.SimpleLiteral(
           fromLocation(node.getLoc()),
           literal.getValueBoolean(),
-          node.getLiteral().getRaw()
+          raw
         );
       } else {
         return new ESTree.SimpleLiteral(
           fromLocation(node.getLoc()),
-          literal.getValueString(),
-          node.getLiteral().getRaw()
+          interner.intern(literal.getValueString()),
+          raw
         );
       }
     }
   }
 
-  private static ESTree.TemplateElement fromTemplateElementType(Node node) {
+  private ESTree.TemplateElement fromTemplateElementType(Node node) {
     TemplateElement templateElement = node.getTemplateElement();
     return new ESTree.TemplateElement(
       fromLocation(node.getLoc()),
@@ -982,43 +1167,43 @@ public class ESTreeFactory {
     );
   }
 
-  private static ESTree.FunctionExpression fromFunctionExpressionType(Node node) {
+  private ESTree.FunctionExpression fromFunctionExpressionType(Node node) {
     FunctionExpression functionExpression = node.getFunctionExpression();
     return new ESTree.FunctionExpression(
       fromLocation(node.getLoc()),
       functionExpression.hasId()
-        ? Optional.of(from(functionExpression.getId(), ESTree.Identifier.class))
+        ? Optional.of(convert(functionExpression.getId(), ESTree.Identifier.class))
         : Optional.empty(),
-      from(functionExpression.getBody(), ESTree.BlockStatement.class),
-      from(functionExpression.getParamsList(), ESTree.PatternOrTSParameterProperty.class),
+      convert(functionExpression.getBody(), ESTree.BlockStatement.class),
+      convert(functionExpression.getParamsList(), ESTree.PatternOrTSParameterProperty.class),
       functionExpression.getGenerator(),
       functionExpression.getAsync()
     );
   }
 
-  private static ESTree.TSExternalModuleReference fromTSExternalModuleReferenceType(Node node) {
+  private ESTree.TSExternalModuleReference fromTSExternalModuleReferenceType(Node node) {
     TSExternalModuleReference tsExternalModuleReference = node.getTSExternalModuleReference();
     return new ESTree.TSExternalModuleReference(
       fromLocation(node.getLoc()),
-      from(tsExternalModuleReference.getExpression(), ESTree.Literal.class)
+      convert(tsExternalModuleReference.getExpression(), ESTree.Literal.class)
     );
   }
 
-  private static ESTree.TSQualifiedName fromTSQualifiedName(Node node) {
+  private ESTree.TSQualifiedName fromTSQualifiedName(Node node) {
     TSQualifiedName tsExternalModuleReference = node.getTSQualifiedName();
     return new ESTree.TSQualifiedName(
       fromLocation(node.getLoc()),
-      from(tsExternalModuleReference.getLeft(), ESTree.IdentifierOrTSQualifiedName.class),
-      from(tsExternalModuleReference.getRight(), ESTree.Identifier.class)
+      convert(tsExternalModuleReference.getLeft(), ESTree.IdentifierOrTSQualifiedName.class),
+      convert(tsExternalModuleReference.getRight(), ESTree.Identifier.class)
     );
   }
 
-  private static ESTree.TSImportEqualsDeclaration fromTSImportEqualsDeclaration(Node node) {
+  private ESTree.TSImportEqualsDeclaration fromTSImportEqualsDeclaration(Node node) {
     TSImportEqualsDeclaration tsImportEqualsDeclaration = node.getTSImportEqualsDeclaration();
     return new ESTree.TSImportEqualsDeclaration(
       fromLocation(node.getLoc()),
-      from(tsImportEqualsDeclaration.getId(), ESTree.Identifier.class),
-      from(
+      convert(tsImportEqualsDeclaration.getId(), ESTree.Identifier.class),
+      convert(
         tsImportEqualsDeclaration.getModuleReference(),
         ESTree.IdentifierOrTSQualifiedNameOrTSExternalModuleReference.class
       ),
@@ -1026,29 +1211,29 @@ public class ESTreeFactory {
     );
   }
 
-  private static ESTree.TSModuleBlock fromTSModuleBlock(Node node) {
+  private ESTree.TSModuleBlock fromTSModuleBlock(Node node) {
     return new ESTree.TSModuleBlock(
       fromLocation(node.getLoc()),
-      from(
+      convert(
         node.getTSModuleBlock().getBodyList(),
         ESTree.DirectiveOrModuleDeclarationOrStatement.class
       )
     );
   }
 
-  private static ESTree.TSModuleDeclaration fromTSModuleDeclaration(Node node) {
+  private ESTree.TSModuleDeclaration fromTSModuleDeclaration(Node node) {
     TSModuleDeclaration tsModuleDeclaration = node.getTSModuleDeclaration();
     return new ESTree.TSModuleDeclaration(
       fromLocation(node.getLoc()),
-      from(tsModuleDeclaration.getId(), ESTree.IdentifierOrLiteralOrTSQualifiedName.class),
+      convert(tsModuleDeclaration.getId(), ESTree.IdentifierOrLiteralOrTSQualifiedName.class),
       tsModuleDeclaration.hasBody()
-        ? Optional.of(from(tsModuleDeclaration.getBody(), ESTree.TSModuleBlock.class))
+        ? Optional.of(convert(tsModuleDeclaration.getBody(), ESTree.TSModuleBlock.class))
         : Optional.empty(),
       tsModuleDeclaration.getKind()
     );
   }
 
-  private static ESTree.TSParameterProperty fromTSParameterProperty(Node node) {
+  private ESTree.TSParameterProperty fromTSParameterProperty(Node node) {
     TSParameterProperty tsParameterProperty = node.getTSParameterProperty();
     return new ESTree.TSParameterProperty(
       fromLocation(node.getLoc()),
@@ -1056,159 +1241,172 @@ public class ESTreeFactory {
         ? Optional.of(tsParameterProperty.getAccessibility())
         : Optional.empty(),
       tsParameterProperty.getReadonly(),
-      from(tsParameterProperty.getParameter(), ESTree.Pattern.class)
+      convert(tsParameterProperty.getParameter(), ESTree.Pattern.class)
     );
   }
 
-  private static ESTree.TSAbstractMethodDefinition fromTSAbstractMethodDefinition(Node node) {
+  private ESTree.TSAbstractMethodDefinition fromTSAbstractMethodDefinition(Node node) {
     return new ESTree.TSAbstractMethodDefinition(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.TSDeclareFunction fromTSDeclareFunction(Node node) {
+  private ESTree.TSDeclareFunction fromTSDeclareFunction(Node node) {
     return new ESTree.TSDeclareFunction(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.TSInterfaceDeclaration fromTSInterfaceDeclaration(Node node) {
+  private ESTree.TSInterfaceDeclaration fromTSInterfaceDeclaration(Node node) {
     return new ESTree.TSInterfaceDeclaration(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.TSEnumDeclaration fromTSEnumDeclaration(Node node) {
+  private ESTree.TSEnumDeclaration fromTSEnumDeclaration(Node node) {
     return new ESTree.TSEnumDeclaration(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.TSTypeAliasDeclaration fromTSTypeAliasDeclaration(Node node) {
+  private ESTree.TSTypeAliasDeclaration fromTSTypeAliasDeclaration(Node node) {
     return new ESTree.TSTypeAliasDeclaration(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.TSEmptyBodyFunctionExpression fromTSEmptyBodyFunctionExpression(Node node) {
+  private ESTree.TSEmptyBodyFunctionExpression fromTSEmptyBodyFunctionExpression(Node node) {
     return new ESTree.TSEmptyBodyFunctionExpression(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.TSTypeParameterInstantiation fromTSTypeParameterInstantiation(Node node) {
+  private ESTree.TSTypeParameterInstantiation fromTSTypeParameterInstantiation(Node node) {
     return new ESTree.TSTypeParameterInstantiation(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.JSXElement fromJSXElement(Node node) {
+  private ESTree.JSXElement fromJSXElement(Node node) {
     JSXElement jsxElement = node.getJSXElement();
     return new ESTree.JSXElement(
       fromLocation(node.getLoc()),
-      from(jsxElement.getOpeningElement(), ESTree.JSXOpeningElement.class),
+      convert(jsxElement.getOpeningElement(), ESTree.JSXOpeningElement.class),
       jsxElement.hasClosingElement()
-        ? Optional.of(from(jsxElement.getClosingElement(), ESTree.JSXClosingElement.class))
+        ? Optional.of(convert(jsxElement.getClosingElement(), ESTree.JSXClosingElement.class))
         : Optional.empty(),
-      from(jsxElement.getChildrenList(), ESTree.JSXChild.class)
+      convert(jsxElement.getChildrenList(), ESTree.JSXChild.class)
     );
   }
 
-  private static ESTree.JSXFragment fromJSXFragment(Node node) {
+  private ESTree.JSXFragment fromJSXFragment(Node node) {
     JSXFragment jsxFragment = node.getJSXFragment();
     return new ESTree.JSXFragment(
       fromLocation(node.getLoc()),
-      from(jsxFragment.getOpeningFragment(), ESTree.JSXOpeningFragment.class),
-      from(jsxFragment.getClosingFragment(), ESTree.JSXClosingFragment.class),
-      from(jsxFragment.getChildrenList(), ESTree.JSXChild.class)
+      convert(jsxFragment.getOpeningFragment(), ESTree.JSXOpeningFragment.class),
+      convert(jsxFragment.getClosingFragment(), ESTree.JSXClosingFragment.class),
+      convert(jsxFragment.getChildrenList(), ESTree.JSXChild.class)
     );
   }
 
-  private static ESTree.JSXOpeningElement fromJSXOpeningElement(Node node) {
+  private ESTree.JSXOpeningElement fromJSXOpeningElement(Node node) {
     JSXOpeningElement jsxOpeningElement = node.getJSXOpeningElement();
     return new ESTree.JSXOpeningElement(
       fromLocation(node.getLoc()),
-      from(jsxOpeningElement.getName(), ESTree.JSXTagNameExpression.class),
-      from(jsxOpeningElement.getAttributesList(), ESTree.JSXOpeningElementAttribute.class),
+      convert(jsxOpeningElement.getName(), ESTree.JSXTagNameExpression.class),
+      convert(jsxOpeningElement.getAttributesList(), ESTree.JSXOpeningElementAttribute.class),
       jsxOpeningElement.getSelfClosing(),
       jsxOpeningElement.hasTypeArguments()
         ? Optional.of(
-            from(jsxOpeningElement.getTypeArguments(), ESTree.TSTypeParameterInstantiation.class)
+            convert(jsxOpeningElement.getTypeArguments(), ESTree.TSTypeParameterInstantiation.class)
           )
         : Optional.empty()
     );
   }
 
-  private static ESTree.JSXClosingElement fromJSXClosingElement(Node node) {
+  private ESTree.JSXClosingElement fromJSXClosingElement(Node node) {
     JSXClosingElement jsxClosingElement = node.getJSXClosingElement();
     return new ESTree.JSXClosingElement(
       fromLocation(node.getLoc()),
-      from(jsxClosingElement.getName(), ESTree.JSXTagNameExpression.class)
+      convert(jsxClosingElement.getName(), ESTree.JSXTagNameExpression.class)
     );
   }
 
-  private static ESTree.JSXOpeningFragment fromJSXOpeningFragment(Node node) {
+  private ESTree.JSXOpeningFragment fromJSXOpeningFragment(Node node) {
     return new ESTree.JSXOpeningFragment(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.JSXClosingFragment fromJSXClosingFragment(Node node) {
+  private ESTree.JSXClosingFragment fromJSXClosingFragment(Node node) {
     return new ESTree.JSXClosingFragment(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.JSXAttribute fromJSXAttribute(Node node) {
+  private ESTree.JSXAttribute fromJSXAttribute(Node node) {
     JSXAttribute jsxAttribute = node.getJSXAttribute();
     return new ESTree.JSXAttribute(
       fromLocation(node.getLoc()),
-      from(jsxAttribute.getName(), ESTree.JSXAttributeName.class),
+      convert(jsxAttribute.getName(), ESTree.JSXAttributeName.class),
       jsxAttribute.hasValue()
-        ? Optional.of(from(jsxAttribute.getValue(), ESTree.JSXAttributeValue.class))
+        ? Optional.of(convert(jsxAttribute.getValue(), ESTree.JSXAttributeValue.class))
         : Optional.empty()
     );
   }
 
-  private static ESTree.JSXIdentifier fromJSXIdentifier(Node node) {
+  private ESTree.JSXIdentifier fromJSXIdentifier(Node node) {
     JSXIdentifier jsxIdentifier = node.getJSXIdentifier();
-    return new ESTree.JSXIdentifier(fromLocation(node.getLoc()), jsxIdentifier.getName());
+    return new ESTree.JSXIdentifier(
+      fromLocation(node.getLoc()),
+      interner.intern(jsxIdentifier.getName())
+    );
   }
 
-  private static ESTree.JSXMemberExpression fromJSXMemberExpression(Node node) {
+  private ESTree.JSXMemberExpression fromJSXMemberExpression(Node node) {
     JSXMemberExpression jsxMemberExpression = node.getJSXMemberExpression();
     return new ESTree.JSXMemberExpression(
       fromLocation(node.getLoc()),
-      from(jsxMemberExpression.getObject(), ESTree.JSXTagNameExpression.class),
-      from(jsxMemberExpression.getProperty(), ESTree.JSXIdentifier.class)
+      convert(jsxMemberExpression.getObject(), ESTree.JSXTagNameExpression.class),
+      convert(jsxMemberExpression.getProperty(), ESTree.JSXIdentifier.class)
     );
   }
 
-  private static ESTree.JSXNamespacedName fromJSXNamespacedName(Node node) {
+  private ESTree.JSXNamespacedName fromJSXNamespacedName(Node node) {
     JSXNamespacedName jsxNamespacedName = node.getJSXNamespacedName();
     return new ESTree.JSXNamespacedName(
       fromLocation(node.getLoc()),
-      from(jsxNamespacedName.getName(), ESTree.JSXIdentifier.class),
-      from(jsxNamespacedName.getNamespace(), ESTree.JSXIdentifier.class)
+      convert(jsxNamespacedName.getName(), ESTree.JSXIdentifier.class),
+      convert(jsxNamespacedName.getNamespace(), ESTree.JSXIdentifier.class)
     );
   }
 
-  private static ESTree.JSXSpreadAttribute fromJSXSpreadAttribute(Node node) {
+  private ESTree.JSXSpreadAttribute fromJSXSpreadAttribute(Node node) {
     JSXSpreadAttribute jsxSpreadAttribute = node.getJSXSpreadAttribute();
     return new ESTree.JSXSpreadAttribute(
       fromLocation(node.getLoc()),
-      from(jsxSpreadAttribute.getArgument(), ESTree.Expression.class)
+      convert(jsxSpreadAttribute.getArgument(), ESTree.Expression.class)
     );
   }
 
-  private static ESTree.JSXExpressionContainer fromJSXExpressionContainer(Node node) {
+  private ESTree.JSXExpressionContainer fromJSXExpressionContainer(Node node) {
     JSXExpressionContainer jsxExpressionContainer = node.getJSXExpressionContainer();
     return new ESTree.JSXExpressionContainer(
       fromLocation(node.getLoc()),
-      from(jsxExpressionContainer.getExpression(), ESTree.ExpressionOrJSXEmptyExpression.class)
+      convert(jsxExpressionContainer.getExpression(), ESTree.ExpressionOrJSXEmptyExpression.class)
     );
   }
 
-  private static ESTree.JSXSpreadChild fromJSXSpreadChild(Node node) {
+  private ESTree.JSXSpreadChild fromJSXSpreadChild(Node node) {
     JSXSpreadChild jsxSpreadChild = node.getJSXSpreadChild();
     return new ESTree.JSXSpreadChild(
       fromLocation(node.getLoc()),
-      from(jsxSpreadChild.getExpression(), ESTree.ExpressionOrJSXEmptyExpression.class)
+      convert(jsxSpreadChild.getExpression(), ESTree.ExpressionOrJSXEmptyExpression.class)
     );
   }
 
-  private static ESTree.JSXText fromJSXText(Node node) {
+  private ESTree.JSXText fromJSXText(Node node) {
     JSXText jsxText = node.getJSXText();
     return new ESTree.JSXText(fromLocation(node.getLoc()), jsxText.getRaw(), jsxText.getValue());
   }
 
-  private static ESTree.JSXEmptyExpression fromJSXEmptyExpression(Node node) {
+  private ESTree.JSXEmptyExpression fromJSXEmptyExpression(Node node) {
     return new ESTree.JSXEmptyExpression(fromLocation(node.getLoc()));
   }
 
-  private static ESTree.UnknownNode fromUnknownNodeType(Node node) {
+  private ESTree.UnknownNode fromUnknownNodeType(Node node) {
     return new ESTree.UnknownNode(fromLocation(node.getLoc()));
   }
+
+  /**
+   * Thrown for a node of a type the factory does not know, such as one added by a newer runtime.
+   */
+  static final class UnknownNodeTypeException extends IllegalArgumentException {
+
+    UnknownNodeTypeException(Node node) {
+      super("Unknown node type: " + node.getType() + " at " + node.getLoc());
+    }
+  }
 }
@@ -0,0 +1,125 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.plugins.javascript.api.estree.ESTree;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+
+/**
+ * Immutable list of ESTree nodes converted from their protobuf message when first accessed.
+ *
+ * <p>Consumers only pay for the parts of the tree they visit: a consumer looking at the imports
+ * and exports of a program never converts the statements of function bodies. Converted elements
+ * are cached. Since they are immutable records, a race between two threads at worst converts an
+ * element twice, to equal values.
+ *
+ * <p>The list holds the protobuf messages of its elements, hence of their whole subtrees, until
+ * every element is converted. A consumer visiting part of a program keeps both the protobuf and
+ * the converted nodes of the rest of it in memory for as long as it holds the program.
+ *
+ * <p>Conversion errors surface on access, once the analysis of the file is over, as an
+ * {@link AstConversionException}. An element holding a node type the factory does not know is
+ * instead replaced with an {@link ESTree.UnknownNode}, wrapped in an
+ * {@link ESTree.ExpressionStatement} in statement lists, where either fits the element type. Other
+ * errors, such as an unknown string table index, mean the AST is corrupt and are never degraded.
+ */
+final class LazyNodeList<T> extends AbstractList<T> implements RandomAccess {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LazyNodeList.class);
+
+  /**
+   * Released once every element is converted.
+   */
+  @Nullable
+  private volatile List<Node> nodes;
+
+  private final Class<T> clazz;
+  private final Function<Node, T> converter;
+  private final AtomicReferenceArray<T> converted;
+  private final AtomicInteger unconverted;
+
+  LazyNodeList(List<Node> nodes, Class<T> clazz) {
+    this(nodes, clazz, node -> ESTreeFactory.from(node, clazz));
+  }
+
+  LazyNodeList(List<Node> nodes, Class<T> clazz, Function<Node, T> converter) {
+    this.nodes = nodes;
+    this.clazz = clazz;
+    this.converter = converter;
+    this.converted = new AtomicReferenceArray<>(nodes.size());
+    this.unconverted = new AtomicInteger(nodes.size());
+  }
+
+  @Override
+  public T get(int index) {
+    var element = converted.get(index);
+    if (element != null) {
+      return element;
+    }
+    var source = nodes;
+    if (source == null) {
+      // all elements were converted since the first read
+      return converted.get(index);
+    }
+    element = convert(source.get(index));
+    if (converted.compareAndSet(index, null, element) && unconverted.decrementAndGet() == 0) {
+      nodes = null;
+    }
+    return converted.get(index);
+  }
+
+  private T convert(Node node) {
+    try {
+      return converter.apply(node);
+    } catch (ESTreeFactory.UnknownNodeTypeException e) {
+      var unknown = new ESTree.UnknownNode(ESTreeFactory.fromLocation(node.getLoc()));
+      if (clazz.isInstance(unknown)) {
+        LOG.debug("Failed to convert AST node, replaced with an unknown node", e);
+        return clazz.cast(unknown);
+      }
+      var statement = new ESTree.ExpressionStatement(unknown.loc(), unknown);
+      if (clazz.isInstance(statement)) {
+        LOG.debug("Failed to convert AST node, replaced with an unknown statement", e);
+        return clazz.cast(statement);
+      }
+      throw conversionFailure(e);
+    } catch (RuntimeException e) {
+      throw conversionFailure(e);
+    }
+  }
+
+  private AstConversionException conversionFailure(RuntimeException cause) {
+    return new AstConversionException(
+      "Failed to convert AST node to " + clazz.getSimpleName(),
+      cause
+    );
+  }
+
+  @Override
+  public int size() {
+    return converted.length();
+  }
+}
@@ -17,10 +17,14 @@
 
 package org.sonar.plugins.javascript.bridge;
 
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileInput;
 
 /**
  * Application-level handler for streamed project-analysis requests and responses.
@@ -31,6 +35,14 @@ public interface ProjectAnalysisHandler {
    */
   AnalyzeProjectRequest getRequest();
 
+  /**
+   * Open the request as a header followed by batches of files, so that file inputs can be resolved
+   * lazily while the request is being sent. Defaults to splitting {@link #getRequest()}.
+   */
+  default RequestStream openRequestStream() {
+    return RequestStream.of(getRequest());
+  }
+
   /**
    * Get the Context of the Sensor owning the handler.
    */
@@ -45,4 +57,61 @@ public interface ProjectAnalysisHandler {
    * Handles a streamed protobuf response from the analyzer runtime.
    */
   void handleMessage(AnalyzeProjectStreamResponse message);
+
+  /**
+   * Handler whose request is only resolved as a stream. The request returned by {@link
+   * #getRequest()} is read from a new stream, up to its last file.
+   */
+  interface Streaming extends ProjectAnalysisHandler {
+    @Override
+    RequestStream openRequestStream();
+
+    @Override
+    default AnalyzeProjectRequest getRequest() {
+      var requests = openRequestStream();
+      var request = requests.header().toBuilder();
+      var files = requests.nextFiles(Integer.MAX_VALUE);
+      while (!files.isEmpty()) {
+        request.putAllFiles(files);
+        files = requests.nextFiles(Integer.MAX_VALUE);
+      }
+      return request.build();
+    }
+  }
+
+  /**
+   * Request sent as a header followed by batches of files.
+   */
+  interface RequestStream {
+    /**
+     * Get the request configuration, rules and bundles. Any files it holds are analyzed as well.
+     */
+    AnalyzeProjectRequest header();
+
+    /**
+     * Get up to {@code maxFiles} more files to analyze, or an empty map once all were returned.
+     */
+    Map<String, ProjectFileInput> nextFiles(int maxFiles);
+
+    static RequestStream of(AnalyzeProjectRequest request) {
+      var header = request.toBuilder().clearFiles().build();
+      var pending = new ArrayDeque<>(request.getFilesMap().entrySet());
+      return new RequestStream() {
+        @Override
+        public AnalyzeProjectRequest header() {
+          return header;
+        }
+
+        @Override
+        public Map<String, ProjectFileInput> nextFiles(int maxFiles) {
+          var files = new LinkedHashMap<String, ProjectFileInput>();
+          while (files.size() < maxFiles && !pending.isEmpty()) {
+            var entry = pending.poll();
+            files.put(entry.getKey(), entry.getValue());
+          }
+          return files;
+        }
+      };
+    }
+  }
 }
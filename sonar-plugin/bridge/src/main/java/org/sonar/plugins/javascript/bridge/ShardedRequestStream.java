@@ -0,0 +1,222 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileInput;
+
+/**
+ * Splits the files of a {@link ProjectAnalysisHandler.RequestStream} across several analyzer
+ * runtimes.
+ *
+ * <p>Files are grouped by the closest directory holding a {@code tsconfig.json}, and a whole group
+ * goes to the same shard so that a TypeScript program is never built by two runtimes. A group is
+ * assigned to the least loaded shard when its first file is seen. Project metadata files are sent
+ * to every shard, since every runtime needs them to resolve dependencies.
+ *
+ * <p>Shards pull files from the shared stream as they need them, so the request is still resolved
+ * lazily. The shared stream is only accessed under the given lock. The files pulled for the other
+ * shards are bounded: a shard that has none left waits, releasing the lock, while the queue of
+ * another shard is full.
+ */
+class ShardedRequestStream {
+
+  static final Set<String> PROJECT_METADATA_FILENAMES = Set.of(
+    "tsconfig.json",
+    "package.json",
+    "deno.json",
+    "deno.jsonc",
+    "pnpm-workspace.yaml"
+  );
+  private static final String TSCONFIG_FILENAME = "tsconfig.json";
+  private static final int PULLED_FILES_PER_BATCH = 100;
+  private static final int MAX_PENDING_FILES_PER_SHARD = 5 * PULLED_FILES_PER_BATCH;
+
+  private final ProjectAnalysisHandler.RequestStream source;
+  private final Object lock;
+  private final int maxPendingFiles;
+  private final AnalyzeProjectRequest header;
+  private final Path baseDir;
+  private final boolean canAccessFileSystem;
+  private final List<Queue<Map.Entry<String, ProjectFileInput>>> pending = new ArrayList<>();
+  private final int[] load;
+  private final Map<Path, Integer> groupToShard = new HashMap<>();
+  private final Map<Path, Path> groupOfDirectory = new HashMap<>();
+  private boolean exhausted;
+  private boolean aborted;
+
+  ShardedRequestStream(ProjectAnalysisHandler.RequestStream source, int shardCount, Object lock) {
+    this(source, shardCount, lock, MAX_PENDING_FILES_PER_SHARD);
+  }
+
+  ShardedRequestStream(
+    ProjectAnalysisHandler.RequestStream source,
+    int shardCount,
+    Object lock,
+    int maxPendingFiles
+  ) {
+    this.source = source;
+    this.lock = lock;
+    this.maxPendingFiles = maxPendingFiles;
+    var sourceHeader = source.header();
+    this.header = sourceHeader.toBuilder().clearFiles().build();
+    var configuration = sourceHeader.getConfiguration();
+    this.baseDir = Path.of(configuration.getBaseDir());
+    this.canAccessFileSystem =
+      !configuration.hasCanAccessFileSystem() || configuration.getCanAccessFileSystem();
+    for (var tsConfigPath : configuration.getTsConfigPathsList()) {
+      var directory = baseDir.resolve(tsConfigPath).getParent();
+      if (directory != null) {
+        groupOfDirectory.put(directory, directory);
+      }
+    }
+    this.load = new int[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      pending.add(new ArrayDeque<>());
+    }
+    // Files set on the header are distributed like the streamed ones.
+    distribute(sourceHeader.getFilesMap());
+  }
+
+  /**
+   * Returns the request stream of the given shard.
+   */
+  ProjectAnalysisHandler.RequestStream shard(int index) {
+    return new ProjectAnalysisHandler.RequestStream() {
+      @Override
+      public AnalyzeProjectRequest header() {
+        return header;
+      }
+
+      @Override
+      public Map<String, ProjectFileInput> nextFiles(int maxFiles) {
+        return ShardedRequestStream.this.nextFiles(index, maxFiles);
+      }
+    };
+  }
+
+  /**
+   * Wakes up the shards waiting for files, which then fail, once the analysis of a shard failed.
+   */
+  void abort() {
+    synchronized (lock) {
+      aborted = true;
+      lock.notifyAll();
+    }
+  }
+
+  private Map<String, ProjectFileInput> nextFiles(int shard, int maxFiles) {
+    synchronized (lock) {
+      var queue = pending.get(shard);
+      while (queue.size() < maxFiles && !exhausted) {
+        if (hasFullQueue()) {
+          if (!queue.isEmpty()) {
+            break;
+          }
+          awaitPolledFiles();
+          continue;
+        }
+        var files = source.nextFiles(PULLED_FILES_PER_BATCH);
+        if (files.isEmpty()) {
+          exhausted = true;
+        } else {
+          distribute(files);
+        }
+      }
+      var files = new LinkedHashMap<String, ProjectFileInput>();
+      while (files.size() < maxFiles && !queue.isEmpty()) {
+        var entry = queue.poll();
+        files.put(entry.getKey(), entry.getValue());
+      }
+      if (!files.isEmpty()) {
+        lock.notifyAll();
+      }
+      return files;
+    }
+  }
+
+  private boolean hasFullQueue() {
+    return pending.stream().anyMatch(queue -> queue.size() >= maxPendingFiles);
+  }
+
+  private void awaitPolledFiles() {
+    if (aborted) {
+      throw new IllegalStateException("Project analysis failed on another analyzer runtime");
+    }
+    try {
+      lock.wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for files to analyze", e);
+    }
+  }
+
+  private void distribute(Map<String, ProjectFileInput> files) {
+    for (var entry : files.entrySet()) {
+      var path = Path.of(entry.getKey());
+      if (PROJECT_METADATA_FILENAMES.contains(String.valueOf(path.getFileName()))) {
+        pending.forEach(queue -> queue.add(entry));
+        continue;
+      }
+      int shard = groupToShard.computeIfAbsent(group(path), group -> leastLoadedShard());
+      pending.get(shard).add(entry);
+      load[shard]++;
+    }
+  }
+
+  private int leastLoadedShard() {
+    int shard = 0;
+    for (int i = 1; i < load.length; i++) {
+      if (load[i] < load[shard]) {
+        shard = i;
+      }
+    }
+    return shard;
+  }
+
+  /**
+   * Returns the closest ancestor directory of the file holding a tsconfig, or the base directory.
+   */
+  private Path group(Path file) {
+    var directory = file.getParent();
+    if (directory == null || !directory.startsWith(baseDir)) {
+      return baseDir;
+    }
+    var group = groupOfDirectory.get(directory);
+    if (group == null) {
+      if (directory.equals(baseDir)) {
+        group = baseDir;
+      } else if (canAccessFileSystem && Files.isRegularFile(directory.resolve(TSCONFIG_FILENAME))) {
+        group = directory;
+      } else {
+        group = group(directory);
+      }
+      groupOfDirectory.put(directory, group);
+    }
+    return group;
+  }
+}
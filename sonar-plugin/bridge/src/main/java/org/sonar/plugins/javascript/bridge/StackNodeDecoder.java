@@ -0,0 +1,108 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+
+/**
+ * Decodes a {@link Node} keeping track of the open messages in a stack instead of recursive calls.
+ * Unlike the generated parser, it is not bound by a recursion limit and decodes arbitrarily deep
+ * ASTs. Fields are set through protobuf reflection, which is slower: it is only used for the ASTs
+ * that the generated parser rejects, see {@link AstProtoUtils}.
+ */
+final class StackNodeDecoder {
+
+  private StackNodeDecoder() {
+    // Utility class
+  }
+
+  private record OpenMessage(Message.Builder parent, FieldDescriptor field, int previousLimit) {}
+
+  static Node decode(CodedInputStream input) throws IOException {
+    Deque<OpenMessage> openMessages = new ArrayDeque<>();
+    Message.Builder builder = Node.newBuilder();
+    while (true) {
+      int tag = input.readTag();
+      if (tag == 0) {
+        if (openMessages.isEmpty()) {
+          return (Node) builder.build();
+        }
+        var open = openMessages.pop();
+        input.popLimit(open.previousLimit());
+        var message = builder.build();
+        builder = open.parent();
+        if (open.field().isRepeated()) {
+          builder.addRepeatedField(open.field(), message);
+        } else {
+          builder.setField(open.field(), message);
+        }
+        continue;
+      }
+      var field = builder
+        .getDescriptorForType()
+        .findFieldByNumber(WireFormat.getTagFieldNumber(tag));
+      if (field == null || WireFormat.getTagWireType(tag) != wireType(field)) {
+        input.skipField(tag);
+      } else if (field.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+        int previousLimit = input.pushLimit(input.readRawVarint32());
+        openMessages.push(new OpenMessage(builder, field, previousLimit));
+        builder = builder.newBuilderForField(field);
+      } else {
+        var value = readScalar(input, field);
+        if (field.isRepeated()) {
+          builder.addRepeatedField(field, value);
+        } else {
+          builder.setField(field, value);
+        }
+      }
+    }
+  }
+
+  private static int wireType(FieldDescriptor field) {
+    return field.getLiteType().getWireType();
+  }
+
+  private static Object readScalar(CodedInputStream input, FieldDescriptor field)
+    throws IOException {
+    return switch (field.getType()) {
+      case BOOL -> input.readBool();
+      case INT32 -> input.readInt32();
+      case SINT32 -> input.readSInt32();
+      case UINT32 -> input.readUInt32();
+      case FIXED32 -> input.readFixed32();
+      case SFIXED32 -> input.readSFixed32();
+      case INT64 -> input.readInt64();
+      case SINT64 -> input.readSInt64();
+      case UINT64 -> input.readUInt64();
+      case FIXED64 -> input.readFixed64();
+      case SFIXED64 -> input.readSFixed64();
+      case FLOAT -> input.readFloat();
+      case DOUBLE -> input.readDouble();
+      case STRING -> input.readStringRequireUtf8();
+      case BYTES -> input.readBytes();
+      case ENUM -> field.getEnumType().findValueByNumberCreatingIfUnknown(input.readEnum());
+      case MESSAGE, GROUP -> throw new IllegalStateException("Not a scalar field: " + field);
+    };
+  }
+}
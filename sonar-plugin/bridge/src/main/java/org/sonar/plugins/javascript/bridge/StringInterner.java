@@ -0,0 +1,89 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares equal strings between the ESTree trees converted during one analysis, such as identifier
+ * names and literals that occur in many files. Consumers retaining the trees then keep one copy
+ * of each string.
+ *
+ * <p>The interner is bounded: once it holds {@link #DEFAULT_MAX_ENTRIES} strings, or for strings
+ * longer than {@link #MAX_LENGTH}, strings are returned as they are. It is safe to use from
+ * several threads.
+ */
+public class StringInterner {
+
+  /**
+   * Strings not interned, for conversions outside an analysis.
+   */
+  public static final StringInterner NONE = new StringInterner(0);
+
+  static final int DEFAULT_MAX_ENTRIES = 100_000;
+  static final int MAX_LENGTH = 256;
+  // Header of the String object and of its byte array, compressed references
+  private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+  private final int maxEntries;
+  private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+  private final AtomicLong savedBytes = new AtomicLong();
+
+  public StringInterner() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  StringInterner(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public String intern(String string) {
+    if (string.length() > MAX_LENGTH) {
+      return string;
+    }
+    var interned = strings.get(string);
+    if (interned == null) {
+      if (strings.size() >= maxEntries) {
+        return string;
+      }
+      interned = strings.putIfAbsent(string, string);
+      if (interned == null) {
+        return string;
+      }
+    }
+    if (interned != string) {
+      savedBytes.addAndGet(STRING_OVERHEAD_BYTES + (long) string.length());
+    }
+    return interned;
+  }
+
+  /**
+   * Number of distinct strings shared.
+   */
+  public int size() {
+    return strings.size();
+  }
+
+  /**
+   * Estimate of the memory saved by the strings that were replaced by a shared copy, assuming
+   * compact one-byte strings.
+   */
+  public long savedBytes() {
+    return savedBytes.get();
+  }
+}
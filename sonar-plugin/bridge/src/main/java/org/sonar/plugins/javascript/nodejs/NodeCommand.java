@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import javax.annotation.Nullable;
@@ -142,6 +143,13 @@ public class NodeCommand {
     return process != null && process.isAlive();
   }
 
+  /**
+   * Handle of the external process, empty until it is started
+   */
+  public Optional<ProcessHandle> toHandle() {
+    return Optional.ofNullable(process).map(Process::toHandle);
+  }
+
   @Override
   public String toString() {
     return String.join(" ", command);
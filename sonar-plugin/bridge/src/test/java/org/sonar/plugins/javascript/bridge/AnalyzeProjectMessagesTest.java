@@ -22,6 +22,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonParser;
 import com.google.protobuf.NullValue;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
@@ -136,6 +138,41 @@ class AnalyzeProjectMessagesTest {
     assertThat(fileInput.getFileContent()).isEqualTo("content");
   }
 
+  @Test
+  void should_reference_files_read_by_the_runtime() {
+    var utf8 = AnalyzeProjectMessages.newProjectFileReference(
+      InputFile.Type.MAIN,
+      InputFile.Status.SAME,
+      StandardCharsets.UTF_8
+    );
+    var latin = AnalyzeProjectMessages.newProjectFileReference(
+      InputFile.Type.MAIN,
+      InputFile.Status.SAME,
+      latinCharset()
+    );
+
+    assertThat(utf8.hasFileContent()).isFalse();
+    assertThat(utf8.hasFileCharset()).isFalse();
+    assertThat(latin.getFileCharset()).isEqualTo("windows-1252");
+    assertThat(AnalyzeProjectMessages.isDecodableByRuntime(latinCharset())).isTrue();
+    assertThat(AnalyzeProjectMessages.isDecodableByRuntime(StandardCharsets.ISO_8859_1)).isFalse();
+  }
+
+  @Test
+  void should_hash_utf8_encoding_of_expected_content() {
+    var hash = AnalyzeProjectMessages.fileContentHash("café", latinCharset());
+
+    assertThat(hash.getCharset()).isEqualTo("windows-1252");
+    assertThat(hash.getMd5()).isEqualTo("07117fe4a1ebd544965dc19573183da2");
+    assertThat(
+      AnalyzeProjectMessages.fileContentHash("", StandardCharsets.UTF_8).getCharset()
+    ).isEmpty();
+  }
+
+  private static Charset latinCharset() {
+    return Charset.forName("windows-1252");
+  }
+
   @Test
   void should_build_project_configuration_with_overrides() {
     var configuration = new AnalysisConfiguration() {
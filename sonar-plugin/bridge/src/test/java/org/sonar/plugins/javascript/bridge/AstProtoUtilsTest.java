@@ -18,14 +18,22 @@ package org.sonar.plugins.javascript.bridge;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.slf4j.event.Level;
 import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+import org.sonar.plugins.javascript.bridge.protobuf.ExpressionStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.Identifier;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
 
 class AstProtoUtilsTest {
 
@@ -39,6 +47,36 @@ class AstProtoUtilsTest {
     assertThat(node.getProgram().getBodyList().get(0).getExpressionStatement()).isNotNull();
   }
 
+  @Test
+  void should_parse_byte_string() throws Exception {
+    var bytes = getSerializedProtoData();
+    var node = AstProtoUtils.readProtobuf(ByteString.copyFrom(bytes));
+    assertThat(node).isEqualTo(AstProtoUtils.readProtobufFromBytes(bytes));
+  }
+
+  @Test
+  void should_parse_byte_buffer() throws Exception {
+    var program = program(3);
+    var direct = ByteBuffer.allocateDirect(program.getSerializedSize());
+    direct.put(program.toByteArray()).flip();
+    assertThat(AstProtoUtils.readProtobuf(direct)).isEqualTo(program);
+    assertThat(AstProtoUtils.readProtobuf(ByteBuffer.wrap(program.toByteArray()))).isEqualTo(
+      program
+    );
+  }
+
+  @Test
+  void should_parse_streams_with_reused_buffer() throws Exception {
+    // larger than the initial buffer, which has to grow
+    var huge = program(20_000);
+    var small = program(1);
+    assertThat(huge.getSerializedSize()).isGreaterThan(64 * 1024);
+
+    assertThat(readStream(huge)).isEqualTo(huge);
+    assertThat(readStream(small)).isEqualTo(small);
+    assertThat(readStream(huge)).isEqualTo(huge);
+  }
+
   @Test
   void should_log_error_if_ast_is_invalid() throws Exception {
     assertThat(AstProtoUtils.readProtobufFromBytes(new byte[] { 42 })).isNull();
@@ -48,6 +86,25 @@ class AstProtoUtilsTest {
     );
   }
 
+  private static Node readStream(Node node) throws IOException {
+    return AstProtoUtils.readProtobuf(new ByteArrayInputStream(node.toByteArray()));
+  }
+
+  private static Node program(int statements) {
+    var program = Program.newBuilder().setSourceType("module");
+    for (int i = 0; i < statements; i++) {
+      var identifier = Node.newBuilder()
+        .setType(NodeType.IdentifierType)
+        .setIdentifier(Identifier.newBuilder().setName("identifier" + i));
+      program.addBody(
+        Node.newBuilder()
+          .setType(NodeType.ExpressionStatementType)
+          .setExpressionStatement(ExpressionStatement.newBuilder().setExpression(identifier))
+      );
+    }
+    return Node.newBuilder().setType(NodeType.ProgramType).setProgram(program).build();
+  }
+
   private static byte[] getSerializedProtoData() throws IOException {
     // the clear version of serialized.proto is `packages/analysis/tests/jsts/parsers/fixtures/ast/base.js`
     // it was generated by writing to a file the serialized data in the test `packages/analysis/tests/jsts/parsers/ast.test.ts`
@@ -0,0 +1,161 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.javascript.api.AstStreamVisitor;
+import org.sonar.plugins.javascript.bridge.protobuf.ArrayElement;
+import org.sonar.plugins.javascript.bridge.protobuf.ArrayExpression;
+import org.sonar.plugins.javascript.bridge.protobuf.CallExpression;
+import org.sonar.plugins.javascript.bridge.protobuf.ExpressionStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.Identifier;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Position;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+import org.sonar.plugins.javascript.bridge.protobuf.SourceLocation;
+import org.sonar.plugins.javascript.bridge.protobuf.ThisExpression;
+
+class AstStreamWalkerTest {
+
+  @Test
+  void should_report_nodes_in_depth_first_order() throws IOException {
+    var identifier = node(NodeType.IdentifierType, 1, 0, 1, 3).setIdentifier(
+      Identifier.newBuilder().setName("foo")
+    );
+    var thisExpression = node(NodeType.ThisExpressionType, 1, 4, 1, 8).setThisExpression(
+      ThisExpression.newBuilder()
+    );
+    var call = node(NodeType.CallExpressionType, 1, 0, 1, 9).setCallExpression(
+      CallExpression.newBuilder().setCallee(identifier).addArguments(thisExpression)
+    );
+    var statement = node(NodeType.ExpressionStatementType, 1, 0, 1, 10).setExpressionStatement(
+      ExpressionStatement.newBuilder().setExpression(call)
+    );
+    var program = node(NodeType.ProgramType, 1, 0, 2, 0).setProgram(
+      Program.newBuilder().setSourceType("module").addBody(statement)
+    );
+
+    assertThat(walk(program.build())).containsExactly(
+      "enter Program 1:0-2:0",
+      "enter ExpressionStatement 1:0-1:10",
+      "enter CallExpression 1:0-1:9",
+      "enter Identifier 1:0-1:3",
+      "leave Identifier",
+      "enter ThisExpression 1:4-1:8",
+      "leave ThisExpression",
+      "leave CallExpression",
+      "leave ExpressionStatement",
+      "leave Program"
+    );
+  }
+
+  @Test
+  void should_report_nodes_nested_in_other_messages() throws IOException {
+    var element = node(NodeType.IdentifierType, 1, 1, 1, 2).setIdentifier(
+      Identifier.newBuilder().setName("a")
+    );
+    var array = node(NodeType.ArrayExpressionType, 1, 0, 1, 3).setArrayExpression(
+      ArrayExpression.newBuilder()
+        .addElements(ArrayElement.newBuilder().setElement(element))
+        .addElements(ArrayElement.newBuilder())
+    );
+
+    assertThat(walk(array.build())).containsExactly(
+      "enter ArrayExpression 1:0-1:3",
+      "enter Identifier 1:1-1:2",
+      "leave Identifier",
+      "leave ArrayExpression"
+    );
+  }
+
+  @Test
+  void should_report_node_without_content() throws IOException {
+    assertThat(walk(Node.getDefaultInstance())).containsExactly(
+      "enter Program 0:0-0:0",
+      "leave Program"
+    );
+  }
+
+  @Test
+  void should_report_unknown_node_types() throws IOException {
+    var unknown = Node.newBuilder().setTypeValue(-1).build();
+    assertThat(walk(unknown)).containsExactly("enter UNRECOGNIZED 0:0-0:0", "leave UNRECOGNIZED");
+  }
+
+  @Test
+  void should_fail_on_too_deep_ast() {
+    var node = node(NodeType.IdentifierType, 1, 0, 1, 1).setIdentifier(Identifier.newBuilder());
+    for (int i = 0; i < 200; i++) {
+      node = node(NodeType.ExpressionStatementType, 1, 0, 1, 1).setExpressionStatement(
+        ExpressionStatement.newBuilder().setExpression(node)
+      );
+    }
+    var ast = node.build();
+    assertThatThrownBy(() -> walk(ast)).isInstanceOf(InvalidProtocolBufferException.class);
+  }
+
+  private static List<String> walk(Node node) throws IOException {
+    var events = new ArrayList<String>();
+    AstStreamWalker.walk(
+      node.toByteString(),
+      new AstStreamVisitor() {
+        @Override
+        public void enterNode(
+          String type,
+          int startLine,
+          int startColumn,
+          int endLine,
+          int endColumn
+        ) {
+          events.add(
+            "enter " + type + " " + startLine + ":" + startColumn + "-" + endLine + ":" + endColumn
+          );
+        }
+
+        @Override
+        public void leaveNode(String type) {
+          events.add("leave " + type);
+        }
+      }
+    );
+    return events;
+  }
+
+  private static Node.Builder node(
+    NodeType type,
+    int startLine,
+    int startColumn,
+    int endLine,
+    int endColumn
+  ) {
+    return Node.newBuilder()
+      .setType(type)
+      .setLoc(
+        SourceLocation.newBuilder()
+          .setStart(Position.newBuilder().setLine(startLine).setColumn(startColumn))
+          .setEnd(Position.newBuilder().setLine(endLine).setColumn(endColumn))
+      );
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.protobuf.ByteString;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AstRegion;
+import org.sonar.plugins.javascript.analyzeproject.grpc.FileResultMessage;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisFileResult;
+
+class AstTransferDirectoryTest {
+
+  @TempDir
+  Path workdir;
+
+  @Test
+  void should_map_ast_regions() throws Exception {
+    try (var directory = AstTransferDirectory.create(workdir)) {
+      var file = directory.path().resolve("asts.bin");
+      Files.write(file, new byte[] { 1, 2, 3, 4, 5 });
+
+      var resolved = directory.resolve(response(region(file.toString(), 1, 3)));
+      var result = resolved.getFileResult().getResult();
+      assertThat(result.hasAstRegion()).isFalse();
+      assertThat(result.getAst()).isEqualTo(ByteString.copyFrom(new byte[] { 2, 3, 4 }));
+      assertThat(resolved.getFileResult().getFilePath()).isEqualTo("/file.js");
+    }
+  }
+
+  @Test
+  void should_map_regions_as_slices_of_their_file() throws Exception {
+    try (var directory = AstTransferDirectory.create(workdir)) {
+      var file = directory.path().resolve("asts.bin");
+      Files.write(file, new byte[] { 1, 2, 3, 4, 5 });
+      assertThat(ast(directory, region(file.toString(), 0, 2))).containsExactly(1, 2);
+      assertThat(ast(directory, region(file.toString(), 2, 3))).containsExactly(3, 4, 5);
+
+      // the file grew beyond its mapping
+      Files.write(file, new byte[] { 6, 7 }, StandardOpenOption.APPEND);
+      assertThat(ast(directory, region(file.toString(), 4, 3))).containsExactly(5, 6, 7);
+      assertThat(ast(directory, region(file.toString(), 1, 1))).containsExactly(2);
+
+      assertThat(ast(directory, region(file.toString(), 6, 2))).isEmpty();
+    }
+  }
+
+  @Test
+  void should_leave_responses_without_region_unchanged() throws Exception {
+    var inline = AnalyzeProjectStreamResponse.newBuilder()
+      .setFileResult(
+        FileResultMessage.newBuilder()
+          .setResult(ProjectAnalysisFileResult.newBuilder().setAst(ByteString.copyFromUtf8("ast")))
+      )
+      .build();
+    try (var directory = AstTransferDirectory.create(workdir)) {
+      assertThat(directory.resolve(inline)).isSameAs(inline);
+    }
+  }
+
+  @Test
+  void should_not_map_files_outside_of_directory() throws Exception {
+    var outside = Files.write(workdir.resolve("outside.bin"), new byte[] { 1, 2, 3 });
+    try (var directory = AstTransferDirectory.create(workdir)) {
+      var result = directory.resolve(response(region(outside.toString(), 0, 3))).getFileResult();
+      assertThat(result.getResult().hasAstRegion()).isFalse();
+      assertThat(result.getResult().getAst()).isEmpty();
+    }
+  }
+
+  @Test
+  void should_delete_directory_on_close() throws Exception {
+    var directory = AstTransferDirectory.create(workdir);
+    var file = Files.write(directory.path().resolve("asts.bin"), new byte[] { 1, 2, 3 });
+    directory.resolve(response(region(file.toString(), 0, 3)));
+
+    directory.close();
+    assertThat(directory.path()).doesNotExist();
+  }
+
+  private static byte[] ast(AstTransferDirectory directory, AstRegion region) {
+    return directory.resolve(response(region)).getFileResult().getResult().getAst().toByteArray();
+  }
+
+  private static AstRegion region(String path, long offset, int length) {
+    return AstRegion.newBuilder().setPath(path).setOffset(offset).setLength(length).build();
+  }
+
+  private static AnalyzeProjectStreamResponse response(AstRegion region) {
+    return AnalyzeProjectStreamResponse.newBuilder()
+      .setFileResult(
+        FileResultMessage.newBuilder()
+          .setFilePath("/file.js")
+          .setResult(ProjectAnalysisFileResult.newBuilder().setAstRegion(region))
+      )
+      .build();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BridgeDaemonTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void should_only_let_one_analysis_use_the_daemon() throws IOException {
+    var daemon = BridgeDaemon.acquire(directory, "id");
+
+    assertThat(daemon).isNotNull();
+    assertThat(BridgeDaemon.acquire(directory, "id")).isNull();
+
+    daemon.release();
+    var next = BridgeDaemon.acquire(directory, "id");
+    assertThat(next).isNotNull();
+    next.release();
+  }
+
+  @Test
+  void should_read_port_of_daemon_with_same_id() throws IOException {
+    var daemon = BridgeDaemon.acquire(directory, "id");
+    assertThat(daemon.port()).isEmpty();
+
+    daemon.writePort(1234, null);
+    assertThat(daemon.port()).hasValue(1234);
+    daemon.release();
+
+    var other = BridgeDaemon.acquire(directory, "other-id");
+    assertThat(other.port()).isEmpty();
+    other.evict();
+    other.release();
+    assertThat(directory.resolve("daemon.port")).doesNotExist();
+  }
+
+  @Test
+  void should_stop_the_recorded_daemon_process_on_eviction() throws Exception {
+    var process = startProcess();
+    try {
+      var daemon = BridgeDaemon.acquire(directory, "id");
+      daemon.writePort(1234, process.toHandle());
+      daemon.release();
+
+      var next = BridgeDaemon.acquire(directory, "other-id");
+      next.evict();
+      next.release();
+
+      assertThat(process.waitFor(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(directory.resolve("daemon.port")).doesNotExist();
+    } finally {
+      process.destroyForcibly();
+    }
+  }
+
+  @Test
+  void should_not_stop_a_process_reusing_the_pid_of_the_daemon() throws Exception {
+    var process = startProcess();
+    try {
+      var daemon = BridgeDaemon.acquire(directory, "id");
+      Files.writeString(
+        directory.resolve("daemon.port"),
+        "id=id\nport=1234\npid=" + process.pid() + "\nstarted=0\n"
+      );
+
+      daemon.evict();
+      daemon.release();
+
+      assertThat(process.isAlive()).isTrue();
+    } finally {
+      process.destroyForcibly();
+    }
+  }
+
+  @Test
+  void should_deploy_every_daemon_in_its_own_directory() throws IOException {
+    var daemon = BridgeDaemon.acquire(directory, "id");
+    var first = daemon.newInstanceDirectory();
+    Files.writeString(first.resolve("server.mjs"), "");
+    daemon.writePort(1234, null);
+    daemon.release();
+
+    var next = BridgeDaemon.acquire(directory, "id");
+    next.evict();
+    var second = next.newInstanceDirectory();
+    next.release();
+
+    assertThat(second).isNotEqualTo(first).isDirectory();
+    assertThat(first).doesNotExist();
+  }
+
+  @Test
+  void should_ignore_corrupted_port_file() throws IOException {
+    var daemon = BridgeDaemon.acquire(directory, "id");
+    Files.writeString(directory.resolve("daemon.port"), "id=id\nport=abc\n");
+
+    assertThat(daemon.port()).isEmpty();
+    daemon.release();
+  }
+
+  private static Process startProcess() throws IOException {
+    return new ProcessBuilder("node", "-e", "setTimeout(() => {}, 60000)").start();
+  }
+}
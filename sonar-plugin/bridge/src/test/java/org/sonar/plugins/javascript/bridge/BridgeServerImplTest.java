@@ -42,14 +42,19 @@ import com.google.protobuf.ByteString;
 import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 import java.io.File;
 import java.io.IOException;
+import java.net.ServerSocket;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -57,6 +62,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -76,6 +82,7 @@ import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.Version;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectServiceGrpc;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectUnaryResponse;
 import org.sonar.plugins.javascript.analyzeproject.grpc.FileResultMessage;
@@ -83,6 +90,7 @@ import org.sonar.plugins.javascript.analyzeproject.grpc.FileStatus;
 import org.sonar.plugins.javascript.analyzeproject.grpc.FileType;
 import org.sonar.plugins.javascript.analyzeproject.grpc.Issue;
 import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisFileResult;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisMeta;
 import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileInput;
 import org.sonar.plugins.javascript.api.AnalysisMode;
 import org.sonar.plugins.javascript.bridge.protobuf.Node;
@@ -137,6 +145,9 @@ class BridgeServerImplTest {
   @TempDir
   File tempDir;
 
+  @TempDir
+  Path userHome;
+
   TempFolder tempFolder;
 
   private SensorContextTester context;
@@ -605,7 +616,9 @@ class BridgeServerImplTest {
     bridgeServer = createUnitBridgeServer();
     var future = new CompletableFuture<Void>();
     var handler = mock(ProjectAnalysisHandler.class);
-    when(handler.getRequest()).thenReturn(AnalyzeProjectRequest.getDefaultInstance());
+    when(handler.openRequestStream()).thenReturn(
+      ProjectAnalysisHandler.RequestStream.of(AnalyzeProjectRequest.getDefaultInstance())
+    );
     when(handler.getFuture()).thenReturn(future);
 
     try (MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockStatic(
@@ -654,15 +667,11 @@ class BridgeServerImplTest {
   @Test
   void should_fail_when_stream_ends_without_project_metadata() throws Exception {
     bridgeServer = createUnitBridgeServer();
-    var stub = mock(AnalyzeProjectServiceGrpc.AnalyzeProjectServiceBlockingStub.class);
+    var stub = mock(AnalyzeProjectServiceGrpc.AnalyzeProjectServiceStub.class);
     var handler = createStreamingHandler(createInputFile(), false);
 
-    try (
-      MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockBlockingStub(bridgeServer, stub)
-    ) {
-      when(stub.analyzeProject(any(AnalyzeProjectRequest.class))).thenReturn(
-        List.<AnalyzeProjectStreamResponse>of().iterator()
-      );
+    try (MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockAsyncStub(bridgeServer, stub)) {
+      stubAnalyzeProjectStream(stub, List.of(), null);
 
       assertThatThrownBy(() -> bridgeServer.analyzeProject(handler))
         .isInstanceOf(IllegalStateException.class)
@@ -676,7 +685,7 @@ class BridgeServerImplTest {
   @Test
   void should_surface_stream_runtime_errors() throws Exception {
     bridgeServer = createUnitBridgeServer();
-    var stub = mock(AnalyzeProjectServiceGrpc.AnalyzeProjectServiceBlockingStub.class);
+    var stub = mock(AnalyzeProjectServiceGrpc.AnalyzeProjectServiceStub.class);
 
     var future = new CompletableFuture<Void>();
     var request = createProjectRequest(createInputFile(), false);
@@ -702,10 +711,10 @@ class BridgeServerImplTest {
       }
     };
 
-    try (
-      MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockBlockingStub(bridgeServer, stub)
-    ) {
-      when(stub.analyzeProject(any(AnalyzeProjectRequest.class))).thenThrow(
+    try (MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockAsyncStub(bridgeServer, stub)) {
+      stubAnalyzeProjectStream(
+        stub,
+        List.of(),
         Status.INVALID_ARGUMENT.withDescription(
           "configuration.base_dir is required"
         ).asRuntimeException()
@@ -720,6 +729,60 @@ class BridgeServerImplTest {
     }
   }
 
+  @Test
+  void should_send_streamed_request_files_in_batches() throws Exception {
+    bridgeServer = createUnitBridgeServer();
+    var stub = mock(AnalyzeProjectServiceGrpc.AnalyzeProjectServiceStub.class);
+    var request = createProjectRequest(createInputFile(), false).toBuilder();
+    for (int i = 0; i < BridgeServerImpl.ANALYZE_PROJECT_FILE_BATCH_SIZE; i++) {
+      request.putFiles("file" + i + ".js", ProjectFileInput.getDefaultInstance());
+    }
+    var future = new CompletableFuture<Void>();
+    var handler = new ProjectAnalysisHandler() {
+      @Override
+      public AnalyzeProjectRequest getRequest() {
+        return request.build();
+      }
+
+      @Override
+      public SensorContextTester getContext() {
+        return context;
+      }
+
+      @Override
+      public CompletableFuture<Void> getFuture() {
+        return future;
+      }
+
+      @Override
+      public void handleMessage(AnalyzeProjectStreamResponse message) {
+        future.complete(null);
+      }
+    };
+
+    try (MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockAsyncStub(bridgeServer, stub)) {
+      var sent = stubAnalyzeProjectStream(
+        stub,
+        List.of(
+          AnalyzeProjectStreamResponse.newBuilder()
+            .setMeta(ProjectAnalysisMeta.getDefaultInstance())
+            .build()
+        ),
+        null
+      );
+
+      bridgeServer.analyzeProject(handler);
+
+      assertThat(sent).hasSize(3);
+      assertThat(sent.get(0).hasHeader()).isTrue();
+      assertThat(sent.get(0).getHeader().getFilesCount()).isZero();
+      assertThat(sent.get(1).getFiles().getFilesCount()).isEqualTo(
+        BridgeServerImpl.ANALYZE_PROJECT_FILE_BATCH_SIZE
+      );
+      assertThat(sent.get(2).getFiles().getFilesCount()).isEqualTo(1);
+    }
+  }
+
   @Test
   void should_cancel_stream_when_handler_throws_while_consuming_a_message() throws Exception {
     assertStreamHandlerCancelledOnThrow(new IllegalStateException("fail fast"));
@@ -732,7 +795,7 @@ class BridgeServerImplTest {
 
   private void assertStreamHandlerCancelledOnThrow(Throwable streamedFailure) throws Exception {
     bridgeServer = createUnitBridgeServer();
-    var stub = mock(AnalyzeProjectServiceGrpc.AnalyzeProjectServiceBlockingStub.class);
+    var stub = mock(AnalyzeProjectServiceGrpc.AnalyzeProjectServiceStub.class);
     var future = new CompletableFuture<Void>();
     var request = createProjectRequest(createInputFile(), false);
     var handler = new ProjectAnalysisHandler() {
@@ -772,12 +835,8 @@ class BridgeServerImplTest {
       )
       .build();
 
-    try (
-      MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockBlockingStub(bridgeServer, stub)
-    ) {
-      when(stub.analyzeProject(any(AnalyzeProjectRequest.class))).thenReturn(
-        List.of(streamedResponse).iterator()
-      );
+    try (MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockAsyncStub(bridgeServer, stub)) {
+      stubAnalyzeProjectStream(stub, List.of(streamedResponse), null);
 
       assertThatThrownBy(() -> bridgeServer.analyzeProject(handler)).isSameAs(streamedFailure);
       assertThatThrownBy(future::join)
@@ -857,6 +916,124 @@ class BridgeServerImplTest {
     );
   }
 
+  @Test
+  void should_identify_daemons_by_a_digest_of_their_settings() {
+    var id = BridgeServerImpl.daemonId(
+      new MapSettings().setProperty("sonar.javascript.node.maxspace", "2048").asConfig()
+    );
+
+    assertThat(id)
+      .matches(".*-[0-9a-f]{64}")
+      .isEqualTo(
+        BridgeServerImpl.daemonId(
+          new MapSettings().setProperty("sonar.javascript.node.maxspace", "2048").asConfig()
+        )
+      )
+      .isNotEqualTo(BridgeServerImpl.daemonId(new MapSettings().asConfig()));
+  }
+
+  @Test
+  void should_attach_to_the_daemon_of_a_previous_analysis() throws Exception {
+    var config = daemonConfig();
+    try {
+      bridgeServer = createBridgeServer(START_SERVER_SCRIPT);
+      bridgeServer.startServerLazily(config);
+      bridgeServer.clean();
+
+      bridgeServer = createBridgeServer(START_SERVER_SCRIPT);
+      bridgeServer.startServerLazily(config);
+
+      assertThat(logTester.logs(INFO))
+        .anyMatch(log -> log.startsWith("Started analyzer daemon on port"))
+        .anyMatch(log -> log.startsWith("Using analyzer daemon on port"));
+      assertThat(bridgeServer.isAlive()).isTrue();
+    } finally {
+      bridgeServer.clean();
+      evictDaemon();
+    }
+  }
+
+  @Test
+  void should_start_dedicated_runtimes_next_to_an_attached_daemon() throws Exception {
+    daemonConfig();
+    context.settings().setProperty(BridgeServerPool.NODE_RUNTIMES_PROPERTY, "2");
+    var config = BridgeServerConfig.fromSensorContext(context);
+    var pool = createBridgeServerPool();
+    try {
+      pool.startServerLazily(config);
+      pool.clean();
+
+      pool = createBridgeServerPool();
+      pool.startServerLazily(config);
+
+      assertThat(logTester.logs(INFO)).anyMatch(log ->
+        log.startsWith("Using analyzer daemon on port")
+      );
+      assertThat(logTester.logs(WARN)).noneMatch(log ->
+        log.startsWith("Failed to start analyzer runtime")
+      );
+      assertThat(logTester.logs(DEBUG)).contains(
+        "Running project analysis on 2 analyzer runtimes"
+      );
+    } finally {
+      pool.clean();
+      evictDaemon();
+    }
+  }
+
+  @Test
+  void should_keep_the_daemon_running_but_release_it_on_clean() throws Exception {
+    var config = daemonConfig();
+    bridgeServer = createBridgeServer(START_SERVER_SCRIPT);
+    bridgeServer.startServerLazily(config);
+    var process = daemonProcess();
+
+    bridgeServer.clean();
+
+    try {
+      assertThat(process.isAlive()).isTrue();
+      var daemon = BridgeDaemon.acquire(
+        daemonDirectory(),
+        BridgeServerImpl.daemonId(config.config())
+      );
+      assertThat(daemon).isNotNull();
+      daemon.release();
+    } finally {
+      evictDaemon();
+    }
+    assertThat(process.onExit().get(10, TimeUnit.SECONDS).isAlive()).isFalse();
+  }
+
+  @Test
+  void should_replace_a_daemon_failing_the_health_check() throws Exception {
+    var config = daemonConfig();
+    var stale = new ProcessBuilder("node", "-e", "setTimeout(() => {}, 60000)").start();
+    try {
+      var daemon = BridgeDaemon.acquire(
+        daemonDirectory(),
+        BridgeServerImpl.daemonId(config.config())
+      );
+      // nothing listens on the recorded port
+      daemon.writePort(unusedPort(), stale.toHandle());
+      daemon.release();
+
+      bridgeServer = createBridgeServer(START_SERVER_SCRIPT);
+      bridgeServer.startServerLazily(config);
+
+      assertThat(logTester.logs(DEBUG)).anyMatch(log ->
+        log.endsWith("is not healthy, starting a new one")
+      );
+      assertThat(stale.waitFor(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(logTester.logs(INFO)).anyMatch(log ->
+        log.startsWith("Started analyzer daemon on port")
+      );
+    } finally {
+      stale.destroyForcibly();
+      bridgeServer.clean();
+      evictDaemon();
+    }
+  }
+
   @Test
   void should_use_default_timeout() {
     bridgeServer = new BridgeServerImpl(
@@ -1171,6 +1348,19 @@ class BridgeServerImplTest {
     );
   }
 
+  private BridgeServerPool createBridgeServerPool() {
+    return new BridgeServerPool(
+      BridgeServerPool.runtimeFactory(
+        builder(),
+        new TestBundle(START_SERVER_SCRIPT),
+        emptyRulesBundles,
+        deprecationWarning,
+        tempFolder,
+        unsupportedEmbeddedRuntime
+      )
+    );
+  }
+
   private BridgeServerImpl createUnitBridgeServer() {
     return createBridgeServer(mock(Bundle.class));
   }
@@ -1213,6 +1403,52 @@ class BridgeServerImplTest {
     return mockedGrpc;
   }
 
+  private MockedStatic<AnalyzeProjectServiceGrpc> mockAsyncStub(
+    BridgeServerImpl bridgeServer,
+    AnalyzeProjectServiceGrpc.AnalyzeProjectServiceStub stub
+  ) throws Exception {
+    var channel = mock(ManagedChannel.class);
+    setPrivateField(bridgeServer, "channel", channel);
+    MockedStatic<AnalyzeProjectServiceGrpc> mockedGrpc = mockStatic(
+      AnalyzeProjectServiceGrpc.class
+    );
+    mockedGrpc.when(() -> AnalyzeProjectServiceGrpc.newStub(channel)).thenReturn(stub);
+    return mockedGrpc;
+  }
+
+  /**
+   * Replays the given responses on {@code AnalyzeProjectStream} calls, then completes the call or
+   * fails it with {@code failure}. Returns the list collecting the messages sent by the client.
+   */
+  @SuppressWarnings("unchecked")
+  private static List<AnalyzeProjectStreamRequest> stubAnalyzeProjectStream(
+    AnalyzeProjectServiceGrpc.AnalyzeProjectServiceStub stub,
+    List<AnalyzeProjectStreamResponse> responses,
+    @Nullable Throwable failure
+  ) {
+    var sent = new ArrayList<AnalyzeProjectStreamRequest>();
+    when(stub.analyzeProjectStream(any())).thenAnswer(invocation -> {
+      ClientResponseObserver<
+        AnalyzeProjectStreamRequest,
+        AnalyzeProjectStreamResponse
+      > observer = invocation.getArgument(0);
+      ClientCallStreamObserver<AnalyzeProjectStreamRequest> requests = mock(
+        ClientCallStreamObserver.class
+      );
+      when(requests.isReady()).thenReturn(true);
+      doAnswer(call -> sent.add(call.getArgument(0))).when(requests).onNext(any());
+      observer.beforeStart(requests);
+      responses.forEach(observer::onNext);
+      if (failure == null) {
+        observer.onCompleted();
+      } else {
+        observer.onError(failure);
+      }
+      return requests;
+    });
+    return sent;
+  }
+
   private static AnalyzeProjectUnaryResponse createUnaryResponse(
     DefaultInputFile inputFile,
     boolean includeAst
@@ -1272,6 +1508,45 @@ class BridgeServerImplTest {
     return mockEnvironment;
   }
 
+  private BridgeServerConfig daemonConfig() {
+    context.setSettings(
+      new MapSettings()
+        .setProperty(BridgeServerImpl.DAEMON_PROPERTY, "true")
+        .setProperty("sonar.userHome", userHome.toString())
+    );
+    return BridgeServerConfig.fromSensorContext(context);
+  }
+
+  private Path daemonDirectory() {
+    return userHome
+      .resolve("js")
+      .resolve("daemon")
+      .resolve(String.valueOf(PluginInfo.getVersion()));
+  }
+
+  private ProcessHandle daemonProcess() throws IOException {
+    var properties = new Properties();
+    try (var reader = Files.newBufferedReader(daemonDirectory().resolve("daemon.port"))) {
+      properties.load(reader);
+    }
+    return ProcessHandle.of(Long.parseLong(properties.getProperty("pid"))).orElseThrow();
+  }
+
+  /**
+   * Stops the daemon left running by a test.
+   */
+  private void evictDaemon() throws IOException {
+    var daemon = BridgeDaemon.acquire(daemonDirectory(), "any");
+    daemon.evict();
+    daemon.release();
+  }
+
+  private static int unusedPort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
   static class TestBundle implements Bundle {
 
     final String startServerScript;
@@ -0,0 +1,380 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.sonar.plugins.javascript.nodejs.NodeCommandBuilderImpl.SKIP_NODE_PROVISIONING_PROPERTY;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.SonarProduct;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.FileResultMessage;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProgramCreationTelemetry;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisMeta;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisTelemetry;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectConfiguration;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileInput;
+import org.sonar.plugins.javascript.nodejs.NodeCommandBuilder;
+import org.sonar.scanner.plugin.api.impl.config.MapSettings;
+import org.sonar.scanner.plugin.api.impl.utils.DefaultTempFolder;
+
+class BridgeServerPoolTest {
+
+  @TempDir
+  Path baseDir;
+
+  private final List<BridgeServerImpl> runtimes = new ArrayList<>();
+
+  @Test
+  void should_only_start_one_runtime_by_default() throws Exception {
+    var pool = new BridgeServerPool(this::newRuntime);
+    var handler = new RecordingHandler(request("a.js"));
+
+    pool.startServerLazily(config(null));
+    pool.analyzeProject(handler);
+
+    assertThat(runtimes).hasSize(1);
+    verify(runtimes.get(0)).analyzeProject(handler);
+  }
+
+  @Test
+  void should_shard_files_across_runtimes_and_merge_metadata() throws Exception {
+    var pool = new BridgeServerPool(this::newRuntime);
+    var handler = new RecordingHandler(request("a.js", "b.js", "c.js"));
+
+    pool.startServerLazily(config("3"));
+    pool.analyzeProject(handler);
+
+    assertThat(runtimes).hasSize(3);
+    assertThat(handler.files).containsExactlyInAnyOrder(file("a.js"), file("b.js"), file("c.js"));
+    assertThat(handler.metas).hasSize(1);
+    var meta = handler.metas.get(0);
+    assertThat(meta.getWarningsList()).containsExactly("warning");
+    // all files are in the base directory group, so a single runtime analyzed them
+    assertThat(meta.getTelemetry().getProgramCreation().getAttempted()).isEqualTo(1);
+    assertThat(handler.getFuture()).isDone();
+  }
+
+  @Test
+  void should_not_call_the_handler_from_two_shards_at_once() throws Exception {
+    Files.createDirectories(baseDir.resolve("a"));
+    Files.createDirectories(baseDir.resolve("b"));
+    Files.createFile(baseDir.resolve("a/tsconfig.json"));
+    Files.createFile(baseDir.resolve("b/tsconfig.json"));
+    var paths = new ArrayList<String>();
+    for (int i = 0; i < 100; i++) {
+      paths.add("a/file" + i + ".ts");
+      paths.add("b/file" + i + ".ts");
+    }
+    var pool = new BridgeServerPool(this::newRuntime);
+    var handler = new UnsynchronizedHandler(request(paths.toArray(String[]::new)));
+
+    pool.startServerLazily(config("2"));
+    pool.analyzeProject(handler);
+
+    assertThat(handler.overlapped).isFalse();
+    assertThat(handler.sent).hasSize(200);
+    assertThat(handler.resultsBeforeMeta).isEqualTo(200);
+    assertThat(handler.metas).hasSize(1);
+    // both groups were analyzed, each by its own runtime
+    assertThat(handler.metas.get(0).getTelemetry().getProgramCreation().getAttempted()).isEqualTo(
+      2
+    );
+  }
+
+  @Test
+  void should_leave_out_runtimes_failing_to_start() throws Exception {
+    var pool = new BridgeServerPool(index -> {
+      var runtime = newRuntime(index);
+      if (index == 1) {
+        try {
+          doThrow(new IllegalStateException("boom")).when(runtime).startServerLazily(any());
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return runtime;
+    });
+    var handler = new RecordingHandler(request("a.js"));
+
+    pool.startServerLazily(config("2"));
+    pool.analyzeProject(handler);
+
+    verify(runtimes.get(0)).analyzeProject(handler);
+  }
+
+  @Test
+  void should_deploy_each_runtime_on_its_own() throws Exception {
+    var tempFolder = new DefaultTempFolder(baseDir.toFile(), false);
+    var factory = BridgeServerPool.runtimeFactory(
+      mock(NodeCommandBuilder.class),
+      new BundleImpl("/test-bundle.tgz"),
+      new RulesBundles(),
+      mock(NodeDeprecationWarning.class),
+      tempFolder,
+      mock(EmbeddedNode.class)
+    );
+    factory.apply(0);
+    var secondary = factory.apply(1);
+
+    // the first runtime attached to a daemon, so it never deployed its bundle
+    secondary.deploy(
+      new MapSettings().setProperty(SKIP_NODE_PROVISIONING_PROPERTY, true).asConfig()
+    );
+
+    assertThat(baseDir.resolve("bridge-bundle")).isEmptyDirectory();
+    assertThat(baseDir.resolve("bridge-bundle-2/package/bin/server.cjs")).exists();
+  }
+
+  @Test
+  void should_rethrow_shard_failures() throws Exception {
+    var pool = new BridgeServerPool(index -> {
+      var runtime = newRuntime(index);
+      doThrow(new IllegalStateException("shard failed")).when(runtime).analyzeProject(
+        any(ProjectAnalysisHandler.class)
+      );
+      return runtime;
+    });
+    var handler = new RecordingHandler(request("a.js"));
+
+    pool.startServerLazily(config("2"));
+
+    assertThatThrownBy(() -> pool.analyzeProject(handler)).hasMessage("shard failed");
+  }
+
+  @Test
+  void should_merge_project_metadata() {
+    var first = ProjectAnalysisMeta.newBuilder()
+      .addWarnings("a")
+      .setTelemetry(
+        ProjectAnalysisTelemetry.newBuilder()
+          .addTypescriptVersions("5.0")
+          .setProgramCreation(ProgramCreationTelemetry.newBuilder().setAttempted(2).setFailed(1))
+          .setEsmFileCount(3)
+          .putDenoImportCounts("std", 1)
+      )
+      .build();
+    var second = ProjectAnalysisMeta.newBuilder()
+      .addWarnings("a")
+      .addWarnings("b")
+      .setTelemetry(
+        ProjectAnalysisTelemetry.newBuilder()
+          .addTypescriptVersions("5.0")
+          .addTypescriptVersions("5.4")
+          .setTypescriptNativePreview(true)
+          .setProgramCreation(ProgramCreationTelemetry.newBuilder().setAttempted(1).setSucceeded(1))
+          .setCjsFileCount(4)
+          .putDenoImportCounts("std", 2)
+      )
+      .build();
+
+    var merged = BridgeServerPool.mergeMetas(List.of(first, second));
+
+    assertThat(merged.getWarningsList()).containsExactly("a", "b");
+    var telemetry = merged.getTelemetry();
+    assertThat(telemetry.getTypescriptVersionsList()).containsExactly("5.0", "5.4");
+    assertThat(telemetry.getTypescriptNativePreview()).isTrue();
+    assertThat(telemetry.getProgramCreation())
+      .isEqualTo(
+        ProgramCreationTelemetry.newBuilder().setAttempted(3).setSucceeded(1).setFailed(1).build()
+      );
+    assertThat(telemetry.getEsmFileCount()).isEqualTo(3);
+    assertThat(telemetry.getCjsFileCount()).isEqualTo(4);
+    assertThat(telemetry.getDenoImportCountsMap()).containsEntry("std", 3);
+  }
+
+  private BridgeServerImpl newRuntime(int index) {
+    var runtime = mock(BridgeServerImpl.class);
+    doAnswer(invocation -> {
+      ProjectAnalysisHandler handler = invocation.getArgument(0);
+      var requests = handler.openRequestStream();
+      var files = requests.nextFiles(10);
+      if (files.isEmpty()) {
+        handler.getFuture().complete(null);
+        return null;
+      }
+      while (!files.isEmpty()) {
+        for (var path : files.keySet()) {
+          handler.handleMessage(
+            AnalyzeProjectStreamResponse.newBuilder()
+              .setFileResult(FileResultMessage.newBuilder().setFilePath(path))
+              .build()
+          );
+        }
+        files = requests.nextFiles(10);
+      }
+      handler.handleMessage(
+        AnalyzeProjectStreamResponse.newBuilder()
+          .setMeta(
+            ProjectAnalysisMeta.newBuilder()
+              .addWarnings("warning")
+              .setTelemetry(
+                ProjectAnalysisTelemetry.newBuilder()
+                  .setProgramCreation(ProgramCreationTelemetry.newBuilder().setAttempted(1))
+              )
+          )
+          .build()
+      );
+      return null;
+    })
+      .when(runtime)
+      .analyzeProject(any(ProjectAnalysisHandler.class));
+    runtimes.add(runtime);
+    return runtime;
+  }
+
+  private BridgeServerConfig config(String runtimes) {
+    var settings = new MapSettings();
+    if (runtimes != null) {
+      settings.setProperty(BridgeServerPool.NODE_RUNTIMES_PROPERTY, runtimes);
+    }
+    return new BridgeServerConfig(
+      settings.asConfig(),
+      baseDir.toString(),
+      SonarProduct.SONARQUBE
+    );
+  }
+
+  private AnalyzeProjectRequest request(String... relativePaths) {
+    var request = AnalyzeProjectRequest.newBuilder()
+      .setConfiguration(ProjectConfiguration.newBuilder().setBaseDir(baseDir.toString()));
+    for (var relativePath : relativePaths) {
+      request.putFiles(file(relativePath), ProjectFileInput.getDefaultInstance());
+    }
+    return request.build();
+  }
+
+  private String file(String relativePath) {
+    return baseDir.resolve(relativePath).toString();
+  }
+
+  private static class RecordingHandler implements ProjectAnalysisHandler {
+
+    private final AnalyzeProjectRequest request;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    final List<String> files = new ArrayList<>();
+    final List<ProjectAnalysisMeta> metas = new ArrayList<>();
+
+    private RecordingHandler(AnalyzeProjectRequest request) {
+      this.request = request;
+    }
+
+    @Override
+    public AnalyzeProjectRequest getRequest() {
+      return request;
+    }
+
+    @Override
+    public SensorContext getContext() {
+      return mock(SensorContext.class);
+    }
+
+    @Override
+    public CompletableFuture<Void> getFuture() {
+      return future;
+    }
+
+    @Override
+    public void handleMessage(AnalyzeProjectStreamResponse message) {
+      if (message.hasMeta()) {
+        metas.add(message.getMeta());
+        future.complete(null);
+      } else {
+        files.add(message.getFileResult().getFilePath());
+      }
+    }
+  }
+
+  /**
+   * Handler keeping its state in plain collections, like the sensor's, which records whether it
+   * was ever entered by two threads at once.
+   */
+  private static class UnsynchronizedHandler extends RecordingHandler {
+
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private final Set<String> sent = new HashSet<>();
+    private boolean overlapped;
+    private int resultsBeforeMeta = -1;
+
+    private UnsynchronizedHandler(AnalyzeProjectRequest request) {
+      super(request);
+    }
+
+    @Override
+    public RequestStream openRequestStream() {
+      var requests = super.openRequestStream();
+      return new RequestStream() {
+        @Override
+        public AnalyzeProjectRequest header() {
+          return requests.header();
+        }
+
+        @Override
+        public Map<String, ProjectFileInput> nextFiles(int maxFiles) {
+          enter();
+          try {
+            var files = requests.nextFiles(maxFiles);
+            sent.addAll(files.keySet());
+            return files;
+          } finally {
+            busy.set(false);
+          }
+        }
+      };
+    }
+
+    @Override
+    public void handleMessage(AnalyzeProjectStreamResponse message) {
+      enter();
+      try {
+        if (message.hasMeta()) {
+          resultsBeforeMeta = files.size();
+        }
+        super.handleMessage(message);
+      } finally {
+        busy.set(false);
+      }
+    }
+
+    private void enter() {
+      if (!busy.compareAndSet(false, true)) {
+        overlapped = true;
+      }
+      // leave the other shard some time to come in
+      LockSupport.parkNanos(50_000);
+    }
+  }
+}
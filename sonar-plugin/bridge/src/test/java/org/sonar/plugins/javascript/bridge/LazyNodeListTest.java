@@ -0,0 +1,128 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.javascript.api.estree.ESTree;
+import org.sonar.plugins.javascript.bridge.protobuf.BlockStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.EmptyStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.FunctionDeclaration;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+
+class LazyNodeListTest {
+
+  private static final Node EMPTY_STATEMENT = Node.newBuilder()
+    .setType(NodeType.EmptyStatementType)
+    .setEmptyStatement(EmptyStatement.newBuilder())
+    .build();
+
+  private static final Node UNRECOGNIZED = Node.newBuilder().setTypeValue(-1).build();
+
+  @Test
+  void should_convert_elements_on_first_access() {
+    var list = new LazyNodeList<>(List.of(EMPTY_STATEMENT, UNRECOGNIZED), ESTree.Statement.class);
+    assertThat(list).hasSize(2);
+
+    var first = list.get(0);
+    assertThat(first).isInstanceOf(ESTree.EmptyStatement.class);
+    assertThat(list.get(0)).isSameAs(first);
+
+    // the second element is only converted, and fails, when accessed
+    assertThat(list.get(1)).isInstanceOfSatisfying(ESTree.ExpressionStatement.class, statement ->
+      assertThat(statement.expression()).isInstanceOf(ESTree.UnknownNode.class)
+    );
+  }
+
+  @Test
+  void should_replace_elements_failing_to_convert_with_unknown_nodes() {
+    var expressions = new LazyNodeList<>(List.of(UNRECOGNIZED), ESTree.Expression.class);
+    assertThat(expressions.get(0)).isInstanceOf(ESTree.UnknownNode.class);
+
+    var cases = new LazyNodeList<>(List.of(UNRECOGNIZED), ESTree.SwitchCase.class);
+    assertThatThrownBy(() -> cases.get(0))
+      .isInstanceOf(AstConversionException.class)
+      .hasMessage("Failed to convert AST node to SwitchCase")
+      .hasRootCauseInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void should_not_degrade_other_conversion_errors() {
+    var expressions = new LazyNodeList<>(List.of(EMPTY_STATEMENT), ESTree.Expression.class);
+    assertThatThrownBy(() -> expressions.get(0))
+      .isInstanceOf(AstConversionException.class)
+      .hasMessage("Failed to convert AST node to Expression")
+      .hasRootCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void should_keep_converted_elements_once_protobuf_nodes_are_released() {
+    var conversions = new AtomicInteger();
+    var nodes = List.of(EMPTY_STATEMENT, EMPTY_STATEMENT);
+    var list = new LazyNodeList<>(nodes, ESTree.Statement.class, node -> {
+      conversions.incrementAndGet();
+      return ESTreeFactory.from(node, ESTree.Statement.class);
+    });
+    var first = list.get(0);
+    var second = list.get(1);
+    // every element is converted, later accesses only read the cache
+    assertThat(list).containsExactly(first, second);
+    assertThat(list.get(1)).isSameAs(second);
+    assertThat(conversions).hasValue(2);
+  }
+
+  @Test
+  void should_compare_as_list() {
+    var list = new LazyNodeList<>(List.of(EMPTY_STATEMENT), ESTree.Statement.class);
+    var expected = List.of(ESTreeFactory.from(EMPTY_STATEMENT, ESTree.Statement.class));
+    assertThat(list).isEqualTo(expected).hasSameHashCodeAs(expected);
+    assertThatThrownBy(() -> list.add(list.get(0))).isInstanceOf(
+      UnsupportedOperationException.class
+    );
+  }
+
+  @Test
+  void should_not_convert_function_bodies_of_program() {
+    var function = Node.newBuilder()
+      .setType(NodeType.FunctionDeclarationType)
+      .setFunctionDeclaration(
+        FunctionDeclaration.newBuilder()
+          .setBody(
+            Node.newBuilder()
+              .setType(NodeType.BlockStatementType)
+              .setBlockStatement(BlockStatement.newBuilder().addBody(UNRECOGNIZED))
+          )
+      )
+      .build();
+    var program = Node.newBuilder()
+      .setType(NodeType.ProgramType)
+      .setProgram(Program.newBuilder().setSourceType("module").addBody(function))
+      .build();
+
+    var estree = ESTreeFactory.from(program, ESTree.Program.class);
+    assertThat(estree.body().get(0)).isInstanceOfSatisfying(
+      ESTree.FunctionDeclaration.class,
+      declaration -> assertThat(declaration.body().body()).hasSize(1)
+    );
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectConfiguration;
+import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileInput;
+
+class ShardedRequestStreamTest {
+
+  @TempDir
+  Path baseDir;
+
+  @Test
+  void should_keep_files_of_a_tsconfig_directory_in_the_same_shard() throws IOException {
+    createTsConfig("app");
+    createTsConfig("lib");
+    var sharded = new ShardedRequestStream(
+      stream(request(), "app/a.ts", "lib/b.ts", "app/nested/c.ts", "lib/d.ts"),
+      2,
+      new Object()
+    );
+
+    var first = drain(sharded.shard(0));
+    var second = drain(sharded.shard(1));
+
+    assertThat(first).containsExactly(file("app/a.ts"), file("app/nested/c.ts"));
+    assertThat(second).containsExactly(file("lib/b.ts"), file("lib/d.ts"));
+  }
+
+  @Test
+  void should_send_project_metadata_files_to_every_shard() throws IOException {
+    createTsConfig("app");
+    var sharded = new ShardedRequestStream(
+      stream(request(), "package.json", "app/a.ts", "b.js"),
+      2,
+      new Object()
+    );
+
+    var first = drain(sharded.shard(0));
+    var second = drain(sharded.shard(1));
+
+    assertThat(first).containsExactly(file("package.json"), file("app/a.ts"));
+    assertThat(second).containsExactly(file("package.json"), file("b.js"));
+  }
+
+  @Test
+  void should_use_configured_tsconfig_paths_without_file_system_access() {
+    var configuration = ProjectConfiguration.newBuilder()
+      .setBaseDir(baseDir.toString())
+      .setCanAccessFileSystem(false)
+      .addTsConfigPaths("app/tsconfig.json");
+    var sharded = new ShardedRequestStream(
+      stream(
+        AnalyzeProjectRequest.newBuilder().setConfiguration(configuration).build(),
+        "app/a.ts",
+        "lib/b.ts",
+        "other/c.ts"
+      ),
+      2,
+      new Object()
+    );
+
+    var first = drain(sharded.shard(0));
+    var second = drain(sharded.shard(1));
+
+    assertThat(first).containsExactly(file("app/a.ts"));
+    assertThat(second).containsExactly(file("lib/b.ts"), file("other/c.ts"));
+  }
+
+  @Test
+  void should_distribute_files_set_on_the_header() throws IOException {
+    createTsConfig("app");
+    var header = request()
+      .toBuilder()
+      .putFiles(file("app/a.ts"), ProjectFileInput.getDefaultInstance())
+      .build();
+    var source = stream(request(), "b.ts");
+    var sharded = new ShardedRequestStream(
+      new ProjectAnalysisHandler.RequestStream() {
+        @Override
+        public AnalyzeProjectRequest header() {
+          return header;
+        }
+
+        @Override
+        public Map<String, ProjectFileInput> nextFiles(int maxFiles) {
+          return source.nextFiles(maxFiles);
+        }
+      },
+      2,
+      new Object()
+    );
+
+    assertThat(sharded.shard(0).header().getFilesCount()).isZero();
+    assertThat(drain(sharded.shard(0))).containsExactly(file("app/a.ts"));
+    assertThat(drain(sharded.shard(1))).containsExactly(file("b.ts"));
+  }
+
+  @Test
+  void should_wait_for_full_shards_instead_of_buffering_their_files() throws Exception {
+    createTsConfig("app");
+    var paths = new ArrayList<String>();
+    for (int i = 0; i < 300; i++) {
+      paths.add("app/a" + i + ".ts");
+    }
+    paths.add("b.ts");
+    var pulled = new AtomicInteger();
+    var source = stream(request(), paths.toArray(String[]::new));
+    var sharded = new ShardedRequestStream(
+      new ProjectAnalysisHandler.RequestStream() {
+        @Override
+        public AnalyzeProjectRequest header() {
+          return source.header();
+        }
+
+        @Override
+        public Map<String, ProjectFileInput> nextFiles(int maxFiles) {
+          var files = source.nextFiles(maxFiles);
+          pulled.addAndGet(files.size());
+          return files;
+        }
+      },
+      2,
+      new Object(),
+      50
+    );
+    var second = new CompletableFuture<List<String>>();
+    var thread = new Thread(() -> second.complete(drain(sharded.shard(1))));
+    thread.start();
+
+    // the first batch went to the first shard, whose queue is now full
+    await().until(() -> thread.getState() == Thread.State.WAITING);
+    assertThat(pulled.get()).isEqualTo(100);
+
+    var first = drain(sharded.shard(0));
+    assertThat(first).hasSize(300);
+    assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly(file("b.ts"));
+    assertThat(pulled.get()).isEqualTo(301);
+  }
+
+  @Test
+  void should_fail_waiting_shards_once_aborted() throws Exception {
+    createTsConfig("app");
+    var paths = new ArrayList<String>();
+    for (int i = 0; i < 100; i++) {
+      paths.add("app/a" + i + ".ts");
+    }
+    var sharded = new ShardedRequestStream(
+      stream(request(), paths.toArray(String[]::new)),
+      2,
+      new Object(),
+      10
+    );
+    var failure = new CompletableFuture<Throwable>();
+    var thread = new Thread(() -> {
+      try {
+        drain(sharded.shard(1));
+      } catch (IllegalStateException e) {
+        failure.complete(e);
+      }
+    });
+    thread.start();
+
+    await().until(() -> thread.getState() == Thread.State.WAITING);
+    sharded.abort();
+
+    assertThat(failure.get(5, TimeUnit.SECONDS)).hasMessage(
+      "Project analysis failed on another analyzer runtime"
+    );
+  }
+
+  private void createTsConfig(String directory) throws IOException {
+    Files.createDirectories(baseDir.resolve(directory));
+    Files.writeString(baseDir.resolve(directory).resolve("tsconfig.json"), "{}");
+  }
+
+  private AnalyzeProjectRequest request() {
+    return AnalyzeProjectRequest.newBuilder()
+      .setConfiguration(ProjectConfiguration.newBuilder().setBaseDir(baseDir.toString()))
+      .build();
+  }
+
+  private String file(String relativePath) {
+    return baseDir.resolve(relativePath).toString();
+  }
+
+  private ProjectAnalysisHandler.RequestStream stream(
+    AnalyzeProjectRequest header,
+    String... relativePaths
+  ) {
+    var request = header.toBuilder();
+    for (var relativePath : relativePaths) {
+      request.putFiles(file(relativePath), ProjectFileInput.getDefaultInstance());
+    }
+    return ProjectAnalysisHandler.RequestStream.of(request.build());
+  }
+
+  private static List<String> drain(ProjectAnalysisHandler.RequestStream stream) {
+    var paths = new ArrayList<String>();
+    var files = stream.nextFiles(1);
+    while (!files.isEmpty()) {
+      paths.addAll(files.keySet());
+      files = stream.nextFiles(1);
+    }
+    return paths;
+  }
+}
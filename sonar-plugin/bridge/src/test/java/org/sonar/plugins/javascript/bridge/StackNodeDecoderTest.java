@@ -0,0 +1,191 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.sonar.plugins.javascript.api.estree.ESTree;
+import org.sonar.plugins.javascript.bridge.protobuf.ArrayElement;
+import org.sonar.plugins.javascript.bridge.protobuf.ArrayExpression;
+import org.sonar.plugins.javascript.bridge.protobuf.BinaryExpression;
+import org.sonar.plugins.javascript.bridge.protobuf.ExpressionStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.Identifier;
+import org.sonar.plugins.javascript.bridge.protobuf.Literal;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Position;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+import org.sonar.plugins.javascript.bridge.protobuf.SourceLocation;
+import org.sonar.plugins.javascript.bridge.protobuf.UnaryExpression;
+
+class StackNodeDecoderTest {
+
+  private static final int DEPTH = 10_000;
+  // Default thread stack size of the JVM on 64-bit Linux
+  private static final long DEFAULT_STACK = 1024 * 1024L;
+  private static final long LARGE_STACK = 512 * 1024 * 1024L;
+
+  /**
+   * Pathological nestings found in minified or generated code.
+   */
+  enum Corpus {
+    // a + a + ... + a
+    BINARY_CHAIN {
+      @Override
+      Node wrap(Node expression) {
+        return node(NodeType.BinaryExpressionType)
+          .setBinaryExpression(
+            BinaryExpression.newBuilder().setOperator("+").setLeft(expression).setRight(IDENTIFIER)
+          )
+          .build();
+      }
+
+      @Override
+      ESTree.Node unwrap(ESTree.Node expression) {
+        return expression instanceof ESTree.BinaryExpression binary ? binary.left() : null;
+      }
+    },
+    // !!!...!a
+    UNARY_CHAIN {
+      @Override
+      Node wrap(Node expression) {
+        return node(NodeType.UnaryExpressionType)
+          .setUnaryExpression(
+            UnaryExpression.newBuilder().setOperator("!").setPrefix(true).setArgument(expression)
+          )
+          .build();
+      }
+
+      @Override
+      ESTree.Node unwrap(ESTree.Node expression) {
+        return expression instanceof ESTree.UnaryExpression unary ? unary.argument() : null;
+      }
+    },
+    // [[[...[a]...]]]
+    NESTED_ARRAYS {
+      @Override
+      Node wrap(Node expression) {
+        return node(NodeType.ArrayExpressionType)
+          .setArrayExpression(
+            ArrayExpression.newBuilder().addElements(
+              ArrayElement.newBuilder().setElement(expression)
+            )
+          )
+          .build();
+      }
+
+      @Override
+      ESTree.Node unwrap(ESTree.Node expression) {
+        return expression instanceof ESTree.ArrayExpression array
+          ? array.elements().get(0).orElseThrow()
+          : null;
+      }
+    };
+
+    abstract Node wrap(Node expression);
+
+    abstract ESTree.Node unwrap(ESTree.Node expression);
+  }
+
+  private static final Node IDENTIFIER = node(NodeType.IdentifierType)
+    .setIdentifier(Identifier.newBuilder().setName("a"))
+    .build();
+
+  @Test
+  void should_decode_like_generated_parser() throws Exception {
+    var literal = node(NodeType.LiteralType)
+      .setLiteral(Literal.newBuilder().setRaw("1n").setBigint("1").setValueNumber(1))
+      .build();
+    var unary = node(NodeType.UnaryExpressionType)
+      .setUnaryExpression(
+        UnaryExpression.newBuilder().setOperator("-").setPrefix(true).setArgument(literal)
+      )
+      .build();
+    var program = program(unary);
+
+    assertThat(StackNodeDecoder.decode(program.toByteString().newCodedInput())).isEqualTo(program);
+  }
+
+  @Test
+  void should_fail_on_truncated_message() {
+    var bytes = program(IDENTIFIER).toByteString();
+    var truncated = bytes.substring(0, bytes.size() - 1);
+    assertThatThrownBy(() -> StackNodeDecoder.decode(truncated.newCodedInput())).isInstanceOf(
+      InvalidProtocolBufferException.class
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(Corpus.class)
+  void should_decode_and_convert_deep_ast_with_bounded_stack(Corpus corpus) throws Exception {
+    var bytes = onThreadWithStack(LARGE_STACK, () -> serialize(corpus));
+
+    int depth = onThreadWithStack(DEFAULT_STACK, () -> {
+      var node = AstProtoUtils.readProtobuf(bytes);
+      var program = ESTreeFactory.from(node, ESTree.Program.class);
+      ESTree.Node expression = ((ESTree.ExpressionStatement) program.body().get(0)).expression();
+      int count = 0;
+      for (var inner = corpus.unwrap(expression); inner != null; inner = corpus.unwrap(inner)) {
+        expression = inner;
+        count++;
+      }
+      assertThat(expression).isInstanceOf(ESTree.Identifier.class);
+      return count;
+    });
+
+    assertThat(depth).isEqualTo(DEPTH);
+  }
+
+  private static ByteString serialize(Corpus corpus) {
+    var expression = IDENTIFIER;
+    for (int i = 0; i < DEPTH; i++) {
+      expression = corpus.wrap(expression);
+    }
+    return program(expression).toByteString();
+  }
+
+  private static Node program(Node expression) {
+    var statement = node(NodeType.ExpressionStatementType)
+      .setExpressionStatement(ExpressionStatement.newBuilder().setExpression(expression))
+      .build();
+    return node(NodeType.ProgramType)
+      .setProgram(Program.newBuilder().setSourceType("script").addBody(statement))
+      .build();
+  }
+
+  private static Node.Builder node(NodeType type) {
+    var position = Position.newBuilder().setLine(1).setColumn(0);
+    return Node.newBuilder()
+      .setType(type)
+      .setLoc(SourceLocation.newBuilder().setStart(position).setEnd(position));
+  }
+
+  private static <T> T onThreadWithStack(long stackSize, Callable<T> callable) throws Exception {
+    var task = new FutureTask<>(callable);
+    var thread = new Thread(null, task, "deep-ast", stackSize);
+    thread.start();
+    return task.get();
+  }
+}
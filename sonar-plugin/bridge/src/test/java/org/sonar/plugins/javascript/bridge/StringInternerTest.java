@@ -0,0 +1,121 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.javascript.api.estree.ESTree;
+import org.sonar.plugins.javascript.bridge.protobuf.ExpressionStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.Identifier;
+import org.sonar.plugins.javascript.bridge.protobuf.Literal;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+
+class StringInternerTest {
+
+  @Test
+  void should_share_equal_strings() {
+    var interner = new StringInterner();
+    var first = new String("foo");
+    var second = new String("foo");
+
+    assertThat(interner.intern(first)).isSameAs(first);
+    assertThat(interner.intern(second)).isSameAs(first);
+    assertThat(interner.size()).isEqualTo(1);
+    assertThat(interner.savedBytes()).isEqualTo(43);
+
+    // interning the shared copy again saves nothing
+    interner.intern(first);
+    assertThat(interner.savedBytes()).isEqualTo(43);
+  }
+
+  @Test
+  void should_not_grow_past_its_bounds() {
+    var interner = new StringInterner(1);
+    interner.intern("foo");
+    var bar = new String("bar");
+    assertThat(interner.intern(bar)).isSameAs(bar);
+    assertThat(interner.size()).isEqualTo(1);
+
+    var longString = "a".repeat(StringInterner.MAX_LENGTH + 1);
+    assertThat(new StringInterner().intern(longString)).isSameAs(longString);
+    assertThat(StringInterner.NONE.intern(bar)).isSameAs(bar);
+    assertThat(StringInterner.NONE.size()).isZero();
+  }
+
+  @Test
+  void should_resolve_program_string_table() {
+    var interner = new StringInterner();
+    var program = program(
+      Program.newBuilder()
+        .addStrings("foo")
+        .addStrings("'bar'")
+        .addBody(statement(identifier(Identifier.newBuilder().setNameIndex(0))))
+        .addBody(statement(literal(Literal.newBuilder().setRawIndex(1).setValueString("bar"))))
+        .addBody(statement(identifier(Identifier.newBuilder().setName("foo"))))
+    );
+
+    var estree = ESTreeFactory.from(program, ESTree.Program.class, interner);
+    var first = expression(estree, 0, ESTree.Identifier.class);
+    var literal = expression(estree, 1, ESTree.SimpleLiteral.class);
+    var last = expression(estree, 2, ESTree.Identifier.class);
+    assertThat(first.name()).isEqualTo("foo");
+    assertThat(literal.raw()).isEqualTo("'bar'");
+    assertThat(literal.value()).isEqualTo("bar");
+    assertThat(last.name()).isSameAs(first.name());
+  }
+
+  @Test
+  void should_fail_on_unknown_string_index() {
+    var program = program(
+      Program.newBuilder().addBody(statement(identifier(Identifier.newBuilder().setNameIndex(3))))
+    );
+    var estree = ESTreeFactory.from(program, ESTree.Program.class);
+    // a corrupt string table is never degraded to unknown nodes
+    assertThatThrownBy(() -> estree.body().get(0))
+      .isInstanceOf(AstConversionException.class)
+      .hasRootCauseInstanceOf(IllegalStateException.class)
+      .hasRootCauseMessage("Unknown string table index 3");
+  }
+
+  private static <T> T expression(ESTree.Program program, int index, Class<T> clazz) {
+    var statement = (ESTree.ExpressionStatement) program.body().get(index);
+    return clazz.cast(statement.expression());
+  }
+
+  private static Node program(Program.Builder program) {
+    return Node.newBuilder().setType(NodeType.ProgramType).setProgram(program).build();
+  }
+
+  private static Node statement(Node expression) {
+    return Node.newBuilder()
+      .setType(NodeType.ExpressionStatementType)
+      .setExpressionStatement(ExpressionStatement.newBuilder().setExpression(expression))
+      .build();
+  }
+
+  private static Node identifier(Identifier.Builder identifier) {
+    return Node.newBuilder().setType(NodeType.IdentifierType).setIdentifier(identifier).build();
+  }
+
+  private static Node literal(Literal.Builder literal) {
+    return Node.newBuilder().setType(NodeType.LiteralType).setLiteral(literal).build();
+  }
+}
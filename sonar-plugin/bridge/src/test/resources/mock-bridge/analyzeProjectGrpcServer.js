@@ -36,12 +36,17 @@ function loadTypes() {
   const ns = 'sonarjs.analyzeproject.v1';
   cachedTypes = {
     AnalyzeProjectRequest: root.lookupType(`${ns}.AnalyzeProjectRequest`),
+    AnalyzeProjectStreamRequest: root.lookupType(`${ns}.AnalyzeProjectStreamRequest`),
     AnalyzeProjectStreamResponse: root.lookupType(`${ns}.AnalyzeProjectStreamResponse`),
     AnalyzeProjectUnaryResponse: root.lookupType(`${ns}.AnalyzeProjectUnaryResponse`),
     CancelAnalysisRequest: root.lookupType(`${ns}.CancelAnalysisRequest`),
     CancelAnalysisResponse: root.lookupType(`${ns}.CancelAnalysisResponse`),
     LeaseRequest: root.lookupType(`${ns}.LeaseRequest`),
     LeaseResponse: root.lookupType(`${ns}.LeaseResponse`),
+    RuntimeStatusRequest: root.lookupType(`${ns}.RuntimeStatusRequest`),
+    RuntimeStatusResponse: root.lookupType(`${ns}.RuntimeStatusResponse`),
+    CheckFileContentsRequest: root.lookupType(`${ns}.CheckFileContentsRequest`),
+    CheckFileContentsResponse: root.lookupType(`${ns}.CheckFileContentsResponse`),
   };
   return cachedTypes;
 }
@@ -69,6 +74,15 @@ function createServiceDefinition() {
       responseSerialize: serializer('AnalyzeProjectStreamResponse'),
       responseDeserialize: deserializer('AnalyzeProjectStreamResponse'),
     },
+    AnalyzeProjectStream: {
+      path: `/${ANALYZE_PROJECT_SERVICE_NAME}/AnalyzeProjectStream`,
+      requestStream: true,
+      responseStream: true,
+      requestSerialize: serializer('AnalyzeProjectStreamRequest'),
+      requestDeserialize: deserializer('AnalyzeProjectStreamRequest'),
+      responseSerialize: serializer('AnalyzeProjectStreamResponse'),
+      responseDeserialize: deserializer('AnalyzeProjectStreamResponse'),
+    },
     AnalyzeProjectUnary: {
       path: `/${ANALYZE_PROJECT_SERVICE_NAME}/AnalyzeProjectUnary`,
       requestStream: false,
@@ -96,6 +110,47 @@ function createServiceDefinition() {
       responseSerialize: serializer('LeaseResponse'),
       responseDeserialize: deserializer('LeaseResponse'),
     },
+    RuntimeStatus: {
+      path: `/${ANALYZE_PROJECT_SERVICE_NAME}/RuntimeStatus`,
+      requestStream: false,
+      responseStream: false,
+      requestSerialize: serializer('RuntimeStatusRequest'),
+      requestDeserialize: deserializer('RuntimeStatusRequest'),
+      responseSerialize: serializer('RuntimeStatusResponse'),
+      responseDeserialize: deserializer('RuntimeStatusResponse'),
+    },
+    CheckFileContents: {
+      path: `/${ANALYZE_PROJECT_SERVICE_NAME}/CheckFileContents`,
+      requestStream: false,
+      responseStream: false,
+      requestSerialize: serializer('CheckFileContentsRequest'),
+      requestDeserialize: deserializer('CheckFileContentsRequest'),
+      responseSerialize: serializer('CheckFileContentsResponse'),
+      responseDeserialize: deserializer('CheckFileContentsResponse'),
+    },
+  };
+}
+
+/**
+ * Assembles the header and file batches of a client-streamed request, then hands the call over to
+ * the server-streaming handler with `call.request` set, so mock scripts only implement one of them.
+ */
+function assembleStreamedRequest(handler) {
+  return call => {
+    let request;
+    const files = {};
+    call.on('data', message => {
+      if (message.header) {
+        request = message.header;
+        Object.assign(files, message.header.files);
+      } else if (message.files) {
+        Object.assign(files, message.files.files);
+      }
+    });
+    call.on('end', () => {
+      call.request = { ...request, files };
+      handler(call);
+    });
   };
 }
 
@@ -104,12 +159,14 @@ function startAnalyzeProjectGrpcServer(port, host, handlers = {}) {
   const serviceDefinition = createServiceDefinition();
   const onStarted = handlers.onStarted;
 
+  const analyzeProject =
+    handlers.AnalyzeProject ??
+    (call => {
+      call.end();
+    });
   const implementation = {
-    AnalyzeProject:
-      handlers.AnalyzeProject ??
-      (call => {
-        call.end();
-      }),
+    AnalyzeProject: analyzeProject,
+    AnalyzeProjectStream: handlers.AnalyzeProjectStream ?? assembleStreamedRequest(analyzeProject),
     AnalyzeProjectUnary: handlers.AnalyzeProjectUnary ?? ((_, callback) => callback(null, {})),
     CancelAnalysis:
       handlers.CancelAnalysis ?? ((_, callback) => callback(null, { cancelled: true })),
@@ -129,6 +186,11 @@ function startAnalyzeProjectGrpcServer(port, host, handlers = {}) {
         call.on('end', shutdown);
         call.on('error', shutdown);
       }),
+    RuntimeStatus:
+      handlers.RuntimeStatus ??
+      ((_, callback) => callback(null, { daemonId: process.argv[6] ?? '' })),
+    CheckFileContents:
+      handlers.CheckFileContents ?? ((_, callback) => callback(null, { mismatchedFiles: [] })),
   };
 
   server.addService(serviceDefinition, implementation);
@@ -35,7 +35,7 @@ import org.sonar.plugins.javascript.analysis.WebSensor;
 import org.sonar.plugins.javascript.analysis.WebSensorModuleConfiguration;
 import org.sonar.plugins.javascript.analysis.WebSensorModuleConfigurationSensor;
 import org.sonar.plugins.javascript.bridge.AnalysisWarningsWrapper;
-import org.sonar.plugins.javascript.bridge.BridgeServerImpl;
+import org.sonar.plugins.javascript.bridge.BridgeServerPool;
 import org.sonar.plugins.javascript.bridge.BundleImpl;
 import org.sonar.plugins.javascript.bridge.EmbeddedNode;
 import org.sonar.plugins.javascript.bridge.Environment;
@@ -162,7 +162,7 @@ public class JavaScriptPlugin implements Plugin {
       JsTsExclusionsFilter.class,
       NodeCommandBuilderImpl.class,
       ProcessWrapperImpl.class,
-      BridgeServerImpl.class,
+      BridgeServerPool.class,
       NodeDeprecationWarning.class,
       BundleImpl.class,
       WebSensorModuleConfiguration.class,
@@ -16,11 +16,14 @@
  */
 package org.sonar.plugins.javascript.analysis;
 
+import com.google.protobuf.ByteString;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.scanner.ScannerSide;
+import org.sonar.plugins.javascript.api.AstScope;
 import org.sonar.plugins.javascript.api.JsAnalysisConsumer;
 import org.sonar.plugins.javascript.api.JsFile;
 import org.sonarsource.api.sonarlint.SonarLintSide;
@@ -32,30 +35,78 @@ public class AnalysisConsumers implements JsAnalysisConsumer {
   private static final Logger LOG = LoggerFactory.getLogger(AnalysisConsumers.class);
 
   private final List<JsAnalysisConsumer> consumers;
+  private final List<ConsumerDelivery> deliveries;
 
   public AnalysisConsumers() {
     consumers = List.of();
+    deliveries = List.of();
     LOG.debug("No registered JsAnalysisConsumer.");
   }
 
   public AnalysisConsumers(List<JsAnalysisConsumer> consumers) {
     this.consumers = consumers.stream().filter(JsAnalysisConsumer::isEnabled).toList();
+    deliveries = this.consumers.stream().map(ConsumerDelivery::new).toList();
     LOG.debug("Enabled JsAnalysisConsumers {}/{}", this.consumers.size(), consumers.size());
     LOG.debug("Registered JsAnalysisConsumers {}", this.consumers);
   }
 
+  /**
+   * Thread-safe consumers receive the file on their own thread, the others before this method
+   * returns.
+   */
   @Override
   public void accept(JsFile jsFile) {
-    consumers.forEach(c -> c.accept(jsFile));
+    for (var delivery : deliveries) {
+      if (!delivery.isStreaming()) {
+        delivery.accept(jsFile);
+      }
+    }
   }
 
+  /**
+   * Gives the serialized AST of a file to the streaming consumers.
+   */
+  public void acceptAst(InputFile inputFile, ByteString ast) {
+    for (var delivery : deliveries) {
+      if (delivery.isStreaming()) {
+        delivery.acceptAst(inputFile, ast);
+      }
+    }
+  }
+
+  /**
+   * Whether some enabled consumer needs the programs of the files, rather than only their
+   * serialized ASTs.
+   */
+  public boolean needsProgram() {
+    return deliveries.stream().anyMatch(d -> !d.isStreaming());
+  }
+
+  public boolean hasStreamingConsumers() {
+    return deliveries.stream().anyMatch(ConsumerDelivery::isStreaming);
+  }
+
+  /**
+   * Waits for all consumers to accept the pending files before any of them completes.
+   */
   @Override
   public void doneAnalysis(SensorContext context) {
-    consumers.forEach(c -> c.doneAnalysis(context));
+    deliveries.forEach(ConsumerDelivery::awaitPending);
+    deliveries.forEach(d -> d.doneAnalysis(context));
   }
 
   @Override
   public boolean isEnabled() {
     return !consumers.isEmpty();
   }
+
+  /**
+   * The AST is pruned only when all enabled consumers can do without the pruned parts.
+   */
+  @Override
+  public AstScope astScope() {
+    return consumers.stream().allMatch(c -> c.astScope() == AstScope.TOP_LEVEL)
+      ? AstScope.TOP_LEVEL
+      : AstScope.FULL;
+  }
 }
@@ -76,8 +76,6 @@ public class AnalysisProcessor {
   private final NoSonarFilter noSonarFilter;
   private final FileLinesContextFactory fileLinesContextFactory;
   private final CssRules cssRules;
-  private InputFile file;
-  private JsTsChecks checks;
 
   public AnalysisProcessor(
     NoSonarFilter noSonarFilter,
@@ -95,471 +93,526 @@ public class AnalysisProcessor {
     InputFile file,
     ProjectAnalysisFileResult response
   ) {
-    List<Issue> issues;
-
-    this.checks = checks;
-    this.file = file;
-    if (!response.getParsingErrorsList().isEmpty()) {
-      response
-        .getParsingErrorsList()
-        .forEach(parsingError -> processParsingError(context, parsingError));
-      return new ArrayList<>();
-    }
-
-    issues = response.getIssuesList();
-
-    if (isJsTsOrCss(file.language())) {
-      // it's important to have an order here:
-      // saving metrics should be done before saving issues so that NO SONAR lines with issues are indeed ignored
-      saveMetrics(context, response.getMetrics());
-      saveIssues(context, issues);
-      saveSuppressedIssues(context, response.getSuppressedIssuesList());
-      saveHighlights(context, response.getHighlightsList());
-      saveHighlightedSymbols(context, response.getHighlightedSymbolsList());
-      saveCpd(context, response.getCpdTokensList());
-    } else {
-      // SonarQube expects that there is a single analyzer that saves analysis data like metrics, highlighting,
-      // and symbols. There is an exception for issues, though. Since sonar-iac saves such data for YAML files
-      // from Cloudformation configurations, we can only save issues for these files. Same applies for HTML and
-      // sonar-html plugin.
-      saveIssues(context, issues);
-      // Embedded JS/TS in HTML/YAML can still produce suppressed issues on the host file.
-      // saveSuppressedIssues() filters out unsupported non-JS/TS suppressed issues.
-      saveSuppressedIssues(context, response.getSuppressedIssuesList());
-    }
-    saveIssueResolutions(context, response.getSonarResolveCommentsList());
-
-    return issues;
+    return new FileProcessor(context, checks, file).processResponse(response);
   }
 
   void processFileError(JsTsContext<?> context, InputFile file, String message) {
-    this.file = file;
-
-    LOG.error("Failed to analyze file [{}]: {}", file, message);
-    failFastOnNonCssAnalysisError(context, CssLanguage.KEY.equals(file.language()));
-
-    context.getSensorContext().newAnalysisError().onFile(file).message(message).save();
+    new FileProcessor(context, null, file).processFileError(message);
   }
 
   void processCacheAnalysis(JsTsContext<?> context, InputFile file, CacheAnalysis cacheAnalysis) {
-    this.file = file;
-
-    saveCpd(context, cacheAnalysis.getCpdTokens());
+    new FileProcessor(context, null, file).saveCpd(cacheAnalysis.getCpdTokens());
   }
 
-  private void processParsingError(JsTsContext<?> context, ParsingError parsingError) {
-    Integer line = parsingError.hasLine() ? parsingError.getLine() : null;
-    Integer column = parsingError.hasColumn() ? parsingError.getColumn() : null;
-    String message = parsingError.getMessage();
+  /**
+   * Saves the analysis data of a single file. A new instance is created for every file, so the
+   * enclosing processor holds no per-file state and can be used from several threads at once.
+   */
+  private final class FileProcessor {
 
-    if (line != null) {
-      LOG.warn("Failed to parse file [{}] at line {}: {}", file, line, message);
-    } else if (parsingError.getCode() == ParsingErrorCode.PARSING_ERROR_CODE_FAILING_TYPESCRIPT) {
-      LOG.error("Failed to analyze file [{}] from TypeScript: {}", file, message);
-    } else {
-      LOG.error("Failed to analyze file [{}]: {}", file, message);
-      failFastOnNonCssAnalysisError(
-        context,
-        parsingError.getLanguage() == AnalysisLanguage.ANALYSIS_LANGUAGE_CSS
-      );
+    private final JsTsContext<?> context;
+    private final JsTsChecks checks;
+    private final InputFile file;
+
+    private FileProcessor(JsTsContext<?> context, @Nullable JsTsChecks checks, InputFile file) {
+      this.context = context;
+      this.checks = checks;
+      this.file = file;
     }
 
-    var parsingErrorRuleKey = parsingErrorRuleKey(parsingError);
-    if (parsingErrorRuleKey != null) {
-      NewIssue newIssue = context.getSensorContext().newIssue();
+    List<Issue> processResponse(ProjectAnalysisFileResult response) {
+      List<Issue> issues;
 
-      NewIssueLocation primaryLocation = newIssue.newLocation().message(message).on(file);
+      if (!response.getParsingErrorsList().isEmpty()) {
+        response.getParsingErrorsList().forEach(this::processParsingError);
+        return new ArrayList<>();
+      }
 
-      if (line != null) {
-        try {
-          if (column != null && column >= 0) {
-            // SonarQube does not allow zero-length ranges; highlight one character.
-            primaryLocation.at(file.newRange(line, column, line, column + 1));
-          } else {
-            primaryLocation.at(file.selectLine(line));
-          }
-        } catch (RuntimeException e) {
-          LOG.warn(
-            "Failed to create parsing error location in {} at line {}, column {}. Falling back to line.",
-            file.uri(),
-            line,
-            column
-          );
-          primaryLocation.at(file.selectLine(line));
-        }
+      issues = response.getIssuesList();
+
+      if (isJsTsOrCss(file.language())) {
+        // it's important to have an order here:
+        // saving metrics should be done before saving issues so that NO SONAR lines with issues are indeed ignored
+        saveMetrics(response.getMetrics());
+        saveIssues(issues);
+        saveSuppressedIssues(response.getSuppressedIssuesList());
+        saveHighlights(response.getHighlightsList());
+        saveHighlightedSymbols(response.getHighlightedSymbolsList());
+        saveCpd(response.getCpdTokensList());
+      } else {
+        // SonarQube expects that there is a single analyzer that saves analysis data like metrics, highlighting,
+        // and symbols. There is an exception for issues, though. Since sonar-iac saves such data for YAML files
+        // from Cloudformation configurations, we can only save issues for these files. Same applies for HTML and
+        // sonar-html plugin.
+        saveIssues(issues);
+        // Embedded JS/TS in HTML/YAML can still produce suppressed issues on the host file.
+        // saveSuppressedIssues() filters out unsupported non-JS/TS suppressed issues.
+        saveSuppressedIssues(response.getSuppressedIssuesList());
       }
+      saveIssueResolutions(response.getSonarResolveCommentsList());
 
-      newIssue.forRule(parsingErrorRuleKey).at(primaryLocation).save();
+      return issues;
     }
 
-    var newAnalysisError = context.getSensorContext().newAnalysisError().onFile(file);
-    try {
-      newAnalysisError.at(
-        file.newPointer(line != null ? line : 1, toParsingErrorColumn(line, column))
-      );
-    } catch (RuntimeException e) {
-      LOG.warn(
-        "Failed to create parsing error pointer in {} at line {}, column {}. Falling back to file start.",
-        file.uri(),
-        line,
-        column
-      );
-      newAnalysisError.at(file.newPointer(1, 0));
-    }
-    newAnalysisError.message(message).save();
-  }
+    void processFileError(String message) {
+      LOG.error("Failed to analyze file [{}]: {}", file, message);
+      failFastOnNonCssAnalysisError(CssLanguage.KEY.equals(file.language()));
 
-  private void failFastOnNonCssAnalysisError(JsTsContext<?> context, boolean isCss) {
-    if (context.failFast() && !isCss) {
-      throw new IllegalStateException("Failed to analyze file " + file);
+      context.getSensorContext().newAnalysisError().onFile(file).message(message).save();
     }
-  }
 
-  @Nullable
-  private RuleKey parsingErrorRuleKey(ParsingError parsingError) {
-    if (parsingError.getLanguage() == AnalysisLanguage.ANALYSIS_LANGUAGE_CSS) {
-      return cssRules.getActiveSonarKey(CssRules.CSS_PARSING_ERROR_STYLELINT_KEY);
-    }
+    private void processParsingError(ParsingError parsingError) {
+      Integer line = parsingError.hasLine() ? parsingError.getLine() : null;
+      Integer column = parsingError.hasColumn() ? parsingError.getColumn() : null;
+      String message = parsingError.getMessage();
 
-    var language = toLanguageKey(parsingError.getLanguage());
-    return language == null ? null : checks.parsingErrorRuleKey(Language.of(language));
-  }
+      if (line != null) {
+        LOG.warn("Failed to parse file [{}] at line {}: {}", file, line, message);
+      } else if (parsingError.getCode() == ParsingErrorCode.PARSING_ERROR_CODE_FAILING_TYPESCRIPT) {
+        LOG.error("Failed to analyze file [{}] from TypeScript: {}", file, message);
+      } else {
+        LOG.error("Failed to analyze file [{}]: {}", file, message);
+        failFastOnNonCssAnalysisError(
+          parsingError.getLanguage() == AnalysisLanguage.ANALYSIS_LANGUAGE_CSS
+        );
+      }
 
-  private void saveIssues(JsTsContext<?> context, List<Issue> issues) {
-    for (Issue issue : issues) {
-      LOG.debug(
-        "Saving issue for rule {} on file {} at line {}",
-        issue.getRuleId(),
-        file,
-        issue.getLine()
-      );
+      var parsingErrorRuleKey = parsingErrorRuleKey(parsingError);
+      if (parsingErrorRuleKey != null) {
+        NewIssue newIssue = context.getSensorContext().newIssue();
+
+        NewIssueLocation primaryLocation = newIssue.newLocation().message(message).on(file);
+
+        if (line != null) {
+          try {
+            if (column != null && column >= 0) {
+              // SonarQube does not allow zero-length ranges; highlight one character.
+              primaryLocation.at(file.newRange(line, column, line, column + 1));
+            } else {
+              primaryLocation.at(file.selectLine(line));
+            }
+          } catch (RuntimeException e) {
+            LOG.warn(
+              "Failed to create parsing error location in {} at line {}, column {}. Falling back to line.",
+              file.uri(),
+              line,
+              column
+            );
+            primaryLocation.at(file.selectLine(line));
+          }
+        }
+
+        newIssue.forRule(parsingErrorRuleKey).at(primaryLocation).save();
+      }
+
+      var newAnalysisError = context.getSensorContext().newAnalysisError().onFile(file);
       try {
-        saveIssue(context, issue);
+        newAnalysisError.at(
+          file.newPointer(line != null ? line : 1, toParsingErrorColumn(line, column))
+        );
       } catch (RuntimeException e) {
-        LOG.warn("Failed to save issue in {} at line {}", file.uri(), issue.getLine());
-        LOG.warn("Exception cause", e);
+        LOG.warn(
+          "Failed to create parsing error pointer in {} at line {}, column {}. Falling back to file start.",
+          file.uri(),
+          line,
+          column
+        );
+        newAnalysisError.at(file.newPointer(1, 0));
       }
+      newAnalysisError.message(message).save();
     }
-  }
 
-  private void saveSuppressedIssues(JsTsContext<?> context, List<Issue> suppressedIssues) {
-    if (!supportsIssueResolution(context) || !context.isIssueResolutionEnabled()) {
-      return;
+    private void failFastOnNonCssAnalysisError(boolean isCss) {
+      if (context.failFast() && !isCss) {
+        throw new IllegalStateException("Failed to analyze file " + file);
+      }
     }
 
-    for (Issue issue : suppressedIssues) {
-      if (!isJsTs(issue.getLanguage())) {
-        continue;
-      }
-      LOG.debug(
-        "Saving suppressed issue for rule {} on file {} at line {}",
-        issue.getRuleId(),
-        file,
-        issue.getLine()
-      );
-      var ruleKey = findRuleKey(issue);
-      if (ruleKey == null) {
-        continue;
-      }
-      if (issue.getResolutionComment().isEmpty()) {
-        LOG.warn(
-          "Skipping suppressed issue for rule {} in {} because accepted issues require a justification comment",
-          ruleKey,
-          file.uri()
-        );
-        continue;
+    @Nullable
+    private RuleKey parsingErrorRuleKey(ParsingError parsingError) {
+      if (parsingError.getLanguage() == AnalysisLanguage.ANALYSIS_LANGUAGE_CSS) {
+        return cssRules.getActiveSonarKey(CssRules.CSS_PARSING_ERROR_STYLELINT_KEY);
       }
-      var primaryTextRange = primaryTextRange(issue);
-      if (primaryTextRange == null) {
-        LOG.warn(
-          "Skipping suppressed issue for rule {} in {} because accepted issues require a valid location",
-          ruleKey,
-          file.uri()
+
+      var language = toLanguageKey(parsingError.getLanguage());
+      return language == null ? null : checks.parsingErrorRuleKey(Language.of(language));
+    }
+
+    private void saveIssues(List<Issue> issues) {
+      for (Issue issue : issues) {
+        LOG.debug(
+          "Saving issue for rule {} on file {} at line {}",
+          issue.getRuleId(),
+          file,
+          issue.getLine()
         );
-        continue;
-      }
-      try {
-        saveSuppressedIssueAsAccepted(context, issue, ruleKey, primaryTextRange);
-      } catch (RuntimeException e) {
-        LOG.warn("Failed to save suppressed issue in {} at line {}", file.uri(), issue.getLine());
-        LOG.warn("Exception cause", e);
+        try {
+          saveIssue(issue);
+        } catch (RuntimeException e) {
+          LOG.warn("Failed to save issue in {} at line {}", file.uri(), issue.getLine());
+          LOG.warn("Exception cause", e);
+        }
       }
     }
-  }
 
-  private void saveHighlights(JsTsContext<?> context, List<Highlight> highlights) {
-    NewHighlighting highlighting = context.getSensorContext().newHighlighting().onFile(file);
-    for (Highlight highlight : highlights) {
-      try {
-        var typeOfText = toTypeOfText(highlight.getTextType());
-        if (typeOfText == null) {
+    private void saveSuppressedIssues(List<Issue> suppressedIssues) {
+      if (!supportsIssueResolution(context) || !context.isIssueResolutionEnabled()) {
+        return;
+      }
+
+      for (Issue issue : suppressedIssues) {
+        if (!isJsTs(issue.getLanguage())) {
           continue;
         }
-        highlighting.highlight(toTextRange(highlight.getLocation(), file), typeOfText);
-      } catch (RuntimeException e) {
-        LOG.warn(
-          "Failed to create highlight in {} at {}",
-          file.uri(),
-          formatLocation(highlight.getLocation())
+        LOG.debug(
+          "Saving suppressed issue for rule {} on file {} at line {}",
+          issue.getRuleId(),
+          file,
+          issue.getLine()
         );
-        LOG.warn("Exception cause", e);
-        // continue processing other highlights
+        var ruleKey = findRuleKey(issue);
+        if (ruleKey == null) {
+          continue;
+        }
+        if (issue.getResolutionComment().isEmpty()) {
+          LOG.warn(
+            "Skipping suppressed issue for rule {} in {} because accepted issues require a justification comment",
+            ruleKey,
+            file.uri()
+          );
+          continue;
+        }
+        var primaryTextRange = primaryTextRange(issue);
+        if (primaryTextRange == null) {
+          LOG.warn(
+            "Skipping suppressed issue for rule {} in {} because accepted issues require a valid location",
+            ruleKey,
+            file.uri()
+          );
+          continue;
+        }
+        try {
+          saveSuppressedIssueAsAccepted(issue, ruleKey, primaryTextRange);
+        } catch (RuntimeException e) {
+          LOG.warn("Failed to save suppressed issue in {} at line {}", file.uri(), issue.getLine());
+          LOG.warn("Exception cause", e);
+        }
       }
     }
-    try {
-      highlighting.save();
-    } catch (RuntimeException e) {
-      LOG.warn("Failed to save highlights in {}.", file.uri());
-      LOG.warn("Exception cause", e);
-    }
-  }
 
-  private void saveHighlightedSymbols(
-    JsTsContext<?> context,
-    List<HighlightedSymbol> highlightedSymbols
-  ) {
-    NewSymbolTable symbolTable = context.getSensorContext().newSymbolTable().onFile(file);
-    for (HighlightedSymbol highlightedSymbol : highlightedSymbols) {
-      Location declaration = highlightedSymbol.getDeclaration();
-      NewSymbol newSymbol;
+    private void saveHighlights(List<Highlight> highlights) {
+      NewHighlighting highlighting = context.getSensorContext().newHighlighting().onFile(file);
+      for (Highlight highlight : highlights) {
+        try {
+          var typeOfText = toTypeOfText(highlight.getTextType());
+          if (typeOfText == null) {
+            continue;
+          }
+          highlighting.highlight(toTextRange(highlight.getLocation(), file), typeOfText);
+        } catch (RuntimeException e) {
+          LOG.warn(
+            "Failed to create highlight in {} at {}",
+            file.uri(),
+            formatLocation(highlight.getLocation())
+          );
+          LOG.warn("Exception cause", e);
+          // continue processing other highlights
+        }
+      }
       try {
-        newSymbol = symbolTable.newSymbol(
-          declaration.getStartLine(),
-          declaration.getStartCol(),
-          declaration.getEndLine(),
-          declaration.getEndCol()
-        );
+        highlighting.save();
       } catch (RuntimeException e) {
-        LOG.warn(
-          "Failed to create symbol declaration in {} at {}",
-          file.uri(),
-          formatLocation(declaration)
-        );
-        continue;
+        LOG.warn("Failed to save highlights in {}.", file.uri());
+        LOG.warn("Exception cause", e);
       }
-      for (Location reference : highlightedSymbol.getReferencesList()) {
+    }
+
+    private void saveHighlightedSymbols(List<HighlightedSymbol> highlightedSymbols) {
+      NewSymbolTable symbolTable = context.getSensorContext().newSymbolTable().onFile(file);
+      for (HighlightedSymbol highlightedSymbol : highlightedSymbols) {
+        Location declaration = highlightedSymbol.getDeclaration();
+        NewSymbol newSymbol;
         try {
-          newSymbol.newReference(
-            reference.getStartLine(),
-            reference.getStartCol(),
-            reference.getEndLine(),
-            reference.getEndCol()
+          newSymbol = symbolTable.newSymbol(
+            declaration.getStartLine(),
+            declaration.getStartCol(),
+            declaration.getEndLine(),
+            declaration.getEndCol()
           );
         } catch (RuntimeException e) {
           LOG.warn(
-            "Failed to create symbol reference in {} at {}",
+            "Failed to create symbol declaration in {} at {}",
             file.uri(),
-            formatLocation(reference)
+            formatLocation(declaration)
           );
+          continue;
+        }
+        for (Location reference : highlightedSymbol.getReferencesList()) {
+          try {
+            newSymbol.newReference(
+              reference.getStartLine(),
+              reference.getStartCol(),
+              reference.getEndLine(),
+              reference.getEndCol()
+            );
+          } catch (RuntimeException e) {
+            LOG.warn(
+              "Failed to create symbol reference in {} at {}",
+              file.uri(),
+              formatLocation(reference)
+            );
+          }
         }
       }
+      symbolTable.save();
     }
-    symbolTable.save();
-  }
 
-  private static String formatLocation(Location location) {
-    return "%d:%d-%d:%d".formatted(
-      location.getStartLine(),
-      location.getStartCol(),
-      location.getEndLine(),
-      location.getEndCol()
-    );
-  }
+    private void saveMetrics(Metrics metrics) {
+      if (file.type() == InputFile.Type.TEST || context.isSonarLint()) {
+        noSonarFilter.noSonarInFile(file, Set.copyOf(metrics.getNosonarLinesList()));
+        return;
+      }
+
+      // CSS files only have NCLOC and COMMENT_LINES - the old CssMetricSensor
+      // never saved FUNCTIONS, STATEMENTS, CLASSES, COMPLEXITY, or COGNITIVE_COMPLEXITY.
+      if (!CssLanguage.KEY.equals(file.language())) {
+        saveMetric(context, file, CoreMetrics.FUNCTIONS, metrics.getFunctions());
+        saveMetric(context, file, CoreMetrics.STATEMENTS, metrics.getStatements());
+        saveMetric(context, file, CoreMetrics.CLASSES, metrics.getClasses());
+        saveMetric(context, file, CoreMetrics.COMPLEXITY, metrics.getComplexity());
+        saveMetric(
+          context,
+          file,
+          CoreMetrics.COGNITIVE_COMPLEXITY,
+          metrics.getCognitiveComplexity()
+        );
+      }
+
+      saveMetric(context, file, CoreMetrics.NCLOC, metrics.getNclocCount());
+      saveMetric(context, file, CoreMetrics.COMMENT_LINES, metrics.getCommentLinesCount());
 
-  private void saveMetrics(JsTsContext<?> context, Metrics metrics) {
-    if (file.type() == InputFile.Type.TEST || context.isSonarLint()) {
       noSonarFilter.noSonarInFile(file, Set.copyOf(metrics.getNosonarLinesList()));
-      return;
-    }
 
-    // CSS files only have NCLOC and COMMENT_LINES - the old CssMetricSensor
-    // never saved FUNCTIONS, STATEMENTS, CLASSES, COMPLEXITY, or COGNITIVE_COMPLEXITY.
-    if (!CssLanguage.KEY.equals(file.language())) {
-      saveMetric(context, file, CoreMetrics.FUNCTIONS, metrics.getFunctions());
-      saveMetric(context, file, CoreMetrics.STATEMENTS, metrics.getStatements());
-      saveMetric(context, file, CoreMetrics.CLASSES, metrics.getClasses());
-      saveMetric(context, file, CoreMetrics.COMPLEXITY, metrics.getComplexity());
-      saveMetric(context, file, CoreMetrics.COGNITIVE_COMPLEXITY, metrics.getCognitiveComplexity());
-    }
+      FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(file);
+      for (int line : metrics.getNclocList()) {
+        fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
+      }
 
-    saveMetric(context, file, CoreMetrics.NCLOC, metrics.getNclocCount());
-    saveMetric(context, file, CoreMetrics.COMMENT_LINES, metrics.getCommentLinesCount());
+      if (!CssLanguage.KEY.equals(file.language())) {
+        for (int line : metrics.getExecutableLinesList()) {
+          fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, 1);
+        }
+      }
 
-    noSonarFilter.noSonarInFile(file, Set.copyOf(metrics.getNosonarLinesList()));
+      fileLinesContext.save();
+    }
 
-    FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(file);
-    for (int line : metrics.getNclocList()) {
-      fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
+    private void saveCpd(List<CpdToken> cpdTokens) {
+      if (file.type().equals(InputFile.Type.TEST) || context.isSonarLint()) {
+        // even providing empty 'NewCpdTokens' will trigger duplication computation so skipping
+        return;
+      }
+      try {
+        NewCpdTokens newCpdTokens = context.getSensorContext().newCpdTokens().onFile(file);
+        for (CpdToken cpdToken : cpdTokens) {
+          newCpdTokens.addToken(toTextRange(cpdToken.getLocation(), file), cpdToken.getImage());
+        }
+        newCpdTokens.save();
+      } catch (RuntimeException e) {
+        LOG.warn(
+          "Failed to save CPD token in {}. File will not be analyzed for duplications.",
+          file.uri()
+        );
+        LOG.warn("Exception cause", e);
+      }
     }
 
-    if (!CssLanguage.KEY.equals(file.language())) {
-      for (int line : metrics.getExecutableLinesList()) {
-        fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, 1);
+    private void saveIssueResolutions(List<SonarResolveComment> sonarResolveComments) {
+      if (!supportsIssueResolution(context)) {
+        return;
+      }
+
+      for (SonarResolveComment sonarResolveComment : sonarResolveComments) {
+        processSonarResolveComment(sonarResolveComment);
       }
     }
 
-    fileLinesContext.save();
-  }
+    private void processSonarResolveComment(SonarResolveComment sonarResolveComment) {
+      String[] commentLines = sonarResolveComment.getText().split("\\R", -1);
+      int index = 0;
+      while (index < commentLines.length) {
+        int directiveLine = sonarResolveComment.getLine() + index;
+        String line = commentLines[index];
+        if (!startsWithDirectiveKeyword(line)) {
+          index++;
+          continue;
+        }
 
-  private static <T extends Serializable> void saveMetric(
-    JsTsContext<?> context,
-    InputFile file,
-    Metric<T> metric,
-    T value
-  ) {
-    context.getSensorContext().<T>newMeasure().withValue(value).forMetric(metric).on(file).save();
-  }
+        SonarResolve.StreamingParser parser = new SonarResolve.StreamingParser(directiveLine);
+        SonarResolve.StreamingParser.State state = parser.consumeLine(directiveLine, line);
+        int lastConsumedIndex = index;
+
+        while (
+          state == SonarResolve.StreamingParser.State.INCOMPLETE &&
+          lastConsumedIndex + 1 < commentLines.length
+        ) {
+          lastConsumedIndex++;
+          int lineNumber = sonarResolveComment.getLine() + lastConsumedIndex;
+          state = parser.consumeLine(lineNumber, commentLines[lastConsumedIndex]);
+        }
 
-  private void saveCpd(JsTsContext<?> context, List<CpdToken> cpdTokens) {
-    if (file.type().equals(InputFile.Type.TEST) || context.isSonarLint()) {
-      // even providing empty 'NewCpdTokens' will trigger duplication computation so skipping
-      return;
-    }
-    try {
-      NewCpdTokens newCpdTokens = context.getSensorContext().newCpdTokens().onFile(file);
-      for (CpdToken cpdToken : cpdTokens) {
-        newCpdTokens.addToken(toTextRange(cpdToken.getLocation(), file), cpdToken.getImage());
+        if (state == SonarResolve.StreamingParser.State.COMPLETE) {
+          saveIssueResolution(parser.result());
+        } else if (state == SonarResolve.StreamingParser.State.INVALID) {
+          logInvalidDirective(directiveLine, parser.errorMessage());
+        } else {
+          var finalState = parser.finish();
+          if (finalState == SonarResolve.StreamingParser.State.COMPLETE) {
+            saveIssueResolution(parser.result());
+          } else if (finalState == SonarResolve.StreamingParser.State.INVALID) {
+            logInvalidDirective(directiveLine, parser.errorMessage());
+          }
+        }
+
+        index = lastConsumedIndex + 1;
       }
-      newCpdTokens.save();
-    } catch (RuntimeException e) {
-      LOG.warn(
-        "Failed to save CPD token in {}. File will not be analyzed for duplications.",
-        file.uri()
-      );
-      LOG.warn("Exception cause", e);
     }
-  }
 
-  private void saveIssueResolutions(
-    JsTsContext<?> context,
-    List<SonarResolveComment> sonarResolveComments
-  ) {
-    if (!supportsIssueResolution(context)) {
-      return;
+    private void saveIssue(Issue issue) {
+      saveIssue(issue, findRuleKey(issue), primaryTextRange(issue));
     }
 
-    for (SonarResolveComment sonarResolveComment : sonarResolveComments) {
-      processSonarResolveComment(context, sonarResolveComment);
+    private void saveSuppressedIssueAsAccepted(
+      Issue issue,
+      RuleKey ruleKey,
+      TextRange primaryTextRange
+    ) {
+      saveIssue(issue, ruleKey, primaryTextRange);
+      saveAcceptedIssueResolution(ruleKey, issue.getResolutionComment(), primaryTextRange);
     }
-  }
 
-  private void processSonarResolveComment(
-    JsTsContext<?> context,
-    SonarResolveComment sonarResolveComment
-  ) {
-    String[] commentLines = sonarResolveComment.getText().split("\\R", -1);
-    int index = 0;
-    while (index < commentLines.length) {
-      int directiveLine = sonarResolveComment.getLine() + index;
-      String line = commentLines[index];
-      if (!startsWithDirectiveKeyword(line)) {
-        index++;
-        continue;
+    private void saveIssue(
+      Issue issue,
+      @Nullable RuleKey ruleKey,
+      @Nullable TextRange primaryTextRange
+    ) {
+      var newIssue = context.getSensorContext().newIssue();
+      var location = newIssue.newLocation().on(file);
+      if (!issue.getMessage().isEmpty()) {
+        location.message(issue.getMessage());
       }
 
-      SonarResolve.StreamingParser parser = new SonarResolve.StreamingParser(directiveLine);
-      SonarResolve.StreamingParser.State state = parser.consumeLine(directiveLine, line);
-      int lastConsumedIndex = index;
-
-      while (
-        state == SonarResolve.StreamingParser.State.INCOMPLETE &&
-        lastConsumedIndex + 1 < commentLines.length
-      ) {
-        lastConsumedIndex++;
-        int lineNumber = sonarResolveComment.getLine() + lastConsumedIndex;
-        state = parser.consumeLine(lineNumber, commentLines[lastConsumedIndex]);
+      if (primaryTextRange != null) {
+        location.at(primaryTextRange);
       }
 
-      if (state == SonarResolve.StreamingParser.State.COMPLETE) {
-        saveIssueResolution(context, parser.result());
-      } else if (state == SonarResolve.StreamingParser.State.INVALID) {
-        logInvalidDirective(directiveLine, parser.errorMessage());
-      } else {
-        var finalState = parser.finish();
-        if (finalState == SonarResolve.StreamingParser.State.COMPLETE) {
-          saveIssueResolution(context, parser.result());
-        } else if (finalState == SonarResolve.StreamingParser.State.INVALID) {
-          logInvalidDirective(directiveLine, parser.errorMessage());
+      issue
+        .getSecondaryLocationsList()
+        .forEach(secondary -> {
+          NewIssueLocation newIssueLocation = newSecondaryLocation(file, newIssue, secondary);
+          if (newIssueLocation != null) {
+            newIssue.addLocation(newIssueLocation);
+          }
+        });
+
+      if (issue.hasCost()) {
+        newIssue.gap(issue.getCost());
+      }
+
+      if (!issue.getQuickFixesList().isEmpty()) {
+        if (isSqQuickFixCompatible(context)) {
+          newIssue.setQuickFixAvailable(true);
+        }
+        if (isQuickFixCompatible(context)) {
+          addQuickFixes(issue, newIssue, file);
         }
       }
 
-      index = lastConsumedIndex + 1;
+      if (ruleKey != null) {
+        newIssue.at(location).forRule(ruleKey).save();
+      } else if (CssRules.CSS_PARSING_ERROR_STYLELINT_KEY.equals(issue.getRuleId())) {
+        LOG.warn(
+          "Failed to parse file {}, line {}, {}",
+          file.uri(),
+          issue.getLine(),
+          issue.getMessage()
+        );
+      }
     }
-  }
-
-  void saveIssue(JsTsContext<?> context, Issue issue) {
-    saveIssue(context, issue, findRuleKey(issue), primaryTextRange(issue));
-  }
 
-  private void saveSuppressedIssueAsAccepted(
-    JsTsContext<?> context,
-    Issue issue,
-    RuleKey ruleKey,
-    TextRange primaryTextRange
-  ) {
-    saveIssue(context, issue, ruleKey, primaryTextRange);
-    saveAcceptedIssueResolution(context, ruleKey, issue.getResolutionComment(), primaryTextRange);
-  }
-
-  private void saveIssue(
-    JsTsContext<?> context,
-    Issue issue,
-    @Nullable RuleKey ruleKey,
-    @Nullable TextRange primaryTextRange
-  ) {
-    var newIssue = context.getSensorContext().newIssue();
-    var location = newIssue.newLocation().on(file);
-    if (!issue.getMessage().isEmpty()) {
-      location.message(issue.getMessage());
+    @Nullable
+    private RuleKey findRuleKey(Issue issue) {
+      if (issue.getLanguage() == AnalysisLanguage.ANALYSIS_LANGUAGE_CSS) {
+        return cssRules != null ? cssRules.getActiveSonarKey(issue.getRuleId()) : null;
+      }
+      var language = toLanguageKey(issue.getLanguage());
+      return language == null
+        ? null
+        : checks.ruleKeyByEslintKey(issue.getRuleId(), Language.of(language));
     }
 
-    if (primaryTextRange != null) {
-      location.at(primaryTextRange);
+    @Nullable
+    private TextRange primaryTextRange(Issue issue) {
+      if (issue.hasEndLine() && issue.hasEndColumn()) {
+        return file.newRange(
+          issue.getLine(),
+          issue.getColumn(),
+          issue.getEndLine(),
+          issue.getEndColumn()
+        );
+      }
+      return issue.getLine() != 0 ? file.selectLine(issue.getLine()) : null;
     }
 
-    issue
-      .getSecondaryLocationsList()
-      .forEach(secondary -> {
-        NewIssueLocation newIssueLocation = newSecondaryLocation(file, newIssue, secondary);
-        if (newIssueLocation != null) {
-          newIssue.addLocation(newIssueLocation);
-        }
-      });
-
-    if (issue.hasCost()) {
-      newIssue.gap(issue.getCost());
+    private void saveIssueResolution(SonarResolve sonarResolve) {
+      context
+        .getSensorContext()
+        .newIssueResolution()
+        .on(file)
+        .at(file.selectLine(sonarResolve.targetLine()))
+        .status(sonarResolve.status())
+        .forRules(sonarResolve.ruleKeys())
+        .comment(sonarResolve.justification())
+        .save();
     }
 
-    if (!issue.getQuickFixesList().isEmpty()) {
-      if (isSqQuickFixCompatible(context)) {
-        newIssue.setQuickFixAvailable(true);
-      }
-      if (isQuickFixCompatible(context)) {
-        addQuickFixes(issue, newIssue, file);
-      }
+    private void logInvalidDirective(int line, String errorMessage) {
+      LOG.warn("{} in file {} at line {}", errorMessage, file.uri(), line);
     }
 
-    if (ruleKey != null) {
-      newIssue.at(location).forRule(ruleKey).save();
-    } else if (CssRules.CSS_PARSING_ERROR_STYLELINT_KEY.equals(issue.getRuleId())) {
-      LOG.warn(
-        "Failed to parse file {}, line {}, {}",
-        file.uri(),
-        issue.getLine(),
-        issue.getMessage()
-      );
+    private void saveAcceptedIssueResolution(
+      RuleKey ruleKey,
+      String resolutionComment,
+      TextRange textRange
+    ) {
+      context
+        .getSensorContext()
+        .newIssueResolution()
+        .on(file)
+        .at(textRange)
+        .status(IssueResolution.Status.DEFAULT)
+        .forRules(List.of(ruleKey))
+        .comment(resolutionComment)
+        .save();
     }
   }
 
-  @Nullable
-  private RuleKey findRuleKey(Issue issue) {
-    if (issue.getLanguage() == AnalysisLanguage.ANALYSIS_LANGUAGE_CSS) {
-      return cssRules != null ? cssRules.getActiveSonarKey(issue.getRuleId()) : null;
-    }
-    var language = toLanguageKey(issue.getLanguage());
-    return language == null
-      ? null
-      : checks.ruleKeyByEslintKey(issue.getRuleId(), Language.of(language));
+  private static String formatLocation(Location location) {
+    return "%d:%d-%d:%d".formatted(
+      location.getStartLine(),
+      location.getStartCol(),
+      location.getEndLine(),
+      location.getEndCol()
+    );
+  }
+
+  private static <T extends Serializable> void saveMetric(
+    JsTsContext<?> context,
+    InputFile file,
+    Metric<T> metric,
+    T value
+  ) {
+    context.getSensorContext().<T>newMeasure().withValue(value).forMetric(metric).on(file).save();
   }
 
   private static boolean isSqQuickFixCompatible(JsTsContext<?> context) {
@@ -668,52 +721,6 @@ public class AnalysisProcessor {
     return trimmed.regionMatches(true, 0, SonarResolve.KEYWORD, 0, SonarResolve.KEYWORD.length());
   }
 
-  @Nullable
-  private TextRange primaryTextRange(Issue issue) {
-    if (issue.hasEndLine() && issue.hasEndColumn()) {
-      return file.newRange(
-        issue.getLine(),
-        issue.getColumn(),
-        issue.getEndLine(),
-        issue.getEndColumn()
-      );
-    }
-    return issue.getLine() != 0 ? file.selectLine(issue.getLine()) : null;
-  }
-
-  private void saveIssueResolution(JsTsContext<?> context, SonarResolve sonarResolve) {
-    context
-      .getSensorContext()
-      .newIssueResolution()
-      .on(file)
-      .at(file.selectLine(sonarResolve.targetLine()))
-      .status(sonarResolve.status())
-      .forRules(sonarResolve.ruleKeys())
-      .comment(sonarResolve.justification())
-      .save();
-  }
-
-  private void logInvalidDirective(int line, String errorMessage) {
-    LOG.warn("{} in file {} at line {}", errorMessage, file.uri(), line);
-  }
-
-  private void saveAcceptedIssueResolution(
-    JsTsContext<?> context,
-    RuleKey ruleKey,
-    String resolutionComment,
-    TextRange textRange
-  ) {
-    context
-      .getSensorContext()
-      .newIssueResolution()
-      .on(file)
-      .at(textRange)
-      .status(IssueResolution.Status.DEFAULT)
-      .forRules(List.of(ruleKey))
-      .comment(resolutionComment)
-      .save();
-  }
-
   @Nullable
   private static String toLanguageKey(AnalysisLanguage language) {
     return switch (language) {
@@ -0,0 +1,163 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.plugins.javascript.analysis.cache.CacheStrategy;
+
+/**
+ * Resolves the cache strategies of the input files ahead of the request stream.
+ *
+ * <p>Looking up a strategy reads and deserializes the previous cache entries of the file, which is
+ * done on a pool of workers as soon as the resolver is created, so that it overlaps with the
+ * start of the analyzer runtime and with the analysis itself. Files are still handed out in input
+ * order, and at most a fixed number of them are resolved ahead, which bounds the memory held by
+ * cached analyses that were not consumed yet. Cached analyses are saved by the caller.
+ */
+class CacheStrategyResolver implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CacheStrategyResolver.class);
+
+  private static final int RESOLVED_AHEAD_PER_WORKER = 16;
+  private static final int TERMINATION_TIMEOUT_SECONDS = 5;
+
+  private final Iterator<InputFile> pendingFiles;
+  private final Predicate<InputFile> usesCache;
+  private final StrategyLookup lookup;
+  private final ExecutorService workers;
+  private final int maxResolvedAhead;
+  private final Queue<CompletableFuture<ResolvedFile>> resolving = new ArrayDeque<>();
+
+  CacheStrategyResolver(
+    List<InputFile> inputFiles,
+    Predicate<InputFile> usesCache,
+    StrategyLookup lookup
+  ) {
+    this(
+      inputFiles,
+      usesCache,
+      lookup,
+      Math.max(1, Runtime.getRuntime().availableProcessors() - 1)
+    );
+  }
+
+  CacheStrategyResolver(
+    List<InputFile> inputFiles,
+    Predicate<InputFile> usesCache,
+    StrategyLookup lookup,
+    int workerCount
+  ) {
+    this.pendingFiles = inputFiles.iterator();
+    this.usesCache = usesCache;
+    this.lookup = lookup;
+    this.maxResolvedAhead = workerCount * RESOLVED_AHEAD_PER_WORKER;
+    var workerIndex = new AtomicInteger();
+    workers = Executors.newFixedThreadPool(workerCount, r -> {
+      var thread = new Thread(r, "sonarjs-cache-resolver-" + workerIndex.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    fill();
+  }
+
+  synchronized boolean hasNext() {
+    return !resolving.isEmpty();
+  }
+
+  /**
+   * Returns the next input file with its cache strategy, waiting for it to be resolved.
+   */
+  synchronized ResolvedFile next() throws IOException {
+    var next = resolving.poll();
+    if (next == null) {
+      throw new NoSuchElementException();
+    }
+    fill();
+    try {
+      return next.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException ioException) {
+        throw ioException.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private void fill() {
+    while (resolving.size() < maxResolvedAhead && pendingFiles.hasNext()) {
+      var file = pendingFiles.next();
+      if (usesCache.test(file)) {
+        resolving.add(CompletableFuture.supplyAsync(() -> resolve(file), workers));
+      } else {
+        resolving.add(CompletableFuture.completedFuture(new ResolvedFile(file, null)));
+      }
+    }
+  }
+
+  private ResolvedFile resolve(InputFile file) {
+    try {
+      return new ResolvedFile(file, lookup.getStrategyFor(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Cancels the lookups that did not start and waits for the running ones, so that no cache entry
+   * is read or written once the analysis is over. No file is handed out afterwards.
+   */
+  @Override
+  public synchronized void close() {
+    resolving.forEach(future -> future.cancel(false));
+    resolving.clear();
+    workers.shutdownNow();
+    try {
+      if (!workers.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOG.debug("Timed out waiting for pending cache lookups to stop");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @FunctionalInterface
+  interface StrategyLookup {
+    CacheStrategy getStrategyFor(InputFile file) throws IOException;
+  }
+
+  /**
+   * An input file with its cache strategy, which is null for files that are never cached.
+   */
+  record ResolvedFile(InputFile file, @Nullable CacheStrategy cacheStrategy) {}
+}
@@ -0,0 +1,190 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.plugins.javascript.api.JsAnalysisConsumer;
+import org.sonar.plugins.javascript.api.JsFile;
+import org.sonar.plugins.javascript.bridge.AstConversionException;
+import org.sonar.plugins.javascript.bridge.AstStreamWalker;
+
+/**
+ * Delivers the analyzed files to one consumer and measures the time it spends on them.
+ *
+ * <p>Thread-safe consumers get their own worker thread and a bounded buffer of files, so that a
+ * slow consumer does not hold the thread persisting the results, nor the other consumers. Files
+ * are still accepted one at a time and in analysis order. Accepting blocks once the buffer is
+ * full. The worker thread stops when it is idle.
+ *
+ * <p>The first failure of a worker drops the files buffered after it, and is rethrown on the next
+ * {@link #accept} or {@link #awaitPending}. A file whose AST cannot be converted while the
+ * consumer visits it is skipped, like the files whose AST cannot be deserialized at all.
+ *
+ * <p>Streaming consumers are given the serialized ASTs through {@link #acceptAst} instead, on the
+ * same terms.
+ */
+class ConsumerDelivery {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConsumerDelivery.class);
+  private static final int BUFFERED_FILES = 16;
+  private static final int IDLE_WORKER_SECONDS = 10;
+  private static final AtomicInteger WORKER_INDEX = new AtomicInteger();
+
+  private final JsAnalysisConsumer consumer;
+  private final boolean streaming;
+  @Nullable
+  private final ExecutorService worker;
+
+  private final Semaphore buffered = new Semaphore(BUFFERED_FILES);
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final AtomicInteger acceptedFiles = new AtomicInteger();
+  private final AtomicLong acceptNanos = new AtomicLong();
+
+  ConsumerDelivery(JsAnalysisConsumer consumer) {
+    this.consumer = consumer;
+    streaming = consumer.isStreaming();
+    worker = consumer.isThreadSafe() ? newWorker() : null;
+  }
+
+  private static ExecutorService newWorker() {
+    return new ThreadPoolExecutor(
+      0,
+      1,
+      IDLE_WORKER_SECONDS,
+      TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(),
+      r -> {
+        var thread = new Thread(r, "sonarjs-consumer-" + WORKER_INDEX.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+  }
+
+  boolean isConcurrent() {
+    return worker != null;
+  }
+
+  boolean isStreaming() {
+    return streaming;
+  }
+
+  void accept(JsFile file) {
+    deliver(file.inputFile(), () -> consumer.accept(file));
+  }
+
+  /**
+   * Walks the serialized AST of a file with the visitor of a streaming consumer.
+   */
+  void acceptAst(InputFile inputFile, ByteString ast) {
+    deliver(inputFile, () -> walk(inputFile, ast));
+  }
+
+  private void walk(InputFile inputFile, ByteString ast) {
+    try {
+      AstStreamWalker.walk(ast, consumer.astVisitor(inputFile));
+    } catch (IOException e) {
+      LOG.debug("Failed to deserialize AST for file: {}", inputFile, e);
+    }
+  }
+
+  private void deliver(InputFile inputFile, Runnable delivery) {
+    if (worker == null) {
+      timedDeliver(inputFile, delivery);
+      return;
+    }
+    throwIfFailed();
+    buffered.acquireUninterruptibly();
+    worker.execute(() -> {
+      try {
+        if (failure.get() == null) {
+          timedDeliver(inputFile, delivery);
+        }
+      } catch (RuntimeException | Error e) {
+        failure.compareAndSet(null, e);
+      } finally {
+        buffered.release();
+      }
+    });
+  }
+
+  private void timedDeliver(InputFile inputFile, Runnable delivery) {
+    long start = System.nanoTime();
+    try {
+      delivery.run();
+    } catch (AstConversionException e) {
+      // Parts of the AST are converted while the consumer visits them
+      LOG.debug("Failed to deserialize AST for file: {}", inputFile, e);
+    } finally {
+      acceptNanos.addAndGet(System.nanoTime() - start);
+      acceptedFiles.incrementAndGet();
+    }
+  }
+
+  /**
+   * Waits until the consumer accepted all the buffered files.
+   */
+  void awaitPending() {
+    if (worker != null) {
+      buffered.acquireUninterruptibly(BUFFERED_FILES);
+      buffered.release(BUFFERED_FILES);
+    }
+    throwIfFailed();
+  }
+
+  /**
+   * Calls {@link JsAnalysisConsumer#doneAnalysis}, then reports the time spent by the consumer
+   * and starts measuring the next analysis.
+   */
+  void doneAnalysis(SensorContext context) {
+    long start = System.nanoTime();
+    consumer.doneAnalysis(context);
+    long doneNanos = System.nanoTime() - start;
+    LOG.info(
+      "JsAnalysisConsumer {} accepted {} files in {} ms{}, completed in {} ms",
+      consumer,
+      acceptedFiles.getAndSet(0),
+      TimeUnit.NANOSECONDS.toMillis(acceptNanos.getAndSet(0)),
+      isConcurrent() ? " on its own thread" : "",
+      TimeUnit.NANOSECONDS.toMillis(doneNanos)
+    );
+  }
+
+  private void throwIfFailed() {
+    var e = failure.getAndSet(null);
+    if (e instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    if (e instanceof Error error) {
+      throw error;
+    }
+  }
+}
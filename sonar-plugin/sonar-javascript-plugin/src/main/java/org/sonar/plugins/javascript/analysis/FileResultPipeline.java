@@ -0,0 +1,159 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pipeline decoupling the reception of file results from their persistence.
+ *
+ * <p>Each submitted result is first prepared on a pool of workers (AST decoding and conversion),
+ * then handed to a single sink thread in submission order, since saving on the {@code
+ * SensorContext} and notifying consumers must stay serialized. Submitting blocks once too many
+ * results are in flight, which propagates back-pressure to the analyzer runtime.
+ *
+ * <p>The first failure stops the pipeline: later results are dropped and the failure is rethrown
+ * on the next {@link #submit} or {@link #drain}. A failure never rethrown is logged on
+ * {@link #close}.
+ */
+class FileResultPipeline implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileResultPipeline.class);
+  private static final int TERMINATION_TIMEOUT_SECONDS = 5;
+  private static final int IN_FLIGHT_RESULTS_PER_WORKER = 4;
+
+  private final ExecutorService workers;
+  private final ExecutorService sink;
+  private final Semaphore inFlight;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final AtomicBoolean failureSurfaced = new AtomicBoolean();
+  private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+  FileResultPipeline() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  FileResultPipeline(int workerCount) {
+    var workerIndex = new AtomicInteger();
+    workers = Executors.newFixedThreadPool(workerCount, r ->
+      newThread(r, "sonarjs-file-result-worker-" + workerIndex.incrementAndGet())
+    );
+    sink = Executors.newSingleThreadExecutor(r -> newThread(r, "sonarjs-file-result-sink"));
+    inFlight = new Semaphore(workerCount * IN_FLIGHT_RESULTS_PER_WORKER);
+  }
+
+  private static Thread newThread(Runnable runnable, String name) {
+    var thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Prepares a result on the workers, then passes it to {@code persist} on the sink thread, after
+   * all the results submitted before it. Results may be submitted from several threads.
+   */
+  synchronized <T> void submit(Supplier<T> prepare, Consumer<T> persist) {
+    throwIfFailed();
+    inFlight.acquireUninterruptibly();
+    var prepared = CompletableFuture.supplyAsync(prepare, workers);
+    tail = tail
+      .thenCombineAsync(
+        prepared,
+        (ignored, value) -> {
+          if (failure.get() == null) {
+            persist.accept(value);
+          }
+          return (Void) null;
+        },
+        sink
+      )
+      .whenComplete((ignored, e) -> {
+        inFlight.release();
+        if (e != null) {
+          failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+        }
+      });
+  }
+
+  /**
+   * Waits until all submitted results are persisted.
+   */
+  void drain() {
+    CompletableFuture<Void> last;
+    synchronized (this) {
+      last = tail;
+    }
+    last.exceptionally(e -> null).join();
+    throwIfFailed();
+  }
+
+  private void throwIfFailed() {
+    var e = failure.get();
+    if (e != null) {
+      failureSurfaced.set(true);
+    }
+    if (e instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    if (e instanceof Error error) {
+      throw error;
+    }
+    if (e != null) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Waits a bounded time for the results still in flight, as shutting the executors down would
+   * reject the persistence of results whose preparation is not over.
+   */
+  @Override
+  public void close() {
+    CompletableFuture<Void> last;
+    synchronized (this) {
+      last = tail;
+    }
+    try {
+      last.exceptionally(e -> null).get(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      LOG.warn("Timed out waiting for pending file results to be saved");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      workers.shutdownNow();
+      sink.shutdownNow();
+    }
+    var e = failure.get();
+    if (e != null && !failureSurfaced.get()) {
+      LOG.error("Failed to save file results", e);
+    }
+  }
+}
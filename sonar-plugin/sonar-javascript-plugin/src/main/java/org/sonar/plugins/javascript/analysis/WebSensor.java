@@ -18,6 +18,7 @@ package org.sonar.plugins.javascript.analysis;
 
 import static org.sonar.plugins.javascript.nodejs.NodeCommandBuilderImpl.NODE_EXECUTABLE_PROPERTY;
 
+import com.google.protobuf.ByteString;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
@@ -42,11 +43,13 @@ import org.sonar.plugins.javascript.CancellationException;
 import org.sonar.plugins.javascript.JavaScriptFilePredicate;
 import org.sonar.plugins.javascript.JavaScriptLanguage;
 import org.sonar.plugins.javascript.TypeScriptLanguage;
+import org.sonar.plugins.javascript.analysis.cache.AnalysisStringTable;
 import org.sonar.plugins.javascript.analysis.cache.CacheAnalysis;
 import org.sonar.plugins.javascript.analysis.cache.CacheStrategies;
 import org.sonar.plugins.javascript.analysis.cache.CacheStrategy;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
+import org.sonar.plugins.javascript.analyzeproject.grpc.CheckFileContentsRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.FileResultMessage;
 import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisFileResult;
 import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisMeta;
@@ -54,6 +57,7 @@ import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisTelemetry
 import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectConfiguration;
 import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectFileInput;
 import org.sonar.plugins.javascript.api.AnalysisMode;
+import org.sonar.plugins.javascript.api.AstScope;
 import org.sonar.plugins.javascript.api.JsFile;
 import org.sonar.plugins.javascript.api.estree.ESTree;
 import org.sonar.plugins.javascript.bridge.AnalysisWarningsWrapper;
@@ -64,6 +68,7 @@ import org.sonar.plugins.javascript.bridge.BridgeServerConfig;
 import org.sonar.plugins.javascript.bridge.ESTreeFactory;
 import org.sonar.plugins.javascript.bridge.ProjectAnalysisHandler;
 import org.sonar.plugins.javascript.bridge.ServerAlreadyFailedException;
+import org.sonar.plugins.javascript.bridge.StringInterner;
 import org.sonar.plugins.javascript.bridge.protobuf.Node;
 import org.sonar.plugins.javascript.external.EslintReportImporter;
 import org.sonar.plugins.javascript.external.ExternalIssue;
@@ -174,8 +179,15 @@ public class WebSensor implements ProjectSensor {
         sensorContext.fileSystem().baseDir().getAbsolutePath(),
         contextWithCollectedTsConfigPaths(sensorContext)
       );
-      bridgeServer.startServerLazily(BridgeServerConfig.fromSensorContext(sensorContext));
-      analyzeFiles(inputFiles);
+      var astScope = context.skipAst(consumers) ? null : consumers.astScope();
+      var stringTable = new AnalysisStringTable();
+      // cache strategies are resolved while the runtime starts
+      try (var cacheResolver = newCacheStrategyResolver(inputFiles, astScope, stringTable)) {
+        bridgeServer.startServerLazily(BridgeServerConfig.fromSensorContext(sensorContext));
+        analyzeFiles(cacheResolver, astScope);
+      }
+      // the entries written to the cache refer to the strings added during the analysis
+      stringTable.save();
     } catch (CancellationException e) {
       // do not propagate the exception
       LOG.info(e.toString());
@@ -257,21 +269,54 @@ public class WebSensor implements ProjectSensor {
     ).toList();
   }
 
-  private void analyzeFiles(List<InputFile> inputFiles) {
+  private CacheStrategyResolver newCacheStrategyResolver(
+    List<InputFile> inputFiles,
+    @Nullable AstScope astScope,
+    AnalysisStringTable stringTable
+  ) {
+    return new CacheStrategyResolver(inputFiles, WebSensor::shouldUseCache, file ->
+      CacheStrategies.getStrategyFor(context, file, astScope, stringTable)
+    );
+  }
+
+  private static boolean shouldUseCache(InputFile inputFile) {
+    var language = inputFile.language();
+    return (
+      isJsTsFile(inputFile) ||
+      JavaScriptFilePredicate.WEB_LANGUAGE.equals(language) ||
+      JavaScriptFilePredicate.YAML_LANGUAGE.equals(language)
+    );
+  }
+
+  private static boolean isJsTsFile(InputFile inputFile) {
+    var lang = inputFile.language();
+    return JavaScriptLanguage.KEY.equals(lang) || TypeScriptLanguage.KEY.equals(lang);
+  }
+
+  private void analyzeFiles(CacheStrategyResolver cacheResolver, @Nullable AstScope astScope) {
     var eslintImporter = new EslintReportImporter();
     var externalIssues = eslintImporter.execute(
       context,
       moduleConfiguration.eslintReports(context.getSensorContext())
     );
-    try {
-      var handler = new AnalyzeProjectHandler(context, inputFiles, externalIssues);
+    try (var pipeline = new FileResultPipeline()) {
+      var handler = new AnalyzeProjectHandler(
+        context,
+        cacheResolver,
+        externalIssues,
+        pipeline,
+        astScope
+      );
       bridgeServer.analyzeProject(handler);
+      // no META message marks the end of an analysis where every file is a cache hit
+      pipeline.drain();
       new PluginTelemetry(
         context,
         bridgeServer,
         handler.getProjectAnalysisTelemetry()
       ).reportTelemetry();
       consumers.doneAnalysis(context.getSensorContext());
+      handler.logSharedStrings();
     } catch (CompletionException e) {
       if (e.getCause() instanceof CancellationException nestedException) {
         throw nestedException;
@@ -288,51 +333,100 @@ public class WebSensor implements ProjectSensor {
     }
   }
 
-  class AnalyzeProjectHandler implements ProjectAnalysisHandler {
+  /**
+   * {@code decoded} is false when the AST sent by the runtime could not be read, it is then neither
+   * handed to consumers nor cached.
+   */
+  private record DecodedAst(@Nullable ESTree.Program program, boolean decoded) {}
+
+  /**
+   * AST of a cache hit, serialized for the streaming consumers.
+   */
+  private record CachedAst(@Nullable ESTree.Program program, @Nullable ByteString serialized) {}
+
+  class AnalyzeProjectHandler implements ProjectAnalysisHandler.Streaming {
 
     private final JsTsContext<?> context;
     private final Map<String, List<ExternalIssue>> externalIssues;
-    private final List<InputFile> inputFiles;
+    private final CacheStrategyResolver cacheResolver;
     private final List<InputFile> projectMetadataFiles;
     private final Map<String, InputFile> fileToInputFile = new HashMap<>();
     private final HashMap<String, CacheStrategy> fileToCacheStrategy = new HashMap<>();
+    // contents of the batch being built that the runtime reads from disk unless they changed
+    private final Map<String, String> contentsToCheck = new HashMap<>();
     private final CompletableFuture<Void> handle;
+    private final FileResultPipeline pipeline;
+    // identifier names and literals shared between the trees handed to consumers
+    private final StringInterner interner = new StringInterner();
+    // part of the AST that the consumers need, null when there are none
+    @Nullable
+    private final AstScope astScope;
 
     @Nullable
     private ProjectAnalysisTelemetry projectAnalysisTelemetry;
 
     AnalyzeProjectHandler(
       JsTsContext<?> context,
-      List<InputFile> inputFiles,
-      Map<String, List<ExternalIssue>> externalIssues
+      CacheStrategyResolver cacheResolver,
+      Map<String, List<ExternalIssue>> externalIssues,
+      FileResultPipeline pipeline,
+      @Nullable AstScope astScope
     ) {
-      this.inputFiles = inputFiles;
+      this.cacheResolver = cacheResolver;
       this.context = context;
       this.projectMetadataFiles = context.canAccessFileSystem()
         ? List.of()
         : collectProjectMetadataFiles();
       this.handle = new CompletableFuture<>();
       this.externalIssues = externalIssues;
+      this.pipeline = pipeline;
+      this.astScope = astScope;
     }
 
+    /**
+     * Input files are added batch by batch while the request is being sent: cache hits are saved
+     * on the way and file contents are only read for the batch being sent.
+     */
     @Override
-    public AnalyzeProjectRequest getRequest() {
-      var files = new HashMap<String, ProjectFileInput>();
-      try {
-        addInputFilesToRequest(files);
-        addProjectMetadataFilesToRequest(files);
-      } catch (IOException e) {
-        var failure = new IllegalStateException(e);
-        handle.completeExceptionally(failure);
-        throw failure;
-      }
+    public RequestStream openRequestStream() {
+      var header = requestHeader();
+      var pendingMetadataFiles = projectMetadataFiles.iterator();
+      return new RequestStream() {
+        @Override
+        public AnalyzeProjectRequest header() {
+          return header;
+        }
+
+        @Override
+        public Map<String, ProjectFileInput> nextFiles(int maxFiles) {
+          var files = new HashMap<String, ProjectFileInput>();
+          try {
+            while (files.size() < maxFiles && cacheResolver.hasNext()) {
+              addInputFileToRequest(files, cacheResolver.next());
+            }
+            while (files.size() < maxFiles && pendingMetadataFiles.hasNext()) {
+              addFileToAnalyze(files, pendingMetadataFiles.next());
+            }
+            inlineChangedContents(files);
+          } catch (IOException e) {
+            var failure = new IllegalStateException(e);
+            handle.completeExceptionally(failure);
+            throw failure;
+          }
+          return files;
+        }
+      };
+    }
+
+    private AnalyzeProjectRequest requestHeader() {
       if (fsListener != null) {
         configurationBuilder.clearFsEvents().addAllFsEvents(fsListener.listFSEvents().keySet());
       }
-      configurationBuilder.setSkipAst(context.skipAst(consumers));
+      configurationBuilder
+        .setSkipAst(astScope == null)
+        .setTopLevelAst(astScope == AstScope.TOP_LEVEL);
       return AnalyzeProjectRequest.newBuilder()
         .setConfiguration(configurationBuilder.build())
-        .putAllFiles(files)
         .addAllRules(
           checks.enabledEslintRules().stream().map(AnalyzeProjectMessages::toProtoRule).toList()
         )
@@ -342,34 +436,17 @@ public class WebSensor implements ProjectSensor {
         .build();
     }
 
-    private void addInputFilesToRequest(Map<String, ProjectFileInput> files) throws IOException {
-      for (InputFile inputFile : inputFiles) {
-        addInputFileToRequest(files, inputFile);
-      }
-    }
-
-    private void addInputFileToRequest(Map<String, ProjectFileInput> files, InputFile inputFile)
-      throws IOException {
-      if (shouldUseCache(inputFile)) {
-        handleCachedInputFile(files, inputFile);
-      } else {
+    private void addInputFileToRequest(
+      Map<String, ProjectFileInput> files,
+      CacheStrategyResolver.ResolvedFile resolvedFile
+    ) throws IOException {
+      var inputFile = resolvedFile.file();
+      var cacheStrategy = resolvedFile.cacheStrategy();
+      if (cacheStrategy == null) {
         // CSS and extension-based HTML/YAML/CSS-additional files: always analyze, no caching.
         addFileToAnalyze(files, inputFile);
+        return;
       }
-    }
-
-    private boolean shouldUseCache(InputFile inputFile) {
-      var language = inputFile.language();
-      return (
-        isJsTsFile(inputFile) ||
-        JavaScriptFilePredicate.WEB_LANGUAGE.equals(language) ||
-        JavaScriptFilePredicate.YAML_LANGUAGE.equals(language)
-      );
-    }
-
-    private void handleCachedInputFile(Map<String, ProjectFileInput> files, InputFile inputFile)
-      throws IOException {
-      CacheStrategy cacheStrategy = CacheStrategies.getStrategyFor(context, inputFile);
       if (cacheStrategy.isAnalysisRequired()) {
         addFileToAnalyze(files, inputFile);
         fileToCacheStrategy.put(inputFile.absolutePath(), cacheStrategy);
@@ -377,18 +454,24 @@ public class WebSensor implements ProjectSensor {
       }
 
       if (isJsTsFile(inputFile)) {
-        LOG.debug("Processing cache analysis of file: {}", inputFile.uri());
         var cacheAnalysis = cacheStrategy.readAnalysisFromCache();
-        analysisProcessor.processCacheAnalysis(context, inputFile, cacheAnalysis);
-        acceptAstResponse(cacheAnalysis.getAst(), inputFile);
+        pipeline.submit(
+          () -> cachedAst(cacheAnalysis, inputFile),
+          ast -> {
+            LOG.debug("Processing cache analysis of file: {}", inputFile.uri());
+            analysisProcessor.processCacheAnalysis(context, inputFile, cacheAnalysis);
+            acceptProgram(ast.program(), inputFile);
+            acceptAst(ast.serialized(), inputFile);
+          }
+        );
       }
     }
 
-    private void addProjectMetadataFilesToRequest(Map<String, ProjectFileInput> files)
-      throws IOException {
-      for (InputFile metadataFile : projectMetadataFiles) {
-        addFileToAnalyze(files, metadataFile);
-      }
+    private CachedAst cachedAst(CacheAnalysis cacheAnalysis, InputFile inputFile) {
+      return new CachedAst(
+        consumers.needsProgram() ? toProgram(cacheAnalysis.getAst(), inputFile) : null,
+        consumers.hasStreamingConsumers() ? cacheAnalysis.getSerializedAst() : null
+      );
     }
 
     private List<InputFile> collectProjectMetadataFiles() {
@@ -423,7 +506,11 @@ public class WebSensor implements ProjectSensor {
     public void handleMessage(AnalyzeProjectStreamResponse message) {
       switch (message.getMessageCase()) {
         case FILE_RESULT -> handleFileResult(message.getFileResult());
-        case META -> handleMeta(message.getMeta());
+        case META -> {
+          // file results are persisted asynchronously, they must all be saved before completing
+          pipeline.drain();
+          handleMeta(message.getMeta());
+        }
         case CANCELLED -> handle.completeExceptionally(
           new CancellationException(
             "Analysis interrupted because the SensorContext is in cancelled state"
@@ -438,35 +525,68 @@ public class WebSensor implements ProjectSensor {
     private void handleFileResult(FileResultMessage fileResultMessage) {
       var filePath = fileResultMessage.getFilePath();
       var response = fileResultMessage.getResult();
+      var file = fileToInputFile.get(filePath);
+      if (file == null) {
+        LOG.warn("Skipping analysis result for unknown file path: {}", filePath);
+        return;
+      }
+      if (response.hasError() && !response.getError().isBlank()) {
+        // The HTTP transport used to drop per-file runtime errors after logging them in Node.js.
+        // Keep the project analysis running, but surface the failure explicitly on the file.
+        pipeline.submit(
+          () -> null,
+          ignored -> {
+            analysisProcessor.processFileError(context, file, response.getError());
+            saveExternalIssues(filePath, List.of());
+          }
+        );
+        return;
+      }
+      // Only cache JS/TS file results -- non-JS/TS files (CSS, HTML, YAML) skip caching.
+      // Looked up here, as the map is filled while the request is sent, not on the sink thread.
+      var cacheStrategy = fileToCacheStrategy.get(filePath);
+      pipeline.submit(
+        () -> decodeAst(filePath, file, response),
+        ast -> saveFileResult(filePath, file, response, cacheStrategy, ast)
+      );
+    }
+
+    /**
+     * The AST is only decoded for the consumers, the cache receives it as sent by the runtime. An
+     * AST that cannot be read does not fail the analysis: the file is saved as if it had none.
+     */
+    private DecodedAst decodeAst(
+      String filePath,
+      InputFile file,
+      ProjectAnalysisFileResult response
+    ) {
+      if (!consumers.needsProgram()) {
+        return new DecodedAst(null, true);
+      }
       try {
-        var file = fileToInputFile.get(filePath);
-        if (file == null) {
-          LOG.warn("Skipping analysis result for unknown file path: {}", filePath);
-          return;
-        }
-        if (response.hasError() && !response.getError().isBlank()) {
-          // The HTTP transport used to drop per-file runtime errors after logging them in Node.js.
-          // Keep the project analysis running, but surface the failure explicitly on the file.
-          analysisProcessor.processFileError(context, file, response.getError());
-          saveExternalIssues(filePath, List.of());
-          return;
-        }
-        var issues = analysisProcessor.processResponse(context, checks, file, response);
-        saveExternalIssues(filePath, issues);
-        // Only cache JS/TS file results -- non-JS/TS files (CSS, HTML, YAML) skip caching.
-        var cacheStrategy = fileToCacheStrategy.get(filePath);
-        Node responseAst = responseAst(response);
-        if (cacheStrategy != null) {
-          writeAnalysisToCache(cacheStrategy, response, responseAst, file);
-        }
-        acceptAstResponse(responseAst, file);
+        return new DecodedAst(toProgram(responseAst(response), file), true);
       } catch (IOException e) {
-        handle.completeExceptionally(
-          new IllegalStateException("Failed to decode analysis AST for " + filePath, e)
-        );
+        LOG.warn("Failed to decode analysis AST for {}", filePath, e);
+        return new DecodedAst(null, false);
       }
     }
 
+    private void saveFileResult(
+      String filePath,
+      InputFile file,
+      ProjectAnalysisFileResult response,
+      @Nullable CacheStrategy cacheStrategy,
+      DecodedAst ast
+    ) {
+      var issues = analysisProcessor.processResponse(context, checks, file, response);
+      saveExternalIssues(filePath, issues);
+      if (cacheStrategy != null) {
+        writeAnalysisToCache(cacheStrategy, response, ast.decoded(), file);
+      }
+      acceptProgram(ast.program(), file);
+      acceptAst(response.getAst(), file);
+    }
+
     private void saveExternalIssues(
       String filePath,
       List<org.sonar.plugins.javascript.analyzeproject.grpc.Issue> issues
@@ -490,12 +610,19 @@ public class WebSensor implements ProjectSensor {
     private void writeAnalysisToCache(
       CacheStrategy cacheStrategy,
       ProjectAnalysisFileResult response,
-      @Nullable Node responseAst,
+      boolean astDecoded,
       InputFile file
     ) {
+      // the scope is cached with the AST, so that a pruned AST is not served to consumers
+      // needing the full one
+      var ast = astDecoded ? response.getAst() : ByteString.EMPTY;
       try {
         cacheStrategy.writeAnalysisToCache(
-          CacheAnalysis.fromResponse(response.getCpdTokensList(), responseAst),
+          CacheAnalysis.fromResponse(
+            response.getCpdTokensList(),
+            ast,
+            astScope == null ? AstScope.FULL : astScope
+          ),
           file
         );
       } catch (IOException e) {
@@ -505,40 +632,106 @@ public class WebSensor implements ProjectSensor {
 
     private void addFileToAnalyze(Map<String, ProjectFileInput> files, InputFile inputFile)
       throws IOException {
-      files.put(
-        inputFile.absolutePath(),
-        AnalyzeProjectMessages.newProjectFileInput(
-          inputFile.type(),
-          inputFile.status(),
-          context.shouldSendFileContent(inputFile) ? inputFile.contents() : null
-        )
-      );
+      files.put(inputFile.absolutePath(), newFileInput(inputFile));
       fileToInputFile.put(inputFile.absolutePath(), inputFile);
     }
 
-    private static boolean isJsTsFile(InputFile inputFile) {
-      var lang = inputFile.language();
-      return JavaScriptLanguage.KEY.equals(lang) || TypeScriptLanguage.KEY.equals(lang);
+    /**
+     * The runtime reads files from disk itself whenever it decodes them like Java. In SonarLint,
+     * the content may be an unsaved editor buffer, which {@link #inlineChangedContents} checks.
+     */
+    private ProjectFileInput newFileInput(InputFile inputFile) throws IOException {
+      var type = inputFile.type();
+      var status = inputFile.status();
+      if (!context.shouldSendFileContent(inputFile)) {
+        return AnalyzeProjectMessages.newProjectFileInput(type, status, null);
+      }
+      var charset = inputFile.charset();
+      if (!AnalyzeProjectMessages.isDecodableByRuntime(charset)) {
+        return AnalyzeProjectMessages.newProjectFileInput(type, status, inputFile.contents());
+      }
+      if (context.isSonarLint()) {
+        contentsToCheck.put(inputFile.absolutePath(), inputFile.contents());
+      }
+      return AnalyzeProjectMessages.newProjectFileReference(type, status, charset);
+    }
+
+    /**
+     * Sends the contents of the batch that differ from the files on disk.
+     */
+    private void inlineChangedContents(Map<String, ProjectFileInput> files) {
+      if (contentsToCheck.isEmpty()) {
+        return;
+      }
+      List<String> changedFiles;
+      try {
+        var request = CheckFileContentsRequest.newBuilder();
+        contentsToCheck.forEach((path, content) ->
+          request.putFiles(
+            path,
+            AnalyzeProjectMessages.fileContentHash(content, fileToInputFile.get(path).charset())
+          )
+        );
+        changedFiles = bridgeServer.checkFileContents(request.build()).getMismatchedFilesList();
+      } catch (RuntimeException e) {
+        LOG.debug("Failed to check file contents, sending all of them", e);
+        changedFiles = List.copyOf(contentsToCheck.keySet());
+      }
+      for (var path : changedFiles) {
+        var content = contentsToCheck.get(path);
+        if (content != null) {
+          files.computeIfPresent(path, (key, input) ->
+            input.toBuilder().clearFileCharset().setFileContent(content).build()
+          );
+        }
+      }
+      contentsToCheck.clear();
     }
 
     @Nullable
     private Node responseAst(ProjectAnalysisFileResult response) throws IOException {
-      return response.getAst().isEmpty()
-        ? null
-        : AstProtoUtils.readProtobufFromBytes(response.getAst().toByteArray());
+      return response.getAst().isEmpty() ? null : AstProtoUtils.readProtobuf(response.getAst());
     }
 
-    private void acceptAstResponse(@Nullable Node responseAst, InputFile file) {
-      if (responseAst != null) {
+    @Nullable
+    private ESTree.Program toProgram(@Nullable Node responseAst, InputFile file) {
+      if (responseAst == null) {
         // When we haven't serialized the AST:
         // either because no consumer is listening
         // or the file extension or AST nodes are unsupported
-        try {
-          ESTree.Program program = ESTreeFactory.from(responseAst, ESTree.Program.class);
-          consumers.accept(new JsFile(file, program));
-        } catch (Exception e) {
-          LOG.debug("Failed to deserialize AST for file: {}", file.uri(), e);
-        }
+        return null;
+      }
+      try {
+        return ESTreeFactory.from(responseAst, ESTree.Program.class, interner);
+      } catch (Exception e) {
+        LOG.debug("Failed to deserialize AST for file: {}", file.uri(), e);
+        return null;
+      }
+    }
+
+    void logSharedStrings() {
+      if (consumers.isEnabled() && interner.size() > 0) {
+        LOG.info(
+          "Shared {} distinct strings between analyzed files, saving about {} KB",
+          interner.size(),
+          interner.savedBytes() / 1024
+        );
+      }
+    }
+
+    private void acceptProgram(@Nullable ESTree.Program program, InputFile file) {
+      if (program != null) {
+        consumers.accept(new JsFile(file, program));
+      }
+    }
+
+    /**
+     * Streaming consumers walk the AST as serialized by the runtime or the cache, which they do
+     * not need decoded.
+     */
+    private void acceptAst(@Nullable ByteString ast, InputFile file) {
+      if (ast != null && !ast.isEmpty()) {
+        consumers.acceptAst(file, ast);
       }
     }
   }
@@ -0,0 +1,205 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Binary layout of the single cache entry that holds everything cached for a file:
+ *
+ * <pre>
+ * record := version sectionCount (sectionId sectionLength)* sectionContents*
+ * </pre>
+ *
+ * Integers are variable length encoded, and sections follow in the order of their identifiers.
+ * With the lengths indexed in the header, a reader skips the sections it does not need without
+ * decoding them, and stops reading once it has what it needs, e.g. the file metadata. Sections
+ * with an unknown identifier are skipped, while another version makes the whole record unreadable.
+ */
+final class AnalysisRecord {
+
+  static final int VERSION = 4;
+
+  enum Section {
+    FILE_METADATA(1),
+    CPD_TOKENS(2),
+    AST_SCOPE(3),
+    AST(4);
+
+    private final int id;
+
+    Section(int id) {
+      this.id = id;
+    }
+  }
+
+  private final InputStream input;
+  private final int[] ids;
+  private final int[] lengths;
+  private int next;
+
+  private AnalysisRecord(InputStream input, int[] ids, int[] lengths) {
+    this.input = input;
+    this.ids = ids;
+    this.lengths = lengths;
+  }
+
+  /**
+   * Concatenates the header and the sections without copying the sections.
+   */
+  static ByteString write(Map<Section, ByteString> sections) throws IOException {
+    var header = new ByteArrayOutputStream();
+    var contents = ByteString.empty();
+    try (var out = new VarLengthOutputStream(header)) {
+      out.writeInt(VERSION);
+      out.writeInt(sections.size());
+      for (var section : Section.values()) {
+        var bytes = sections.get(section);
+        if (bytes != null) {
+          out.writeInt(section.id);
+          out.writeInt(bytes.size());
+          contents = contents.concat(bytes);
+        }
+      }
+    }
+    return ByteString.copyFrom(header.toByteArray()).concat(contents);
+  }
+
+  /**
+   * Reads the header of the record, leaving the sections to be read from the stream.
+   *
+   * @return null if the record was written in another version of the format
+   */
+  @Nullable
+  static AnalysisRecord read(InputStream input) throws IOException {
+    var in = new VarLengthInputStream(input);
+    if (in.readInt() != VERSION) {
+      return null;
+    }
+    var count = in.readInt();
+    var ids = new int[count];
+    var lengths = new int[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = in.readInt();
+      lengths[i] = in.readInt();
+    }
+    return new AnalysisRecord(input, ids, lengths);
+  }
+
+  /**
+   * Sections must be read in order, the stream being positioned after the last section read.
+   *
+   * @return null if the record has no such section
+   */
+  @Nullable
+  byte[] readSection(Section section) throws IOException {
+    var length = skipTo(section);
+    if (length < 0) {
+      return null;
+    }
+    var bytes = input.readNBytes(length);
+    if (bytes.length != length) {
+      throw new IOException("Truncated section " + section + " in cache record");
+    }
+    return bytes;
+  }
+
+  /**
+   * Streams the section instead of reading it into an array. The stream must be consumed before
+   * reading the next section.
+   *
+   * @return null if the record has no such section
+   */
+  @Nullable
+  InputStream streamSection(Section section) throws IOException {
+    var length = skipTo(section);
+    return length < 0 ? null : new SectionInputStream(input, length);
+  }
+
+  private int skipTo(Section section) throws IOException {
+    while (next < ids.length && ids[next] < section.id) {
+      input.skipNBytes(lengths[next]);
+      next++;
+    }
+    if (next < ids.length && ids[next] == section.id) {
+      return lengths[next++];
+    }
+    return -1;
+  }
+
+  private static final class SectionInputStream extends FilterInputStream {
+
+    private int remaining;
+
+    private SectionInputStream(InputStream input, int length) {
+      super(input);
+      remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining == 0) {
+        return -1;
+      }
+      var b = super.read();
+      if (b != -1) {
+        remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (remaining == 0) {
+        return -1;
+      }
+      var read = super.read(buffer, offset, Math.min(length, remaining));
+      if (read > 0) {
+        remaining -= read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      var skipped = super.skip(Math.min(n, remaining));
+      remaining -= (int) skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+      // the record stream is closed by its owner
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import static org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section.AST;
+import static org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section.AST_SCOPE;
+import static org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section.CPD_TOKENS;
+import static org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section.FILE_METADATA;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section;
+import org.sonar.plugins.javascript.api.AstScope;
+import org.sonar.plugins.javascript.bridge.AstProtoUtils;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+
+/**
+ * Reads and writes the cached analysis of a file as a single {@link AnalysisRecord}.
+ */
+class AnalysisRecordSerialization extends CacheSerialization {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisRecordSerialization.class);
+
+  private final ProjectStringTable stringTable;
+
+  AnalysisRecordSerialization(
+    SensorContext context,
+    CacheKey cacheKey,
+    ProjectStringTable stringTable
+  ) {
+    super(context, cacheKey);
+    this.stringTable = stringTable;
+  }
+
+  /**
+   * Only reads the record up to the file metadata.
+   */
+  Optional<FileMetadata> readFileMetadata() throws IOException {
+    try (var input = getDecodedInputStream()) {
+      var record = input == null ? null : AnalysisRecord.read(input);
+      if (record == null) {
+        LOG.debug("Cache entry for key '{}' has an unsupported format", getCacheKey());
+        return Optional.empty();
+      }
+      var bytes = record.readSection(FILE_METADATA);
+      if (bytes == null) {
+        return Optional.empty();
+      }
+      return Optional.of(FileMetadata.fromBinary(bytes));
+    }
+  }
+
+  /**
+   * @param keepSerializedAst whether the analysis keeps the AST section as read, for the record
+   *                          to be written again without encoding the decoded AST
+   */
+  CacheAnalysis readFromCache(boolean keepSerializedAst) throws IOException {
+    try (var input = getDecodedInputStream()) {
+      var record = input == null ? null : AnalysisRecord.read(input);
+      if (record == null) {
+        throw new IOException("Unsupported format of cache entry " + getCacheKey());
+      }
+      var cpdTokens = record.readSection(CPD_TOKENS);
+      if (cpdTokens == null) {
+        throw new IOException("Missing CPD tokens in cache entry " + getCacheKey());
+      }
+      var cpdData = CpdDeserializer.fromBinary(cpdTokens, stringTable);
+      var astScope = readAstScope(record);
+      Node ast = null;
+      ByteString serializedAst = null;
+      if (keepSerializedAst) {
+        var astBytes = record.readSection(AST);
+        if (astBytes != null) {
+          serializedAst = UnsafeByteOperations.unsafeWrap(astBytes);
+          ast = checkAst(AstProtoUtils.readProtobuf(serializedAst));
+        }
+      } else {
+        var astInput = record.streamSection(AST);
+        if (astInput != null) {
+          ast = checkAst(AstProtoUtils.readProtobuf(astInput));
+        }
+      }
+      LOG.debug("Cache entry extracted for key '{}'", getCacheKey());
+      return CacheAnalysis.fromCache(cpdData.getCpdTokens(), ast, serializedAst, astScope);
+    }
+  }
+
+  private Node checkAst(@Nullable Node ast) throws IOException {
+    if (ast == null) {
+      throw new IOException("The AST is null for key " + getCacheKey());
+    }
+    return ast;
+  }
+
+  private AstScope readAstScope(AnalysisRecord record) throws IOException {
+    var bytes = record.readSection(AST_SCOPE);
+    if (bytes == null) {
+      return AstScope.FULL;
+    }
+    try {
+      return AstScope.valueOf(new String(bytes, StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Unknown AST scope in cache entry " + getCacheKey(), e);
+    }
+  }
+
+  void writeToCache(CacheAnalysis analysis, FileMetadata fileMetadata) throws IOException {
+    writeToCache(toEntry(analysis, fileMetadata));
+  }
+
+  /**
+   * Writes an entry built by {@link #toEntry(CacheAnalysis, FileMetadata)}.
+   */
+  void writeToCache(ByteString entry) {
+    writeToCache(entry.newInput());
+    LOG.debug("Cache entry created for key '{}'", getCacheKey());
+  }
+
+  /**
+   * Encodes the record with the configured {@link CacheCodec}.
+   */
+  ByteString toEntry(CacheAnalysis analysis, FileMetadata fileMetadata) throws IOException {
+    return encode(toRecord(analysis, fileMetadata));
+  }
+
+  ByteString toRecord(CacheAnalysis analysis, FileMetadata fileMetadata) throws IOException {
+    var cpdTokens = CpdSerializer.toBinary(new CpdData(analysis.getCpdTokens()), stringTable);
+    var sections = new EnumMap<Section, ByteString>(Section.class);
+    sections.put(FILE_METADATA, UnsafeByteOperations.unsafeWrap(fileMetadata.toBinary()));
+    sections.put(CPD_TOKENS, UnsafeByteOperations.unsafeWrap(cpdTokens));
+    var ast = analysis.getSerializedAst();
+    if (ast != null && !ast.isEmpty()) {
+      sections.put(AST_SCOPE, ByteString.copyFromUtf8(analysis.getAstScope().name()));
+      sections.put(AST, ast);
+    }
+    return AnalysisRecord.write(sections);
+  }
+}
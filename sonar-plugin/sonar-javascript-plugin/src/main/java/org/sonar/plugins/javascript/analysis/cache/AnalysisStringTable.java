@@ -0,0 +1,57 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.sensor.SensorContext;
+
+/**
+ * The {@link ProjectStringTable} of one analysis, which the cache entries written by the analysis
+ * refer to. The table is loaded by the first cache strategy needing it, as the cache is not always
+ * available, and is only saved once the analysis succeeded.
+ */
+public final class AnalysisStringTable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisStringTable.class);
+
+  @Nullable
+  private ProjectStringTable table;
+
+  synchronized ProjectStringTable get(SensorContext context, CacheKey cacheKey) {
+    if (table == null || !table.belongsTo(context, cacheKey)) {
+      table = ProjectStringTable.load(context, cacheKey);
+    }
+    return table;
+  }
+
+  /**
+   * Saves the table, once all the cache entries of the analysis are written.
+   */
+  public synchronized void save() {
+    if (table == null) {
+      return;
+    }
+    try {
+      table.save();
+    } catch (IOException e) {
+      LOG.error("Failure when saving the project string table", e);
+    }
+  }
+}
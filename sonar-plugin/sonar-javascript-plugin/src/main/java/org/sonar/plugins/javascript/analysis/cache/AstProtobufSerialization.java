@@ -16,7 +16,9 @@
  */
 package org.sonar.plugins.javascript.analysis.cache;
 
+import com.google.protobuf.ByteString;
 import java.io.IOException;
+import java.io.PushbackInputStream;
 import java.util.Optional;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -34,11 +36,15 @@ public class AstProtobufSerialization extends CacheSerialization {
   }
 
   Optional<Node> readFromCache() throws IOException {
-    byte[] bytes = readBytesFromCache();
-    if (bytes.length == 0) {
-      return Optional.empty();
+    Node node;
+    try (var input = new PushbackInputStream(getInputStream())) {
+      int first = input.read();
+      if (first == -1) {
+        return Optional.empty();
+      }
+      input.unread(first);
+      node = AstProtoUtils.readProtobuf(input);
     }
-    Node node = AstProtoUtils.readProtobufFromBytes(bytes);
     if (node == null) {
       throw new IOException("The AST is null for key " + getCacheKey());
     }
@@ -46,14 +52,15 @@ public class AstProtobufSerialization extends CacheSerialization {
     return Optional.of(node);
   }
 
-  void writeToCache(@Nullable Node node) {
-    byte[] bytes;
-    if (node == null) {
-      bytes = new byte[0];
+  /**
+   * The AST is streamed to the cache from the bytes it was received in, without copying them.
+   */
+  void writeToCache(@Nullable ByteString serializedAst) {
+    if (serializedAst == null) {
+      writeToCache(new byte[0]);
     } else {
-      bytes = node.toByteArray();
+      writeToCache(serializedAst.newInput());
     }
-    writeToCache(bytes);
     LOG.debug("Cache entry created for key '{}'", getCacheKey());
   }
 }
@@ -16,35 +16,107 @@
  */
 package org.sonar.plugins.javascript.analysis.cache;
 
+import com.google.protobuf.ByteString;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.sonar.plugins.javascript.analyzeproject.grpc.CpdToken;
+import org.sonar.plugins.javascript.api.AstScope;
 import org.sonar.plugins.javascript.bridge.protobuf.Node;
 
 public class CacheAnalysis {
 
   private final List<CpdToken> cpdTokens;
   private final Node ast;
+  private final ByteString serializedAst;
+  private final AstScope astScope;
 
   public CacheAnalysis(List<CpdToken> cpdTokens, @Nullable Node ast) {
+    this(cpdTokens, ast, null, AstScope.FULL);
+  }
+
+  private CacheAnalysis(
+    List<CpdToken> cpdTokens,
+    @Nullable Node ast,
+    @Nullable ByteString serializedAst,
+    AstScope astScope
+  ) {
     this.cpdTokens = cpdTokens;
     this.ast = ast;
+    this.serializedAst = serializedAst;
+    this.astScope = astScope;
   }
 
-  public static CacheAnalysis fromResponse(List<CpdToken> cpdTokens, @Nullable Node ast) {
-    return new CacheAnalysis(cpdTokens, ast);
+  /**
+   * The AST is kept as received from the analyzer, so that it is written to the cache without
+   * being decoded and encoded again.
+   *
+   * @param astScope part of the program that the analyzer sent
+   */
+  public static CacheAnalysis fromResponse(
+    List<CpdToken> cpdTokens,
+    @Nullable ByteString serializedAst,
+    AstScope astScope
+  ) {
+    return new CacheAnalysis(
+      cpdTokens,
+      null,
+      serializedAst == null || serializedAst.isEmpty() ? null : serializedAst,
+      astScope
+    );
   }
 
   static CacheAnalysis fromCache(List<CpdToken> cpdTokens, @Nullable Node ast) {
-    return new CacheAnalysis(cpdTokens, ast);
+    return fromCache(cpdTokens, ast, null, AstScope.FULL);
+  }
+
+  /**
+   * @param serializedAst the AST as read from the cache, if kept to write it again
+   */
+  static CacheAnalysis fromCache(
+    List<CpdToken> cpdTokens,
+    @Nullable Node ast,
+    @Nullable ByteString serializedAst,
+    AstScope astScope
+  ) {
+    return new CacheAnalysis(cpdTokens, ast, serializedAst, astScope);
   }
 
   public List<CpdToken> getCpdTokens() {
     return cpdTokens;
   }
 
+  /**
+   * Returns the decoded AST, which is only available for analyses read from the cache.
+   */
   @Nullable
   public Node getAst() {
     return ast;
   }
+
+  /**
+   * Part of the program that the AST holds, meaningless when there is no AST.
+   */
+  AstScope getAstScope() {
+    return astScope;
+  }
+
+  /**
+   * Whether the analysis has an AST holding at least the given part of the program.
+   */
+  boolean hasAst(AstScope scope) {
+    var hasAst = ast != null || (serializedAst != null && !serializedAst.isEmpty());
+    return hasAst && (astScope == AstScope.FULL || scope == AstScope.TOP_LEVEL);
+  }
+
+  /**
+   * Returns the AST as serialized by the runtime or read from the cache, encoding the decoded AST
+   * when the serialized one was not kept.
+   */
+  @Nullable
+  public ByteString getSerializedAst() {
+    if (serializedAst == null && ast != null) {
+      return ast.toByteString();
+    }
+    return serializedAst;
+  }
 }
@@ -16,19 +16,47 @@
  */
 package org.sonar.plugins.javascript.analysis.cache;
 
+import com.google.protobuf.ByteString;
 import java.io.IOException;
 import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 
+/**
+ * The analysis of a file is cached as a single {@link AnalysisRecord}. Entries of the former
+ * layout, with the AST, the CPD tokens and the file metadata under separate keys, are still read,
+ * and migrated to a record when they are carried over to the next cache. Records referring to a
+ * compacted {@link ProjectStringTable} are written again in the same way.
+ */
 public class CacheAnalysisSerialization extends CacheSerialization {
 
+  private static final Logger LOG = LoggerFactory.getLogger(CacheAnalysisSerialization.class);
+
+  private final ProjectStringTable stringTable;
+  private final AnalysisRecordSerialization recordSerialization;
   private final AstProtobufSerialization astProtobufSerialization;
   private final CpdSerialization cpdSerialization;
   private final JsonSerialization<FileMetadata> fileMetadataSerialization;
 
-  CacheAnalysisSerialization(SensorContext context, CacheKey cacheKey) {
+  private Boolean recordInCache;
+  private FileMetadata cachedFileMetadata;
+  private ByteString rewrittenEntry;
+  private FileFingerprint fingerprint;
+
+  CacheAnalysisSerialization(
+    SensorContext context,
+    CacheKey cacheKey,
+    ProjectStringTable stringTable
+  ) {
     super(context, cacheKey);
+    this.stringTable = stringTable;
+    recordSerialization = new AnalysisRecordSerialization(
+      context,
+      cacheKey.forAnalysis(),
+      stringTable
+    );
     astProtobufSerialization = new AstProtobufSerialization(context, cacheKey.forAst());
     cpdSerialization = new CpdSerialization(context, cacheKey.forCpd());
     fileMetadataSerialization = new JsonSerialization<>(
@@ -40,32 +68,91 @@ public class CacheAnalysisSerialization extends CacheSerialization {
 
   @Override
   boolean isInCache() {
-    return cpdSerialization.isInCache() && astProtobufSerialization.isInCache();
+    return (
+      isRecordInCache() || (cpdSerialization.isInCache() && astProtobufSerialization.isInCache())
+    );
+  }
+
+  private boolean isRecordInCache() {
+    if (recordInCache == null) {
+      recordInCache = recordSerialization.isInCache();
+    }
+    return recordInCache;
   }
 
   Optional<FileMetadata> fileMetadata() throws IOException {
-    if (fileMetadataSerialization.isInCache()) {
-      return Optional.of(fileMetadataSerialization.readFromCache());
+    Optional<FileMetadata> fileMetadata;
+    if (isRecordInCache()) {
+      fileMetadata = recordSerialization.readFileMetadata();
+    } else if (fileMetadataSerialization.isInCache()) {
+      fileMetadata = readLegacyFileMetadata();
     } else {
+      fileMetadata = Optional.empty();
+    }
+    cachedFileMetadata = fileMetadata.orElse(null);
+    return fileMetadata;
+  }
+
+  /**
+   * Metadata of the former layout that a record cannot hold makes a miss, so that the file is
+   * analyzed again and cached in the new layout.
+   */
+  private Optional<FileMetadata> readLegacyFileMetadata() throws IOException {
+    var fileMetadata = fileMetadataSerialization.readFromCache();
+    if (!fileMetadata.hasBinaryForm()) {
+      LOG.debug(
+        "File metadata for key '{}' cannot be migrated",
+        fileMetadataSerialization.getCacheKey()
+      );
       return Optional.empty();
     }
+    return Optional.of(fileMetadata);
   }
 
   CacheAnalysis readFromCache() throws IOException {
-    var astData = astProtobufSerialization.readFromCache();
-    var cpdData = cpdSerialization.readFromCache();
-    return CacheAnalysis.fromCache(cpdData.getCpdTokens(), astData.orElse(null));
+    CacheAnalysis analysis;
+    boolean rewrite;
+    if (isRecordInCache()) {
+      rewrite = stringTable.isCompacted();
+      // a rewritten record copies the AST section instead of encoding the decoded AST again
+      analysis = recordSerialization.readFromCache(rewrite);
+    } else {
+      var astData = astProtobufSerialization.readFromCache();
+      var cpdData = cpdSerialization.readFromCache();
+      analysis = CacheAnalysis.fromCache(cpdData.getCpdTokens(), astData.orElse(null));
+      rewrite = true;
+    }
+    if (rewrite && cachedFileMetadata != null) {
+      rewrittenEntry = recordSerialization.toEntry(analysis, cachedFileMetadata);
+    }
+    return analysis;
+  }
+
+  /**
+   * The fingerprint of the file is taken once, and shared by the check of the cache entry and the
+   * writing of the new one, so that a file is hashed at most once per analysis.
+   */
+  FileFingerprint fingerprint(InputFile file) throws IOException {
+    if (fingerprint == null) {
+      fingerprint = FileFingerprint.of(file);
+    }
+    return fingerprint;
   }
 
   void writeToCache(CacheAnalysis analysis, InputFile file) throws IOException {
-    astProtobufSerialization.writeToCache(analysis.getAst());
-    cpdSerialization.writeToCache(new CpdData(analysis.getCpdTokens()));
-    fileMetadataSerialization.writeToCache(FileMetadata.from(file));
+    recordSerialization.writeToCache(analysis, fingerprint(file).toMetadata());
   }
 
+  /**
+   * A record is copied as is, unless it was read from the former layout or refers to a compacted
+   * string table. It is then written again, along with the file metadata it was matched against.
+   */
   @Override
   void copyFromPrevious() {
-    astProtobufSerialization.copyFromPrevious();
-    cpdSerialization.copyFromPrevious();
+    if (rewrittenEntry != null) {
+      recordSerialization.writeToCache(rewrittenEntry);
+    } else if (isRecordInCache()) {
+      recordSerialization.copyFromPrevious();
+    }
   }
 }
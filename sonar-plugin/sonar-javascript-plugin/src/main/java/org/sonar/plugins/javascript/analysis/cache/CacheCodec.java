@@ -0,0 +1,135 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Configuration;
+
+/**
+ * Compression of cache entries, which are prefixed with the tag of their codec:
+ *
+ * <pre>
+ * entry := codecTag payload
+ * </pre>
+ *
+ * The cache is transferred from and to the server on every analysis, so entries are compressed
+ * with the fastest level of deflate, unless {@value #COMPRESSION_PROPERTY} is set to {@code off}.
+ * Small entries, and the ones that compression does not shrink, are stored as is. Entries are
+ * read whatever the codec they were written with.
+ */
+enum CacheCodec {
+  NONE(0),
+  DEFLATE(1);
+
+  /**
+   * Either {@code deflate}, the default, or {@code off}. Any other value stands for the default.
+   */
+  static final String COMPRESSION_PROPERTY = "sonar.javascript.cache.compression";
+
+  /**
+   * Below this size, the header of the compressed stream outweighs what compression saves.
+   */
+  static final int MIN_SIZE_TO_COMPRESS = 256;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final int tag;
+
+  CacheCodec(int tag) {
+    this.tag = tag;
+  }
+
+  /**
+   * The codec to write entries with, as configured by {@value #COMPRESSION_PROPERTY}.
+   */
+  static CacheCodec fromConfiguration(Configuration configuration) {
+    var compression = configuration.get(COMPRESSION_PROPERTY).orElse("deflate");
+    return "off".equalsIgnoreCase(compression) ? NONE : DEFLATE;
+  }
+
+  /**
+   * Encodes the payload with this codec, unless that does not make it smaller.
+   */
+  ByteString encode(ByteString payload) throws IOException {
+    if (this == DEFLATE && payload.size() >= MIN_SIZE_TO_COMPRESS) {
+      var deflated = DEFLATE.encodeWith(payload);
+      if (deflated.size() <= payload.size()) {
+        return deflated;
+      }
+    }
+    return NONE.encodeWith(payload);
+  }
+
+  ByteString encodeWith(ByteString payload) throws IOException {
+    var prefix = ByteString.copyFrom(new byte[] { (byte) tag });
+    if (this == NONE) {
+      return prefix.concat(payload);
+    }
+    var deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      var output = ByteString.newOutput(Math.max(payload.size() / 4, BUFFER_SIZE));
+      try (var deflating = new DeflaterOutputStream(output, deflater, BUFFER_SIZE)) {
+        payload.writeTo(deflating);
+      }
+      return prefix.concat(output.toByteString());
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Returns the payload of the entry, decompressed while it is read. Closing the returned stream
+   * closes the entry.
+   *
+   * @return null if the entry was written with an unknown codec
+   */
+  @Nullable
+  static InputStream decode(InputStream entry) throws IOException {
+    var tag = entry.read();
+    if (tag == NONE.tag) {
+      return entry;
+    }
+    if (tag == DEFLATE.tag) {
+      return new InflatingInputStream(entry);
+    }
+    entry.close();
+    return null;
+  }
+
+  private static final class InflatingInputStream extends InflaterInputStream {
+
+    private InflatingInputStream(InputStream input) {
+      super(input, new Inflater(), BUFFER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        inf.end();
+      }
+    }
+  }
+}
@@ -32,7 +32,7 @@ class CacheKey {
   private final List<String> prefixes;
   private final String pluginVersion;
 
-  private CacheKey(List<String> prefixes, @Nullable String pluginVersion, String file) {
+  private CacheKey(List<String> prefixes, @Nullable String pluginVersion, @Nullable String file) {
     this.prefixes = prefixes.stream().filter(Objects::nonNull).toList();
     this.pluginVersion = pluginVersion;
     this.file = file;
@@ -42,6 +42,13 @@ class CacheKey {
     return new CacheKey(emptyList(), pluginVersion, inputFile.key());
   }
 
+  /**
+   * Key of data shared by all the files of the project.
+   */
+  static CacheKey forProject(@Nullable String pluginVersion) {
+    return new CacheKey(emptyList(), pluginVersion, null);
+  }
+
   CacheKey forCpd() {
     return withPrefix("js", "cpd");
   }
@@ -50,6 +57,14 @@ class CacheKey {
     return withPrefix("js", "ast");
   }
 
+  CacheKey forAnalysis() {
+    return withPrefix("js", "analysis");
+  }
+
+  CacheKey forCpdStringTable() {
+    return withPrefix("js", "cpd", "strings");
+  }
+
   CacheKey forFileMetadata() {
     return withPrefix("js", "filemetadata");
   }
@@ -68,7 +83,9 @@ class CacheKey {
     if (pluginVersion != null) {
       elements.add(pluginVersion);
     }
-    elements.add(file);
+    if (file != null) {
+      elements.add(file);
+    }
     return String.join(":", elements);
   }
 }
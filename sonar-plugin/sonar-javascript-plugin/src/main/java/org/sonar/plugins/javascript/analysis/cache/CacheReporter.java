@@ -20,9 +20,9 @@ import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.joining;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -33,7 +33,10 @@ class CacheReporter {
 
   private static final Logger LOG = LoggerFactory.getLogger(CacheReporter.class);
 
-  private final Map<Optional<CacheStrategies.MissReason>, AtomicInteger> counters = new HashMap<>();
+  private final Map<Optional<CacheStrategies.MissReason>, AtomicInteger> counters =
+    new ConcurrentHashMap<>();
+
+  private final AtomicInteger clearedWithoutRead = new AtomicInteger(0);
 
   private static String getStrategyMessage(
     CacheStrategy strategy,
@@ -66,8 +69,13 @@ class CacheReporter {
     getCounter(missReason).incrementAndGet();
   }
 
+  void incrementClearedWithoutRead() {
+    clearedWithoutRead.incrementAndGet();
+  }
+
   void reset() {
     counters.clear();
+    clearedWithoutRead.set(0);
   }
 
   void logReport() {
@@ -78,6 +86,13 @@ class CacheReporter {
     if (LOG.isInfoEnabled()) {
       LOG.info("Hit the cache for {} out of {}", hits, total);
       LOG.info("Miss the cache for {} out of {}{}", misses, total, getMissMessages(total));
+      if (clearedWithoutRead.get() > 0) {
+        LOG.info(
+          "Cleared {} out of {} files as unchanged without reading them",
+          clearedWithoutRead.get(),
+          total
+        );
+      }
     }
   }
 
@@ -16,8 +16,10 @@
  */
 package org.sonar.plugins.javascript.analysis.cache;
 
+import com.google.protobuf.ByteString;
 import java.io.IOException;
 import java.io.InputStream;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.sensor.SensorContext;
 
 class CacheSerialization {
@@ -34,8 +36,15 @@ class CacheSerialization {
     return context.previousCache().contains(cacheKey.toString());
   }
 
+  /**
+   * Entries are copied while cache strategies are resolved in parallel, and written while results
+   * are saved, so all accesses to the next cache are serialized.
+   */
   void copyFromPrevious() {
-    context.nextCache().copyFromPrevious(cacheKey.toString());
+    var nextCache = context.nextCache();
+    synchronized (nextCache) {
+      nextCache.copyFromPrevious(cacheKey.toString());
+    }
   }
 
   SensorContext getContext() {
@@ -50,6 +59,16 @@ class CacheSerialization {
     return context.previousCache().read(cacheKey.toString());
   }
 
+  /**
+   * Reads an entry written by {@link #writeEncodedToCache(ByteString)}.
+   *
+   * @return null if the entry was written with an unknown codec
+   */
+  @Nullable
+  InputStream getDecodedInputStream() throws IOException {
+    return CacheCodec.decode(getInputStream());
+  }
+
   byte[] readBytesFromCache() throws IOException {
     try (var input = getInputStream()) {
       return input.readAllBytes();
@@ -57,10 +76,30 @@ class CacheSerialization {
   }
 
   void writeToCache(byte[] bytes) {
-    context.nextCache().write(cacheKey.toString(), bytes);
+    var nextCache = context.nextCache();
+    synchronized (nextCache) {
+      nextCache.write(cacheKey.toString(), bytes);
+    }
   }
 
   void writeToCache(InputStream sequence) {
-    context.nextCache().write(cacheKey.toString(), sequence);
+    var nextCache = context.nextCache();
+    synchronized (nextCache) {
+      nextCache.write(cacheKey.toString(), sequence);
+    }
+  }
+
+  /**
+   * Writes the payload behind the tag of its {@link CacheCodec}, compressing it if worthwhile.
+   */
+  void writeEncodedToCache(ByteString payload) throws IOException {
+    writeToCache(encode(payload).newInput());
+  }
+
+  /**
+   * Encodes the payload with the configured {@link CacheCodec}.
+   */
+  ByteString encode(ByteString payload) throws IOException {
+    return CacheCodec.fromConfiguration(context.config()).encode(payload);
   }
 }
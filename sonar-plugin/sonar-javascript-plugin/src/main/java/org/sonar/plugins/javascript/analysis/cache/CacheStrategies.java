@@ -29,6 +29,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.utils.Version;
 import org.sonar.plugins.javascript.analysis.JsTsContext;
 import org.sonar.plugins.javascript.api.AnalysisMode;
+import org.sonar.plugins.javascript.api.AstScope;
 import org.sonar.plugins.javascript.bridge.PluginInfo;
 
 public class CacheStrategies {
@@ -59,14 +60,25 @@ public class CacheStrategies {
     return logBuilder.toString();
   }
 
-  public static CacheStrategy getStrategyFor(JsTsContext<?> context, InputFile inputFile)
-    throws IOException {
-    return getStrategyFor(context, inputFile, PluginInfo.getVersion());
+  /**
+   * @param astScope part of the AST that the analysis needs, null when it needs none. A cached
+   *                 analysis without such an AST is a miss.
+   * @param stringTable string table of the analysis, which the cache entries refer to
+   */
+  public static CacheStrategy getStrategyFor(
+    JsTsContext<?> context,
+    InputFile inputFile,
+    @Nullable AstScope astScope,
+    AnalysisStringTable stringTable
+  ) throws IOException {
+    return getStrategyFor(context, inputFile, astScope, stringTable, PluginInfo.getVersion());
   }
 
   static CacheStrategy getStrategyFor(
     JsTsContext<?> context,
     InputFile inputFile,
+    @Nullable AstScope astScope,
+    AnalysisStringTable stringTable,
     @Nullable String pluginVersion
   ) throws IOException {
     if (!isRuntimeApiCompatible(context)) {
@@ -75,50 +87,79 @@ public class CacheStrategies {
       return strategy;
     }
 
+    var sensorContext = context.getSensorContext();
     var cacheKey = CacheKey.forFile(inputFile, pluginVersion);
-    var serialization = new CacheAnalysisSerialization(context.getSensorContext(), cacheKey);
+    var serialization = new CacheAnalysisSerialization(
+      sensorContext,
+      cacheKey,
+      stringTable.get(sensorContext, CacheKey.forProject(pluginVersion).forCpdStringTable())
+    );
 
     if (context.getAnalysisMode() == AnalysisMode.DEFAULT) {
-      var strategy = writeOnly(serialization);
+      var strategy = miss(serialization, inputFile);
       REPORTER.logAndIncrement(strategy, inputFile, MissReason.ANALYSIS_MODE_INELIGIBLE);
       return strategy;
     }
 
     var fileMetadata = serialization.fileMetadata();
-    if (fileMetadata.isEmpty() || !isSameFile(fileMetadata.get(), inputFile)) {
-      var strategy = writeOnly(serialization);
+    if (
+      fileMetadata.isEmpty() ||
+      !isSameFile(fileMetadata.get(), serialization.fingerprint(inputFile))
+    ) {
+      var strategy = miss(serialization, inputFile);
       REPORTER.logAndIncrement(strategy, inputFile, MissReason.FILE_CHANGED);
       return strategy;
     }
 
     if (!serialization.isInCache()) {
-      var strategy = writeOnly(serialization);
+      var strategy = miss(serialization, inputFile);
       REPORTER.logAndIncrement(strategy, inputFile, MissReason.FILE_NOT_IN_CACHE);
       return strategy;
     }
 
     var cacheAnalysis = readFromCache(serialization);
     if (cacheAnalysis == null) {
-      var strategy = writeOnly(serialization);
+      var strategy = miss(serialization, inputFile);
       REPORTER.logAndIncrement(strategy, inputFile, MissReason.CACHE_CORRUPTED);
       return strategy;
     }
 
+    if (astScope != null && !cacheAnalysis.hasAst(astScope)) {
+      var strategy = miss(serialization, inputFile);
+      REPORTER.logAndIncrement(strategy, inputFile, MissReason.AST_NOT_CACHED);
+      return strategy;
+    }
+
+    // the entry is only carried over to the next cache once it is used
+    serialization.copyFromPrevious();
     var strategy = readAndWrite(cacheAnalysis, serialization);
     REPORTER.logAndIncrement(strategy, inputFile, null);
     return strategy;
   }
 
-  private static boolean isSameFile(FileMetadata fileMetadata, InputFile inputFile)
+  /**
+   * On a miss, the file is hashed before it is analyzed rather than once its entry is written, so
+   * that the hash is taken along with the size and modification time of the file, and describes
+   * the content sent to the analysis even if the file changes meanwhile.
+   */
+  private static CacheStrategy miss(CacheAnalysisSerialization serialization, InputFile inputFile)
     throws IOException {
-    return fileMetadata.compareTo(inputFile);
+    serialization.fingerprint(inputFile).hash();
+    return writeOnly(serialization);
+  }
+
+  private static boolean isSameFile(FileMetadata fileMetadata, FileFingerprint fingerprint)
+    throws IOException {
+    var match = fileMetadata.match(fingerprint);
+    if (match == FileMetadata.Match.UNCHANGED_WITHOUT_READ) {
+      REPORTER.incrementClearedWithoutRead();
+    }
+    return match != FileMetadata.Match.CHANGED;
   }
 
   static CacheAnalysis readFromCache(CacheAnalysisSerialization serialization) {
     try {
-      var cacheAnalysis = serialization.readFromCache();
-      serialization.copyFromPrevious();
-      return cacheAnalysis;
+      return serialization.readFromCache();
     } catch (IOException e) {
       LOG.error("Failure when reading cache entry", e);
       return null;
@@ -139,7 +180,8 @@ public class CacheStrategies {
     ANALYSIS_MODE_INELIGIBLE("current analysis requires all files to be analyzed"),
     FILE_CHANGED("the current file is changed"),
     FILE_NOT_IN_CACHE("the current file is not cached"),
-    CACHE_CORRUPTED("the cache is corrupted");
+    CACHE_CORRUPTED("the cache is corrupted"),
+    AST_NOT_CACHED("the cached AST does not hold what the consumers need");
 
     private final String description;
 
@@ -18,6 +18,7 @@ package org.sonar.plugins.javascript.analysis.cache;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import org.sonar.plugins.javascript.analyzeproject.grpc.CpdToken;
 import org.sonar.plugins.javascript.analyzeproject.grpc.Location;
@@ -39,6 +40,37 @@ public class CpdDeserializer {
     return deserializer.convert();
   }
 
+  static CpdData fromBinary(byte[] data, ProjectStringTable projectStringTable)
+    throws IOException {
+    try (var in = new VarLengthInputStream(data)) {
+      var strings = projectStringTable.strings(in.readInt());
+      var sizeOfCpdTokens = in.readInt();
+      var cpdTokens = new ArrayList<CpdToken>(sizeOfCpdTokens);
+      var used = new BitSet();
+      for (int i = 0; i < sizeOfCpdTokens; i++) {
+        var location = Location.newBuilder()
+          .setStartLine(in.readInt())
+          .setStartCol(in.readInt())
+          .setEndLine(in.readInt())
+          .setEndCol(in.readInt())
+          .build();
+        var index = in.readInt();
+        if (index < 0 || index >= strings.length) {
+          throw new IOException("Unknown project string table index " + index);
+        }
+        used.set(index);
+        cpdTokens.add(CpdToken.newBuilder().setLocation(location).setImage(strings[index]).build());
+      }
+      if (!"END".equals(in.readUTF())) {
+        throw new IOException("Can't read data from cache, format corrupted");
+      }
+      projectStringTable.markUsed(used);
+      return new CpdData(cpdTokens);
+    } catch (IOException e) {
+      throw new IOException("Can't deserialize data from the cache", e);
+    }
+  }
+
   private CpdData convert() throws IOException {
     try (in; stringTableIn) {
       stringTable = readStringTable();
@@ -39,6 +39,39 @@ class CpdSerializer {
     return serializer.convert(cpdData);
   }
 
+  /**
+   * Refers to the strings of the project table instead of storing a table along with the tokens.
+   */
+  static byte[] toBinary(CpdData cpdData, ProjectStringTable projectStringTable)
+    throws IOException {
+    var cpdTokens = cpdData.getCpdTokens();
+    // the project table is only locked once per file, for its distinct strings
+    var fileStringTable = new StringTable();
+    var fileIndexes = new int[cpdTokens.size()];
+    for (int i = 0; i < fileIndexes.length; i++) {
+      fileIndexes[i] = fileStringTable.getIndex(cpdTokens.get(i).getImage());
+    }
+    var indexes = projectStringTable.indexesOf(fileStringTable.getStringList());
+
+    var stream = new ByteArrayOutputStream();
+    try (var out = new VarLengthOutputStream(stream)) {
+      out.writeInt(projectStringTable.generation());
+      out.writeInt(cpdTokens.size());
+      for (int i = 0; i < fileIndexes.length; i++) {
+        var location = cpdTokens.get(i).getLocation();
+        out.writeInt(location.getStartLine());
+        out.writeInt(location.getStartCol());
+        out.writeInt(location.getEndLine());
+        out.writeInt(location.getEndCol());
+        out.writeInt(indexes[fileIndexes[i]]);
+      }
+      out.writeUTF("END");
+    } catch (IOException e) {
+      throw new IOException("Can't store data in cache", e);
+    }
+    return stream.toByteArray();
+  }
+
   private SerializationResult convert(CpdData cpdData) throws IOException {
     try (out; stream) {
       var cpdTokens = cpdData.getCpdTokens();
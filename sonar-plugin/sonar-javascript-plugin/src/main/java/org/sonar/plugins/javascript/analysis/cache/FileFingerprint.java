@@ -0,0 +1,125 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Size, modification time and hash of a file as seen by the analysis. The file attributes are read
+ * once, and the content is hashed at most once: when the cache entry of the file is checked, or
+ * when the file is about to be analyzed, so that the new entry describes the analyzed content.
+ */
+final class FileFingerprint {
+
+  private static final String DIGEST_ALGORITHM = "MD5";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final InputFile file;
+
+  /**
+   * Null when the file only exists in memory, in which case it is hashed right away.
+   */
+  @Nullable
+  private final Path path;
+
+  private final long size;
+  private final long lastModified;
+  private byte[] hash;
+
+  private FileFingerprint(
+    InputFile file,
+    @Nullable Path path,
+    long size,
+    long lastModified,
+    @Nullable byte[] hash
+  ) {
+    this.file = file;
+    this.path = path;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.hash = hash;
+  }
+
+  static FileFingerprint of(InputFile file) throws IOException {
+    var path = file.path();
+    if (path != null) {
+      try {
+        var size = Files.size(path);
+        var lastModified = Files.getLastModifiedTime(path).toMillis();
+        return new FileFingerprint(file, path, size, lastModified, null);
+      } catch (NoSuchFileException e) {
+        // the file only exists in memory
+      }
+    }
+    var bytes = file.contents().getBytes(file.charset());
+    return new FileFingerprint(file, null, bytes.length, 0, digest().digest(bytes));
+  }
+
+  long size() {
+    return size;
+  }
+
+  /**
+   * Whether the file is known to be unchanged without reading it: it is on disk, and either the
+   * scanner reports it as {@link InputFile.Status#SAME} or it was modified at the cached time.
+   */
+  boolean isUnchangedOnDisk(long cachedLastModified) {
+    return (
+      path != null && (file.status() == InputFile.Status.SAME || lastModified == cachedLastModified)
+    );
+  }
+
+  synchronized byte[] hash() throws IOException {
+    if (hash == null) {
+      hash = computeHash(path);
+    }
+    return hash;
+  }
+
+  FileMetadata toMetadata() throws IOException {
+    return new FileMetadata(size, lastModified, hash());
+  }
+
+  private static byte[] computeHash(Path path) throws IOException {
+    var digest = digest();
+    var buffer = new byte[BUFFER_SIZE];
+    try (InputStream input = Files.newInputStream(path)) {
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return digest.digest();
+  }
+
+  private static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -17,41 +17,89 @@
 package org.sonar.plugins.javascript.analysis.cache;
 
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import org.sonar.api.batch.fs.InputFile;
 
+/**
+ * Identifies the content of a file as it was when its analysis was cached. Files on disk are
+ * compared on their raw bytes: a different size is detected from the file attributes, and a file
+ * with the same size that the scanner reports as {@link InputFile.Status#SAME}, or whose
+ * modification time is unchanged, is cleared without being read at all.
+ */
 public class FileMetadata {
 
+  private static final int HASH_SIZE = 16;
+
+  /**
+   * Size of the binary form: the size and the last modification time, followed by the hash.
+   */
+  static final int BINARY_SIZE = 2 * Long.BYTES + HASH_SIZE;
+
   private final long size;
 
+  private final long lastModified;
+
   private final byte[] hash;
 
-  FileMetadata(long size, byte[] hash) {
+  FileMetadata(long size, long lastModified, byte[] hash) {
     this.size = size;
+    this.lastModified = lastModified;
     this.hash = hash;
   }
 
   static FileMetadata from(InputFile file) throws IOException {
-    return new FileMetadata(fileSize(file), computeHash(file));
+    return FileFingerprint.of(file).toMetadata();
+  }
+
+  static FileMetadata fromBinary(byte[] bytes) throws IOException {
+    if (bytes.length != BINARY_SIZE) {
+      throw new IOException("Invalid size of file metadata: " + bytes.length);
+    }
+    var buffer = ByteBuffer.wrap(bytes);
+    var size = buffer.getLong();
+    var lastModified = buffer.getLong();
+    var hash = new byte[HASH_SIZE];
+    buffer.get(hash);
+    return new FileMetadata(size, lastModified, hash);
+  }
+
+  /**
+   * Metadata read from the former JSON entries may hold the hash of another algorithm, which the
+   * binary form cannot represent.
+   */
+  boolean hasBinaryForm() {
+    return hash != null && hash.length == HASH_SIZE;
+  }
+
+  byte[] toBinary() throws IOException {
+    if (!hasBinaryForm()) {
+      throw new IOException("Unsupported hash in file metadata");
+    }
+    return ByteBuffer.allocate(BINARY_SIZE).putLong(size).putLong(lastModified).put(hash).array();
   }
 
   boolean compareTo(InputFile file) throws IOException {
-    return size == fileSize(file) && Arrays.equals(hash, computeHash(file));
+    return match(file) != Match.CHANGED;
   }
 
-  static int fileSize(InputFile file) throws IOException {
-    return file.contents().getBytes(file.charset()).length;
+  Match match(InputFile file) throws IOException {
+    return match(FileFingerprint.of(file));
   }
 
-  static byte[] computeHash(InputFile file) throws IOException {
-    try {
-      var digest = MessageDigest.getInstance("SHA-256");
-      var bytes = file.contents().getBytes(file.charset());
-      return digest.digest(bytes);
-    } catch (NoSuchAlgorithmException e) {
-      throw new IllegalStateException(e);
+  Match match(FileFingerprint fingerprint) throws IOException {
+    if (size != fingerprint.size()) {
+      return Match.CHANGED;
     }
+    if (fingerprint.isUnchangedOnDisk(lastModified)) {
+      return Match.UNCHANGED_WITHOUT_READ;
+    }
+    return Arrays.equals(hash, fingerprint.hash()) ? Match.UNCHANGED : Match.CHANGED;
+  }
+
+  enum Match {
+    CHANGED,
+    UNCHANGED,
+    UNCHANGED_WITHOUT_READ,
   }
 }
@@ -0,0 +1,205 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import com.google.protobuf.UnsafeByteOperations;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.sensor.SensorContext;
+
+/**
+ * Strings of the CPD tokens of the whole project, which the cache entries of the files refer to by
+ * index. The table is stored once per analysis, and only grows during an analysis, so that the
+ * entries copied from the previous analysis keep referring to the same strings.
+ *
+ * <p>Along with the strings, the table stores which of them are used by the entries of the cache
+ * it is saved to. Once too many strings are unused, the next analysis starts a compacted table
+ * with a new generation. Entries refer to the generation of the table they were written with: the
+ * ones of the previous generation are still read, but are written again instead of being copied.
+ *
+ * <p>Tables are safe for use by multiple threads.
+ */
+class ProjectStringTable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProjectStringTable.class);
+
+  /**
+   * Unused strings are only dropped once they outnumber both this and the used strings.
+   */
+  static final int MIN_UNUSED_STRINGS_TO_COMPACT = 10_000;
+
+  private final CacheSerialization serialization;
+  private final int previousGeneration;
+  private final String[] previousStrings;
+  private final int generation;
+  private final List<String> strings;
+  private final Map<String, Integer> indexes;
+  private final BitSet used = new BitSet();
+
+  private ProjectStringTable(
+    CacheSerialization serialization,
+    int previousGeneration,
+    String[] previousStrings,
+    int generation,
+    List<String> strings
+  ) {
+    this.serialization = serialization;
+    this.previousGeneration = previousGeneration;
+    this.previousStrings = previousStrings;
+    this.generation = generation;
+    this.strings = strings;
+    indexes = new HashMap<>();
+    for (int i = 0; i < strings.size(); i++) {
+      indexes.put(strings.get(i), i);
+    }
+  }
+
+  /**
+   * Reads the table of the previous analysis, compacting it if needed. The table is started over
+   * when the previous one is missing or unreadable.
+   */
+  static ProjectStringTable load(SensorContext context, CacheKey cacheKey) {
+    var serialization = new CacheSerialization(context, cacheKey);
+    if (serialization.isInCache()) {
+      try {
+        return read(serialization);
+      } catch (IOException e) {
+        LOG.warn("Failure when reading the project string table, starting a new one", e);
+      }
+    }
+    var strings = new ArrayList<String>();
+    return new ProjectStringTable(serialization, 0, new String[0], newGeneration(), strings);
+  }
+
+  private static ProjectStringTable read(CacheSerialization serialization) throws IOException {
+    var input = serialization.getDecodedInputStream();
+    if (input == null) {
+      throw new IOException("Unknown codec of the project string table");
+    }
+    try (var in = new VarLengthInputStream(input)) {
+      var generation = in.readInt();
+      var size = in.readInt();
+      var strings = new String[size];
+      for (int i = 0; i < size; i++) {
+        strings[i] = in.readUTF();
+      }
+      var used = BitSet.valueOf(in.readBytes(in.readInt()));
+      if (!"END".equals(in.readUTF())) {
+        throw new IOException("Can't read data from cache, format corrupted");
+      }
+
+      var unused = size - used.cardinality();
+      if (unused < MIN_UNUSED_STRINGS_TO_COMPACT || unused <= used.cardinality()) {
+        var current = new ArrayList<>(Arrays.asList(strings));
+        return new ProjectStringTable(serialization, generation, strings, generation, current);
+      }
+      LOG.debug("Compacting the project string table, dropping {} unused strings", unused);
+      var compacted = new ArrayList<String>(used.cardinality());
+      used.stream().forEach(i -> compacted.add(strings[i]));
+      return new ProjectStringTable(serialization, generation, strings, newGeneration(), compacted);
+    }
+  }
+
+  private static int newGeneration() {
+    // entries of a lost table must not be read with a new one
+    return ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+  }
+
+  boolean belongsTo(SensorContext context, CacheKey cacheKey) {
+    return (
+      serialization.getContext() == context &&
+      serialization.getCacheKey().toString().equals(cacheKey.toString())
+    );
+  }
+
+  int generation() {
+    return generation;
+  }
+
+  /**
+   * Whether the table was compacted, in which case all entries read from the cache refer to the
+   * previous generation and must be written again.
+   */
+  boolean isCompacted() {
+    return generation != previousGeneration;
+  }
+
+  /**
+   * Returns the strings that entries of the given generation refer to.
+   */
+  String[] strings(int entryGeneration) throws IOException {
+    if (entryGeneration != previousGeneration) {
+      throw new IOException("Unknown generation of the project string table: " + entryGeneration);
+    }
+    return previousStrings;
+  }
+
+  /**
+   * Marks strings of the previous generation as used by an entry copied to the next cache.
+   */
+  synchronized void markUsed(BitSet indexes) {
+    if (!isCompacted()) {
+      used.or(indexes);
+    }
+  }
+
+  /**
+   * Returns the indexes of the strings, adding the missing ones to the table.
+   */
+  synchronized int[] indexesOf(List<String> values) {
+    var result = new int[values.size()];
+    for (int i = 0; i < result.length; i++) {
+      int index = indexes.computeIfAbsent(values.get(i), value -> {
+        strings.add(value);
+        return strings.size() - 1;
+      });
+      used.set(index);
+      result[i] = index;
+    }
+    return result;
+  }
+
+  synchronized void save() throws IOException {
+    var stream = new ByteArrayOutputStream();
+    try (var out = new VarLengthOutputStream(stream)) {
+      out.writeInt(generation);
+      out.writeInt(strings.size());
+      for (var string : strings) {
+        out.writeUTF(string);
+      }
+      var usedBytes = used.toByteArray();
+      out.writeInt(usedBytes.length);
+      out.writeBytes(usedBytes);
+      out.writeUTF("END");
+    }
+    serialization.writeEncodedToCache(UnsafeByteOperations.unsafeWrap(stream.toByteArray()));
+    LOG.debug(
+      "Project string table saved with {} strings, {} of them unused",
+      strings.size(),
+      strings.size() - used.cardinality()
+    );
+  }
+}
@@ -20,6 +20,7 @@ import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -31,14 +32,19 @@ public class VarLengthInputStream implements Closeable {
   private final DataInputStream in;
 
   public VarLengthInputStream(byte[] input) {
-    in = new DataInputStream(new ByteArrayInputStream(input));
+    this(new ByteArrayInputStream(input));
+  }
+
+  /**
+   * Reads from the given stream without buffering it, so that the bytes following the encoded
+   * values can be read from the stream itself.
+   */
+  public VarLengthInputStream(InputStream input) {
+    in = new DataInputStream(input);
   }
 
   public String readUTF() throws IOException {
-    var length = readInt();
-    var bytes = new byte[length];
-    in.readFully(bytes);
-    return new String(bytes, StandardCharsets.UTF_8);
+    return new String(readBytes(readInt()), StandardCharsets.UTF_8);
   }
 
   public int readInt() throws IOException {
@@ -54,6 +60,12 @@ public class VarLengthInputStream implements Closeable {
     return result;
   }
 
+  public byte[] readBytes(int length) throws IOException {
+    var bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
   public byte readByte() throws IOException {
     return in.readByte();
   }
@@ -51,6 +51,10 @@ public class VarLengthOutputStream implements Closeable {
   public void writeUTF(@Nullable String string) throws IOException {
     var bytes = Objects.requireNonNullElse(string, "").getBytes(StandardCharsets.UTF_8);
     writeInt(bytes.length);
+    writeBytes(bytes);
+  }
+
+  public void writeBytes(byte[] bytes) throws IOException {
     out.write(bytes);
   }
 
@@ -17,14 +17,27 @@
 package org.sonar.plugins.javascript.analysis;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.slf4j.event.Level;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+import org.sonar.plugins.javascript.api.AstScope;
+import org.sonar.plugins.javascript.api.AstStreamVisitor;
 import org.sonar.plugins.javascript.api.JsAnalysisConsumer;
 import org.sonar.plugins.javascript.api.JsFile;
+import org.sonar.plugins.javascript.bridge.protobuf.EmptyStatement;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
 
 public class AnalysisConsumersTest {
 
@@ -51,6 +64,89 @@ public class AnalysisConsumersTest {
     assertThat(consumers.isEnabled()).isTrue();
   }
 
+  @Test
+  void ast_is_top_level_only_when_all_enabled_consumers_agree() {
+    assertThat(
+      new AnalysisConsumers(List.of(new TopLevelConsumer(), new TopLevelConsumer())).astScope()
+    ).isEqualTo(AstScope.TOP_LEVEL);
+    assertThat(
+      new AnalysisConsumers(List.of(new TopLevelConsumer(), new Consumer(false))).astScope()
+    ).isEqualTo(AstScope.TOP_LEVEL);
+    assertThat(
+      new AnalysisConsumers(List.of(new TopLevelConsumer(), new Consumer(true))).astScope()
+    ).isEqualTo(AstScope.FULL);
+  }
+
+  @Test
+  void thread_safe_consumer_accepts_files_on_its_own_thread_before_done_analysis() {
+    var consumer = new ThreadSafeConsumer();
+    var consumers = new AnalysisConsumers(List.of(consumer));
+    var files = IntStream.range(0, 50)
+      .mapToObj(i -> new JsFile(mock(InputFile.class), null))
+      .toList();
+    files.forEach(consumers::accept);
+    consumers.doneAnalysis(mock(SensorContext.class));
+
+    assertThat(consumer.accepted).containsExactlyElementsOf(files);
+    assertThat(consumer.acceptedFilesAtDone).isEqualTo(files.size());
+    assertThat(consumer.threads).hasSize(1).doesNotContain(Thread.currentThread().getName());
+  }
+
+  @Test
+  void report_time_spent_by_each_consumer() {
+    var consumers = new AnalysisConsumers(
+      List.of(new Consumer("inline", true), new ThreadSafeConsumer())
+    );
+    consumers.accept(new JsFile(mock(InputFile.class), null));
+    consumers.doneAnalysis(mock(SensorContext.class));
+
+    var logs = logTester.logs(Level.INFO).stream().map(log -> log.replaceAll("\\d+ ms", "N ms"));
+    assertThat(logs).contains(
+      "JsAnalysisConsumer inline accepted 1 files in N ms, completed in N ms",
+      "JsAnalysisConsumer threadSafe accepted 1 files in N ms on its own thread, completed in N ms"
+    );
+  }
+
+  @Test
+  void streaming_consumers_walk_serialized_asts_instead_of_programs() {
+    var streaming = new StreamingConsumer();
+    var threadSafe = new ThreadSafeConsumer();
+    var consumers = new AnalysisConsumers(List.of(streaming, threadSafe));
+    assertThat(consumers.needsProgram()).isTrue();
+    assertThat(consumers.hasStreamingConsumers()).isTrue();
+
+    var file = new JsFile(mock(InputFile.class), null);
+    var ast = Node.newBuilder()
+      .setType(NodeType.ProgramType)
+      .setProgram(
+        Program.newBuilder()
+          .addBody(
+            Node.newBuilder()
+              .setType(NodeType.EmptyStatementType)
+              .setEmptyStatement(EmptyStatement.newBuilder())
+          )
+      )
+      .build()
+      .toByteString();
+    consumers.accept(file);
+    consumers.acceptAst(file.inputFile(), ast);
+    // a file whose AST cannot be read, here its type is truncated, is skipped
+    consumers.acceptAst(file.inputFile(), ByteString.copyFrom(new byte[] { 8 }));
+    consumers.doneAnalysis(mock(SensorContext.class));
+
+    assertThat(streaming.enteredNodes).containsExactly("Program", "EmptyStatement");
+    assertThat(threadSafe.accepted).containsExactly(file);
+  }
+
+  @Test
+  void programs_are_not_needed_by_streaming_consumers_only() {
+    var consumers = new AnalysisConsumers(List.of(new StreamingConsumer(), new Consumer(false)));
+    assertThat(consumers.needsProgram()).isFalse();
+    assertThat(consumers.hasStreamingConsumers()).isTrue();
+    var programConsumers = new AnalysisConsumers(List.of(new Consumer(true)));
+    assertThat(programConsumers.hasStreamingConsumers()).isFalse();
+  }
+
   /**
    * Some e2e tests relies on the AnalysisConsumers debug output.
    */
@@ -98,4 +194,78 @@ public class AnalysisConsumersTest {
       return name;
     }
   }
+
+  static class ThreadSafeConsumer extends Consumer {
+
+    private final List<JsFile> accepted = new ArrayList<>();
+    private final Set<String> threads = new HashSet<>();
+    private int acceptedFilesAtDone;
+
+    ThreadSafeConsumer() {
+      super("threadSafe", true);
+    }
+
+    @Override
+    public void accept(JsFile jsFile) {
+      threads.add(Thread.currentThread().getName());
+      accepted.add(jsFile);
+    }
+
+    @Override
+    public void doneAnalysis(SensorContext context) {
+      acceptedFilesAtDone = accepted.size();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+      return true;
+    }
+  }
+
+  static class StreamingConsumer extends Consumer {
+
+    private final List<String> enteredNodes = new ArrayList<>();
+
+    StreamingConsumer() {
+      super("streaming", true);
+    }
+
+    @Override
+    public void accept(JsFile jsFile) {
+      throw new IllegalStateException("streaming consumers are never given programs");
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return true;
+    }
+
+    @Override
+    public AstStreamVisitor astVisitor(InputFile inputFile) {
+      return new AstStreamVisitor() {
+        @Override
+        public void enterNode(
+          String type,
+          int startLine,
+          int startColumn,
+          int endLine,
+          int endColumn
+        ) {
+          enteredNodes.add(type);
+        }
+      };
+    }
+  }
+
+  static class TopLevelConsumer extends Consumer {
+
+    TopLevelConsumer() {
+      super(true);
+    }
+
+    @Override
+    public AstScope astScope() {
+      return AstScope.TOP_LEVEL;
+    }
+  }
 }
@@ -0,0 +1,156 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.plugins.javascript.analysis.cache.CacheStrategy;
+
+class CacheStrategyResolverTest {
+
+  @Test
+  void shouldResolveStrategiesInInputOrder() throws Exception {
+    var files = IntStream.range(0, 100).mapToObj(i -> inputFile("file" + i + ".js")).toList();
+    var strategy = mock(CacheStrategy.class);
+    var firstResolved = new CountDownLatch(1);
+    var lookups = new CopyOnWriteArrayList<InputFile>();
+    var resolved = new ArrayList<CacheStrategyResolver.ResolvedFile>();
+    try (
+      var resolver = new CacheStrategyResolver(
+        files,
+        file -> !file.filename().equals("file1.js"),
+        file -> {
+          if (file.filename().equals("file0.js")) {
+            // the first file is resolved last, later ones must still wait for it
+            await(firstResolved);
+          }
+          if (file.filename().equals("file2.js")) {
+            firstResolved.countDown();
+          }
+          lookups.add(file);
+          return strategy;
+        },
+        4
+      )
+    ) {
+      while (resolver.hasNext()) {
+        resolved.add(resolver.next());
+      }
+    }
+    assertThat(resolved)
+      .extracting(CacheStrategyResolver.ResolvedFile::file)
+      .containsExactlyElementsOf(files);
+    assertThat(resolved.get(1).cacheStrategy()).isNull();
+    assertThat(resolved.get(0).cacheStrategy()).isSameAs(strategy);
+    assertThat(lookups).hasSize(99).doesNotContain(files.get(1));
+  }
+
+  @Test
+  void shouldOnlyResolveBoundedNumberOfFilesAhead() throws Exception {
+    var files = IntStream.range(0, 100).mapToObj(i -> inputFile("file" + i + ".js")).toList();
+    var lookups = new CopyOnWriteArrayList<InputFile>();
+    try (
+      var resolver = new CacheStrategyResolver(
+        files,
+        file -> true,
+        file -> {
+          lookups.add(file);
+          return mock(CacheStrategy.class);
+        },
+        1
+      )
+    ) {
+      resolver.next();
+      // the lookups of the files being resolved ahead may still be running
+      Thread.sleep(100);
+      assertThat(lookups).hasSizeLessThanOrEqualTo(17);
+    }
+  }
+
+  @Test
+  void shouldStopLookupsWhenClosed() throws Exception {
+    var files = IntStream.range(0, 100).mapToObj(i -> inputFile("file" + i + ".js")).toList();
+    var started = new CountDownLatch(1);
+    var lookups = new CopyOnWriteArrayList<InputFile>();
+    var resolver = new CacheStrategyResolver(
+      files,
+      file -> true,
+      file -> {
+        started.countDown();
+        try {
+          Thread.sleep(60_000);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        lookups.add(file);
+        return mock(CacheStrategy.class);
+      },
+      1
+    );
+    started.await();
+    resolver.close();
+
+    // the running lookup was interrupted and waited for, the queued ones never start
+    assertThat(lookups).containsExactly(files.get(0));
+    assertThat(resolver.hasNext()).isFalse();
+    Thread.sleep(100);
+    assertThat(lookups).hasSize(1);
+  }
+
+  @Test
+  void shouldRethrowLookupFailures() throws Exception {
+    var failure = new IOException("boom");
+    try (
+      var resolver = new CacheStrategyResolver(
+        List.of(inputFile("file.js")),
+        file -> true,
+        file -> {
+          throw failure;
+        },
+        2
+      )
+    ) {
+      assertThatThrownBy(resolver::next).isSameAs(failure);
+      assertThat(resolver.hasNext()).isFalse();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static InputFile inputFile(String filename) {
+    var file = mock(InputFile.class);
+    when(file.filename()).thenReturn(filename);
+    return file;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.plugins.javascript.api.JsAnalysisConsumer;
+import org.sonar.plugins.javascript.api.JsFile;
+import org.sonar.plugins.javascript.bridge.AstConversionException;
+
+class ConsumerDeliveryTest {
+
+  private static final JsFile FILE = new JsFile(mock(InputFile.class), null);
+
+  @Test
+  void inline_consumer_failure_is_thrown_on_accept() {
+    var consumer = new FailingConsumer(false);
+    consumer.failing.countDown();
+    var delivery = new ConsumerDelivery(consumer);
+    assertThat(delivery.isConcurrent()).isFalse();
+    assertThatThrownBy(() -> delivery.accept(FILE)).hasMessage("boom");
+  }
+
+  @Test
+  void concurrent_consumer_failure_is_thrown_at_the_barrier_and_drops_later_files() {
+    var consumer = new FailingConsumer(true);
+    var delivery = new ConsumerDelivery(consumer);
+    assertThat(delivery.isConcurrent()).isTrue();
+
+    delivery.accept(FILE);
+    delivery.accept(FILE);
+    consumer.failing.countDown();
+    assertThatThrownBy(delivery::awaitPending).hasMessage("boom");
+    assertThat(consumer.calls).hasValue(1);
+
+    // the failure is only reported once, the next analysis starts afresh
+    delivery.accept(FILE);
+    assertThatThrownBy(delivery::awaitPending).hasMessage("boom");
+    assertThat(consumer.calls).hasValue(2);
+    delivery.awaitPending();
+  }
+
+  @Test
+  void files_whose_ast_cannot_be_converted_are_skipped() {
+    var calls = new AtomicInteger();
+    var consumer = new JsAnalysisConsumer() {
+      @Override
+      public void accept(JsFile jsFile) {
+        calls.incrementAndGet();
+        throw new AstConversionException("unknown node", new IllegalArgumentException());
+      }
+
+      @Override
+      public void doneAnalysis(SensorContext context) {}
+
+      @Override
+      public boolean isThreadSafe() {
+        return true;
+      }
+    };
+    var delivery = new ConsumerDelivery(consumer);
+    delivery.accept(FILE);
+    delivery.accept(FILE);
+    delivery.awaitPending();
+    assertThat(calls).hasValue(2);
+  }
+
+  private static class FailingConsumer implements JsAnalysisConsumer {
+
+    private final boolean threadSafe;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch failing = new CountDownLatch(1);
+
+    FailingConsumer(boolean threadSafe) {
+      this.threadSafe = threadSafe;
+    }
+
+    @Override
+    public void accept(JsFile jsFile) {
+      calls.incrementAndGet();
+      try {
+        failing.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IllegalStateException("boom");
+    }
+
+    @Override
+    public void doneAnalysis(SensorContext context) {}
+
+    @Override
+    public boolean isThreadSafe() {
+      return threadSafe;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.slf4j.event.Level;
+import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+
+class FileResultPipelineTest {
+
+  @RegisterExtension
+  LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  @Test
+  void shouldPersistResultsInSubmissionOrderOnASingleThread() {
+    var persisted = new ArrayList<Integer>();
+    var sinkThreads = new CopyOnWriteArrayList<String>();
+    var firstPrepared = new CountDownLatch(1);
+    try (var pipeline = new FileResultPipeline(4)) {
+      for (int i = 0; i < 8; i++) {
+        var value = i;
+        pipeline.submit(
+          () -> {
+            if (value == 0) {
+              // the first result is prepared last, later ones must still wait for it
+              await(firstPrepared);
+            }
+            if (value == 7) {
+              firstPrepared.countDown();
+            }
+            return value;
+          },
+          v -> {
+            sinkThreads.add(Thread.currentThread().getName());
+            persisted.add(v);
+          }
+        );
+      }
+      pipeline.drain();
+    }
+    assertThat(persisted).containsExactlyElementsOf(
+      IntStream.range(0, 8).boxed().toList()
+    );
+    assertThat(sinkThreads).containsOnly("sonarjs-file-result-sink");
+  }
+
+  @Test
+  void shouldPersistResultsSubmittedFromSeveralThreads() throws Exception {
+    var persisted = new ArrayList<Integer>();
+    try (var pipeline = new FileResultPipeline(4)) {
+      var submitters = new ArrayList<Thread>();
+      for (int t = 0; t < 4; t++) {
+        var offset = t * 500;
+        var submitter = new Thread(() -> {
+          for (int i = offset; i < offset + 500; i++) {
+            var value = i;
+            pipeline.submit(() -> value, persisted::add);
+          }
+        });
+        submitter.start();
+        submitters.add(submitter);
+      }
+      for (var submitter : submitters) {
+        submitter.join();
+      }
+      pipeline.drain();
+    }
+    assertThat(persisted).containsExactlyInAnyOrderElementsOf(
+      IntStream.range(0, 2000).boxed().toList()
+    );
+  }
+
+  @Test
+  void shouldRethrowFirstFailureAndDropLaterResults() {
+    var persisted = new CopyOnWriteArrayList<String>();
+    var failure = new IllegalStateException("boom");
+    var lastSubmitted = new CountDownLatch(1);
+    try (var pipeline = new FileResultPipeline(2)) {
+      pipeline.submit(() -> "a", persisted::add);
+      pipeline.submit(
+        () -> "b",
+        v -> {
+          // fail only once the next result is in the pipeline
+          await(lastSubmitted);
+          throw failure;
+        }
+      );
+      pipeline.submit(() -> "c", persisted::add);
+      lastSubmitted.countDown();
+
+      assertThatThrownBy(pipeline::drain).isSameAs(failure);
+      assertThatThrownBy(() -> pipeline.submit(() -> "d", persisted::add)).isSameAs(failure);
+    }
+    assertThat(persisted).isEqualTo(List.of("a"));
+  }
+
+  @Test
+  void shouldRethrowFailuresWhilePreparing() {
+    var failure = new IllegalArgumentException("cannot decode");
+    try (var pipeline = new FileResultPipeline(1)) {
+      pipeline.submit(
+        () -> {
+          throw failure;
+        },
+        v -> {}
+      );
+
+      assertThatThrownBy(pipeline::drain).isSameAs(failure);
+    }
+  }
+
+  @Test
+  void shouldLogFailuresNeverRethrown() {
+    try (var pipeline = new FileResultPipeline(1)) {
+      pipeline.submit(
+        () -> "a",
+        v -> {
+          throw new IllegalStateException("boom");
+        }
+      );
+    }
+    assertThat(logTester.logs(Level.ERROR)).containsExactly("Failed to save file results");
+
+    logTester.clear();
+    try (var pipeline = new FileResultPipeline(1)) {
+      pipeline.submit(
+        () -> "a",
+        v -> {
+          throw new IllegalStateException("boom");
+        }
+      );
+      assertThatThrownBy(pipeline::drain).hasMessage("boom");
+    }
+    assertThat(logTester.logs(Level.ERROR)).isEmpty();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -47,12 +47,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.io.TempDir;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.event.Level;
@@ -91,6 +91,7 @@ import org.sonar.javascript.checks.CheckList;
 import org.sonar.plugins.javascript.JavaScriptPlugin;
 import org.sonar.plugins.javascript.analysis.cache.CacheTestUtils;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalysisLanguage;
+import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectRequest;
 import org.sonar.plugins.javascript.analyzeproject.grpc.AnalyzeProjectStreamResponse;
 import org.sonar.plugins.javascript.analyzeproject.grpc.CpdToken;
 import org.sonar.plugins.javascript.analyzeproject.grpc.FileResultMessage;
@@ -105,6 +106,7 @@ import org.sonar.plugins.javascript.analyzeproject.grpc.ProjectAnalysisMeta;
 import org.sonar.plugins.javascript.analyzeproject.grpc.QuickFix;
 import org.sonar.plugins.javascript.analyzeproject.grpc.QuickFixEdit;
 import org.sonar.plugins.javascript.analyzeproject.grpc.TextType;
+import org.sonar.plugins.javascript.api.AstStreamVisitor;
 import org.sonar.plugins.javascript.api.JsAnalysisConsumer;
 import org.sonar.plugins.javascript.api.JsFile;
 import org.sonar.plugins.javascript.bridge.BridgeServer;
@@ -468,8 +470,7 @@ class WebSensorTest {
   @Test
   void should_send_skipAst_flag_when_there_are_no_consumers() {
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getConfiguration()
         .getSkipAst()
     ).isTrue();
@@ -479,8 +480,7 @@ class WebSensorTest {
   void should_send_skipAst_flag_when_consumer_is_disabled() {
     JsAnalysisConsumer disabled = createConsumer(false);
     assertThat(
-      executeSensorAndCaptureHandler(createSensorWithConsumer(disabled), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensorWithConsumer(disabled), context)
         .getConfiguration()
         .getSkipAst()
     ).isTrue();
@@ -489,8 +489,7 @@ class WebSensorTest {
   @Test
   void should_not_send_the_skipAst_flag_when_there_are_consumers() {
     assertThat(
-      executeSensorAndCaptureHandler(createSensorWithConsumer(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensorWithConsumer(), context)
         .getConfiguration()
         .getSkipAst()
     ).isFalse();
@@ -499,8 +498,7 @@ class WebSensorTest {
   @Test
   void should_send_createTSProgramForOrphanFiles_true_by_default() {
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getConfiguration()
         .getCreateTsProgramForOrphanFiles()
     ).isTrue();
@@ -512,8 +510,7 @@ class WebSensorTest {
       new MapSettings().setProperty(JavaScriptPlugin.CREATE_TS_PROGRAM_FOR_ORPHAN_FILES, "false")
     );
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getConfiguration()
         .getCreateTsProgramForOrphanFiles()
     ).isFalse();
@@ -522,8 +519,7 @@ class WebSensorTest {
   @Test
   void should_send_disableTypeChecking_false_by_default() {
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getConfiguration()
         .getDisableTypeChecking()
     ).isFalse();
@@ -535,8 +531,7 @@ class WebSensorTest {
       new MapSettings().setProperty(JavaScriptPlugin.DISABLE_TYPE_CHECKING, "true")
     );
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getConfiguration()
         .getDisableTypeChecking()
     ).isTrue();
@@ -548,8 +543,7 @@ class WebSensorTest {
       new MapSettings().setProperty(JavaScriptPlugin.DETECT_GENERATED_CODE_PROPERTY, "false")
     );
 
-    var configuration = executeSensorAndCaptureHandler(createSensor(), context)
-      .getRequest()
+    var configuration = executeSensorAndCaptureRequest(createSensor(), context)
       .getConfiguration();
     var field = configuration.getDescriptorForType().findFieldByName("detect_generated_code");
 
@@ -561,8 +555,7 @@ class WebSensorTest {
   @Test
   void should_send_skipNodeModuleLookupOutsideBaseDir_false_by_default() {
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getConfiguration()
         .getSkipNodeModuleLookupOutsideBaseDir()
     ).isFalse();
@@ -577,8 +570,7 @@ class WebSensorTest {
       )
     );
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getConfiguration()
         .getSkipNodeModuleLookupOutsideBaseDir()
     ).isTrue();
@@ -610,12 +602,10 @@ class WebSensorTest {
     );
     collector.execute(moduleBContext);
 
-    var configuration = executeSensorAndCaptureHandler(
+    var configuration = executeSensorAndCaptureRequest(
       createSensor(moduleConfiguration),
       projectContext
-    )
-      .getRequest()
-      .getConfiguration();
+    ).getConfiguration();
     var expectedPath = projectContext
       .fileSystem()
       .baseDir()
@@ -644,12 +634,10 @@ class WebSensorTest {
 
     collector.execute(projectContext);
 
-    var configuration = executeSensorAndCaptureHandler(
+    var configuration = executeSensorAndCaptureRequest(
       createSensor(moduleConfiguration),
       projectContext
-    )
-      .getRequest()
-      .getConfiguration();
+    ).getConfiguration();
     var expectedGlobPath = new File(
       new File(projectContext.fileSystem().baseDir(), "**/custom.tsconfig.json").toURI().normalize()
     ).getPath();
@@ -676,8 +664,7 @@ class WebSensorTest {
         .setProperty(JavaScriptPlugin.CSS_ADDITIONAL_FILE_SUFFIXES_KEY, ".custom-style")
     );
 
-    var configuration = executeSensorAndCaptureHandler(createSensor(), context)
-      .getRequest()
+    var configuration = executeSensorAndCaptureRequest(createSensor(), context)
       .getConfiguration();
     assertThat(configuration.getHtmlSuffixes().getValuesList()).containsExactly(".custom-html");
     assertThat(configuration.getYamlSuffixes().getValuesList()).containsExactly(".custom-yaml");
@@ -695,8 +682,7 @@ class WebSensorTest {
         .setProperty(JavaScriptPlugin.CSS_ADDITIONAL_FILE_SUFFIXES_KEY, " custom-style ")
     );
 
-    var configuration = executeSensorAndCaptureHandler(createSensor(), context)
-      .getRequest()
+    var configuration = executeSensorAndCaptureRequest(createSensor(), context)
       .getConfiguration();
     assertThat(configuration.getHtmlSuffixes().getValuesList()).containsExactly(".custom-html");
     assertThat(configuration.getYamlSuffixes().getValuesList()).containsExactly(".custom-yaml");
@@ -746,8 +732,7 @@ class WebSensorTest {
     context.fileSystem().add(yamlFile);
     context.fileSystem().add(cssAdditionalFile);
 
-    var requestFiles = executeSensorAndCaptureHandler(createSensor(), context)
-      .getRequest()
+    var requestFiles = executeSensorAndCaptureRequest(createSensor(), context)
       .getFiles();
     assertThat(requestFiles).containsKeys(
       htmlFile.absolutePath(),
@@ -759,8 +744,7 @@ class WebSensorTest {
   @Test
   void should_not_send_content() {
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getFiles()
         .get(inputFile.absolutePath())
         .hasFileContent()
@@ -771,8 +755,7 @@ class WebSensorTest {
   void should_send_content_on_sonarlint() throws Exception {
     setSonarLintRuntime(context);
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getFiles()
         .get(inputFile.absolutePath())
         .getFileContent()
@@ -806,8 +789,7 @@ class WebSensorTest {
     context.fileSystem().add(tsconfigFile);
     context.fileSystem().add(packageJsonFile);
 
-    var requestFiles = executeSensorAndCaptureHandler(createSonarLintSensor(), context)
-      .getRequest()
+    var requestFiles = executeSensorAndCaptureRequest(createSonarLintSensor(), context)
       .getFiles();
 
     assertThat(requestFiles).containsKeys(
@@ -837,8 +819,7 @@ class WebSensorTest {
       .build();
     context.fileSystem().add(inputFile);
     assertThat(
-      executeSensorAndCaptureHandler(createSensor(), context)
-        .getRequest()
+      executeSensorAndCaptureRequest(createSensor(), context)
         .getFiles()
         .get(inputFile.absolutePath())
         .getFileContent()
@@ -863,12 +844,25 @@ class WebSensorTest {
     doThrow(new IOException("boom")).when(failingInputFile).contents();
     context.fileSystem().add(failingInputFile);
 
-    var handler = executeSensorAndCaptureHandler(createSensor(), context);
+    var handler = new AtomicReference<ProjectAnalysisHandler>();
+    var requestFailure = new AtomicReference<Throwable>();
+    doAnswer(invocation -> {
+      handler.set(invocation.getArgument(0));
+      try {
+        handler.get().getRequest();
+      } catch (IllegalStateException e) {
+        requestFailure.set(e);
+      }
+      return null;
+    })
+      .when(bridgeServerMock)
+      .analyzeProject(any(ProjectAnalysisHandler.class));
+    createSensor().execute(context);
 
-    assertThatThrownBy(handler::getRequest)
+    assertThat(requestFailure.get())
       .isInstanceOf(IllegalStateException.class)
       .hasCauseInstanceOf(IOException.class);
-    assertThatThrownBy(() -> handler.getFuture().join())
+    assertThatThrownBy(() -> handler.get().getFuture().join())
       .isInstanceOf(CompletionException.class)
       .hasCauseInstanceOf(IllegalStateException.class);
   }
@@ -1090,6 +1084,75 @@ class WebSensorTest {
     assertThat(logTester.logs(Level.DEBUG)).contains(
       "Processing cache analysis of file: " + inputFile.uri()
     );
+    assertThat(logTester.logs(Level.DEBUG)).anyMatch(log ->
+      log.startsWith("Project string table saved")
+    );
+  }
+
+  @Test
+  void should_not_save_string_table_when_analysis_fails() throws IOException {
+    context = CacheTestUtils.createContextWithCache(
+      baseDir,
+      workDir,
+      inputFile.getModuleRelativePath()
+    );
+    context.fileSystem().add(inputFile);
+    inputFile.setStatus(InputFile.Status.CHANGED);
+
+    var exception = catchThrowable(() ->
+      executeSensorMockingEvents(handler -> dispatchAnalysisStreamError(handler, "error"))
+    );
+    assertThat(exception).isInstanceOf(IllegalStateException.class);
+    assertThat(logTester.logs(Level.DEBUG)).noneMatch(log ->
+      log.startsWith("Project string table saved")
+    );
+  }
+
+  @Test
+  void should_deliver_cache_hits_before_done_analysis() throws IOException {
+    var otherFile = createInputFile(context, "dir/other.ts");
+    context = CacheTestUtils.createContextWithCache(
+      baseDir,
+      workDir,
+      inputFile.getModuleRelativePath(),
+      otherFile.getModuleRelativePath()
+    );
+    for (var file : List.of(inputFile, otherFile)) {
+      context.fileSystem().add(file);
+      file.setStatus(InputFile.Status.SAME);
+    }
+    var acceptedWhenDone = new AtomicReference<Integer>();
+    var consumer = new TestJsAnalysisConsumer() {
+      @Override
+      public void accept(JsFile jsFile) {
+        // leaves time to a premature doneAnalysis to overtake the delivery
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        super.accept(jsFile);
+      }
+
+      @Override
+      public void doneAnalysis(SensorContext context) {
+        acceptedWhenDone.set(files.size());
+        super.doneAnalysis(context);
+      }
+    };
+
+    // every file is a cache hit, the runtime sends no META message
+    doAnswer(invocation -> {
+      ProjectAnalysisHandler handler = invocation.getArgument(0);
+      handler.getRequest();
+      return null;
+    })
+      .when(bridgeServerMock)
+      .analyzeProject(any(ProjectAnalysisHandler.class));
+    createSensorWithConsumer(consumer).execute(context);
+
+    assertThat(acceptedWhenDone).hasValue(2);
+    assertThat(context.cpdTokens(otherFile.key())).hasSize(2);
   }
 
   @Test
@@ -1130,6 +1193,52 @@ class WebSensorTest {
     assertThat(consumer.done).isTrue();
   }
 
+  @Test
+  void should_walk_ast_for_streaming_consumers() {
+    var enteredNodes = new ArrayList<String>();
+    var consumer = new TestJsAnalysisConsumer() {
+      @Override
+      public boolean isStreaming() {
+        return true;
+      }
+
+      @Override
+      public AstStreamVisitor astVisitor(InputFile inputFile) {
+        return new AstStreamVisitor() {
+          @Override
+          public void enterNode(
+            String type,
+            int startLine,
+            int startColumn,
+            int endLine,
+            int endColumn
+          ) {
+            enteredNodes.add(type + " " + startLine + ":" + startColumn);
+          }
+        };
+      }
+    };
+
+    Node placeHolderNode = Node.newBuilder()
+      .setType(NodeType.ProgramType)
+      .setProgram(Program.newBuilder())
+      .setLoc(
+        SourceLocation.newBuilder()
+          .setStart(Position.newBuilder().setLine(1).setColumn(1))
+          .setEnd(Position.newBuilder().setLine(1).setColumn(1))
+      )
+      .build();
+
+    executeSensorMockingResponse(
+      createSensorWithConsumer(consumer),
+      createProjectResponseWithAst(inputFile, placeHolderNode)
+    );
+    assertThat(enteredNodes).containsExactly("Program 1:1");
+    // the program is not built for streaming consumers
+    assertThat(consumer.files).isEmpty();
+    assertThat(consumer.done).isTrue();
+  }
+
   @Test
   void should_not_invoke_analysis_consumers_when_cannot_deserialize_project_analysis() {
     var consumer = createConsumer();
@@ -1148,6 +1257,26 @@ class WebSensorTest {
     );
   }
 
+  @Test
+  void should_save_file_result_when_ast_cannot_be_deserialized() {
+    var consumer = createConsumer();
+    // a length-delimited field longer than the remaining bytes
+    var truncatedAst = ByteString.copyFrom(new byte[] { 0x0a, 0x7f });
+    var response = createResponse().toBuilder().setAst(truncatedAst).build();
+
+    executeSensorMockingResponse(
+      createSensorWithConsumer(consumer),
+      createProjectResponse(Map.of(inputFile.absolutePath(), response))
+    );
+
+    assertThat(context.cpdTokens(inputFile.key())).hasSize(2);
+    assertThat(consumer.files).isEmpty();
+    assertThat(consumer.done).isTrue();
+    assertThat(logTester.logs(Level.ERROR)).anyMatch(log ->
+      log.startsWith("Failed to deserialize Protobuf message")
+    );
+  }
+
   @Test
   void should_create_issues() {
     var expectedResponse = createProjectResponse(
@@ -1628,16 +1757,24 @@ class WebSensorTest {
     );
   }
 
-  private ProjectAnalysisHandler executeSensorAndCaptureHandler(
+  /**
+   * The request is built while the analysis runs, as the input files are no longer resolved once
+   * the sensor is done.
+   */
+  private AnalyzeProjectRequest executeSensorAndCaptureRequest(
     WebSensor sensor,
     SensorContextTester ctx
   ) {
-    ArgumentCaptor<ProjectAnalysisHandler> captor = ArgumentCaptor.forClass(
-      ProjectAnalysisHandler.class
-    );
+    var request = new AtomicReference<AnalyzeProjectRequest>();
+    doAnswer(invocation -> {
+      ProjectAnalysisHandler handler = invocation.getArgument(0);
+      request.set(handler.getRequest());
+      return null;
+    })
+      .when(bridgeServerMock)
+      .analyzeProject(any(ProjectAnalysisHandler.class));
     sensor.execute(ctx);
-    verify(bridgeServerMock).analyzeProject(captor.capture());
-    return captor.getValue();
+    return request.get();
   }
 
   private void executeSensor() {
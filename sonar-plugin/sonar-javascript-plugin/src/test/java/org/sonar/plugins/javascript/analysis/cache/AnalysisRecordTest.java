@@ -0,0 +1,112 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section.AST;
+import static org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section.CPD_TOKENS;
+import static org.sonar.plugins.javascript.analysis.cache.AnalysisRecord.Section.FILE_METADATA;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class AnalysisRecordTest {
+
+  @Test
+  void should_read_written_sections() throws IOException {
+    var bytes = AnalysisRecord.write(
+      Map.of(
+        FILE_METADATA,
+        ByteString.copyFromUtf8("metadata"),
+        AST,
+        ByteString.copyFromUtf8("ast")
+      )
+    );
+
+    var record = AnalysisRecord.read(bytes.newInput());
+    assertThat(record.readSection(FILE_METADATA)).asString().isEqualTo("metadata");
+    assertThat(record.readSection(CPD_TOKENS)).isNull();
+    assertThat(record.streamSection(AST).readAllBytes()).asString().isEqualTo("ast");
+  }
+
+  @Test
+  void should_skip_sections_without_reading_them() throws IOException {
+    var bytes = AnalysisRecord.write(
+      Map.of(
+        FILE_METADATA,
+        ByteString.copyFromUtf8("metadata"),
+        AST,
+        ByteString.copyFromUtf8("ast")
+      )
+    );
+
+    var input = bytes.newInput();
+    var record = AnalysisRecord.read(input);
+    try (var ast = record.streamSection(AST)) {
+      assertThat(ast.read()).isEqualTo('a');
+      assertThat(ast.skip(10)).isEqualTo(2);
+      assertThat(ast.read()).isEqualTo(-1);
+    }
+    assertThat(input.read()).isEqualTo(-1);
+  }
+
+  @Test
+  void should_stop_reading_after_the_requested_section() throws IOException {
+    var bytes = AnalysisRecord.write(
+      Map.of(
+        FILE_METADATA,
+        ByteString.copyFromUtf8("metadata"),
+        AST,
+        ByteString.copyFromUtf8("ast")
+      )
+    );
+
+    var input = bytes.newInput();
+    AnalysisRecord.read(input).readSection(FILE_METADATA);
+    assertThat(input.readAllBytes()).asString().isEqualTo("ast");
+  }
+
+  @Test
+  void should_skip_unknown_sections() throws IOException {
+    // current version, two sections: unknown section 0 of length 2 and AST of length 1
+    var bytes = new byte[] { AnalysisRecord.VERSION, 2, 0, 2, 4, 1, 'x', 'y', 'z' };
+
+    var record = AnalysisRecord.read(new ByteArrayInputStream(bytes));
+    assertThat(record.readSection(AST)).asString().isEqualTo("z");
+  }
+
+  @Test
+  void should_not_read_other_versions() throws IOException {
+    var bytes = new byte[] { AnalysisRecord.VERSION + 1, 0 };
+    assertThat(AnalysisRecord.read(new ByteArrayInputStream(bytes))).isNull();
+  }
+
+  @Test
+  void should_fail_on_truncated_section() throws IOException {
+    var bytes = AnalysisRecord.write(Map.of(CPD_TOKENS, ByteString.copyFromUtf8("data")));
+    var truncated = bytes.substring(0, bytes.size() - 1).newInput();
+
+    var record = AnalysisRecord.read(truncated);
+    assertThatThrownBy(() -> record.readSection(CPD_TOKENS))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Truncated section CPD_TOKENS in cache record");
+  }
+}
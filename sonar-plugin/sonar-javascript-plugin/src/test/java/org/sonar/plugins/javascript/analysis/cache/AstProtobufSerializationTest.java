@@ -0,0 +1,104 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+
+class AstProtobufSerializationTest {
+
+  private static final String KEY = "js:ast:1.0:src/file.js";
+  private static final InputFile INPUT_FILE = mock(InputFile.class);
+  private static final Node AST = Node.newBuilder()
+    .setType(NodeType.ProgramType)
+    .setProgram(Program.newBuilder().setSourceType("module"))
+    .build();
+
+  private ReadCache previousCache;
+  private WriteCache nextCache;
+  private AstProtobufSerialization serialization;
+
+  @BeforeEach
+  void setUp() {
+    previousCache = mock(ReadCache.class);
+    nextCache = mock(WriteCache.class);
+    var context = mock(SensorContext.class);
+    when(INPUT_FILE.key()).thenReturn("src/file.js");
+    when(context.previousCache()).thenReturn(previousCache);
+    when(context.nextCache()).thenReturn(nextCache);
+    serialization = new AstProtobufSerialization(
+      context,
+      CacheKey.forFile(INPUT_FILE, "1.0").forAst()
+    );
+  }
+
+  @Test
+  void should_stream_serialized_ast_to_cache() throws IOException {
+    serialization.writeToCache(AST.toByteString());
+
+    var captor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache).write(eq(KEY), captor.capture());
+    verify(nextCache, never()).write(eq(KEY), any(byte[].class));
+    assertThat(Node.parseFrom(captor.getValue())).isEqualTo(AST);
+  }
+
+  @Test
+  void should_write_empty_entry_without_ast() {
+    serialization.writeToCache((ByteString) null);
+
+    verify(nextCache).write(KEY, new byte[0]);
+  }
+
+  @Test
+  void should_parse_ast_from_cache_stream() throws IOException {
+    when(previousCache.read(KEY)).thenReturn(new ByteArrayInputStream(AST.toByteArray()));
+    assertThat(serialization.readFromCache()).contains(AST);
+
+    when(previousCache.read(KEY)).thenReturn(new ByteArrayInputStream(new byte[0]));
+    assertThat(serialization.readFromCache()).isEmpty();
+  }
+
+
+  @Test
+  void should_fail_on_corrupted_entry() {
+    when(previousCache.read(KEY)).thenReturn(new ByteArrayInputStream(new byte[] { 42 }));
+    assertThatThrownBy(serialization::readFromCache)
+      .isInstanceOf(IOException.class)
+      .hasMessage("The AST is null for key " + KEY);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.protobuf.ByteString;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.javascript.api.AstScope;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+
+class CacheAnalysisTest {
+
+  private static final Node AST = Node.newBuilder()
+    .setType(NodeType.ProgramType)
+    .setProgram(Program.newBuilder().setSourceType("module"))
+    .build();
+
+  @Test
+  void should_keep_serialized_ast_from_response() {
+    var serializedAst = AST.toByteString();
+    var analysis = CacheAnalysis.fromResponse(List.of(), serializedAst, AstScope.FULL);
+    assertThat(analysis.getSerializedAst()).isSameAs(serializedAst);
+    assertThat(analysis.getAst()).isNull();
+  }
+
+  @Test
+  void should_not_keep_empty_ast_from_response() {
+    var empty = CacheAnalysis.fromResponse(List.of(), ByteString.EMPTY, AstScope.FULL);
+    assertThat(empty.getSerializedAst()).isNull();
+    assertThat(empty.hasAst(AstScope.TOP_LEVEL)).isFalse();
+    var absent = CacheAnalysis.fromResponse(List.of(), null, AstScope.FULL);
+    assertThat(absent.getSerializedAst()).isNull();
+  }
+
+  @Test
+  void should_only_have_the_ast_of_its_scope() {
+    var pruned = CacheAnalysis.fromResponse(List.of(), AST.toByteString(), AstScope.TOP_LEVEL);
+    assertThat(pruned.hasAst(AstScope.TOP_LEVEL)).isTrue();
+    assertThat(pruned.hasAst(AstScope.FULL)).isFalse();
+
+    var full = CacheAnalysis.fromCache(List.of(), AST);
+    assertThat(full.hasAst(AstScope.TOP_LEVEL)).isTrue();
+    assertThat(full.hasAst(AstScope.FULL)).isTrue();
+  }
+
+  @Test
+  void should_serialize_decoded_ast() {
+    var analysis = CacheAnalysis.fromCache(List.of(), AST);
+    assertThat(analysis.getAst()).isSameAs(AST);
+    assertThat(analysis.getSerializedAst()).isEqualTo(AST.toByteString());
+    assertThat(CacheAnalysis.fromCache(List.of(), null).getSerializedAst()).isNull();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.sonar.scanner.plugin.api.impl.config.MapSettings;
+
+class CacheCodecTest {
+
+  @Test
+  void should_compress_large_payloads() throws IOException {
+    var payload = ByteString.copyFromUtf8("function foo() { return 42; }\n".repeat(100));
+
+    var entry = CacheCodec.DEFLATE.encode(payload);
+
+    assertThat(entry.byteAt(0)).isEqualTo((byte) 1);
+    assertThat(entry.size()).isLessThan(payload.size() / 10);
+    assertThat(decode(entry)).isEqualTo(payload);
+  }
+
+  @Test
+  void should_not_compress_small_payloads() throws IOException {
+    var payload = ByteString.copyFromUtf8("a".repeat(CacheCodec.MIN_SIZE_TO_COMPRESS - 1));
+
+    var entry = CacheCodec.DEFLATE.encode(payload);
+
+    assertThat(entry.byteAt(0)).isZero();
+    assertThat(entry.substring(1)).isEqualTo(payload);
+    assertThat(decode(entry)).isEqualTo(payload);
+  }
+
+  @Test
+  void should_not_compress_incompressible_payloads() throws IOException {
+    var bytes = new byte[10_000];
+    new Random(42).nextBytes(bytes);
+    var payload = ByteString.copyFrom(bytes);
+
+    var entry = CacheCodec.DEFLATE.encode(payload);
+
+    assertThat(entry.byteAt(0)).isZero();
+    assertThat(decode(entry)).isEqualTo(payload);
+  }
+
+  @Test
+  void should_not_compress_when_compression_is_off() throws IOException {
+    var payload = ByteString.copyFromUtf8("function foo() { return 42; }\n".repeat(100));
+
+    var entry = CacheCodec.NONE.encode(payload);
+
+    assertThat(entry.byteAt(0)).isZero();
+    assertThat(entry.substring(1)).isEqualTo(payload);
+    assertThat(decode(entry)).isEqualTo(payload);
+  }
+
+  @Test
+  void should_read_codec_from_configuration() {
+    var settings = new MapSettings();
+    assertThat(CacheCodec.fromConfiguration(settings.asConfig())).isEqualTo(CacheCodec.DEFLATE);
+
+    settings.setProperty(CacheCodec.COMPRESSION_PROPERTY, "off");
+    assertThat(CacheCodec.fromConfiguration(settings.asConfig())).isEqualTo(CacheCodec.NONE);
+
+    settings.setProperty(CacheCodec.COMPRESSION_PROPERTY, "deflate");
+    assertThat(CacheCodec.fromConfiguration(settings.asConfig())).isEqualTo(CacheCodec.DEFLATE);
+  }
+
+  @Test
+  void should_encode_with_given_codec() throws IOException {
+    var payload = ByteString.copyFromUtf8("a");
+
+    assertThat(decode(CacheCodec.DEFLATE.encodeWith(payload))).isEqualTo(payload);
+    assertThat(decode(CacheCodec.NONE.encodeWith(payload))).isEqualTo(payload);
+  }
+
+  @Test
+  void should_not_decode_unknown_codec() throws IOException {
+    var entry = new ByteArrayInputStream(new byte[] { 42, 0 });
+    assertThat(CacheCodec.decode(entry)).isNull();
+  }
+
+  @Test
+  void should_fail_on_truncated_compressed_payload() throws IOException {
+    var entry = CacheCodec.DEFLATE.encodeWith(ByteString.copyFromUtf8("a".repeat(1000)));
+    var truncated = entry.substring(0, entry.size() / 2);
+
+    assertThatThrownBy(() -> decode(truncated)).isInstanceOf(IOException.class);
+  }
+
+  private static ByteString decode(ByteString entry) throws IOException {
+    try (var input = CacheCodec.decode(entry.newInput())) {
+      return ByteString.readFrom(input);
+    }
+  }
+}
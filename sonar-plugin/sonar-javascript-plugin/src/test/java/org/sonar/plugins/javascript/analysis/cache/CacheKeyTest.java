@@ -43,4 +43,19 @@ class CacheKeyTest {
   void test_ast_key() {
     assertThat(CacheKey.forFile(inputFile, null).forAst()).hasToString("js:ast:fileKey");
   }
+
+  @Test
+  void test_analysis_key() {
+    assertThat(CacheKey.forFile(inputFile, null).forAnalysis()).hasToString(
+      "js:analysis:fileKey"
+    );
+  }
+
+  @Test
+  void test_cpd_string_table_key() {
+    assertThat(CacheKey.forProject("1.0.0").forCpdStringTable()).hasToString(
+      "js:cpd:strings:1.0.0"
+    );
+    assertThat(CacheKey.forProject(null).forCpdStringTable()).hasToString("js:cpd:strings");
+  }
 }
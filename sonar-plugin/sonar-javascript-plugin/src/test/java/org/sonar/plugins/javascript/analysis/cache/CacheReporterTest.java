@@ -101,6 +101,31 @@ class CacheReporterTest {
     );
   }
 
+  @Test
+  void should_report_files_cleared_without_read() {
+    when(inputFile.toString()).thenReturn("file.js");
+
+    cacheReporter.logReport();
+    assertThat(logTester.logs()).noneMatch(log -> log.startsWith("Cleared"));
+
+    cacheReporter.incrementClearedWithoutRead();
+    cacheReporter.logAndIncrement(createReadAndWrite(), inputFile, null);
+    cacheReporter.logAndIncrement(
+      writeOnly(createSerialization()),
+      inputFile,
+      CacheStrategies.MissReason.FILE_CHANGED
+    );
+    cacheReporter.logReport();
+    assertThat(logTester.logs()).contains(
+      "Cleared 1 out of 2 files as unchanged without reading them"
+    );
+
+    logTester.clear();
+    cacheReporter.reset();
+    cacheReporter.logReport();
+    assertThat(logTester.logs()).noneMatch(log -> log.startsWith("Cleared"));
+  }
+
   private CacheStrategy createReadAndWrite() {
     return CacheStrategy.readAndWrite(
       CacheAnalysis.fromCache(List.of(), null),
@@ -109,6 +134,10 @@ class CacheReporterTest {
   }
 
   private CacheAnalysisSerialization createSerialization() {
-    return new CacheAnalysisSerialization(context, CacheKey.forFile(inputFile, null));
+    return new CacheAnalysisSerialization(
+      context,
+      CacheKey.forFile(inputFile, null),
+      mock(ProjectStringTable.class)
+    );
   }
 }
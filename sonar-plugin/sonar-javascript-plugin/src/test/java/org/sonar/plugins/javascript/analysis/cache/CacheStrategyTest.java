@@ -21,10 +21,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.plugins.javascript.analysis.cache.CacheStrategy.readAndWrite;
@@ -32,18 +34,24 @@ import static org.sonar.plugins.javascript.analysis.cache.CacheStrategy.writeOnl
 import static org.sonar.plugins.javascript.analysis.cache.CacheTestUtils.inputStream;
 
 import com.google.gson.Gson;
+import com.google.protobuf.ByteString;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.slf4j.event.Level;
 import org.sonar.api.SonarEdition;
 import org.sonar.api.SonarQubeSide;
 import org.sonar.api.batch.fs.FileSystem;
@@ -57,6 +65,11 @@ import org.sonar.api.testfixtures.log.LogTesterJUnit5;
 import org.sonar.api.utils.Version;
 import org.sonar.plugins.javascript.analysis.JsTsContext;
 import org.sonar.plugins.javascript.analyzeproject.grpc.CpdToken;
+import org.sonar.plugins.javascript.api.AstScope;
+import org.sonar.plugins.javascript.bridge.protobuf.Node;
+import org.sonar.plugins.javascript.bridge.protobuf.NodeType;
+import org.sonar.plugins.javascript.bridge.protobuf.Program;
+import org.sonar.scanner.plugin.api.impl.config.MapSettings;
 
 @SuppressWarnings("resource")
 class CacheStrategyTest {
@@ -65,10 +78,13 @@ class CacheStrategyTest {
   static final String PLUGIN_VERSION = "1.0.0";
 
   CacheAnalysisSerialization serialization;
+  AnalysisStringTable analysisStringTable;
   String cpdDataCacheKey;
   String cpdStringTableCacheKey;
   String metadataCacheKey;
   String astCacheKey;
+  String recordCacheKey;
+  CacheKey stringTableCacheKey;
 
   @TempDir
   Path baseDir;
@@ -83,6 +99,7 @@ class CacheStrategyTest {
   WriteCache nextCache;
   FileSystem fileSystem;
   Path workDir;
+  MapSettings settings;
 
   @RegisterExtension
   LogTesterJUnit5 logTester = new LogTesterJUnit5();
@@ -110,8 +127,11 @@ class CacheStrategyTest {
     context = new JsTsContext<>(sensorContext);
     serialization = new CacheAnalysisSerialization(
       sensorContext,
-      CacheKey.forFile(inputFile, PLUGIN_VERSION)
+      CacheKey.forFile(inputFile, PLUGIN_VERSION),
+      mock(ProjectStringTable.class)
     );
+    CacheStrategies.reset();
+    analysisStringTable = new AnalysisStringTable();
 
     cpdDataCacheKey = CacheKey.forFile(inputFile, PLUGIN_VERSION)
       .forCpd()
@@ -123,6 +143,8 @@ class CacheStrategyTest {
       .toString();
     metadataCacheKey = CacheKey.forFile(inputFile, PLUGIN_VERSION).forFileMetadata().toString();
     astCacheKey = CacheKey.forFile(inputFile, PLUGIN_VERSION).forAst().toString();
+    recordCacheKey = CacheKey.forFile(inputFile, PLUGIN_VERSION).forAnalysis().toString();
+    stringTableCacheKey = CacheKey.forProject(PLUGIN_VERSION).forCpdStringTable();
 
     when(sensorContext.runtime()).thenReturn(
       TestSonarRuntime.forSonarQube(
@@ -134,6 +156,8 @@ class CacheStrategyTest {
     when(sensorContext.previousCache()).thenReturn(previousCache);
     when(sensorContext.nextCache()).thenReturn(nextCache);
     when(sensorContext.fileSystem()).thenReturn(fileSystem);
+    settings = new MapSettings();
+    when(sensorContext.config()).thenReturn(settings.asConfig());
 
     when(previousCache.contains(metadataCacheKey)).thenReturn(true);
     var metadata = inputStream(new Gson().toJson(FileMetadata.from(inputFile)));
@@ -147,6 +171,8 @@ class CacheStrategyTest {
   void should_generate_cache_keys() {
     assertThat(cpdDataCacheKey).isEqualTo("js:cpd:DATA:1.0.0:src/test.js");
     assertThat(cpdStringTableCacheKey).isEqualTo("js:cpd:STRING_TABLE:1.0.0:src/test.js");
+    assertThat(recordCacheKey).isEqualTo("js:analysis:1.0.0:src/test.js");
+    assertThat(stringTableCacheKey).hasToString("js:cpd:strings:1.0.0");
   }
 
   @Test
@@ -160,7 +186,7 @@ class CacheStrategyTest {
       )
     );
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.NO_CACHE);
     assertThat(strategy.isAnalysisRequired()).isTrue();
     verify(sensorContext, never()).nextCache();
@@ -171,7 +197,7 @@ class CacheStrategyTest {
   void should_not_fail_in_sonarlint() throws Exception {
     when(sensorContext.runtime()).thenReturn(TestSonarRuntime.forSonarLint(Version.create(9, 6)));
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.NO_CACHE);
     assertThat(strategy.isAnalysisRequired()).isTrue();
     verify(sensorContext, never()).nextCache();
@@ -184,26 +210,68 @@ class CacheStrategyTest {
 
     when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
     strategy.writeAnalysisToCache(new CacheAnalysis(CPD_TOKENS, null), inputFile);
 
-    var cpdDataCaptor = ArgumentCaptor.forClass(byte[].class);
-    var cpdStringTableCaptor = ArgumentCaptor.forClass(byte[].class);
-    verify(nextCache).write(eq(cpdDataCacheKey), cpdDataCaptor.capture());
-    verify(nextCache).write(eq(cpdStringTableCacheKey), cpdStringTableCaptor.capture());
+    var recordCaptor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache).write(eq(recordCacheKey), recordCaptor.capture());
+    verify(nextCache, never()).write(eq(cpdDataCacheKey), any(byte[].class));
+    verify(nextCache, never()).write(eq(cpdStringTableCacheKey), any(byte[].class));
+    verify(nextCache, never()).write(eq(metadataCacheKey), any(byte[].class));
 
+    var record = AnalysisRecord.read(CacheCodec.decode(recordCaptor.getValue()));
+    assertThat(record.readSection(AnalysisRecord.Section.FILE_METADATA)).isNotNull();
     var cpdData = CpdDeserializer.fromBinary(
-      cpdDataCaptor.getValue(),
-      cpdStringTableCaptor.getValue()
+      record.readSection(AnalysisRecord.Section.CPD_TOKENS),
+      savedStringTable()
     );
     assertThat(cpdData.getCpdTokens())
       .usingRecursiveFieldByFieldElementComparator()
       .containsExactlyElementsOf(CPD_TOKENS);
   }
 
+  @Test
+  void should_compress_cache_entries_by_default() throws IOException {
+    var entry = writeLargeAnalysis();
+
+    assertThat(entry.byteAt(0)).isEqualTo((byte) 1);
+    assertThat(readCpdTokens(entry)).hasSize(100);
+  }
+
+  @Test
+  void should_not_compress_cache_entries_when_compression_is_off() throws IOException {
+    settings.setProperty(CacheCodec.COMPRESSION_PROPERTY, "off");
+
+    var entry = writeLargeAnalysis();
+
+    assertThat(entry.byteAt(0)).isZero();
+    assertThat(readCpdTokens(entry)).hasSize(100);
+  }
+
+  private ByteString writeLargeAnalysis() throws IOException {
+    when(previousCache.contains(anyString())).thenReturn(false);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    var cpdTokens = Collections.nCopies(100, CPD_TOKENS.get(0));
+    strategy.writeAnalysisToCache(new CacheAnalysis(cpdTokens, null), inputFile);
+
+    var recordCaptor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache).write(eq(recordCacheKey), recordCaptor.capture());
+    return ByteString.readFrom(recordCaptor.getValue());
+  }
+
+  private List<CpdToken> readCpdTokens(ByteString entry) throws IOException {
+    var record = AnalysisRecord.read(CacheCodec.decode(entry.newInput()));
+    return CpdDeserializer.fromBinary(
+      record.readSection(AnalysisRecord.Section.CPD_TOKENS),
+      savedStringTable()
+    ).getCpdTokens();
+  }
+
   @Test
   void should_write_an_empty_archive_in_cache() throws IOException {
     when(inputFile.status()).thenReturn(InputFile.Status.SAME);
@@ -212,17 +280,177 @@ class CacheStrategyTest {
 
     when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+    assertThat(strategy.isAnalysisRequired()).isTrue();
+
+    strategy.writeAnalysisToCache(
+      CacheAnalysis.fromResponse(CPD_TOKENS, null, AstScope.FULL),
+      inputFile
+    );
+    verify(nextCache).write(eq(recordCacheKey), any(InputStream.class));
+  }
+
+  @Test
+  void should_read_record_from_cache() throws IOException {
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+
+    var record = cachedRecord(new CacheAnalysis(CPD_TOKENS, null));
+    when(previousCache.contains(recordCacheKey)).thenReturn(true);
+    when(previousCache.read(recordCacheKey)).thenAnswer(invocation -> record.newInput());
+
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
+    assertThat(strategy.isAnalysisRequired()).isFalse();
+    assertThat(strategy.readAnalysisFromCache().getCpdTokens())
+      .usingRecursiveFieldByFieldElementComparator()
+      .containsExactlyElementsOf(CPD_TOKENS);
+
+    verify(previousCache).contains(recordCacheKey);
+    verify(previousCache, times(2)).read(recordCacheKey);
+    verify(nextCache).copyFromPrevious(recordCacheKey);
+    verify(previousCache, never()).read(metadataCacheKey);
+    verify(previousCache, never()).read(cpdDataCacheKey);
+    verify(previousCache, never()).read(astCacheKey);
+  }
+
+  @Test
+  void should_miss_records_without_the_ast_needed_by_consumers() throws IOException {
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+
+    var program = Node.newBuilder()
+      .setType(NodeType.ProgramType)
+      .setProgram(Program.newBuilder().setSourceType("module"))
+      .build();
+    var record = cachedRecord(
+      CacheAnalysis.fromResponse(CPD_TOKENS, program.toByteString(), AstScope.TOP_LEVEL)
+    );
+    when(previousCache.contains(recordCacheKey)).thenReturn(true);
+    when(previousCache.read(recordCacheKey)).thenAnswer(invocation -> record.newInput());
+
+    var strategy = getStrategyFor(AstScope.FULL, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+    verify(nextCache, never()).copyFromPrevious(recordCacheKey);
+
+    strategy = getStrategyFor(AstScope.TOP_LEVEL, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
+    assertThat(strategy.readAnalysisFromCache().getAst()).isEqualTo(program);
+    verify(nextCache).copyFromPrevious(recordCacheKey);
+  }
+
+  @Test
+  void should_miss_records_without_ast_when_consumers_need_one() throws IOException {
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+
+    var record = cachedRecord(new CacheAnalysis(CPD_TOKENS, null));
+    when(previousCache.contains(recordCacheKey)).thenReturn(true);
+    when(previousCache.read(recordCacheKey)).thenAnswer(invocation -> record.newInput());
+
+    var strategy = getStrategyFor(AstScope.TOP_LEVEL, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
+    verify(nextCache, never()).copyFromPrevious(recordCacheKey);
+  }
 
-    strategy.writeAnalysisToCache(CacheAnalysis.fromResponse(CPD_TOKENS, null), inputFile);
-    verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
-    verify(nextCache).write(eq(cpdStringTableCacheKey), any(byte[].class));
+  @Test
+  void should_write_again_records_of_compacted_string_table() throws IOException {
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+
+    // the program is repeated, and merged when decoded, which encoding the decoded AST would lose
+    var program = Node.newBuilder()
+      .setType(NodeType.ProgramType)
+      .setProgram(Program.newBuilder().setSourceType("module"))
+      .build()
+      .toByteString();
+    var ast = program.concat(program);
+    var record = cachedRecord(CacheAnalysis.fromResponse(CPD_TOKENS, ast, AstScope.FULL));
+    // an analysis adding strings, then one where none of the strings are used
+    var stringTable = ProjectStringTable.load(sensorContext, stringTableCacheKey);
+    stringTable.indexesOf(
+      IntStream.range(0, ProjectStringTable.MIN_UNUSED_STRINGS_TO_COMPACT)
+        .mapToObj(String::valueOf)
+        .toList()
+    );
+    stringTable.save();
+    mockStringTable(lastSavedStringTable());
+    ProjectStringTable.load(sensorContext, stringTableCacheKey).save();
+    mockStringTable(lastSavedStringTable());
+    when(previousCache.contains(recordCacheKey)).thenReturn(true);
+    when(previousCache.read(recordCacheKey)).thenAnswer(invocation -> record.newInput());
+
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
+    verify(nextCache, never()).copyFromPrevious(recordCacheKey);
+
+    var recordCaptor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache).write(eq(recordCacheKey), recordCaptor.capture());
+    var rewritten = AnalysisRecord.read(CacheCodec.decode(recordCaptor.getValue()));
+    rewritten.readSection(AnalysisRecord.Section.FILE_METADATA);
+    var cpdData = CpdDeserializer.fromBinary(
+      rewritten.readSection(AnalysisRecord.Section.CPD_TOKENS),
+      savedStringTable()
+    );
+    assertThat(cpdData.getCpdTokens())
+      .usingRecursiveFieldByFieldElementComparator()
+      .containsExactlyElementsOf(CPD_TOKENS);
+    assertThat(rewritten.readSection(AnalysisRecord.Section.AST)).isEqualTo(ast.toByteArray());
   }
 
   @Test
-  void should_read_from_cache() throws IOException {
+  void should_ignore_record_of_another_format_version() throws IOException {
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+    when(previousCache.contains(recordCacheKey)).thenReturn(true);
+    when(previousCache.read(recordCacheKey)).thenReturn(
+      inputStream(new byte[] { 0, AnalysisRecord.VERSION + 1, 0 })
+    );
+
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+    assertThat(strategy.isAnalysisRequired()).isTrue();
+    verify(nextCache, never()).copyFromPrevious(recordCacheKey);
+  }
+
+  @Test
+  void should_ignore_record_of_unknown_codec() throws IOException {
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+    when(previousCache.contains(recordCacheKey)).thenReturn(true);
+    when(previousCache.read(recordCacheKey)).thenReturn(inputStream(new byte[] { 42, 0 }));
+
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+    assertThat(strategy.isAnalysisRequired()).isTrue();
+    verify(nextCache, never()).copyFromPrevious(recordCacheKey);
+  }
+
+  @Test
+  void should_handle_invalid_ast_in_record() throws IOException {
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+
+    var record = cachedRecord(
+      CacheAnalysis.fromResponse(
+        CPD_TOKENS,
+        ByteString.copyFrom(new byte[] { 42 }),
+        AstScope.FULL
+      )
+    );
+    when(previousCache.contains(recordCacheKey)).thenReturn(true);
+    when(previousCache.read(recordCacheKey)).thenAnswer(invocation -> record.newInput());
+
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+    assertThat(strategy.isAnalysisRequired()).isTrue();
+    verify(nextCache, never()).copyFromPrevious(recordCacheKey);
+  }
+
+  @Test
+  void should_migrate_legacy_entries_from_cache() throws IOException {
     when(inputFile.status()).thenReturn(InputFile.Status.SAME);
     when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
 
@@ -236,18 +464,58 @@ class CacheStrategyTest {
       inputStream(serializationResult.getStringTable())
     );
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
     assertThat(strategy.isAnalysisRequired()).isFalse();
 
     verify(previousCache).read(cpdDataCacheKey);
-    verify(nextCache).copyFromPrevious(cpdDataCacheKey);
     verify(previousCache).read(cpdStringTableCacheKey);
-    verify(nextCache).copyFromPrevious(cpdStringTableCacheKey);
+    verify(nextCache, never()).copyFromPrevious(cpdDataCacheKey);
+    verify(nextCache, never()).copyFromPrevious(cpdStringTableCacheKey);
 
-    strategy.writeAnalysisToCache(new CacheAnalysis(CPD_TOKENS, null), inputFile);
-    verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
-    verify(nextCache).write(eq(cpdStringTableCacheKey), any(byte[].class));
+    var recordCaptor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache).write(eq(recordCacheKey), recordCaptor.capture());
+    var record = AnalysisRecord.read(CacheCodec.decode(recordCaptor.getValue()));
+    var metadata = record.readSection(AnalysisRecord.Section.FILE_METADATA);
+    assertThat(metadata).isEqualTo(FileMetadata.from(inputFile).toBinary());
+    var cpdData = CpdDeserializer.fromBinary(
+      record.readSection(AnalysisRecord.Section.CPD_TOKENS),
+      savedStringTable()
+    );
+    assertThat(cpdData.getCpdTokens())
+      .usingRecursiveFieldByFieldElementComparator()
+      .containsExactlyElementsOf(CPD_TOKENS);
+  }
+
+  @Test
+  void should_miss_legacy_entries_that_cannot_be_migrated() throws IOException {
+    logTester.setLevel(Level.DEBUG);
+    when(inputFile.status()).thenReturn(InputFile.Status.SAME);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
+
+    var gson = new Gson();
+    var metadata = gson.toJsonTree(FileMetadata.from(inputFile)).getAsJsonObject();
+    // hash of another algorithm
+    metadata.add("hash", gson.toJsonTree(new byte[32]));
+    when(previousCache.read(metadataCacheKey)).thenReturn(inputStream(gson.toJson(metadata)));
+    var serializationResult = CpdSerializer.toBinary(new CpdData(CPD_TOKENS));
+    when(previousCache.contains(cpdDataCacheKey)).thenReturn(true);
+    when(previousCache.contains(cpdStringTableCacheKey)).thenReturn(true);
+    when(previousCache.read(cpdDataCacheKey)).thenReturn(
+      inputStream(serializationResult.getData())
+    );
+    when(previousCache.read(cpdStringTableCacheKey)).thenReturn(
+      inputStream(serializationResult.getStringTable())
+    );
+
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+    assertThat(strategy.isAnalysisRequired()).isTrue();
+    assertThat(logTester.logs(Level.ERROR)).isEmpty();
+    assertThat(logTester.logs(Level.DEBUG)).contains(
+      "File metadata for key '" + metadataCacheKey + "' cannot be migrated"
+    );
+    verify(previousCache, never()).read(cpdDataCacheKey);
   }
 
   @Test
@@ -261,7 +529,7 @@ class CacheStrategyTest {
       inputStream("invalid-cpd-stringTable")
     );
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -269,6 +537,7 @@ class CacheStrategyTest {
     verify(previousCache).read(cpdStringTableCacheKey);
     verify(nextCache, never()).copyFromPrevious(cpdDataCacheKey);
     verify(nextCache, never()).copyFromPrevious(cpdStringTableCacheKey);
+    verify(nextCache, never()).write(eq(recordCacheKey), any(InputStream.class));
   }
 
   @Test
@@ -291,7 +560,7 @@ class CacheStrategyTest {
     when(previousCache.contains(astCacheKey)).thenReturn(true);
     when(previousCache.read(astCacheKey)).thenReturn(inputStream(new byte[] { 42 }));
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -313,7 +582,7 @@ class CacheStrategyTest {
       inputStream(serializationResult.getStringTable())
     );
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
+    var strategy = getStrategyFor(null, pluginVersion);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -346,7 +615,7 @@ class CacheStrategyTest {
 
     when(sensorContext.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -356,8 +625,7 @@ class CacheStrategyTest {
     verify(nextCache, never()).copyFromPrevious(cpdStringTableCacheKey);
 
     strategy.writeAnalysisToCache(new CacheAnalysis(CPD_TOKENS, null), inputFile);
-    verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
-    verify(nextCache).write(eq(cpdStringTableCacheKey), any(byte[].class));
+    verify(nextCache).write(eq(recordCacheKey), any(InputStream.class));
   }
 
   @Test
@@ -366,7 +634,7 @@ class CacheStrategyTest {
 
     when(sensorContext.canSkipUnchangedFiles()).thenReturn(false);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -376,8 +644,26 @@ class CacheStrategyTest {
     verify(nextCache, never()).copyFromPrevious(cpdStringTableCacheKey);
 
     strategy.writeAnalysisToCache(new CacheAnalysis(CPD_TOKENS, null), inputFile);
-    verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
-    verify(nextCache).write(eq(cpdStringTableCacheKey), any(byte[].class));
+    verify(nextCache).write(eq(recordCacheKey), any(InputStream.class));
+  }
+
+  @Test
+  void should_hash_file_before_analysis() throws IOException {
+    var testFile = baseDir.resolve("src/test.js");
+    when(inputFile.path()).thenReturn(testFile);
+    when(sensorContext.canSkipUnchangedFiles()).thenReturn(false);
+
+    var fileMetadata = FileMetadata.from(inputFile).toBinary();
+    var strategy = getStrategyFor(null, PLUGIN_VERSION);
+    assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+
+    Files.writeString(testFile, "changed during the analysis");
+    strategy.writeAnalysisToCache(new CacheAnalysis(CPD_TOKENS, null), inputFile);
+
+    var recordCaptor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache).write(eq(recordCacheKey), recordCaptor.capture());
+    var record = AnalysisRecord.read(CacheCodec.decode(recordCaptor.getValue()));
+    assertThat(record.readSection(AnalysisRecord.Section.FILE_METADATA)).isEqualTo(fileMetadata);
   }
 
   @Test
@@ -407,7 +693,7 @@ class CacheStrategyTest {
     var cacheKey = CacheKey.forFile(inputFile, pluginVersion);
     var metadataKey = cacheKey.forFileMetadata().toString();
 
-    var cacheStrategy = CacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
+    var cacheStrategy = getStrategyFor(inputFile, null, pluginVersion);
     assertThat(cacheStrategy.getName()).isEqualTo("WRITE_ONLY");
     verify(previousCache).contains(metadataKey);
     verify(previousCache, never()).read(metadataKey);
@@ -417,12 +703,68 @@ class CacheStrategyTest {
     when(previousCache.read(metadataKey)).thenReturn(
       inputStream(new Gson().toJson(FileMetadata.from(inputFile)))
     );
-    CacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
+    getStrategyFor(inputFile, null, pluginVersion);
 
     verify(previousCache).contains(metadataKey);
     verify(previousCache).read(metadataKey);
   }
 
+  /**
+   * Writes a record as a previous analysis would have, along with its project string table.
+   */
+  private ByteString cachedRecord(CacheAnalysis analysis) throws IOException {
+    var stringTable = ProjectStringTable.load(sensorContext, stringTableCacheKey);
+    var record = new AnalysisRecordSerialization(
+      sensorContext,
+      CacheKey.forFile(inputFile, PLUGIN_VERSION).forAnalysis(),
+      stringTable
+    ).toEntry(analysis, FileMetadata.from(inputFile));
+    stringTable.save();
+    mockStringTable(lastSavedStringTable());
+    return record;
+  }
+
+  private CacheStrategy getStrategyFor(@Nullable AstScope astScope, String pluginVersion)
+    throws IOException {
+    return getStrategyFor(inputFile, astScope, pluginVersion);
+  }
+
+  private CacheStrategy getStrategyFor(
+    InputFile inputFile,
+    @Nullable AstScope astScope,
+    String pluginVersion
+  ) throws IOException {
+    return CacheStrategies.getStrategyFor(
+      context,
+      inputFile,
+      astScope,
+      analysisStringTable,
+      pluginVersion
+    );
+  }
+
+  /**
+   * Saves the project string table of the analysis, and reads it back as the next analysis would.
+   */
+  private ProjectStringTable savedStringTable() throws IOException {
+    analysisStringTable.save();
+    mockStringTable(lastSavedStringTable());
+    return ProjectStringTable.load(sensorContext, stringTableCacheKey);
+  }
+
+  private void mockStringTable(byte[] bytes) {
+    when(previousCache.contains(stringTableCacheKey.toString())).thenReturn(true);
+    when(previousCache.read(stringTableCacheKey.toString())).thenAnswer(invocation ->
+      inputStream(bytes)
+    );
+  }
+
+  private byte[] lastSavedStringTable() throws IOException {
+    var captor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache, atLeastOnce()).write(eq(stringTableCacheKey.toString()), captor.capture());
+    return captor.getValue().readAllBytes();
+  }
+
   private Path createFile(Path filePath) {
     try {
       Files.createDirectories(filePath.getParent());
@@ -73,7 +73,7 @@ public class CacheTestUtils {
   public static SensorContextTester createContextWithCache(
     Path baseDir,
     Path workDir,
-    String filePath
+    String... filePaths
   ) throws IOException {
     var context = SensorContextTester.create(baseDir.toRealPath());
     context.fileSystem().setWorkDir(workDir);
@@ -89,36 +89,36 @@ public class CacheTestUtils {
     context.setCanSkipUnchangedFiles(true);
 
     var cache = context.previousCache();
-
-    when(cache.contains("js:cpd:DATA:1.0:moduleKey:" + filePath)).thenReturn(true);
-    when(cache.contains("js:cpd:STRING_TABLE:1.0:moduleKey:" + filePath)).thenReturn(true);
-
-    try {
-      var result = getSerializedCpdTokens(getCpdTokens());
-      when(cache.read("js:cpd:DATA:1.0:moduleKey:" + filePath)).thenReturn(
-        new ByteArrayInputStream(result.getData())
+    for (var filePath : filePaths) {
+      when(cache.contains("js:cpd:DATA:1.0:moduleKey:" + filePath)).thenReturn(true);
+      when(cache.contains("js:cpd:STRING_TABLE:1.0:moduleKey:" + filePath)).thenReturn(true);
+
+      try {
+        var result = getSerializedCpdTokens(getCpdTokens());
+        when(cache.read("js:cpd:DATA:1.0:moduleKey:" + filePath)).thenReturn(
+          new ByteArrayInputStream(result.getData())
+        );
+        when(cache.read("js:cpd:STRING_TABLE:1.0:moduleKey:" + filePath)).thenReturn(
+          new ByteArrayInputStream(result.getStringTable())
+        );
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      when(cache.contains("js:filemetadata:1.0:moduleKey:" + filePath)).thenReturn(true);
+      when(cache.read("js:filemetadata:1.0:moduleKey:" + filePath)).thenReturn(
+        inputStream(
+          "{\"size\":34,\"hash\":[120,-1,2,107,126,-7,-110,-102,-107,78,32,-2,-9,-128,80,8]}"
+        )
       );
-      when(cache.read("js:cpd:STRING_TABLE:1.0:moduleKey:" + filePath)).thenReturn(
-        new ByteArrayInputStream(result.getStringTable())
+
+      when(cache.contains("js:ast:1.0:moduleKey:" + filePath)).thenReturn(true);
+      Node node = Node.newBuilder().setProgram(Program.newBuilder().build()).build();
+      when(cache.read("js:ast:1.0:moduleKey:" + filePath)).thenReturn(
+        inputStream(node.toByteArray())
       );
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
     }
 
-    when(cache.contains("js:filemetadata:1.0:moduleKey:" + filePath)).thenReturn(true);
-    when(cache.read("js:filemetadata:1.0:moduleKey:" + filePath)).thenReturn(
-      inputStream(
-        "{\"size\":34,\"hash\":[-58,-66,77,-102,-13,-49,96,126,-125,-65,-111,109,-34,85,27,97,46,-58,-76,113," +
-          "-97,53,64,108,112,-2,104,-75,-23,-111,119,77]}"
-      )
-    );
-
-    when(cache.contains("js:ast:1.0:moduleKey:" + filePath)).thenReturn(true);
-    Node node = Node.newBuilder().setProgram(Program.newBuilder().build()).build();
-    when(cache.read("js:ast:1.0:moduleKey:" + filePath)).thenReturn(
-      inputStream(node.toByteArray())
-    );
-
     return context;
   }
 
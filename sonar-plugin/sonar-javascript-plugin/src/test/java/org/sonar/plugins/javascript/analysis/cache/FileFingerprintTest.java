@@ -0,0 +1,86 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
+
+class FileFingerprintTest {
+
+  @TempDir
+  Path baseDir;
+
+  @Test
+  void should_hash_files_on_disk_once() throws Exception {
+    var path = Files.writeString(baseDir.resolve("file.ts"), "abc");
+    Files.setLastModifiedTime(path, FileTime.fromMillis(1_000));
+    var fingerprint = FileFingerprint.of(inputFile(InputFile.Status.CHANGED));
+
+    assertThat(fingerprint.size()).isEqualTo(3);
+    assertThat(fingerprint.isUnchangedOnDisk(1_000)).isTrue();
+    assertThat(fingerprint.isUnchangedOnDisk(2_000)).isFalse();
+
+    var hash = fingerprint.hash();
+    Files.writeString(path, "def");
+    assertThat(fingerprint.hash()).isSameAs(hash);
+    assertThat(fingerprint.toMetadata().match(fingerprint)).isEqualTo(
+      FileMetadata.Match.UNCHANGED_WITHOUT_READ
+    );
+    assertThat(FileMetadata.from(inputFile(InputFile.Status.CHANGED)).match(fingerprint)).isEqualTo(
+      FileMetadata.Match.CHANGED
+    );
+  }
+
+  @Test
+  void should_clear_files_reported_as_same_without_reading_them() throws Exception {
+    Files.writeString(baseDir.resolve("file.ts"), "abc");
+    var fingerprint = FileFingerprint.of(inputFile(InputFile.Status.SAME));
+
+    assertThat(fingerprint.isUnchangedOnDisk(0)).isTrue();
+  }
+
+  @Test
+  void should_hash_files_in_memory_right_away() throws Exception {
+    var file = TestInputFileBuilder.create("module", "file.ts")
+      .setContents("abc")
+      .setCharset(StandardCharsets.UTF_8)
+      .setStatus(InputFile.Status.SAME)
+      .build();
+
+    var fingerprint = FileFingerprint.of(file);
+
+    assertThat(fingerprint.size()).isEqualTo(3);
+    assertThat(fingerprint.isUnchangedOnDisk(0)).isFalse();
+    assertThat(fingerprint.hash()).hasSize(16);
+  }
+
+  private InputFile inputFile(InputFile.Status status) {
+    return TestInputFileBuilder.create("module", "file.ts")
+      .setModuleBaseDir(baseDir)
+      .setCharset(StandardCharsets.UTF_8)
+      .setStatus(status)
+      .build();
+  }
+}
@@ -16,14 +16,24 @@
  */
 package org.sonar.plugins.javascript.analysis.cache;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
 import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
 
 class FileMetadataTest {
 
+  @TempDir
+  Path baseDir;
+
   @Test
   void test() throws Exception {
     var file = TestInputFileBuilder.create("module", "file.ts")
@@ -51,4 +61,79 @@ class FileMetadataTest {
       .build();
     assertThat(metadata.compareTo(diffContent)).isFalse();
   }
+
+  @Test
+  void should_clear_files_on_disk_without_reading_them() throws Exception {
+    var path = write("abc", 1_000);
+    var metadata = FileMetadata.from(inputFile(InputFile.Status.CHANGED));
+
+    assertThat(metadata.match(inputFile(InputFile.Status.CHANGED))).isEqualTo(
+      FileMetadata.Match.UNCHANGED_WITHOUT_READ
+    );
+
+    Files.setLastModifiedTime(path, FileTime.fromMillis(2_000));
+    assertThat(metadata.match(inputFile(InputFile.Status.SAME))).isEqualTo(
+      FileMetadata.Match.UNCHANGED_WITHOUT_READ
+    );
+    assertThat(metadata.match(inputFile(InputFile.Status.CHANGED))).isEqualTo(
+      FileMetadata.Match.UNCHANGED
+    );
+
+    write("def", 3_000);
+    assertThat(metadata.match(inputFile(InputFile.Status.CHANGED))).isEqualTo(
+      FileMetadata.Match.CHANGED
+    );
+
+    write("abcd", 1_000);
+    assertThat(metadata.match(inputFile(InputFile.Status.SAME))).isEqualTo(
+      FileMetadata.Match.CHANGED
+    );
+  }
+
+  @Test
+  void should_read_binary_form() throws Exception {
+    write("abc", 1_000);
+    var metadata = FileMetadata.from(inputFile(InputFile.Status.CHANGED));
+
+    var bytes = metadata.toBinary();
+    assertThat(bytes).hasSize(FileMetadata.BINARY_SIZE);
+
+    var read = FileMetadata.fromBinary(bytes);
+    assertThat(read.match(inputFile(InputFile.Status.CHANGED))).isEqualTo(
+      FileMetadata.Match.UNCHANGED_WITHOUT_READ
+    );
+    write("def", 2_000);
+    assertThat(read.match(inputFile(InputFile.Status.CHANGED))).isEqualTo(
+      FileMetadata.Match.CHANGED
+    );
+  }
+
+  @Test
+  void should_fail_on_invalid_binary_form() {
+    assertThatThrownBy(() -> FileMetadata.fromBinary(new byte[] { 1, 2, 3 }))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Invalid size of file metadata: 3");
+  }
+
+  @Test
+  void should_not_write_hash_of_another_algorithm() {
+    var metadata = new FileMetadata(3, 0, new byte[32]);
+    assertThatThrownBy(metadata::toBinary)
+      .isInstanceOf(IOException.class)
+      .hasMessage("Unsupported hash in file metadata");
+  }
+
+  private Path write(String contents, long lastModified) throws Exception {
+    var path = Files.writeString(baseDir.resolve("file.ts"), contents);
+    Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified));
+    return path;
+  }
+
+  private InputFile inputFile(InputFile.Status status) {
+    return TestInputFileBuilder.create("module", "file.ts")
+      .setModuleBaseDir(baseDir)
+      .setCharset(StandardCharsets.UTF_8)
+      .setStatus(status)
+      .build();
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.javascript.analysis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.event.Level;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+import org.sonar.scanner.plugin.api.impl.config.MapSettings;
+
+class ProjectStringTableTest {
+
+  private static final CacheKey CACHE_KEY = CacheKey.forProject("1.0.0").forCpdStringTable();
+
+  @RegisterExtension
+  LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  SensorContext context;
+  ReadCache previousCache;
+  WriteCache nextCache;
+
+  @BeforeEach
+  void setUp() {
+    context = mock(SensorContext.class);
+    previousCache = mock(ReadCache.class);
+    nextCache = mock(WriteCache.class);
+    when(context.previousCache()).thenReturn(previousCache);
+    when(context.nextCache()).thenReturn(nextCache);
+    when(context.config()).thenReturn(new MapSettings().asConfig());
+  }
+
+  @Test
+  void should_start_a_new_table_when_missing() {
+    var table = ProjectStringTable.load(context, CACHE_KEY);
+
+    assertThat(table.isCompacted()).isTrue();
+    assertThat(table.generation()).isPositive();
+    assertThatThrownBy(() -> table.strings(table.generation()))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Unknown generation of the project string table: " + table.generation());
+  }
+
+  @Test
+  void should_start_a_new_table_when_unreadable() {
+    mockPreviousTable(new byte[] { 0, 1, 2, 3 });
+    logTester.setLevel(Level.WARN);
+
+    var table = ProjectStringTable.load(context, CACHE_KEY);
+
+    assertThat(table.isCompacted()).isTrue();
+    assertThat(logTester.logs(Level.WARN)).containsExactly(
+      "Failure when reading the project string table, starting a new one"
+    );
+  }
+
+  @Test
+  void should_read_saved_table() throws IOException {
+    var table = ProjectStringTable.load(context, CACHE_KEY);
+    assertThat(table.indexesOf(List.of("a", "b", "a"))).containsExactly(0, 1, 0);
+    table.save();
+    mockPreviousTable(savedTable());
+
+    var loaded = ProjectStringTable.load(context, CACHE_KEY);
+
+    assertThat(loaded.isCompacted()).isFalse();
+    assertThat(loaded.generation()).isEqualTo(table.generation());
+    assertThat(loaded.strings(table.generation())).containsExactly("a", "b");
+  }
+
+  @Test
+  void should_only_append_strings() throws IOException {
+    var table = ProjectStringTable.load(context, CACHE_KEY);
+    table.indexesOf(List.of("a", "b"));
+    table.save();
+    mockPreviousTable(savedTable());
+
+    var loaded = ProjectStringTable.load(context, CACHE_KEY);
+
+    assertThat(loaded.indexesOf(List.of("c", "b"))).containsExactly(2, 1);
+    loaded.save();
+    mockPreviousTable(savedTable());
+    assertThat(ProjectStringTable.load(context, CACHE_KEY).strings(loaded.generation()))
+      .containsExactly("a", "b", "c");
+  }
+
+  @Test
+  void should_compact_table_with_too_many_unused_strings() throws IOException {
+    var table = ProjectStringTable.load(context, CACHE_KEY);
+    table.indexesOf(
+      IntStream.range(0, ProjectStringTable.MIN_UNUSED_STRINGS_TO_COMPACT + 1)
+        .mapToObj(String::valueOf)
+        .toList()
+    );
+    table.save();
+    mockPreviousTable(savedTable());
+
+    // an analysis where only a single string is used by the copied entries
+    var unused = ProjectStringTable.load(context, CACHE_KEY);
+    var used = new BitSet();
+    used.set(42);
+    unused.markUsed(used);
+    assertThat(unused.isCompacted()).isFalse();
+    unused.save();
+    mockPreviousTable(savedTable());
+
+    var compacted = ProjectStringTable.load(context, CACHE_KEY);
+    assertThat(compacted.isCompacted()).isTrue();
+    assertThat(compacted.generation()).isNotEqualTo(table.generation());
+    // entries of the previous generation are still readable
+    assertThat(compacted.strings(table.generation())).hasSize(
+      ProjectStringTable.MIN_UNUSED_STRINGS_TO_COMPACT + 1
+    );
+    assertThat(compacted.indexesOf(List.of("42", "new"))).containsExactly(0, 1);
+  }
+
+  @Test
+  void should_not_compact_table_with_few_unused_strings() throws IOException {
+    var table = ProjectStringTable.load(context, CACHE_KEY);
+    table.indexesOf(List.of("a", "b"));
+    table.save();
+    mockPreviousTable(savedTable());
+    ProjectStringTable.load(context, CACHE_KEY).save();
+    mockPreviousTable(savedTable());
+
+    var loaded = ProjectStringTable.load(context, CACHE_KEY);
+
+    assertThat(loaded.isCompacted()).isFalse();
+    assertThat(loaded.strings(table.generation())).containsExactly("a", "b");
+  }
+
+  @Test
+  void should_belong_to_context_and_key() {
+    var table = ProjectStringTable.load(context, CACHE_KEY);
+
+    var otherVersion = CacheKey.forProject("2.0.0").forCpdStringTable();
+    assertThat(table.belongsTo(context, CacheKey.forProject("1.0.0").forCpdStringTable())).isTrue();
+    assertThat(table.belongsTo(context, otherVersion)).isFalse();
+    assertThat(table.belongsTo(mock(SensorContext.class), CACHE_KEY)).isFalse();
+  }
+
+  private void mockPreviousTable(byte[] bytes) {
+    when(previousCache.contains(CACHE_KEY.toString())).thenReturn(true);
+    when(previousCache.read(CACHE_KEY.toString())).thenAnswer(invocation ->
+      new ByteArrayInputStream(bytes)
+    );
+  }
+
+  private byte[] savedTable() throws IOException {
+    var captor = ArgumentCaptor.forClass(InputStream.class);
+    verify(nextCache, atLeastOnce()).write(eq(CACHE_KEY.toString()), captor.capture());
+    return captor.getValue().readAllBytes();
+  }
+}
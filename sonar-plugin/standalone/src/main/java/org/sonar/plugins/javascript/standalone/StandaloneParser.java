@@ -196,9 +196,7 @@ public class StandaloneParser implements AutoCloseable {
   }
 
   private static Node responseAst(ProjectAnalysisFileResult response) throws IOException {
-    return response.getAst().isEmpty()
-      ? null
-      : AstProtoUtils.readProtobufFromBytes(response.getAst().toByteArray());
+    return response.getAst().isEmpty() ? null : AstProtoUtils.readProtobuf(response.getAst());
   }
 
   @Override